@@ -12,6 +12,9 @@ import org.eclipse.ui.IWorkbenchWindow;
 import org.eclipse.ui.PlatformUI;
 
 import phasereditor.assetexplorer.ui.views.AssetExplorer;
+import phasereditor.assetexplorer.ui.views.AssetExplorerRefreshScheduler.Changes;
+import phasereditor.assetpack.core.AssetPackBuildParticipant;
+import phasereditor.assetpack.core.AssetPackCore.PackDelta;
 import phasereditor.project.core.IProjectBuildParticipant;
 
 public class AssetsExplorerProjectBuildParticipant implements IProjectBuildParticipant {
@@ -26,25 +29,36 @@ public class AssetsExplorerProjectBuildParticipant implements IProjectBuildParti
 
 	@Override
 	public void clean(IProject project, Map<String, Object> env) {
-		swtRun(AssetsExplorerProjectBuildParticipant::refreshExplorer);
+		refreshExplorer(Changes.fullRefresh());
 	}
 
 	@Override
 	public void projectDeleted(IProject project, Map<String, Object> env) {
-		swtRun(AssetsExplorerProjectBuildParticipant::refreshExplorer);
+		refreshExplorer(Changes.fullRefresh());
 	}
 
 	@Override
 	public void build(IProject project, IResourceDelta delta, Map<String, Object> env) {
-		swtRun(AssetsExplorerProjectBuildParticipant::refreshExplorer);
+		PackDelta packDelta = AssetPackBuildParticipant.getData(env);
+
+		// the delta is not valid later, so the changes are computed now
+		Changes changes = Changes.fromDelta(project, delta, packDelta);
+
+		if (!changes.isEmpty()) {
+			refreshExplorer(changes);
+		}
 	}
 
 	@Override
 	public void fullBuild(IProject project, Map<String, Object> env) {
-		swtRun(AssetsExplorerProjectBuildParticipant::refreshExplorer);
+		refreshExplorer(Changes.fullRefresh());
+	}
+
+	private static void refreshExplorer(Changes changes) {
+		swtRun(() -> refreshExplorer_UI(changes));
 	}
 
-	private static void refreshExplorer() {
+	private static void refreshExplorer_UI(Changes changes) {
 		IWorkbenchWindow window = PlatformUI.getWorkbench().getActiveWorkbenchWindow();
 		IWorkbenchPage page = window.getActivePage();
 		IViewReference[] refs = page.getViewReferences();
@@ -52,7 +66,7 @@ public class AssetsExplorerProjectBuildParticipant implements IProjectBuildParti
 			if (ref.getId().equals(AssetExplorer.ID)) {
 				AssetExplorer view = (AssetExplorer) ref.getView(false);
 				if (view != null) {
-					view.refreshContent();
+					view.getRefreshScheduler().schedule(changes);
 				}
 			}
 		}
@@ -76,6 +76,7 @@ public class AssetExplorer extends ViewPart {
 	public static final String ID = "phasereditor.assetpack.views.assetExplorer";
 	TreeViewer _viewer;
 	private FilteredTree _filteredTree;
+	private AssetExplorerRefreshScheduler _refreshScheduler;
 	// private AssetExplorerLabelProvider _treeLabelProvider;
 	// private AssetExplorerContentProvider _treeContentProvider;
 	// private AssetExplorerListLabelProvider _listLabelProvider;
@@ -116,7 +117,10 @@ public class AssetExplorer extends ViewPart {
 		});
 		Tree tree = _viewer.getTree();
 		tree.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true, 1, 1));
-		_viewer.setContentProvider(new AssetExplorerContentProvider());
+		_refreshScheduler = new AssetExplorerRefreshScheduler(this);
+		AssetExplorerContentProvider contentProvider = new AssetExplorerContentProvider();
+		contentProvider.setRefreshScheduler(_refreshScheduler);
+		_viewer.setContentProvider(contentProvider);
 		_viewer.setLabelProvider(new AssetExplorerLabelProvider());
 
 		afterCreateWidgets();
@@ -196,6 +200,7 @@ public class AssetExplorer extends ViewPart {
 
 		AssetPackUI.installAssetTooltips(_viewer);
 		CanvasUI.installCanvasTooltips(_viewer);
+		CanvasUI.installScreenshotRefresh(_viewer);
 
 		// undo context
 
@@ -245,6 +250,14 @@ public class AssetExplorer extends ViewPart {
 		// changeViewMode(_treeLabelProvider, _treeContentProvider);
 	}
 
+	public TreeViewer getViewer() {
+		return _viewer;
+	}
+
+	public AssetExplorerRefreshScheduler getRefreshScheduler() {
+		return _refreshScheduler;
+	}
+
 	public void refreshContent() {
 		if (_viewer.getControl().isDisposed()) {
 			return;
@@ -222,27 +222,31 @@ class AssetExplorerContentProvider extends AssetsContentProvider {
 	}
 
 	Object _lastToken = null;
+	private AssetExplorerRefreshScheduler _refreshScheduler;
 
+	public void setRefreshScheduler(AssetExplorerRefreshScheduler refreshScheduler) {
+		_refreshScheduler = refreshScheduler;
+	}
+
+	/**
+	 * The content only depends on the active project, so the viewer is
+	 * refreshed only if it changed. The part events are coalesced by the
+	 * scheduler.
+	 */
 	void refreshViewer() {
 		if (PlatformUI.getWorkbench().isClosing()) {
 			return;
 		}
 
-		if (_viewer == null) {
+		if (_viewer == null || _refreshScheduler == null) {
 			return;
 		}
 
-		_viewer.getTree().setRedraw(false);
-		try {
-			_viewer.refresh();
+		IProject project = getActiveProject();
 
-			IProject project = getActiveProject();
-			if (project != _lastToken) {
-				_viewer.expandToLevel(4);
-				_lastToken = project;
-			}
-		} finally {
-			_viewer.getTree().setRedraw(true);
+		if (project != _lastToken) {
+			_lastToken = project;
+			_refreshScheduler.scheduleActiveProjectChanged();
 		}
 	}
 }
\ No newline at end of file
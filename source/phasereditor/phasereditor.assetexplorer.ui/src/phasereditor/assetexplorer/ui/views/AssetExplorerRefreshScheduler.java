@@ -0,0 +1,214 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2015, 2017 Arian Fornaris
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions: The above copyright notice and this permission
+// notice shall be included in all copies or substantial portions of the
+// Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+package phasereditor.assetexplorer.ui.views;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.jface.viewers.TreeViewer;
+import org.eclipse.swt.widgets.Display;
+
+import phasereditor.assetpack.core.AssetModel;
+import phasereditor.assetpack.core.AssetPackCore;
+import phasereditor.assetpack.core.AssetPackCore.PackDelta;
+import phasereditor.canvas.core.CanvasCore;
+import phasereditor.canvas.core.CanvasFile;
+import phasereditor.canvas.core.CanvasType;
+
+/**
+ * Collects the refresh requests of the {@link AssetExplorer} and applies them
+ * together, some milliseconds later. A full refresh is done only if a
+ * structural change was requested (an asset pack was added, removed or
+ * reloaded, or the active project changed), else only the affected elements
+ * are refreshed.
+ * 
+ * @author arian
+ *
+ */
+public class AssetExplorerRefreshScheduler {
+	private static final int REFRESH_DELAY = 150;
+
+	private AssetExplorer _view;
+	private boolean _scheduled;
+	private boolean _fullRefresh;
+	private boolean _expand;
+	private Set<Object> _toRefresh;
+	private Set<Object> _toUpdate;
+
+	public AssetExplorerRefreshScheduler(AssetExplorer view) {
+		_view = view;
+		_toRefresh = new LinkedHashSet<>();
+		_toUpdate = new LinkedHashSet<>();
+	}
+
+	/**
+	 * The changes to apply in the viewer. It is computed in the builder
+	 * thread, because the resource delta is not valid after the build.
+	 */
+	public static class Changes {
+		boolean fullRefresh;
+		Set<Object> toRefresh = new LinkedHashSet<>();
+		Set<Object> toUpdate = new LinkedHashSet<>();
+
+		public static Changes fullRefresh() {
+			Changes changes = new Changes();
+			changes.fullRefresh = true;
+			return changes;
+		}
+
+		public static Changes fromDelta(IProject project, IResourceDelta delta, PackDelta packDelta) {
+			Changes changes = new Changes();
+
+			if (packDelta != null && !packDelta.getPacks().isEmpty()) {
+				changes.fullRefresh = true;
+				return changes;
+			}
+
+			try {
+				delta.accept(d -> {
+					IResource resource = d.getResource();
+
+					if (changes.fullRefresh || !(resource instanceof IFile)) {
+						return !changes.fullRefresh;
+					}
+
+					IFile file = (IFile) resource;
+					String ext = file.getFileExtension();
+
+					if ("json".equals(ext)) {
+						// the pack models are replaced when the files change
+						if (d.getKind() == IResourceDelta.REMOVED || AssetPackCore.isAssetPackFile(file)) {
+							changes.fullRefresh = true;
+						}
+					} else if ("canvas".equals(ext)) {
+						if (d.getKind() == IResourceDelta.CHANGED) {
+							CanvasFile cfile = CanvasCore.getCanvasFileCache().getFileData(file);
+							if (cfile != null) {
+								changes.toUpdate.add(cfile);
+							}
+						} else {
+							for (CanvasType type : CanvasType.values()) {
+								changes.toRefresh.add(type);
+							}
+						}
+					}
+
+					return true;
+				});
+			} catch (CoreException e) {
+				e.printStackTrace();
+				changes.fullRefresh = true;
+			}
+
+			if (packDelta != null && packDelta.inProject(project)) {
+				for (AssetModel asset : packDelta.getAssets()) {
+					changes.toRefresh.add(asset);
+				}
+			}
+
+			return changes;
+		}
+
+		public boolean isEmpty() {
+			return !fullRefresh && toRefresh.isEmpty() && toUpdate.isEmpty();
+		}
+	}
+
+	public void schedule(Changes changes) {
+		if (changes.isEmpty()) {
+			return;
+		}
+
+		_fullRefresh = _fullRefresh || changes.fullRefresh;
+		_toRefresh.addAll(changes.toRefresh);
+		_toUpdate.addAll(changes.toUpdate);
+
+		schedule();
+	}
+
+	public void scheduleFullRefresh() {
+		_fullRefresh = true;
+		schedule();
+	}
+
+	/**
+	 * The content depends on the active project, so when it changes, the
+	 * viewer is fully refreshed and expanded.
+	 */
+	public void scheduleActiveProjectChanged() {
+		_expand = true;
+		scheduleFullRefresh();
+	}
+
+	private void schedule() {
+		if (_scheduled) {
+			return;
+		}
+
+		_scheduled = true;
+
+		Display.getCurrent().timerExec(REFRESH_DELAY, this::flush);
+	}
+
+	private void flush() {
+		_scheduled = false;
+
+		TreeViewer viewer = _view.getViewer();
+
+		if (viewer.getControl().isDisposed()) {
+			return;
+		}
+
+		if (_fullRefresh) {
+			_view.refreshContent();
+
+			if (_expand) {
+				viewer.expandToLevel(4);
+			}
+		} else {
+			viewer.getTree().setRedraw(false);
+			try {
+				for (Object elem : _toRefresh) {
+					viewer.refresh(elem, true);
+				}
+
+				_toUpdate.removeAll(_toRefresh);
+
+				if (!_toUpdate.isEmpty()) {
+					viewer.update(_toUpdate.toArray(), null);
+				}
+			} finally {
+				viewer.getTree().setRedraw(true);
+			}
+		}
+
+		_fullRefresh = false;
+		_expand = false;
+		_toRefresh.clear();
+		_toUpdate.clear();
+	}
+}
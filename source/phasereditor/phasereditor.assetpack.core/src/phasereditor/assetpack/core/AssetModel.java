@@ -469,6 +469,28 @@ public abstract class AssetModel implements IAssetKey, IAdaptable {
 		return touched.get();
 	}
 
+	/**
+	 * Like {@link #touched(IResourceDelta)} but with the full paths of the
+	 * changed resources, including the source and destination of the moves.
+	 * It can be used when the delta is not valid anymore.
+	 */
+	public boolean touched(Set<IPath> changedPaths) {
+		AssetModel asset = getAsset();
+
+		List<IFile> list = new ArrayList<>();
+		list.add(asset.getPack().getFile());
+		list.addAll(Arrays.asList(asset.computeUsedFiles()));
+		list.addAll(Arrays.asList(asset.getLastUsedFiles()));
+
+		for (IFile used : list) {
+			if (used != null && changedPaths.contains(used.getFullPath())) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
 	public abstract void fileChanged(IFile file, IFile newFile);
 
 	public AssetModel copy(AssetSectionModel section) {
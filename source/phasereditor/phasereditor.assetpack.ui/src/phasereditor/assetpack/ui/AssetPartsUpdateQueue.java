@@ -0,0 +1,246 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2015, 2017 Arian Fornaris
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions: The above copyright notice and this permission
+// notice shall be included in all copies or substantial portions of the
+// Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+package phasereditor.assetpack.ui;
+
+import static phasereditor.ui.PhaserEditorUI.swtRun;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.ui.IEditorReference;
+import org.eclipse.ui.IViewReference;
+import org.eclipse.ui.IWorkbenchPage;
+import org.eclipse.ui.IWorkbenchWindow;
+import org.eclipse.ui.PlatformUI;
+
+import phasereditor.assetpack.core.AssetModel;
+import phasereditor.assetpack.core.AssetPackCore.PackDelta;
+import phasereditor.assetpack.core.IAssetKey;
+import phasereditor.assetpack.ui.editors.AssetPackEditor;
+import phasereditor.ui.views.PreviewView;
+
+/**
+ * Collects the changes of the builds and updates the preview views and the
+ * asset pack editors with a single UI runnable. The changes of the builds
+ * done while the runnable is waiting are merged, so every part is refreshed
+ * at most one time, and only if it shows an element that changed.
+ * 
+ * @author arian
+ *
+ */
+public class AssetPartsUpdateQueue {
+	private static AssetPartsUpdateQueue _instance = new AssetPartsUpdateQueue();
+
+	private boolean _scheduled;
+	private boolean _refreshAll;
+	private Set<IPath> _changedPaths;
+	private Set<IPath> _removedPaths;
+	private Map<IPath, IPath> _movedPaths;
+	private Set<IPath> _changedPacks;
+
+	public AssetPartsUpdateQueue() {
+		_changedPaths = new HashSet<>();
+		_removedPaths = new HashSet<>();
+		_movedPaths = new HashMap<>();
+		_changedPacks = new HashSet<>();
+	}
+
+	public static AssetPartsUpdateQueue getInstance() {
+		return _instance;
+	}
+
+	/**
+	 * Add the changes of a build. It is called in the builder thread, the
+	 * delta is not accessed later.
+	 */
+	public void add(IResourceDelta delta, PackDelta packDelta) {
+		Set<IPath> changed = new HashSet<>();
+		Set<IPath> removed = new HashSet<>();
+		Set<IPath> added = new HashSet<>();
+		Map<IPath, IPath> moved = new HashMap<>();
+
+		try {
+			delta.accept(d -> {
+				IPath path = d.getResource().getFullPath();
+
+				changed.add(path);
+
+				if (d.getKind() == IResourceDelta.REMOVED) {
+					IPath movedTo = d.getMovedToPath();
+					if (movedTo == null) {
+						removed.add(path);
+					} else {
+						moved.put(path, movedTo);
+						changed.add(movedTo);
+					}
+				} else if (d.getKind() == IResourceDelta.ADDED) {
+					added.add(path);
+				}
+
+				IPath movedFrom = d.getMovedFromPath();
+				if (movedFrom != null) {
+					changed.add(movedFrom);
+				}
+
+				return true;
+			});
+		} catch (CoreException e) {
+			AssetPackUI.logError(e);
+		}
+
+		synchronized (this) {
+			_changedPaths.addAll(changed);
+			// a file removed by a previous build could be restored
+			_removedPaths.removeAll(added);
+			_removedPaths.addAll(removed);
+			_movedPaths.putAll(moved);
+
+			if (packDelta != null) {
+				for (AssetModel asset : packDelta.getAssets()) {
+					_changedPacks.add(asset.getPack().getFile().getFullPath());
+				}
+			}
+
+			schedule();
+		}
+	}
+
+	/**
+	 * Request to refresh the preview of all the views.
+	 */
+	public synchronized void addRefreshAll() {
+		_refreshAll = true;
+		schedule();
+	}
+
+	private void schedule() {
+		if (!_scheduled) {
+			_scheduled = true;
+			swtRun(this::flush);
+		}
+	}
+
+	private void flush() {
+		boolean refreshAll;
+		Set<IPath> changedPaths;
+		Set<IPath> removedPaths;
+		Map<IPath, IPath> movedPaths;
+		Set<IPath> changedPacks;
+
+		synchronized (this) {
+			refreshAll = _refreshAll;
+			changedPaths = _changedPaths;
+			removedPaths = _removedPaths;
+			movedPaths = _movedPaths;
+			changedPacks = _changedPacks;
+
+			_refreshAll = false;
+			_changedPaths = new HashSet<>();
+			_removedPaths = new HashSet<>();
+			_movedPaths = new HashMap<>();
+			_changedPacks = new HashSet<>();
+			_scheduled = false;
+		}
+
+		if (PlatformUI.getWorkbench().isClosing()) {
+			return;
+		}
+
+		IWorkbenchWindow window = PlatformUI.getWorkbench().getActiveWorkbenchWindow();
+		IWorkbenchPage page = window.getActivePage();
+
+		for (IViewReference ref : page.getViewReferences()) {
+			if (ref.getId().equals(PreviewView.ID)) {
+				PreviewView view = (PreviewView) ref.getView(false);
+				if (view != null) {
+					updatePreviewView(view, refreshAll, changedPaths, removedPaths);
+				}
+			}
+		}
+
+		for (IEditorReference ref : page.getEditorReferences()) {
+			if (ref.getId().equals(AssetPackEditor.ID)) {
+				AssetPackEditor editor = (AssetPackEditor) ref.getEditor(false);
+				if (editor != null) {
+					updateAssetPackEditor(page, editor, removedPaths, movedPaths, changedPacks);
+				}
+			}
+		}
+	}
+
+	private void updatePreviewView(PreviewView view, boolean refreshAll, Set<IPath> changedPaths,
+			Set<IPath> removedPaths) {
+		Object elem = view.getPreviewElement();
+
+		if (elem instanceof IAssetKey) {
+			IAssetKey key = (IAssetKey) elem;
+			IAssetKey shared = key.getSharedVersion();
+
+			if (shared != key || refreshAll || shared.getAsset().touched(changedPaths)) {
+				view.preview(shared);
+			}
+		} else if (elem instanceof IFile) {
+			IFile file = (IFile) elem;
+			IPath path = file.getFullPath();
+
+			if ((refreshAll || removedPaths.contains(path)) && !file.exists()) {
+				view.preview(null);
+			} else if (refreshAll || changedPaths.contains(path)) {
+				view.preview(file);
+			}
+		}
+	}
+
+	private void updateAssetPackEditor(IWorkbenchPage page, AssetPackEditor editor, Set<IPath> removedPaths,
+			Map<IPath, IPath> movedPaths, Set<IPath> changedPacks) {
+		IFile file = editor.getEditorInput().getFile();
+		IPath path = file.getFullPath();
+
+		// handle a rename or deletion
+
+		if (removedPaths.contains(path) && !file.exists()) {
+			page.closeEditor(editor, true);
+			return;
+		}
+
+		IPath movedTo = movedPaths.get(path);
+
+		if (movedTo != null) {
+			IFile newFile = ResourcesPlugin.getWorkspace().getRoot().getFile(movedTo);
+			editor.handleFileRename(newFile);
+			path = movedTo;
+		}
+
+		// update content
+
+		if (changedPacks.contains(path)) {
+			editor.refresh();
+		}
+	}
+}
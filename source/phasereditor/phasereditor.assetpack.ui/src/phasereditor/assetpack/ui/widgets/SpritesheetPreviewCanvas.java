@@ -94,7 +94,7 @@ public class SpritesheetPreviewCanvas extends ImageCanvas implements MouseMoveLi
 
 				try {
 					PhaserEditorUI.paintPreviewBackground(gc, r);
-					gc.drawImage(_image, fd.src.x, fd.src.y, fd.src.width, fd.src.height, r.x, r.y, r.width, r.height);
+					paintImage(gc, fd.src.x, fd.src.y, fd.src.width, fd.src.height, r.x, r.y, r.width, r.height);
 				} catch (IllegalArgumentException e) {
 					// wrong parameters
 				}
@@ -201,11 +201,14 @@ public class SpritesheetPreviewCanvas extends ImageCanvas implements MouseMoveLi
 			return max;
 		}
 
-		if (_image == null) {
+		// the dimension is known while the image is loading
+		Rectangle imgBounds = getImageDimension();
+
+		if (imgBounds == null) {
 			return 0;
 		}
 
-		List<FrameData> list = AssetPackUI.generateSpriteSheetRects(_spritesheet, _image.getBounds(), getBounds());
+		List<FrameData> list = AssetPackUI.generateSpriteSheetRects(_spritesheet, imgBounds, getBounds());
 		return list.size();
 	}
 
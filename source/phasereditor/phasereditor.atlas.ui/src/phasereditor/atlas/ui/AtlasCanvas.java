@@ -85,7 +85,7 @@ public class AtlasCanvas extends ImageCanvas implements ControlListener, MouseMo
 					gc.setClipping(r);
 					Rectangle src = _image.getBounds();
 					Rectangle dst = PhaserEditorUI.computeImageZoom(src, getBounds());
-					gc.drawImage(_image, src.x, src.y, src.width, src.height, dst.x, dst.y, dst.width, dst.height);
+					paintImage(gc, src.x, src.y, src.width, src.height, dst.x, dst.y, dst.width, dst.height);
 					gc.setClipping((Rectangle) null);
 					gc.drawRectangle(r);
 
@@ -112,7 +112,7 @@ public class AtlasCanvas extends ImageCanvas implements ControlListener, MouseMo
 					_frame.getFrameH());
 			Rectangle z = PhaserEditorUI.computeImageZoom(src, dst);
 			PhaserEditorUI.paintPreviewBackground(gc, z);
-			gc.drawImage(_image, src.x, src.y, src.width, src.height, z.x, z.y, z.width, z.height);
+			paintImage(gc, src.x, src.y, src.width, src.height, z.x, z.y, z.width, z.height);
 		}
 	}
 
@@ -141,6 +141,12 @@ public class AtlasCanvas extends ImageCanvas implements ControlListener, MouseMo
 		_framesRects = list;
 	}
 
+	@Override
+	protected void imageChanged() {
+		// the image is loaded in background
+		generateFramesRects();
+	}
+
 	public void setFrames(List<? extends AtlasFrame> frames) {
 		_frames = frames;
 		generateFramesRects();
@@ -0,0 +1,161 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2015, 2017 Arian Fornaris
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions: The above copyright notice and this permission
+// notice shall be included in all copies or substantial portions of the
+// Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+package phasereditor.canvas.core.tests;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Test;
+
+import phasereditor.canvas.core.CanvasDependencyGraph;
+import phasereditor.canvas.core.CanvasFileDependencies;
+
+/**
+ * @author arian
+ *
+ */
+public class CanvasDependencyGraphTest {
+
+	private static final String PACK = "WebContent/assets/pack.json";
+
+	private static String assetKey(String key) {
+		return PACK + "/level/" + key;
+	}
+
+	private static JSONObject newSprite(String assetKey, String prefabFile) {
+		JSONObject data = new JSONObject();
+		data.put("type", "image");
+
+		JSONObject ref = new JSONObject();
+		ref.put("file", PACK);
+		ref.put("section", "level");
+		ref.put("asset", assetKey);
+		data.put("asset-ref", ref);
+
+		if (prefabFile != null) {
+			data.put("prefabFile", prefabFile);
+		}
+
+		return data;
+	}
+
+	private static CanvasFileDependencies newDeps(JSONObject... children) {
+		JSONObject world = new JSONObject();
+		world.put("type", "group");
+		JSONObject info = new JSONObject();
+		info.put("children", new JSONArray(Arrays.asList(children)));
+		world.put("info", info);
+
+		JSONObject data = new JSONObject();
+		data.put("world", world);
+
+		CanvasFileDependencies deps = new CanvasFileDependencies();
+		deps.read(data);
+		return deps;
+	}
+
+	/**
+	 * A project with 100 canvas files, where only a few of them use the
+	 * <code>hero</code> asset, directly or through prefabs.
+	 */
+	private static CanvasDependencyGraph createGraph() {
+		CanvasDependencyGraph graph = new CanvasDependencyGraph();
+
+		for (int i = 0; i < 100; i++) {
+			String key = i < 5 ? "hero" : "tree";
+			String prefab = null;
+
+			if (i >= 10 && i < 13) {
+				prefab = "prefabs/Enemy.canvas";
+			} else if (i == 20) {
+				prefab = "prefabs/Boss.canvas";
+			}
+
+			graph.update("levels/Level" + i + ".canvas", 1, newDeps(newSprite(key, null), newSprite("tree", prefab)));
+		}
+
+		graph.update("prefabs/Enemy.canvas", 1, newDeps(newSprite("hero", null)));
+		graph.update("prefabs/Boss.canvas", 1, newDeps(newSprite("tree", "prefabs/Enemy.canvas")));
+
+		return graph;
+	}
+
+	@Test
+	public void testChangeAssetKey() {
+		CanvasDependencyGraph graph = createGraph();
+
+		Set<String> affected = graph.findAffected(Collections.emptyList(), Collections.emptyList(),
+				Arrays.asList(assetKey("hero")));
+
+		// 5 levels use the asset, the Enemy prefab uses it, 3 levels use the
+		// Enemy, the Boss uses the Enemy and one level uses the Boss.
+		Assert.assertEquals(11, affected.size());
+		Assert.assertTrue(affected.contains("prefabs/Boss.canvas"));
+		Assert.assertTrue(affected.contains("levels/Level20.canvas"));
+		Assert.assertFalse(affected.contains("levels/Level30.canvas"));
+	}
+
+	@Test
+	public void testChangePrefab() {
+		CanvasDependencyGraph graph = createGraph();
+
+		Set<String> affected = graph.findAffected(Arrays.asList("prefabs/Boss.canvas"), Collections.emptyList(),
+				Collections.emptyList());
+
+		Assert.assertEquals(Collections.singleton("levels/Level20.canvas"), affected);
+	}
+
+	@Test
+	public void testUpdateAndRemove() {
+		CanvasDependencyGraph graph = createGraph();
+
+		// the Level0 does not use the hero anymore
+		graph.update("levels/Level0.canvas", 2, newDeps(newSprite("tree", null)));
+		// the Enemy prefab was deleted
+		graph.remove("prefabs/Enemy.canvas");
+
+		Assert.assertTrue(graph.isUpToDate("levels/Level0.canvas", 2));
+		Assert.assertFalse(graph.isUpToDate("levels/Level0.canvas", 1));
+
+		Set<String> affected = graph.findAffected(Collections.emptyList(), Collections.emptyList(),
+				Arrays.asList(assetKey("hero")));
+
+		Assert.assertEquals(4, affected.size());
+	}
+
+	@Test
+	public void testSaveAndLoad() {
+		CanvasDependencyGraph graph = CanvasDependencyGraph.fromJSON(createGraph().toJSON());
+
+		Assert.assertEquals(102, graph.getFiles().size());
+		Assert.assertTrue(graph.isUpToDate("prefabs/Enemy.canvas", 1));
+
+		Set<String> affected = graph.findAffected(Collections.emptyList(), Arrays.asList(PACK),
+				Collections.emptyList());
+
+		Assert.assertEquals(102, affected.size());
+	}
+}
@@ -0,0 +1,331 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2015, 2017 Arian Fornaris
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions: The above copyright notice and this permission
+// notice shall be included in all copies or substantial portions of the
+// Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+package phasereditor.canvas.core;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.QualifiedName;
+import org.json.JSONObject;
+
+/**
+ * Compiles a batch of canvas files. The code is generated in a pool of worker
+ * threads, and the files are written by the caller thread.
+ * 
+ * <p>
+ * The compiler records (in a persistent property of the canvas file) a hash of
+ * the inputs of the code generation: the canvas file (including its settings),
+ * the prefabs it uses (recursively) and the asset packs it references. If the
+ * hash did not change and the output file was not modified since the last
+ * compilation, then the file is skipped.
+ * </p>
+ * 
+ * @author arian
+ *
+ */
+public class CanvasCompiler {
+	private static final QualifiedName COMPILE_HASH_PROPERTY = new QualifiedName(CanvasCore.PLUGIN_ID,
+			"compileHash");
+
+	private int _threads;
+	private int _compiledCount;
+	private int _skippedCount;
+	private int _failedCount;
+	private Map<IFile, String> _fileHashes;
+
+	public CanvasCompiler() {
+		this(Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors())));
+	}
+
+	public CanvasCompiler(int threads) {
+		_threads = threads;
+		_fileHashes = new ConcurrentHashMap<>();
+	}
+
+	private static class CompileTask {
+		public CanvasFile canvasFile;
+		public String hash;
+		public IFile outputFile;
+		public String content;
+		public boolean skip;
+
+		public CompileTask(CanvasFile canvasFile) {
+			this.canvasFile = canvasFile;
+		}
+	}
+
+	public void compile(Collection<CanvasFile> files, IProgressMonitor monitor) {
+		monitor.beginTask("Compiling canvas files", files.size());
+
+		ExecutorService pool = Executors.newFixedThreadPool(_threads);
+
+		try {
+			List<Future<CompileTask>> futures = new ArrayList<>();
+
+			for (CanvasFile file : files) {
+				futures.add(pool.submit(() -> generate(file)));
+			}
+
+			for (Future<CompileTask> future : futures) {
+				if (monitor.isCanceled()) {
+					break;
+				}
+
+				CompileTask task;
+
+				try {
+					task = future.get();
+				} catch (ExecutionException e) {
+					_failedCount++;
+					CanvasCore.logError((Exception) e.getCause());
+					monitor.worked(1);
+					continue;
+				}
+
+				monitor.subTask(task.canvasFile.getFile().getName());
+
+				if (task.skip) {
+					_skippedCount++;
+				} else if (task.content == null) {
+					// the canvas has errors
+					_failedCount++;
+				} else {
+					try {
+						write(task, monitor);
+						_compiledCount++;
+					} catch (CoreException e) {
+						_failedCount++;
+						CanvasCore.logError(e);
+					}
+				}
+
+				monitor.worked(1);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			pool.shutdownNow();
+			monitor.done();
+		}
+	}
+
+	private CompileTask generate(CanvasFile canvasFile) throws Exception {
+		CompileTask task = new CompileTask(canvasFile);
+
+		IFile file = canvasFile.getFile();
+
+		task.hash = computeInputHash(file);
+
+		if (isUpToDate(file, task.hash)) {
+			task.skip = true;
+			return task;
+		}
+
+		CanvasModel model = canvasFile.newModel();
+
+		if (model.getWorld().hasErrors()) {
+			return task;
+		}
+
+		task.outputFile = CanvasCore.getCompilerOutputFile(model);
+		task.content = CanvasCore.generateCode(model, task.outputFile);
+
+		return task;
+	}
+
+	private static void write(CompileTask task, IProgressMonitor monitor) throws CoreException {
+		IFile output = task.outputFile;
+
+		boolean changed = true;
+
+		if (output.exists()) {
+			try {
+				String current = new String(Files.readAllBytes(output.getLocation().toFile().toPath()));
+				changed = !current.equals(task.content);
+			} catch (IOException e) {
+				// just write it
+			}
+		}
+
+		if (changed) {
+			CanvasCore.writeCompilerOutputFile(output, task.content, monitor);
+		}
+
+		task.canvasFile.getFile().setPersistentProperty(COMPILE_HASH_PROPERTY, task.hash + " "
+				+ output.getModificationStamp() + " " + output.getFullPath().toPortableString());
+	}
+
+	private static boolean isUpToDate(IFile file, String hash) throws CoreException {
+		String value = file.getPersistentProperty(COMPILE_HASH_PROPERTY);
+
+		if (value == null) {
+			return false;
+		}
+
+		String[] tokens = value.split(" ", 3);
+
+		if (tokens.length != 3 || !tokens[0].equals(hash)) {
+			return false;
+		}
+
+		// the output file could be modified by the user
+
+		IFile output = file.getWorkspace().getRoot().getFile(Path.fromPortableString(tokens[2]));
+
+		return output.exists() && Long.toString(output.getModificationStamp()).equals(tokens[1]);
+	}
+
+	/**
+	 * Compute the hash of the inputs of the code generation of the given canvas
+	 * file.
+	 */
+	public String computeInputHash(IFile file) throws IOException {
+		MessageDigest digest = newDigest();
+
+		// a new version of the generators can produce a different code
+		digest.update(Activator.getDefault().getBundle().getVersion().toString().getBytes());
+
+		Set<IFile> visited = new HashSet<>();
+
+		updateHash(digest, file, visited);
+
+		return toHex(digest.digest());
+	}
+
+	private void updateHash(MessageDigest digest, IFile file, Set<IFile> visited) throws IOException {
+		if (!visited.add(file)) {
+			return;
+		}
+
+		IProject project = file.getProject();
+
+		digest.update(file.getProjectRelativePath().toPortableString().getBytes());
+
+		if (!file.exists()) {
+			// a missing prefab or pack
+			return;
+		}
+
+		byte[] bytes = Files.readAllBytes(file.getLocation().toFile().toPath());
+
+		digest.update(bytes);
+
+		CanvasFileDependencies deps = new CanvasFileDependencies();
+
+		try {
+			deps.read(new JSONObject(new String(bytes)));
+		} catch (Exception e) {
+			// the file is not valid, the compilation will fail anyway.
+			return;
+		}
+
+		for (String path : new TreeSet<>(deps.getPrefabFiles())) {
+			updateHash(digest, project.getFile(path), visited);
+		}
+
+		for (String path : new TreeSet<>(deps.getPackFiles())) {
+			IFile packFile = project.getFile(path);
+			if (visited.add(packFile)) {
+				digest.update(path.getBytes());
+				digest.update(getFileHash(packFile).getBytes());
+			}
+		}
+	}
+
+	/**
+	 * The asset packs are shared by many canvas files, so the hash of them is
+	 * computed once per batch.
+	 */
+	private String getFileHash(IFile file) throws IOException {
+		String hash = _fileHashes.get(file);
+
+		if (hash == null) {
+			if (file.exists()) {
+				MessageDigest digest = newDigest();
+				digest.update(Files.readAllBytes(file.getLocation().toFile().toPath()));
+				hash = toHex(digest.digest());
+			} else {
+				hash = "";
+			}
+
+			_fileHashes.put(file, hash);
+		}
+
+		return hash;
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-1");
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private static String toHex(byte[] bytes) {
+		StringBuilder sb = new StringBuilder();
+		for (byte b : bytes) {
+			sb.append(String.format("%02x", Byte.valueOf(b)));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * @return The number of files written by this compiler.
+	 */
+	public int getCompiledCount() {
+		return _compiledCount;
+	}
+
+	/**
+	 * @return The number of files that were up to date.
+	 */
+	public int getSkippedCount() {
+		return _skippedCount;
+	}
+
+	/**
+	 * @return The number of files with errors.
+	 */
+	public int getFailedCount() {
+		return _failedCount;
+	}
+}
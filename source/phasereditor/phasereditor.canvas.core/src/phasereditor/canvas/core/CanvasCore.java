@@ -26,12 +26,17 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -50,6 +55,7 @@ import org.json.JSONTokener;
 
 import phasereditor.assetpack.core.AssetModel;
 import phasereditor.assetpack.core.AssetPackCore;
+import phasereditor.assetpack.core.AssetPackCore.PackDelta;
 import phasereditor.assetpack.core.IAssetKey;
 import phasereditor.assetpack.core.IAssetReference;
 import phasereditor.assetpack.core.ImageAssetModel;
@@ -393,6 +399,58 @@ public class CanvasCore {
 		return _fileDataCache;
 	}
 
+	/**
+	 * Find the canvas files of the project affected by the changed files and
+	 * assets. A canvas file is affected if it uses a changed prefab or asset,
+	 * or if it uses a prefab that is affected too.
+	 * 
+	 * @param project
+	 *            The project.
+	 * @param changedFiles
+	 *            The modified (or removed) files. Only the canvas files are
+	 *            taken into account.
+	 * @param packDelta
+	 *            The modified assets. It can be <code>null</code>.
+	 * @return The affected files, it does not include the changed files.
+	 */
+	public static Set<CanvasFile> findDependentCanvasFiles(IProject project, Collection<IFile> changedFiles,
+			PackDelta packDelta) {
+		Set<String> changedPaths = new HashSet<>();
+
+		for (IFile file : changedFiles) {
+			if (file.getProject().equals(project) && "canvas".equals(file.getFileExtension())) {
+				changedPaths.add(file.getProjectRelativePath().toPortableString());
+			}
+		}
+
+		CanvasDependencyGraph graph = getDependencyGraph(project);
+
+		Set<CanvasFile> result = new LinkedHashSet<>();
+
+		for (String path : CanvasFilesValidationBuildParticipant.findAffected(project, graph, changedPaths,
+				packDelta)) {
+			if (changedPaths.contains(path)) {
+				continue;
+			}
+
+			CanvasFile cfile = getCanvasFileCache().getFileData(project.getFile(path));
+
+			if (cfile != null) {
+				result.add(cfile);
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Get the graph of the prefabs and assets used by the canvas files of the
+	 * project. It is shared with the canvas files validation.
+	 */
+	public static CanvasDependencyGraph getDependencyGraph(IProject project) {
+		return CanvasFilesValidationBuildParticipant.getDependencyGraph(project);
+	}
+
 	public static String getDefaultClassName(IFile file) {
 		if (file == null) {
 			return "CanvasClass";
@@ -465,33 +523,53 @@ public class CanvasCore {
 
 	public static void compile(CanvasModel canvasModel, IProgressMonitor monitor) {
 		try {
-			IFile inputFile = canvasModel.getFile();
-			String fname = inputFile.getFullPath().removeFileExtension()
-					.addFileExtension(canvasModel.getSettings().getLang().getExtension()).lastSegment();
+			IFile file = getCompilerOutputFile(canvasModel);
+
+			String content = generateCode(canvasModel, file);
 
-			IFile file = inputFile.getParent().getFile(new Path(fname));
+			writeCompilerOutputFile(file, content, monitor);
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
 
-			String replace = null;
+	/**
+	 * @return The file where the code of the given canvas is written.
+	 */
+	public static IFile getCompilerOutputFile(CanvasModel canvasModel) {
+		IFile inputFile = canvasModel.getFile();
+		String fname = inputFile.getFullPath().removeFileExtension()
+				.addFileExtension(canvasModel.getSettings().getLang().getExtension()).lastSegment();
 
-			if (file.exists()) {
-				byte[] bytes = Files.readAllBytes(file.getLocation().makeAbsolute().toFile().toPath());
-				replace = new String(bytes);
-			}
+		return inputFile.getParent().getFile(new Path(fname));
+	}
 
-			ICodeGenerator generator = new CanvasCodeGeneratorProvider().getCodeGenerator(canvasModel);
+	/**
+	 * Generate the code of the given canvas, merged with the user code of the
+	 * current content of the output file. It does not modify the workspace.
+	 */
+	public static String generateCode(CanvasModel canvasModel, IFile outputFile) throws IOException {
+		String replace = null;
 
-			String content = generator.generate(replace);
+		if (outputFile.exists()) {
+			byte[] bytes = Files.readAllBytes(outputFile.getLocation().makeAbsolute().toFile().toPath());
+			replace = new String(bytes);
+		}
 
-			ByteArrayInputStream stream = new ByteArrayInputStream(content.getBytes());
-			if (file.exists()) {
-				file.setContents(stream, IResource.NONE, monitor);
-			} else {
-				file.create(stream, false, monitor);
-			}
-			file.refreshLocal(1, null);
-		} catch (Exception e) {
-			throw new RuntimeException(e);
+		ICodeGenerator generator = new CanvasCodeGeneratorProvider().getCodeGenerator(canvasModel);
+
+		return generator.generate(replace);
+	}
+
+	public static void writeCompilerOutputFile(IFile file, String content, IProgressMonitor monitor)
+			throws CoreException {
+		ByteArrayInputStream stream = new ByteArrayInputStream(content.getBytes());
+		if (file.exists()) {
+			file.setContents(stream, IResource.NONE, monitor);
+		} else {
+			file.create(stream, false, monitor);
 		}
+		file.refreshLocal(1, null);
 	}
 
 }
@@ -0,0 +1,228 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2015, 2017 Arian Fornaris
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions: The above copyright notice and this permission
+// notice shall be included in all copies or substantial portions of the
+// Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+package phasereditor.canvas.core;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * The graph of the prefabs, asset packs and assets used by the canvas files of
+ * a project. The nodes are identified by the project relative path of the
+ * files, and the assets by the keys of {@link CanvasFileDependencies}.
+ * 
+ * <p>
+ * It is updated incrementally, when a canvas file changes, and it keeps the
+ * modification stamp of the files, so it can be saved and validated the next
+ * time it is loaded.
+ * </p>
+ * 
+ * @author arian
+ *
+ */
+public class CanvasDependencyGraph {
+
+	private static class Node {
+		public long stamp;
+		public Set<String> prefabs;
+		public Set<String> packs;
+		public Set<String> assets;
+
+		public Node(long stamp, Set<String> prefabs, Set<String> packs, Set<String> assets) {
+			this.stamp = stamp;
+			this.prefabs = prefabs;
+			this.packs = packs;
+			this.assets = assets;
+		}
+	}
+
+	private Map<String, Node> _files;
+	private Map<String, Set<String>> _prefabUsers;
+	private Map<String, Set<String>> _packUsers;
+	private Map<String, Set<String>> _assetUsers;
+
+	public CanvasDependencyGraph() {
+		_files = new HashMap<>();
+		_prefabUsers = new HashMap<>();
+		_packUsers = new HashMap<>();
+		_assetUsers = new HashMap<>();
+	}
+
+	/**
+	 * Set the dependencies of the given canvas file.
+	 */
+	public synchronized void update(String file, long stamp, CanvasFileDependencies deps) {
+		update(file, new Node(stamp, new HashSet<>(deps.getPrefabFiles()), new HashSet<>(deps.getPackFiles()),
+				new HashSet<>(deps.getAssetKeys())));
+	}
+
+	private void update(String file, Node node) {
+		remove(file);
+
+		_files.put(file, node);
+
+		addUser(_prefabUsers, node.prefabs, file);
+		addUser(_packUsers, node.packs, file);
+		addUser(_assetUsers, node.assets, file);
+	}
+
+	public synchronized void remove(String file) {
+		Node node = _files.remove(file);
+
+		if (node != null) {
+			removeUser(_prefabUsers, node.prefabs, file);
+			removeUser(_packUsers, node.packs, file);
+			removeUser(_assetUsers, node.assets, file);
+		}
+	}
+
+	private static void addUser(Map<String, Set<String>> map, Set<String> keys, String file) {
+		for (String key : keys) {
+			map.computeIfAbsent(key, k -> new HashSet<>()).add(file);
+		}
+	}
+
+	private static void removeUser(Map<String, Set<String>> map, Set<String> keys, String file) {
+		for (String key : keys) {
+			Set<String> users = map.get(key);
+			if (users != null) {
+				users.remove(file);
+				if (users.isEmpty()) {
+					map.remove(key);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return If the graph contains the given file, computed with the given
+	 *         modification stamp.
+	 */
+	public synchronized boolean isUpToDate(String file, long stamp) {
+		Node node = _files.get(file);
+		return node != null && node.stamp == stamp;
+	}
+
+	public synchronized Set<String> getFiles() {
+		return Collections.unmodifiableSet(new HashSet<>(_files.keySet()));
+	}
+
+	/**
+	 * Find the canvas files that use, directly or through other prefabs, the
+	 * changed prefabs, packs or assets.
+	 * 
+	 * @param changedPrefabs
+	 *            The changed (or removed) canvas files.
+	 * @param changedPacks
+	 *            The changed pack files.
+	 * @param changedAssets
+	 *            The keys of the changed assets.
+	 * @return The affected files. A changed file is included only if it uses
+	 *         other changed file.
+	 */
+	public synchronized Set<String> findAffected(Collection<String> changedPrefabs, Collection<String> changedPacks,
+			Collection<String> changedAssets) {
+		Set<String> result = new LinkedHashSet<>();
+		Deque<String> queue = new ArrayDeque<>(changedPrefabs);
+
+		for (String pack : changedPacks) {
+			addUsers(_packUsers, pack, result, queue);
+		}
+
+		for (String asset : changedAssets) {
+			addUsers(_assetUsers, asset, result, queue);
+		}
+
+		Set<String> visited = new HashSet<>();
+
+		while (!queue.isEmpty()) {
+			String prefab = queue.poll();
+
+			if (visited.add(prefab)) {
+				addUsers(_prefabUsers, prefab, result, queue);
+			}
+		}
+
+		return result;
+	}
+
+	private static void addUsers(Map<String, Set<String>> map, String key, Set<String> result, Deque<String> queue) {
+		Set<String> users = map.get(key);
+
+		if (users != null) {
+			for (String user : users) {
+				if (result.add(user)) {
+					// the user could be a prefab
+					queue.add(user);
+				}
+			}
+		}
+	}
+
+	public synchronized JSONObject toJSON() {
+		JSONObject data = new JSONObject();
+
+		for (Map.Entry<String, Node> entry : _files.entrySet()) {
+			Node node = entry.getValue();
+
+			JSONObject nodeData = new JSONObject();
+			nodeData.put("stamp", node.stamp);
+			nodeData.put("prefabs", new JSONArray(node.prefabs));
+			nodeData.put("packs", new JSONArray(node.packs));
+			nodeData.put("assets", new JSONArray(node.assets));
+
+			data.put(entry.getKey(), nodeData);
+		}
+
+		return data;
+	}
+
+	public static CanvasDependencyGraph fromJSON(JSONObject data) {
+		CanvasDependencyGraph graph = new CanvasDependencyGraph();
+
+		for (String file : data.keySet()) {
+			JSONObject nodeData = data.getJSONObject(file);
+
+			graph.update(file, new Node(nodeData.getLong("stamp"), toSet(nodeData.getJSONArray("prefabs")),
+					toSet(nodeData.getJSONArray("packs")), toSet(nodeData.getJSONArray("assets"))));
+		}
+
+		return graph;
+	}
+
+	private static Set<String> toSet(JSONArray array) {
+		Set<String> set = new HashSet<>();
+		for (int i = 0; i < array.length(); i++) {
+			set.add(array.getString(i));
+		}
+		return set;
+	}
+}
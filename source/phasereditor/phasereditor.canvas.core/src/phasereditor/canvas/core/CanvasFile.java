@@ -35,6 +35,7 @@ public class CanvasFile {
 	private IFile _file;
 	private String _className;
 	private CanvasType _type;
+	private CanvasFileDependencies _dependencies;
 
 	public CanvasFile(IFile file, CanvasType type) {
 		super();
@@ -63,6 +64,18 @@ public class CanvasFile {
 		return _type;
 	}
 
+	/**
+	 * The prefabs and assets used by this file. It is computed the first time
+	 * it is requested. Note the cache creates a new {@link CanvasFile} when the
+	 * file changes, so the dependencies are always fresh.
+	 */
+	public synchronized CanvasFileDependencies getDependencies() {
+		if (_dependencies == null) {
+			_dependencies = CanvasFileDependencies.read(_file);
+		}
+		return _dependencies;
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
@@ -0,0 +1,246 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2015, 2017 Arian Fornaris
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions: The above copyright notice and this permission
+// notice shall be included in all copies or substantial portions of the
+// Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+package phasereditor.canvas.core;
+
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.eclipse.core.resources.IFile;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import phasereditor.assetpack.core.AssetModel;
+import phasereditor.assetpack.core.AssetPackCore.PackDelta;
+import phasereditor.assetpack.core.AssetPackModel;
+import phasereditor.assetpack.core.IAssetKey;
+
+/**
+ * The prefabs and assets directly referenced by a canvas file. It is computed
+ * from the JSON content of the file, without resolving the assets, so it is
+ * cheap to compute for all the files of a project.
+ * 
+ * @author arian
+ *
+ */
+public class CanvasFileDependencies {
+	private Set<String> _prefabFiles;
+	private Set<String> _packFiles;
+	private Set<String> _assetKeys;
+
+	public CanvasFileDependencies() {
+		_prefabFiles = new HashSet<>();
+		_packFiles = new HashSet<>();
+		_assetKeys = new HashSet<>();
+	}
+
+	public static CanvasFileDependencies read(IFile file) {
+		CanvasFileDependencies deps = new CanvasFileDependencies();
+
+		try (InputStream contents = file.getContents()) {
+			JSONObject data = new JSONObject(new JSONTokener(contents));
+			deps.read(data);
+		} catch (Exception e) {
+			// the file is not valid, the validation will report it.
+			e.printStackTrace();
+		}
+
+		return deps;
+	}
+
+	public void read(JSONObject data) {
+		JSONObject prefabTable = data.optJSONObject("prefab-table");
+
+		if (prefabTable != null) {
+			for (String id : prefabTable.keySet()) {
+				_prefabFiles.add(prefabTable.getString(id));
+			}
+		}
+
+		if (data.has("world")) {
+			readPrefabFiles(data.getJSONObject("world"));
+
+			CanvasCore.forEachJSONReference(data, ref -> {
+				String file = ref.optString("file", null);
+				if (file != null) {
+					_packFiles.add(file);
+					_assetKeys.add(getAssetKey(file, ref.optString("section", ""), ref.optString("asset", "")));
+				}
+			});
+		}
+	}
+
+	private void readPrefabFiles(JSONObject objData) {
+		String prefabFile = objData.optString("prefabFile", null);
+
+		if (prefabFile != null) {
+			_prefabFiles.add(prefabFile);
+		}
+
+		JSONObject info = objData.optJSONObject("info");
+
+		if (info != null) {
+			JSONArray children = info.optJSONArray("children");
+			if (children != null) {
+				for (int i = 0; i < children.length(); i++) {
+					readPrefabFiles(children.getJSONObject(i));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Add the prefab and asset directly referenced by the given object. The
+	 * children are not visited.
+	 */
+	public void add(BaseObjectModel model) {
+		if (model.isPrefabInstance()) {
+			_prefabFiles.add(model.getPrefab().getFile().getProjectRelativePath().toPortableString());
+		}
+
+		if (model instanceof AssetSpriteModel) {
+			IAssetKey key = ((AssetSpriteModel<?>) model).getAssetKey();
+			if (key != null) {
+				AssetModel asset = key.getAsset();
+				AssetPackModel pack = asset.getPack();
+				if (pack != null && pack.getFile() != null) {
+					String packFile = pack.getFile().getProjectRelativePath().toPortableString();
+					_packFiles.add(packFile);
+					_assetKeys.add(getAssetKey(packFile, asset.getSection().getKey(), asset.getKey()));
+				}
+			}
+		} else if (model instanceof MissingAssetSpriteModel) {
+			JSONObject ref = ((MissingAssetSpriteModel) model).getSrcData().optJSONObject("asset-ref");
+			String packFile = ref == null ? null : ref.optString("file", null);
+			if (packFile != null) {
+				_packFiles.add(packFile);
+				_assetKeys.add(getAssetKey(packFile, ref.optString("section", ""), ref.optString("asset", "")));
+			}
+		} else if (model instanceof MissingPrefabModel) {
+			String prefabFile = ((MissingPrefabModel) model).getSrcData().optString("prefabFile", null);
+			if (prefabFile != null) {
+				_prefabFiles.add(prefabFile);
+			}
+		}
+	}
+
+	/**
+	 * Compute the dependencies of the given object and its children. It is
+	 * used with the models of the open editors, that may be different to the
+	 * content of the files.
+	 */
+	public static CanvasFileDependencies read(BaseObjectModel model) {
+		CanvasFileDependencies deps = new CanvasFileDependencies();
+		if (model instanceof GroupModel) {
+			((GroupModel) model).walk(deps::add);
+		} else {
+			deps.add(model);
+		}
+		return deps;
+	}
+
+	/**
+	 * @return If any of the given prefabs or the modified assets is used.
+	 */
+	public boolean isAffectedBy(Collection<IFile> prefabFiles, PackDelta packDelta) {
+		for (IFile file : prefabFiles) {
+			if (usesPrefab(file)) {
+				return true;
+			}
+		}
+
+		if (packDelta != null) {
+			for (AssetPackModel pack : packDelta.getPacks()) {
+				if (usesPack(pack)) {
+					return true;
+				}
+			}
+
+			for (AssetModel asset : packDelta.getAssets()) {
+				if (usesAsset(asset)) {
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+
+	private static String getAssetKey(String packFile, String section, String asset) {
+		return packFile + "/" + section + "/" + asset;
+	}
+
+	/**
+	 * @return The project relative path of the referenced prefab files.
+	 */
+	public Set<String> getPrefabFiles() {
+		return Collections.unmodifiableSet(_prefabFiles);
+	}
+
+	/**
+	 * @return The project relative path of the referenced asset pack files.
+	 */
+	public Set<String> getPackFiles() {
+		return Collections.unmodifiableSet(_packFiles);
+	}
+
+	/**
+	 * @return The referenced assets, in the form
+	 *         <code>packFile/section/asset</code>.
+	 */
+	public Set<String> getAssetKeys() {
+		return Collections.unmodifiableSet(_assetKeys);
+	}
+
+	public boolean usesPrefab(IFile prefabFile) {
+		return _prefabFiles.contains(prefabFile.getProjectRelativePath().toPortableString());
+	}
+
+	public boolean usesPack(AssetPackModel pack) {
+		IFile file = pack.getFile();
+		return file != null && _packFiles.contains(file.getProjectRelativePath().toPortableString());
+	}
+
+	public boolean usesAsset(AssetModel asset) {
+		String key = getAssetKey(asset);
+		return key != null && _assetKeys.contains(key);
+	}
+
+	/**
+	 * @return The key of the given asset, in the form of
+	 *         {@link #getAssetKeys()}, or <code>null</code> if the asset does
+	 *         not belong to a pack file.
+	 */
+	public static String getAssetKey(AssetModel asset) {
+		AssetPackModel pack = asset.getPack();
+
+		if (pack == null || pack.getFile() == null) {
+			return null;
+		}
+
+		return getAssetKey(pack.getFile().getProjectRelativePath().toPortableString(), asset.getSection().getKey(),
+				asset.getKey());
+	}
+}
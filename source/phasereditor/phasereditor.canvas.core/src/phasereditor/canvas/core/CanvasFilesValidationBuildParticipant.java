@@ -2,25 +2,44 @@ package phasereditor.canvas.core;
 
 import static java.lang.System.out;
 
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IResourceDelta;
-import org.eclipse.core.resources.IResourceDeltaVisitor;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IStatus;
+import org.json.JSONObject;
 
+import phasereditor.assetpack.core.AssetModel;
 import phasereditor.assetpack.core.AssetPackBuildParticipant;
 import phasereditor.assetpack.core.AssetPackCore.PackDelta;
+import phasereditor.assetpack.core.AssetPackModel;
 import phasereditor.project.core.IProjectBuildParticipant;
-import phasereditor.project.core.IResourceDeltaVisitor2;
 import phasereditor.project.core.ProjectCore;
 
+/**
+ * Validates the canvas files. In an incremental build, only the modified
+ * canvas files and the files that depend on the modified prefabs and assets
+ * are validated. The dependencies are kept in a {@link CanvasDependencyGraph}
+ * that is saved in the working location of the project.
+ */
 public class CanvasFilesValidationBuildParticipant implements IProjectBuildParticipant {
 
+	private static final String GRAPH_FILE_NAME = "canvas-dependencies.json";
+
+	private static Map<IProject, CanvasDependencyGraph> _graphs = new HashMap<>();
+
 	public CanvasFilesValidationBuildParticipant() {
 	}
 
@@ -36,13 +55,24 @@ public class CanvasFilesValidationBuildParticipant implements IProjectBuildParti
 
 	@Override
 	public void projectDeleted(IProject project, Map<String, Object> env) {
-		// nothing
+		synchronized (_graphs) {
+			_graphs.remove(project);
+		}
 	}
 
 	@Override
 	public void fullBuild(IProject project, Map<String, Object> env) {
 		ProjectCore.deleteResourceMarkers(project, CanvasCore.CANVAS_PROBLEM_MARKER_ID);
 
+		CanvasDependencyGraph graph = new CanvasDependencyGraph();
+		updateGraph(project, graph);
+
+		synchronized (_graphs) {
+			_graphs.put(project, graph);
+		}
+
+		saveGraph(project, graph);
+
 		List<CanvasFile> cfiles = CanvasCore.getCanvasFileCache().getProjectData(project);
 		cfiles.forEach(cfile -> {
 			validateCanvasFile(cfile.getFile());
@@ -51,79 +81,168 @@ public class CanvasFilesValidationBuildParticipant implements IProjectBuildParti
 
 	@Override
 	public void build(IProject project, IResourceDelta delta, Map<String, Object> env) {
-		if (isModifiedAPrefab(delta)) {
-			fullBuild(project, env);
-			return;
-		}
+		CanvasDependencyGraph graph = getGraph(project);
 
-		PackDelta packDelta = AssetPackBuildParticipant.getData(env);
-		if (packDelta.isEmpty()) {
-			// if no assets was modified, then validate only the modified canvas
-			// files.
-			try {
-				validateModifiedCanvasFiles(delta);
-			} catch (CoreException e) {
-				CanvasCore.logError(e);
-			}
-		} else {
-			// if any asset was modified then we prefer to do a full validation
-			fullBuild(project, env);
-		}
-
-	}
+		Set<IFile> toValidate = new LinkedHashSet<>();
+		Set<String> changedFiles = new HashSet<>();
 
-	private static boolean isModifiedAPrefab(IResourceDelta delta) {
 		try {
-			boolean[] found = { false };
-			delta.accept(new IResourceDeltaVisitor2() {
-				@Override
-				public boolean fileVisited(IFile file) {
-					CanvasFile data = CanvasCore.getCanvasFileCache().getFileData(file);
-
-					if (data != null && data.getType().isPrefab()) {
-						found[0] = true;
+			delta.accept(d -> {
+				IResource resource = d.getResource();
+
+				if (resource instanceof IFile && "canvas".equals(resource.getFileExtension())) {
+					IFile file = (IFile) resource;
+
+					// any canvas file could be used as a prefab, even a
+					// removed one.
+					changedFiles.add(file.getProjectRelativePath().toPortableString());
+
+					IPath path = d.getMovedFromPath();
+					if (path != null) {
+						changedFiles.add(path.removeFirstSegments(1).toPortableString());
 					}
 
-					return !found[0];
+					if (d.getKind() != IResourceDelta.REMOVED) {
+						toValidate.add(file);
+					}
 				}
+
+				return true;
 			});
-			return found[0];
 		} catch (CoreException e) {
-			e.printStackTrace();
+			CanvasCore.logError(e);
 		}
-		return false;
-	}
 
-	private static void validateModifiedCanvasFiles(IResourceDelta delta) throws CoreException {
+		updateGraph(project, graph);
+
+		for (String path : findAffected(project, graph, changedFiles, AssetPackBuildParticipant.getData(env))) {
+			toValidate.add(project.getFile(path));
+		}
 
-		delta.accept(new IResourceDeltaVisitor() {
+		for (IFile file : toValidate) {
+			if (file.exists() && ProjectCore.isWebContentFile(file) && CanvasCore.isCanvasFile(file)) {
+				validateCanvasFile(file);
+			}
+		}
 
-			@SuppressWarnings("synthetic-access")
-			@Override
-			public boolean visit(IResourceDelta delta2) throws CoreException {
-				IResource resource = delta2.getResource();
+		if (!changedFiles.isEmpty()) {
+			saveGraph(project, graph);
+		}
+	}
 
-				if (resource == null) {
-					return true;
-				}
+	/**
+	 * Get the dependency graph of the project, updated with the current
+	 * content of the canvas files. The first time, it is loaded from the
+	 * working location of the project.
+	 */
+	public static CanvasDependencyGraph getDependencyGraph(IProject project) {
+		CanvasDependencyGraph graph = getGraph(project);
+		updateGraph(project, graph);
+		return graph;
+	}
 
-				if (delta2.getKind() == IResourceDelta.REMOVED) {
-					return true;
-				}
+	/**
+	 * Find the project relative paths of the canvas files affected by the
+	 * changed canvas files and assets.
+	 * 
+	 * @param changedFiles
+	 *            The project relative paths of the changed canvas files.
+	 * @param packDelta
+	 *            The modified assets. It can be <code>null</code>.
+	 */
+	static Set<String> findAffected(IProject project, CanvasDependencyGraph graph, Collection<String> changedFiles,
+			PackDelta packDelta) {
+		Set<String> changedPacks = new HashSet<>();
+		Set<String> changedAssets = new HashSet<>();
 
-				if (!(resource instanceof IFile)) {
-					return true;
+		if (packDelta != null && !packDelta.isEmpty() && packDelta.inProject(project)) {
+			for (AssetPackModel pack : packDelta.getPacks()) {
+				IFile file = pack.getFile();
+				if (file != null) {
+					changedPacks.add(file.getProjectRelativePath().toPortableString());
 				}
+			}
 
-				IFile file = (IFile) resource;
-				if (ProjectCore.isWebContentFile(file) && CanvasCore.isCanvasFile(file)) {
-					validateCanvasFile(file);
+			for (AssetModel asset : packDelta.getAssets()) {
+				String key = CanvasFileDependencies.getAssetKey(asset);
+				if (key != null) {
+					changedAssets.add(key);
 				}
+			}
+		}
 
-				return true;
+		return graph.findAffected(changedFiles, changedPacks, changedAssets);
+	}
+
+	/**
+	 * Get the dependency graph of the project. The first time, it is loaded
+	 * from the working location of the project.
+	 */
+	private static CanvasDependencyGraph getGraph(IProject project) {
+		synchronized (_graphs) {
+			CanvasDependencyGraph graph = _graphs.get(project);
+
+			if (graph == null) {
+				graph = loadGraph(project);
+				_graphs.put(project, graph);
 			}
-		});
 
+			return graph;
+		}
+	}
+
+	/**
+	 * Update the graph with the canvas files of the project, only the files
+	 * modified since the last update are read.
+	 */
+	private static void updateGraph(IProject project, CanvasDependencyGraph graph) {
+		Set<String> existing = new HashSet<>();
+
+		for (CanvasFile cfile : CanvasCore.getCanvasFileCache().getProjectData(project)) {
+			IFile file = cfile.getFile();
+			String path = file.getProjectRelativePath().toPortableString();
+			long stamp = file.getModificationStamp();
+
+			existing.add(path);
+
+			if (!graph.isUpToDate(path, stamp)) {
+				graph.update(path, stamp, cfile.getDependencies());
+			}
+		}
+
+		for (String path : graph.getFiles()) {
+			if (!existing.contains(path)) {
+				graph.remove(path);
+			}
+		}
+	}
+
+	private static File getGraphFile(IProject project) {
+		return project.getWorkingLocation(CanvasCore.PLUGIN_ID).append(GRAPH_FILE_NAME).toFile();
+	}
+
+	private static CanvasDependencyGraph loadGraph(IProject project) {
+		File file = getGraphFile(project);
+
+		if (file.exists()) {
+			try {
+				byte[] bytes = Files.readAllBytes(file.toPath());
+				return CanvasDependencyGraph.fromJSON(new JSONObject(new String(bytes)));
+			} catch (Exception e) {
+				// it will be computed again
+				e.printStackTrace();
+			}
+		}
+
+		return new CanvasDependencyGraph();
+	}
+
+	private static void saveGraph(IProject project, CanvasDependencyGraph graph) {
+		try {
+			Files.write(getGraphFile(project).toPath(), graph.toJSON().toString().getBytes());
+		} catch (Exception e) {
+			CanvasCore.logError(e);
+		}
 	}
 
 	private static void validateCanvasFile(IFile file) {
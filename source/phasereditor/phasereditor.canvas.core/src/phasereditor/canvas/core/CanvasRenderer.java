@@ -0,0 +1,441 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2015, 2017 Arian Fornaris
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions: The above copyright notice and this permission
+// notice shall be included in all copies or substantial portions of the
+// Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+package phasereditor.canvas.core;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.TexturePaint;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map.Entry;
+
+import javax.imageio.ImageIO;
+
+import org.eclipse.core.resources.IFile;
+
+import phasereditor.assetpack.core.FrameData;
+import phasereditor.assetpack.core.IAssetFrameModel;
+import phasereditor.assetpack.core.IAssetKey;
+import phasereditor.assetpack.core.ImageAssetModel;
+
+/**
+ * Renders a {@link WorldModel} into a {@link BufferedImage} using Java2D. It
+ * does not depend on JavaFX or SWT, so it can be used outside the UI thread,
+ * for example, to make the screenshots of the canvas files.
+ * <p>
+ * The same renderer can be used by different threads at the same time, the
+ * decoded texture files are shared. The least recently used textures are
+ * forgotten when the decoded textures take more than
+ * {@link #MAX_TEXTURES_BYTES}.
+ * </p>
+ * 
+ * @author arian
+ *
+ */
+public class CanvasRenderer {
+
+	public static final long MAX_TEXTURES_BYTES = 64 * 1024 * 1024;
+
+	private LinkedHashMap<File, BufferedImage> _textures;
+	private long _texturesBytes;
+
+	public CanvasRenderer() {
+		_textures = new LinkedHashMap<>(16, 0.75f, true);
+		_texturesBytes = 0;
+	}
+
+	/**
+	 * Render the world objects. The image is cropped to the bounds of the
+	 * objects and scaled down to fit in <code>maxSize</code>.
+	 * 
+	 * @return The image or <code>null</code> if there is nothing to render.
+	 */
+	public BufferedImage render(WorldModel world, int maxSize) {
+		Rectangle2D bounds = computeBounds(world);
+
+		if (bounds == null || bounds.isEmpty()) {
+			return null;
+		}
+
+		double f = 1;
+		double max = Math.max(bounds.getWidth(), bounds.getHeight());
+		if (max > maxSize) {
+			f = maxSize / max;
+		}
+
+		int width = Math.max(1, (int) Math.ceil(bounds.getWidth() * f));
+		int height = Math.max(1, (int) Math.ceil(bounds.getHeight() * f));
+
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g2 = image.createGraphics();
+		try {
+			g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			g2.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+			g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+			g2.scale(f, f);
+			g2.translate(-bounds.getX(), -bounds.getY());
+
+			renderChildren(g2, world, 1);
+		} finally {
+			g2.dispose();
+		}
+
+		return image;
+	}
+
+	/**
+	 * Compute the bounds of the world children, in world coordinates.
+	 */
+	public Rectangle2D computeBounds(WorldModel world) {
+		Rectangle2D[] result = new Rectangle2D[1];
+
+		for (BaseObjectModel model : world.getChildren()) {
+			computeBounds(model, new AffineTransform(), result);
+		}
+
+		return result[0];
+	}
+
+	private void computeBounds(BaseObjectModel model, AffineTransform parentTx, Rectangle2D[] result) {
+		if (!model.isEditorShow()) {
+			return;
+		}
+
+		AffineTransform tx = new AffineTransform(parentTx);
+		applyTransform(tx, model);
+
+		if (model instanceof GroupModel) {
+			for (BaseObjectModel child : ((GroupModel) model).getChildren()) {
+				computeBounds(child, tx, result);
+			}
+			return;
+		}
+
+		double[] size = getTextureSize(model);
+
+		if (size == null) {
+			return;
+		}
+
+		Point2D[] corners = { new Point2D.Double(0, 0), new Point2D.Double(size[0], 0),
+				new Point2D.Double(size[0], size[1]), new Point2D.Double(0, size[1]) };
+
+		for (Point2D corner : corners) {
+			Point2D p = tx.transform(corner, null);
+			if (result[0] == null) {
+				result[0] = new Rectangle2D.Double(p.getX(), p.getY(), 0, 0);
+			} else {
+				result[0].add(p);
+			}
+		}
+	}
+
+	private void renderChildren(Graphics2D g2, GroupModel group, double alpha) {
+		for (BaseObjectModel model : group.getChildren()) {
+			renderModel(g2, model, alpha);
+		}
+	}
+
+	private void renderModel(Graphics2D g2, BaseObjectModel model, double parentAlpha) {
+		if (!model.isEditorShow()) {
+			return;
+		}
+
+		double alpha = parentAlpha * model.getAlpha();
+
+		if (alpha <= 0) {
+			return;
+		}
+
+		AffineTransform saved = g2.getTransform();
+
+		try {
+			AffineTransform tx = g2.getTransform();
+			applyTransform(tx, model);
+			g2.setTransform(tx);
+
+			if (model instanceof GroupModel) {
+				renderChildren(g2, (GroupModel) model, alpha);
+			} else if (model instanceof BaseSpriteModel) {
+				g2.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, (float) Math.min(1, alpha)));
+				renderSprite(g2, (BaseSpriteModel) model);
+			}
+		} catch (Exception e) {
+			// do not break the whole rendering because a bad asset
+			e.printStackTrace();
+		} finally {
+			g2.setTransform(saved);
+		}
+	}
+
+	private void renderSprite(Graphics2D g2, BaseSpriteModel model) throws IOException {
+		if (model instanceof TileSpriteModel) {
+			renderTileSprite(g2, (TileSpriteModel) model);
+			return;
+		}
+
+		IAssetFrameModel frame = getFrame(model);
+
+		if (frame == null) {
+			return;
+		}
+
+		BufferedImage texture = getTexture(frame.getImageFile());
+
+		if (texture == null) {
+			return;
+		}
+
+		FrameData data = frame.getFrameData();
+
+		BufferedImage image = createFrameImage(texture, data, model.getTint());
+
+		g2.drawImage(image, 0, 0, null);
+	}
+
+	private void renderTileSprite(Graphics2D g2, TileSpriteModel model) throws IOException {
+		IAssetKey key = model.getAssetKey();
+
+		BufferedImage tile;
+
+		if (key instanceof ImageAssetModel) {
+			tile = getTexture(((ImageAssetModel) key).getUrlFile());
+			if (tile != null && model.getTint() != null) {
+				tile = tint(copy(tile), model.getTint());
+			}
+		} else if (key instanceof IAssetFrameModel) {
+			IAssetFrameModel frame = (IAssetFrameModel) key;
+			BufferedImage texture = getTexture(frame.getImageFile());
+			tile = texture == null ? null : createFrameImage(texture, frame.getFrameData(), model.getTint());
+		} else {
+			tile = null;
+		}
+
+		if (tile == null) {
+			return;
+		}
+
+		double w1 = tile.getWidth() * model.getTileScaleX();
+		double h1 = tile.getHeight() * model.getTileScaleY();
+
+		if (w1 <= 0 || h1 <= 0) {
+			return;
+		}
+
+		double xoffs = model.getTilePositionX() % tile.getWidth();
+		double yoffs = model.getTilePositionY() % tile.getHeight();
+
+		g2.setPaint(new TexturePaint(tile, new Rectangle2D.Double(xoffs, yoffs, w1, h1)));
+		g2.fill(new Rectangle2D.Double(0, 0, model.getWidth(), model.getHeight()));
+	}
+
+	/**
+	 * Create an image of the size of the frame source (the original size of
+	 * the sprite, with the trimmed space) with the frame drawn in it.
+	 */
+	private static BufferedImage createFrameImage(BufferedImage texture, FrameData data, String tint) {
+		Rectangle src = new Rectangle(data.src.x, data.src.y, data.src.width, data.src.height);
+		src = src.intersection(new Rectangle(0, 0, texture.getWidth(), texture.getHeight()));
+
+		int w = Math.max(1, data.srcSize.x);
+		int h = Math.max(1, data.srcSize.y);
+
+		BufferedImage image = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+
+		if (!src.isEmpty()) {
+			Graphics2D g2 = image.createGraphics();
+			g2.drawImage(texture, data.dst.x, data.dst.y, data.dst.x + src.width, data.dst.y + src.height, src.x,
+					src.y, src.x + src.width, src.y + src.height, null);
+			g2.dispose();
+		}
+
+		if (tint != null) {
+			tint(image, tint);
+		}
+
+		return image;
+	}
+
+	private static BufferedImage copy(BufferedImage src) {
+		BufferedImage image = new BufferedImage(src.getWidth(), src.getHeight(), BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g2 = image.createGraphics();
+		g2.drawImage(src, 0, 0, null);
+		g2.dispose();
+		return image;
+	}
+
+	/**
+	 * Multiply the color of the pixels by the tint, like it is done by the
+	 * Phaser WebGL renderer.
+	 */
+	private static BufferedImage tint(BufferedImage image, String tint) {
+		int color;
+		try {
+			color = Integer.parseInt(tint.replace("0x", "").replace("#", ""), 16);
+		} catch (NumberFormatException e) {
+			return image;
+		}
+
+		int tr = (color >> 16) & 0xff;
+		int tg = (color >> 8) & 0xff;
+		int tb = color & 0xff;
+
+		int w = image.getWidth();
+		int h = image.getHeight();
+		int[] pixels = image.getRGB(0, 0, w, h, null, 0, w);
+
+		for (int i = 0; i < pixels.length; i++) {
+			int p = pixels[i];
+			int a = (p >>> 24) & 0xff;
+			int r = ((p >> 16) & 0xff) * tr / 255;
+			int g = ((p >> 8) & 0xff) * tg / 255;
+			int b = (p & 0xff) * tb / 255;
+			pixels[i] = (a << 24) | (r << 16) | (g << 8) | b;
+		}
+
+		image.setRGB(0, 0, w, h, pixels, 0, w);
+
+		return image;
+	}
+
+	/**
+	 * Apply the same transformations of the editor: position, rotation, pivot,
+	 * scale and anchor.
+	 */
+	private static void applyTransform(AffineTransform tx, BaseObjectModel model) {
+		tx.translate(model.getX(), model.getY());
+		tx.rotate(model.getRotation());
+		tx.translate(-model.getPivotX() * model.getScaleX(), -model.getPivotY() * model.getScaleY());
+		tx.scale(model.getScaleX(), model.getScaleY());
+
+		if (model instanceof BaseSpriteModel) {
+			BaseSpriteModel sprite = (BaseSpriteModel) model;
+			double[] size = getTextureSize(model);
+			if (size != null) {
+				tx.translate(-size[0] * sprite.getAnchorX(), -size[1] * sprite.getAnchorY());
+			}
+		}
+	}
+
+	private static double[] getTextureSize(BaseObjectModel model) {
+		if (model instanceof TileSpriteModel) {
+			TileSpriteModel tile = (TileSpriteModel) model;
+			return new double[] { tile.getWidth(), tile.getHeight() };
+		}
+
+		IAssetFrameModel frame = getFrame(model);
+
+		if (frame == null) {
+			return null;
+		}
+
+		FrameData data = frame.getFrameData();
+
+		if (data == null || data.srcSize == null) {
+			return null;
+		}
+
+		return new double[] { data.srcSize.x, data.srcSize.y };
+	}
+
+	private static IAssetFrameModel getFrame(BaseObjectModel model) {
+		if (model instanceof ButtonSpriteModel) {
+			return ((ButtonSpriteModel) model).getFrame();
+		}
+
+		if (model instanceof AssetSpriteModel<?>) {
+			IAssetKey key = ((AssetSpriteModel<?>) model).getAssetKey();
+			if (key instanceof IAssetFrameModel) {
+				return (IAssetFrameModel) key;
+			}
+		}
+
+		return null;
+	}
+
+	private BufferedImage getTexture(IFile file) throws IOException {
+		if (file == null || file.getLocation() == null) {
+			return null;
+		}
+
+		File f = file.getLocation().toFile();
+
+		BufferedImage image;
+
+		synchronized (_textures) {
+			image = _textures.get(f);
+		}
+
+		if (image == null) {
+			image = ImageIO.read(f);
+			if (image != null) {
+				putTexture(f, image);
+			}
+		}
+
+		return image;
+	}
+
+	private void putTexture(File f, BufferedImage image) {
+		synchronized (_textures) {
+			BufferedImage old = _textures.put(f, image);
+
+			if (old != null) {
+				_texturesBytes -= getBytes(old);
+			}
+
+			_texturesBytes += getBytes(image);
+
+			// the eldest entries are the least recently used, but keep the
+			// last texture even if it is bigger than the limit
+			Iterator<Entry<File, BufferedImage>> iter = _textures.entrySet().iterator();
+			while (_texturesBytes > MAX_TEXTURES_BYTES && _textures.size() > 1) {
+				Entry<File, BufferedImage> entry = iter.next();
+				_texturesBytes -= getBytes(entry.getValue());
+				iter.remove();
+			}
+		}
+	}
+
+	private static long getBytes(BufferedImage image) {
+		return (long) image.getWidth() * image.getHeight() * 4;
+	}
+
+	/**
+	 * Forget the decoded textures.
+	 */
+	public void clearCache() {
+		synchronized (_textures) {
+			_textures.clear();
+			_texturesBytes = 0;
+		}
+	}
+}
@@ -21,11 +21,17 @@
 // USE OR OTHER DEALINGS IN THE SOFTWARE.
 package phasereditor.canvas.core;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.security.InvalidParameterException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.UUID;
 
 import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.CoreException;
+import org.json.JSONArray;
 import org.json.JSONObject;
 import org.json.JSONTokener;
 
@@ -45,6 +51,97 @@ public class Prefab extends CanvasFile{
 		super(file, null);
 	}
 
+	private static final int MAX_CACHED_TEMPLATES = 128;
+
+	private static class Template {
+		long stamp;
+		JSONObject data;
+	}
+
+	/**
+	 * The root object of the prefab files, ready to be copied into new
+	 * instances, it is used by all the instances of the prefab while the file
+	 * is not modified. The build invalidates the prefabs that are removed or
+	 * that use modified prefabs or assets, and only the recently used prefabs
+	 * are kept.
+	 */
+	@SuppressWarnings("serial")
+	private static Map<IFile, Template> _templates = Collections
+			.synchronizedMap(new LinkedHashMap<IFile, Template>(16, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<IFile, Template> eldest) {
+					return size() > MAX_CACHED_TEMPLATES;
+				}
+			});
+
+	private static JSONObject getTemplate(IFile file) throws CoreException, IOException {
+		long stamp = file.getModificationStamp();
+
+		Template template = _templates.get(file);
+
+		if (template != null && template.stamp == stamp) {
+			return template.data;
+		}
+
+		return buildTemplate(file, stamp);
+	}
+
+	private static JSONObject buildTemplate(IFile file, long stamp) throws CoreException, IOException {
+		CanvasModel model = new CanvasModel(file);
+
+		try (InputStream contents = file.getContents()) {
+			model.read(new JSONObject(new JSONTokener(contents)));
+		}
+
+		BaseObjectModel objModel;
+		if (model.getType() == CanvasType.SPRITE) {
+			objModel = model.getWorld().findFirstSprite();
+			if (objModel == null) {
+				throw new InvalidParameterException("The prefab has an invalid state.");
+			}
+		} else {
+			// get the prefab root
+			objModel = model.getWorld().findGroupPrefabRoot();
+		}
+
+		Template template = new Template();
+		template.stamp = stamp;
+		template.data = new JSONObject();
+		objModel.write(template.data, false);
+
+		_templates.put(file, template);
+
+		return template.data;
+	}
+
+	/**
+	 * Read the prefab file and build its model, so the next instances of it
+	 * are created without access the file. It is called by the build, in the
+	 * builder thread, for the modified prefabs and the prefabs that use
+	 * modified prefabs or assets, so the UI thread only copies the prepared
+	 * data.
+	 */
+	public void prepare() {
+		IFile file = getFile();
+		if (file.exists()) {
+			try {
+				buildTemplate(file, file.getModificationStamp());
+			} catch (Exception e) {
+				_templates.remove(file);
+				CanvasCore.logError(e);
+			}
+		} else {
+			_templates.remove(file);
+		}
+	}
+
+	/**
+	 * Forget the prepared data of the given prefab file.
+	 */
+	public static void invalidate(IFile file) {
+		_templates.remove(file);
+	}
+
 	/**
 	 * The same as {@link #newInstance(JSONObject)} but it takes no instance
 	 * info.
@@ -65,30 +162,15 @@ public class Prefab extends CanvasFile{
 	 */
 	public JSONObject newInstance(JSONObject initInfo) {
 		IFile file = getFile();
-		CanvasModel model = new CanvasModel(file);
-		try (InputStream contents = file.getContents()) {
-			JSONObject data = new JSONObject(new JSONTokener(contents));
-
-			model.read(data);
-			BaseObjectModel objModel;
-			if (model.getType() == CanvasType.SPRITE) {
-				objModel = model.getWorld().findFirstSprite();
-				if (objModel == null) {
-					throw new InvalidParameterException("The prefab has an invalid state.");
-				}
-			} else {
-				// get the prefab root
-				objModel = model.getWorld().findGroupPrefabRoot();
-			}
+		try {
+			// the callers can modify the new data
+			JSONObject newData = copy(getTemplate(file));
 
 			if (initInfo != null) {
-				applyInfo(objModel, initInfo);
+				applyInfo(newData.getJSONObject("info"), initInfo);
 			}
 
-			JSONObject newData = new JSONObject();
-			objModel.setId(UUID.randomUUID().toString());
-			//objModel.setEditorName(model.getSettings().getClassName());
-			objModel.write(newData, false);
+			newData.put("id", UUID.randomUUID().toString());
 
 			return newData;
 		} catch (Exception e) {
@@ -97,19 +179,40 @@ public class Prefab extends CanvasFile{
 		}
 	}
 
-	private static void applyInfo(BaseObjectModel objModel, JSONObject info) {
-		JSONObject prefabData = new JSONObject();
-		objModel.write(prefabData, false);
-		JSONObject prefabInfo = prefabData.getJSONObject("info");
+	private static void applyInfo(JSONObject prefabInfo, JSONObject info) {
 		for (String k : info.keySet()) {
-			
+
 			// never override children
 			if (k.equals("children")) {
 				continue;
 			}
-			
+
 			prefabInfo.put(k, info.get(k));
 		}
-		objModel.readInfo(prefabInfo);
+	}
+
+	private static JSONObject copy(JSONObject obj) {
+		JSONObject copy = new JSONObject();
+		for (String k : obj.keySet()) {
+			copy.put(k, copyValue(obj.get(k)));
+		}
+		return copy;
+	}
+
+	private static Object copyValue(Object value) {
+		if (value instanceof JSONObject) {
+			return copy((JSONObject) value);
+		}
+
+		if (value instanceof JSONArray) {
+			JSONArray array = (JSONArray) value;
+			JSONArray copy = new JSONArray();
+			for (int i = 0; i < array.length(); i++) {
+				copy.put(copyValue(array.get(i)));
+			}
+			return copy;
+		}
+
+		return value;
 	}
 }
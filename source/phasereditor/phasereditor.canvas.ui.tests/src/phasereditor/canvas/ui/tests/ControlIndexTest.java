@@ -0,0 +1,181 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2015, 2017 Arian Fornaris
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions: The above copyright notice and this permission
+// notice shall be included in all copies or substantial portions of the
+// Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+package phasereditor.canvas.ui.tests;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javafx.scene.Node;
+
+import phasereditor.canvas.core.BaseObjectModel;
+import phasereditor.canvas.core.GroupModel;
+import phasereditor.canvas.ui.editors.ControlIndex;
+import phasereditor.canvas.ui.shapes.BaseObjectControl;
+import phasereditor.canvas.ui.shapes.GroupControl;
+import phasereditor.canvas.ui.shapes.IObjectNode;
+
+/**
+ * @author arian
+ *
+ */
+public class ControlIndexTest {
+
+	private static GroupControl createTree(int groups, int children) {
+		GroupModel root = new GroupModel(null);
+
+		for (int i = 0; i < groups; i++) {
+			GroupModel group = new GroupModel(root);
+			root.addChild(group);
+
+			for (int j = 0; j < children; j++) {
+				group.addChild(new GroupModel(group));
+			}
+		}
+
+		return new GroupControl(null, root);
+	}
+
+	private static List<String> collectIds(GroupModel model, List<String> list) {
+		list.add(model.getId());
+		for (BaseObjectModel child : model.getChildren()) {
+			collectIds((GroupModel) child, list);
+		}
+		return list;
+	}
+
+	@SuppressWarnings("static-method")
+	@Test
+	public void testFindAll() {
+		GroupControl root = createTree(10, 10);
+		ControlIndex index = new ControlIndex(root.getNode());
+
+		List<String> ids = collectIds(root.getModel(), new ArrayList<>());
+
+		Assert.assertEquals(ids.size(), index.size());
+
+		for (String id : ids) {
+			BaseObjectControl<?> control = index.findById(id);
+			Assert.assertNotNull(control);
+			Assert.assertEquals(id, control.getId());
+		}
+
+		Assert.assertNull(index.findById("missing"));
+	}
+
+	@SuppressWarnings("static-method")
+	@Test
+	public void testAddRemoveAndReparent() {
+		GroupControl root = createTree(2, 3);
+		ControlIndex index = new ControlIndex(root.getNode());
+
+		GroupControl group1 = (GroupControl) ((IObjectNode) root.getNode().getChildren().get(0)).getControl();
+		GroupControl group2 = (GroupControl) ((IObjectNode) root.getNode().getChildren().get(1)).getControl();
+
+		// remove
+
+		IObjectNode removed = (IObjectNode) group1.getNode().getChildren().get(0);
+		group1.removeChild(removed);
+
+		Assert.assertNull(index.findById(removed.getModel().getId()));
+
+		// add
+
+		GroupControl added = new GroupControl(null, new GroupModel(group1.getModel()));
+		group1.addChild(added.getNode());
+
+		Assert.assertSame(added, index.findById(added.getId()));
+
+		// reparent, the node is moved to the other group without remove it
+		// first
+
+		IObjectNode moved = (IObjectNode) group1.getNode().getChildren().get(0);
+		group2.addChild(moved);
+
+		Assert.assertSame(moved.getControl(), index.findById(moved.getModel().getId()));
+		Assert.assertSame(group2.getNode(), moved.getNode().getParent());
+
+		// remove a group with children
+
+		List<String> ids = collectIds(group2.getModel(), new ArrayList<>());
+		root.removeChild(group2.getNode());
+
+		for (String id : ids) {
+			Assert.assertNull(index.findById(id));
+		}
+
+		// rebuild the structure
+
+		group1.updateStructureFromModel();
+
+		for (String id : collectIds(root.getModel(), new ArrayList<>())) {
+			BaseObjectControl<?> control = index.findById(id);
+			Assert.assertNotNull(control);
+			Assert.assertTrue(isDescendant(control.getNode(), root.getNode()));
+		}
+	}
+
+	private static boolean isDescendant(Node node, Node root) {
+		Node n = node;
+		while (n != null) {
+			if (n == root) {
+				return true;
+			}
+			n = n.getParent();
+		}
+		return false;
+	}
+
+	@SuppressWarnings("static-method")
+	@Test
+	public void testLookupCostIsFlat() {
+		double small = countVisitedNodes(createTree(10, 10));
+		double large = countVisitedNodes(createTree(100, 100));
+
+		// the tree is 100 times bigger, but a look up only visits the
+		// ancestors of the found node (the tree depth is 2), and a miss visits
+		// nothing
+
+		Assert.assertTrue("Visited nodes per look up: " + small, small <= 2);
+		Assert.assertTrue("Visited nodes per look up: " + large, large <= 2);
+	}
+
+	/**
+	 * The visited nodes per look up, of all the objects and the same number of
+	 * missing ids.
+	 */
+	private static double countVisitedNodes(GroupControl root) {
+		ControlIndex index = new ControlIndex(root.getNode());
+		List<String> ids = collectIds(root.getModel(), new ArrayList<>());
+
+		long start = index.getVisitedNodes();
+
+		for (String id : ids) {
+			Assert.assertNotNull(index.findById(id));
+			Assert.assertNull(index.findById(id + "-missing"));
+		}
+
+		return (double) (index.getVisitedNodes() - start) / (ids.size() * 2);
+	}
+}
@@ -42,7 +42,6 @@ import phasereditor.canvas.ui.editors.CanvasEditor;
 import phasereditor.canvas.ui.editors.ObjectCanvas;
 import phasereditor.canvas.ui.editors.operations.CompositeOperation;
 import phasereditor.canvas.ui.shapes.BaseObjectControl;
-import phasereditor.canvas.ui.shapes.GroupNode;
 import phasereditor.ui.PhaserEditorUI;
 
 /**
@@ -57,16 +56,15 @@ public class CanvasAssetReplacer implements IAssetReplacer {
 		for (IFile file : result.getFiles()) {
 			List<IEditorPart> editors = PhaserEditorUI.findOpenFileEditors(file);
 			for (IEditorPart editor : editors) {
-				if (editor instanceof CanvasEditor) {
+				if (editor instanceof CanvasEditor && ((CanvasEditor) editor).isLoaded()) {
 					ObjectCanvas canvas = ((CanvasEditor) editor).getCanvas();
-					GroupNode world = canvas.getWorldNode();
 
 					CompositeOperation operations = new CompositeOperation();
 
 					for (IAssetReference ref : result.getReferencesOf(file)) {
 						if (ref instanceof AssetInCanvasReference) {
 							String objectId = ((AssetInCanvasReference) ref).getObjectId();
-							BaseObjectControl<?> control = world.getControl().findById(objectId);
+							BaseObjectControl<?> control = canvas.getControlIndex().findById(objectId);
 							if (control != null) {
 								CanvasUI.changeSpriteTexture(control.getIObjectNode(), key, operations);
 							}
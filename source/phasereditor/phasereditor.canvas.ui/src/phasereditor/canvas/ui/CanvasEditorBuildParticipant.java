@@ -3,7 +3,9 @@ package phasereditor.canvas.ui;
 import static java.lang.System.out;
 import static phasereditor.ui.PhaserEditorUI.swtRun;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -11,7 +13,6 @@ import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IResourceDelta;
-import org.eclipse.core.resources.IResourceDeltaVisitor;
 import org.eclipse.core.resources.IWorkspaceRoot;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
@@ -19,14 +20,13 @@ import org.eclipse.core.runtime.IPath;
 import org.eclipse.ui.IEditorReference;
 import org.eclipse.ui.PlatformUI;
 import org.eclipse.ui.part.FileEditorInput;
-import org.json.JSONObject;
 
 import phasereditor.assetpack.core.AssetPackBuildParticipant;
 import phasereditor.assetpack.core.AssetPackCore.PackDelta;
 import phasereditor.assetpack.ui.AssetPackUI;
 import phasereditor.canvas.core.CanvasCore;
+import phasereditor.canvas.core.CanvasFile;
 import phasereditor.canvas.core.CanvasFilesValidationBuildParticipant;
-import phasereditor.canvas.core.MissingPrefabModel;
 import phasereditor.canvas.core.Prefab;
 import phasereditor.canvas.ui.editors.CanvasEditor;
 import phasereditor.canvas.ui.editors.behaviors.UpdateBehavior;
@@ -62,147 +62,128 @@ public class CanvasEditorBuildParticipant implements IProjectBuildParticipant {
 
 	@Override
 	public void fullBuild(IProject project, Map<String, Object> env) {
-		build(null, null, true);
+		swtRun(new Runnable() {
+
+			@Override
+			public void run() {
+				for (CanvasEditor editor : findOpenEditors(project)) {
+					IFile curFile = editor.getEditorInputFile();
+					out.println("Rebuild canvas editor: " + curFile.getFullPath());
+					editor.getCanvas().getUpdateBehavior().rebuild();
+				}
+			}
+		});
 	}
 
 	@Override
 	public void build(IProject project, IResourceDelta delta, Map<String, Object> env) {
 		PackDelta packDelta = AssetPackBuildParticipant.getData(env);
-		build(delta, packDelta, false);
-	}
 
-	private static void build(IResourceDelta delta, PackDelta packDelta, boolean fullBuild) {
+		if (packDelta != null && (packDelta.isEmpty() || !packDelta.inProject(project))) {
+			packDelta = null;
+		}
+
+		// this is computed in the builder thread, the editors are updated
+		// later in the UI thread.
+
+		IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+
+		Set<IFile> changedPrefabs = new HashSet<>();
+		boolean[] removedCanvas = { false };
+
 		try {
-			swtRun(new Runnable() {
+			delta.accept(d -> {
+				IResource resource = d.getResource();
+
+				if (resource instanceof IFile && "canvas".equals(resource.getFileExtension())) {
+					IFile file = (IFile) resource;
+
+					if (d.getKind() == IResourceDelta.REMOVED) {
+						// we cannot know the type of a removed file
+						removedCanvas[0] = true;
+						changedPrefabs.add(file);
+					} else if (CanvasCore.isPrefabFile(file)) {
+						changedPrefabs.add(file);
+					}
 
-				@Override
-				public void run() {
-					IEditorReference[] editors = PlatformUI.getWorkbench().getActiveWorkbenchWindow().getActivePage()
-							.getEditorReferences();
+					// add the files from a move
 
-					IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+					IPath path = d.getMovedFromPath();
+					if (path != null) {
+						changedPrefabs.add(root.getFile(path));
+					}
 
-					for (IEditorReference ref : editors) {
-						if (!ref.getId().equals(CanvasEditor.ID)) {
-							continue;
-						}
+					path = d.getMovedToPath();
+					if (path != null) {
+						changedPrefabs.add(root.getFile(path));
+					}
+				}
+				return true;
+			});
+		} catch (CoreException e) {
+			AssetPackUI.logError(e);
+		}
 
-						CanvasEditor editor = (CanvasEditor) ref.getEditor(false);
-
-						if (editor != null) {
-							IFile curFile = ((FileEditorInput) editor.getEditorInput()).getFile();
-
-							// update editor name (and image?)
-							if (!fullBuild) {
-								try {
-									delta.accept(d -> {
-										if (d.getKind() == IResourceDelta.REMOVED && d.getResource().equals(curFile)) {
-											IPath movedTo = d.getMovedToPath();
-											if (movedTo == null) {
-												editor.handleFileDelete();
-											} else {
-												IFile newFile = root.getFile(movedTo);
-												editor.handleFileRename(newFile);
-											}
-										}
-										return true;
-									});
-								} catch (CoreException e) {
-									AssetPackUI.logError(e);
-								}
-							}
+		// the prefabs that use the changed prefabs and assets are affected too
+
+		Set<IFile> affectedPrefabs = new HashSet<>(changedPrefabs);
+
+		if (!changedPrefabs.isEmpty() || packDelta != null) {
+			for (CanvasFile cfile : CanvasCore.findDependentCanvasFiles(project, changedPrefabs, packDelta)) {
+				if (cfile.getType().isPrefab()) {
+					affectedPrefabs.add(cfile.getFile());
+				}
+			}
+		}
 
-							boolean rebuild = false;
-
-							if (fullBuild) {
-								rebuild = true;
-							} else if (!packDelta.isEmpty() && packDelta.inProject(editor.getEditorInputFile().getProject())) {
-								// rebuild if the asset pack delta affects the
-								// project
-								rebuild = true;
-							} else {
-								// rebuild if a prefab file was modified
-								boolean[] value = { false };
-								try {
-									delta.accept(new IResourceDeltaVisitor() {
-
-										@Override
-										public boolean visit(IResourceDelta d) throws CoreException {
-											IResource resource = d.getResource();
-											if (resource instanceof IFile) {
-
-												if (!CanvasCore.isPrefabFile((IFile) resource)) {
-													return true;
-												}
-
-												// the list of all the files
-												// affected by the operation
-												Set<IFile> files = new HashSet<>();
-
-												// add the main file
-												files.add((IFile) resource);
-
-												// add the file from a move
-												{
-													IPath path = d.getMovedFromPath();
-													if (path != null) {
-														files.add(root.getFile(path));
-													}
-												}
-
-												// add the files from a move
-												{
-													IPath path = d.getMovedToPath();
-													if (path != null) {
-														files.add(root.getFile(path));
-													}
-												}
-
-												for (IFile file : files) {
-													// abort the search if the
-													// file
-													// is the same editor file
-													if (file.equals(curFile)) {
-														return true;
-													}
-
-													editor.getModel().getWorld().walk_stopIfFalse(obj -> {
-														if (obj.isPrefabInstance()) {
-															Prefab prefab = obj.getPrefab();
-															if (prefab.getFile().equals(file)) {
-																value[0] = true;
-																return false;
-															}
-														} else if (obj instanceof MissingPrefabModel) {
-															JSONObject data = ((MissingPrefabModel) obj).getSrcData();
-															String filepath = data.getString("prefabFile");
-															IFile prefabFile = curFile.getProject().getFile(filepath);
-															if (prefabFile.equals(file)) {
-																value[0] = true;
-																return false;
-															}
-														}
-														return true;
-													});
-												}
-											}
-											return true;
+		if (affectedPrefabs.isEmpty() && packDelta == null && !removedCanvas[0]) {
+			return;
+		}
+
+		// parse the prefabs and build their models now, so the editors only
+		// copy the prepared data. The removed prefabs are forgotten.
+
+		for (IFile file : affectedPrefabs) {
+			new Prefab(file).prepare();
+		}
+
+		PackDelta packDelta2 = packDelta;
+
+		try {
+			swtRun(new Runnable() {
+
+				@Override
+				public void run() {
+					for (CanvasEditor editor : findOpenEditors(project)) {
+						IFile curFile = editor.getEditorInputFile();
+
+						// update editor name (and image?)
+						if (removedCanvas[0]) {
+							try {
+								delta.accept(d -> {
+									if (d.getKind() == IResourceDelta.REMOVED && d.getResource().equals(curFile)) {
+										IPath movedTo = d.getMovedToPath();
+										if (movedTo == null) {
+											editor.handleFileDelete();
+										} else {
+											IFile newFile = root.getFile(movedTo);
+											editor.handleFileRename(newFile);
 										}
-									});
-									rebuild = value[0];
-								} catch (CoreException e) {
-									AssetPackUI.logError(e);
-								}
+									}
+									return true;
+								});
+							} catch (CoreException e) {
+								AssetPackUI.logError(e);
 							}
+						}
 
-							// rebuild the editor if it is the case
-							if (rebuild) {
-								out.println("Rebuild canvas editor: " + curFile.getFullPath());
-								UpdateBehavior updateBehavior = editor.getCanvas().getUpdateBehavior();
-								updateBehavior.rebuild();
-							}
+						// the editor is not affected by its own file
+						Set<IFile> prefabs = new HashSet<>(affectedPrefabs);
+						prefabs.remove(curFile);
 
-						}
+						// rebuild only the objects affected by the changes
+						UpdateBehavior updateBehavior = editor.getCanvas().getUpdateBehavior();
+						updateBehavior.rebuild(prefabs, packDelta2);
 					}
 				}
 			});
@@ -211,4 +192,30 @@ public class CanvasEditorBuildParticipant implements IProjectBuildParticipant {
 		}
 	}
 
+	static List<CanvasEditor> findOpenEditors(IProject project) {
+		List<CanvasEditor> list = new ArrayList<>();
+
+		IEditorReference[] editors = PlatformUI.getWorkbench().getActiveWorkbenchWindow().getActivePage()
+				.getEditorReferences();
+
+		for (IEditorReference ref : editors) {
+			if (!ref.getId().equals(CanvasEditor.ID)) {
+				continue;
+			}
+
+			CanvasEditor editor = (CanvasEditor) ref.getEditor(false);
+
+			// the editors in loading state read the latest content when
+			// loaded
+			if (editor != null && editor.isLoaded()) {
+				IFile curFile = ((FileEditorInput) editor.getEditorInput()).getFile();
+				if (curFile.getProject().equals(project)) {
+					list.add(editor);
+				}
+			}
+		}
+
+		return list;
+	}
+
 }
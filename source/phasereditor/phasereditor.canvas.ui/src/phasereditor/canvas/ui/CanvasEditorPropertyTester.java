@@ -23,6 +23,7 @@ package phasereditor.canvas.ui;
 
 import org.eclipse.core.expressions.PropertyTester;
 
+import phasereditor.canvas.core.CanvasModel;
 import phasereditor.canvas.core.CanvasType;
 import phasereditor.canvas.ui.editors.CanvasEditor;
 
@@ -38,8 +39,15 @@ public class CanvasEditorPropertyTester extends PropertyTester {
 
 		switch (property) {
 		case "canvasType":
+			CanvasModel model = editor.getModel();
+			if (model == null) {
+				// it is loading
+				return false;
+			}
 			CanvasType type = CanvasType.valueOf(((String) expectedValue).toUpperCase());
-			return type.equals(editor.getModel().getType());
+			return type.equals(model.getType());
+		case "loaded":
+			return editor.isLoaded();
 		default:
 			break;
 		}
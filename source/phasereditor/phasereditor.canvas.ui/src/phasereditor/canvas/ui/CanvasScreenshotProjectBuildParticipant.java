@@ -1,7 +1,9 @@
 package phasereditor.canvas.ui;
 
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IFile;
@@ -12,6 +14,8 @@ import org.eclipse.core.resources.IResourceVisitor;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 
+import phasereditor.assetpack.core.AssetPackBuildParticipant;
+import phasereditor.assetpack.core.AssetPackCore.PackDelta;
 import phasereditor.canvas.core.CanvasCore;
 import phasereditor.canvas.core.CanvasFile;
 import phasereditor.project.core.IProjectBuildParticipant;
@@ -25,10 +29,7 @@ public class CanvasScreenshotProjectBuildParticipant implements IProjectBuildPar
 
 	@Override
 	public void startupOnInitialize(IProject project, Map<String, Object> env) {
-		List<CanvasFile> cfiles = CanvasCore.getCanvasFileCache().getProjectData(project);
-		for (CanvasFile cfile : cfiles) {
-			CanvasUI.getCanvasScreenshotFile(cfile.getFile(), true);
-		}
+		// nothing, the missing screenshots are created when requested
 	}
 
 	@Override
@@ -63,41 +64,72 @@ public class CanvasScreenshotProjectBuildParticipant implements IProjectBuildPar
 
 	@Override
 	public void build(IProject project, IResourceDelta delta, Map<String, Object> env) {
+		Set<IFile> changed = new LinkedHashSet<>();
+		Set<IFile> removed = new LinkedHashSet<>();
+
 		try {
 			delta.accept(new IResourceDeltaVisitor2() {
 				@Override
 				public void fileAdded(IFile file) {
 					if (CanvasCore.isCanvasFile(file)) {
-						CanvasUI.getCanvasScreenshotFile(file, true);
+						changed.add(file);
 					}
 				}
 
 				@Override
 				public void fileRemoved(IFile file) {
-					if (CanvasCore.isCanvasFile(file)) {
+					if (CanvasCore.isCanvasFileExtension(file)) {
 						CanvasUI.clearCanvasScreenshot(file);
+						removed.add(file);
 					}
 				}
 
 				@Override
 				public void fileMovedTo(IFile file, IPath movedFromPath, IPath movedToPath) {
 					if (CanvasCore.isCanvasFile(file)) {
-						CanvasUI.clearCanvasScreenshot(file);
-						CanvasUI.getCanvasScreenshotFile(file, true);
+						changed.add(file);
+						removed.add(file.getWorkspace().getRoot().getFile(movedFromPath));
 					}
 				}
 
 				@Override
 				public void fileChanged(IFile file) {
 					if (CanvasCore.isCanvasFile(file)) {
-						CanvasUI.clearCanvasScreenshot(file);
-						CanvasUI.getCanvasScreenshotFile(file, true);
+						changed.add(file);
 					}
 				}
 			});
 		} catch (CoreException e) {
 			CanvasUI.logError(e);
 		}
+
+		PackDelta packDelta = AssetPackBuildParticipant.getData(env);
+
+		if (changed.isEmpty() && removed.isEmpty() && packDelta.isEmpty()) {
+			return;
+		}
+
+		// the prefabs and states using the modified prefabs and assets are
+		// outdated too
+
+		Set<IFile> all = new LinkedHashSet<>(changed);
+		all.addAll(removed);
+
+		for (CanvasFile cfile : CanvasCore.findDependentCanvasFiles(project, all, packDelta)) {
+			changed.add(cfile.getFile());
+		}
+
+		for (IFile file : changed) {
+			CanvasUI.clearCanvasScreenshot(file);
+		}
+
+		CanvasScreenshotQueue queue = CanvasUI.getScreenshotQueue();
+
+		if (!packDelta.isEmpty()) {
+			queue.clearTextureCache();
+		}
+
+		queue.schedule(changed);
 	}
 
 	@Override
@@ -105,7 +137,7 @@ public class CanvasScreenshotProjectBuildParticipant implements IProjectBuildPar
 		List<CanvasFile> cfiles = CanvasCore.getCanvasFileCache().getProjectData(project);
 		for (CanvasFile cfile : cfiles) {
 			CanvasUI.clearCanvasScreenshot(cfile.getFile());
-			CanvasUI.getCanvasScreenshotFile(cfile.getFile(), true);
 		}
+		CanvasUI.getScreenshotQueue().clearTextureCache();
 	}
 }
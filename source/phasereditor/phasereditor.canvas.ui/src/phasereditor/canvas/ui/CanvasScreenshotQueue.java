@@ -0,0 +1,194 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2015, 2017 Arian Fornaris
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions: The above copyright notice and this permission
+// notice shall be included in all copies or substantial portions of the
+// Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+package phasereditor.canvas.ui;
+
+import static java.lang.System.out;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+import phasereditor.canvas.core.CanvasRenderer;
+
+/**
+ * A background queue to regenerate the canvas screenshots. Repeated requests
+ * of the same file are merged, and the files are rendered by a system job, so
+ * the build is never blocked by the screenshots.
+ * <p>
+ * When a screenshot is requested by the UI (a tooltip, an icon) and it is not
+ * ready, then it is queued without delay and the UI shows a placeholder. The
+ * listeners are notified when the screenshots are ready, to update the UI.
+ * </p>
+ * 
+ * @author arian
+ *
+ */
+public class CanvasScreenshotQueue extends Job {
+	private static final long COALESCE_DELAY = 500;
+
+	private Set<IFile> _pending;
+	private Map<IPath, Object> _locks;
+	private CanvasRenderer _renderer;
+	private List<Consumer<Set<IFile>>> _listeners;
+
+	public CanvasScreenshotQueue() {
+		super("Update canvas screenshots");
+
+		_pending = new LinkedHashSet<>();
+		_locks = new ConcurrentHashMap<>();
+		_renderer = new CanvasRenderer();
+		_listeners = new CopyOnWriteArrayList<>();
+
+		setSystem(true);
+		setPriority(DECORATE);
+	}
+
+	/**
+	 * Request the regeneration of the screenshots of the given files. If there
+	 * are requests of the same files waiting in the queue, they are merged.
+	 */
+	public void schedule(Collection<IFile> files) {
+		if (files.isEmpty()) {
+			return;
+		}
+
+		synchronized (_pending) {
+			_pending.addAll(files);
+		}
+
+		schedule(COALESCE_DELAY);
+	}
+
+	/**
+	 * Forget the decoded textures, call it when the assets are modified.
+	 */
+	public void clearTextureCache() {
+		_renderer.clearCache();
+	}
+
+	/**
+	 * Request the screenshot of a file that is needed by the UI right now. It
+	 * never renders in the caller thread, if the screenshot does not exist it
+	 * is queued without delay.
+	 * 
+	 * @return If the screenshot exists.
+	 */
+	public boolean requestScreenshot(IFile file, Path writeTo) {
+		if (Files.exists(writeTo)) {
+			return true;
+		}
+
+		synchronized (_pending) {
+			_pending.add(file);
+		}
+
+		schedule();
+
+		return false;
+	}
+
+	/**
+	 * Add a listener that is called, in the job thread, with the files that
+	 * got a new screenshot.
+	 */
+	public void addListener(Consumer<Set<IFile>> listener) {
+		_listeners.add(listener);
+	}
+
+	public void removeListener(Consumer<Set<IFile>> listener) {
+		_listeners.remove(listener);
+	}
+
+	private Object getLock(IFile file) {
+		return _locks.computeIfAbsent(file.getFullPath(), k -> new Object());
+	}
+
+	@Override
+	protected IStatus run(IProgressMonitor monitor) {
+		List<IFile> batch;
+
+		synchronized (_pending) {
+			batch = new ArrayList<>(_pending);
+			_pending.clear();
+		}
+
+		out.println("CanvasScreenshotQueue: process " + batch.size() + " files.");
+
+		monitor.beginTask("Updating canvas screenshots", batch.size());
+
+		Set<IFile> ready = ConcurrentHashMap.newKeySet();
+
+		batch.parallelStream().forEach(file -> {
+			if (monitor.isCanceled()) {
+				synchronized (_pending) {
+					_pending.add(file);
+				}
+				return;
+			}
+
+			if (file.exists()) {
+				try {
+					Path writeTo = CanvasUI.getCanvasScreenshotFile(file);
+					synchronized (getLock(file)) {
+						if (!Files.exists(writeTo)) {
+							CanvasUI.makeCanvasScreenshot(file, writeTo, _renderer);
+						}
+					}
+					ready.add(file);
+				} catch (Exception e) {
+					CanvasUI.logError(e);
+				}
+			}
+
+			monitor.worked(1);
+		});
+
+		monitor.done();
+
+		if (!ready.isEmpty()) {
+			for (Consumer<Set<IFile>> listener : _listeners) {
+				listener.accept(ready);
+			}
+		}
+
+		if (monitor.isCanceled()) {
+			return Status.CANCEL_STATUS;
+		}
+
+		return Status.OK_STATUS;
+	}
+}
@@ -26,9 +26,7 @@ import static java.lang.System.out;
 
 import java.awt.image.BufferedImage;
 import java.io.File;
-import java.io.IOException;
 import java.io.InputStream;
-import java.lang.reflect.Method;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -40,21 +38,23 @@ import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
 
 import javax.imageio.ImageIO;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
-import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.QualifiedName;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.jface.text.IInformationControl;
+import org.eclipse.jface.viewers.StructuredViewer;
 import org.eclipse.jface.viewers.TableViewer;
 import org.eclipse.jface.viewers.TreeViewer;
 import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Control;
 import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Shell;
 import org.eclipse.ui.IEditorPart;
@@ -71,20 +71,6 @@ import com.subshell.snippets.jface.tooltip.tooltipsupport.TableViewerInformation
 import com.subshell.snippets.jface.tooltip.tooltipsupport.Tooltips;
 import com.subshell.snippets.jface.tooltip.tooltipsupport.TreeViewerInformationProvider;
 
-import javafx.embed.swing.SwingFXUtils;
-import javafx.embed.swt.FXCanvas;
-import javafx.geometry.Bounds;
-import javafx.geometry.Insets;
-import javafx.geometry.Rectangle2D;
-import javafx.scene.Node;
-import javafx.scene.Scene;
-import javafx.scene.SnapshotParameters;
-import javafx.scene.image.WritableImage;
-import javafx.scene.layout.Background;
-import javafx.scene.layout.BackgroundFill;
-import javafx.scene.layout.CornerRadii;
-import javafx.scene.paint.Color;
-import javafx.scene.transform.Scale;
 import phasereditor.assetpack.core.AssetModel;
 import phasereditor.assetpack.core.FindAssetReferencesResult;
 import phasereditor.assetpack.core.IAssetFrameModel;
@@ -102,19 +88,19 @@ import phasereditor.canvas.core.CanvasCore.PrefabReference;
 import phasereditor.canvas.core.CanvasFile;
 import phasereditor.canvas.core.CanvasModel;
 import phasereditor.canvas.core.CanvasModelFactory;
+import phasereditor.canvas.core.CanvasRenderer;
 import phasereditor.canvas.core.GroupModel;
 import phasereditor.canvas.core.Prefab;
 import phasereditor.canvas.core.WorldModel;
 import phasereditor.canvas.ui.editors.CanvasEditor;
-import phasereditor.canvas.ui.editors.behaviors.SelectionBehavior;
 import phasereditor.canvas.ui.editors.operations.AddNodeOperation;
 import phasereditor.canvas.ui.editors.operations.CompositeOperation;
 import phasereditor.canvas.ui.editors.operations.DeleteNodeOperation;
-import phasereditor.canvas.ui.shapes.GroupControl;
-import phasereditor.canvas.ui.shapes.GroupNode;
 import phasereditor.canvas.ui.shapes.IObjectNode;
 import phasereditor.canvas.ui.shapes.ITextureChangeableControl;
 import phasereditor.project.core.ProjectCore;
+import phasereditor.ui.EditorSharedImages;
+import phasereditor.ui.IEditorSharedImages;
 
 /**
  * @author arian
@@ -123,7 +109,7 @@ import phasereditor.project.core.ProjectCore;
 public class CanvasUI {
 	private static final int CANVAS_SCREENSHOT_SIZE = 256;
 	public static final String PLUGIN_ID = "phasereditor.canvas.ui";
-	private static boolean _fxStarted = false;
+	private static CanvasScreenshotQueue _screenshotQueue = new CanvasScreenshotQueue();
 
 	public static void logError(Exception e) {
 		StatusManager.getManager().handle(new Status(IStatus.ERROR, PLUGIN_ID, e.getMessage(), e));
@@ -262,7 +248,8 @@ public class CanvasUI {
 
 		for (IEditorReference editorRef : editors) {
 			IEditorPart editor = editorRef.getEditor(false);
-			if (editor != null && editor instanceof CanvasEditor) {
+			// the editors that are loading have the content of the file
+			if (editor instanceof CanvasEditor && ((CanvasEditor) editor).getModel() != null) {
 				CanvasEditor canvasEditor = (CanvasEditor) editor;
 				List<PrefabReference> refs = CanvasCore.findPrefabReferenceInModelContent(prefab,
 						canvasEditor.getModel().getWorld());
@@ -328,7 +315,8 @@ public class CanvasUI {
 
 		for (IEditorReference editorRef : editors) {
 			IEditorPart editor = editorRef.getEditor(false);
-			if (editor != null && editor instanceof CanvasEditor) {
+			// the editors that are loading have the content of the file
+			if (editor instanceof CanvasEditor && ((CanvasEditor) editor).getModel() != null) {
 				CanvasEditor canvasEditor = (CanvasEditor) editor;
 				List<IAssetReference> refs = findInModelMethod.apply(assetKey, canvasEditor.getModel().getWorld());
 				result.addAll(refs);
@@ -409,118 +397,102 @@ public class CanvasUI {
 		}
 	}
 
-	public static Path getCanvasScreenshotFile(IFile file, boolean makeIfNotExist) {
+	public static Path getCanvasScreenshotFile(IFile file) {
 		if (file == null) {
 			return null;
 		}
 
 		try {
-			String filename = file.getPersistentProperty(SNAPSHOT_FILENAME_KEY);
 			Path dir = ProjectCore.getUserCacheFolder().resolve("snapshots");
-			Path writeTo;
-			if (filename == null) {
-				filename = file.getName() + "_" + UUID.randomUUID().toString() + ".png";
-			}
-			writeTo = dir.resolve(filename);
 
-			if (makeIfNotExist) {
-				if (!Files.exists(writeTo)) {
-					makeCanvasScreenshot(file, writeTo);
+			// the UI and the queue may ask for a new file at the same time,
+			// both should get the same name
+			synchronized (SNAPSHOT_FILENAME_KEY) {
+				String filename = file.getPersistentProperty(SNAPSHOT_FILENAME_KEY);
+				if (filename == null) {
+					filename = file.getName() + "_" + UUID.randomUUID().toString() + ".png";
+					file.setPersistentProperty(SNAPSHOT_FILENAME_KEY, filename);
 				}
+				return dir.resolve(filename);
 			}
-
-			file.setPersistentProperty(SNAPSHOT_FILENAME_KEY, filename);
-
-			return writeTo;
 		} catch (Exception e) {
 			throw new RuntimeException(e);
 		}
 	}
 
-	public static javafx.scene.image.Image makeCanvasScreenshot_FXImage(IFile file, int maxSize) {
-		
-		if (!_fxStarted) {
-			Display.getDefault().syncExec(new Runnable() {
-				
-				@SuppressWarnings("unused")
-				@Override
-				public void run() {
-					new FXCanvas(new Shell(Display.getDefault()), 0);
-				}
-			});
-			_fxStarted = true;
-		}
-		
-		javafx.scene.image.Image[] result = new javafx.scene.image.Image[1];
+	/**
+	 * Get the screenshot of the canvas file, if it is ready. If not, it is
+	 * queued, and <code>null</code> is returned, so the UI thread is never
+	 * blocked by the rendering. Use {@link #installScreenshotRefresh(Control, Consumer)}
+	 * to update the UI when the screenshot is ready.
+	 */
+	public static Path requestCanvasScreenshot(IFile file) {
+		Path path = getCanvasScreenshotFile(file);
 
-		try (InputStream contents = file.getContents()) {
-			CanvasModel model = new CanvasModel(file);
-			model.read(new JSONObject(new JSONTokener(contents)));
-			GroupControl worldControl = new GroupControl(null, model.getWorld());
-			GroupNode node = worldControl.getNode();
-
-			Scene scene = new Scene(node);
-
-			Display.getDefault().syncExec(new Runnable() {
-
-				@Override
-				public void run() {
-
-					try {
-						Method m = Scene.class.getDeclaredMethod("doCSSLayoutSyncForSnapshot", Node.class);
-						m.setAccessible(true);
-						m.invoke(scene, node);
-					} catch (Exception e1) {
-						e1.printStackTrace();
-					}
+		if (path == null || !_screenshotQueue.requestScreenshot(file, path)) {
+			return null;
+		}
 
-					SnapshotParameters params = new SnapshotParameters();
-					params.setFill(Color.TRANSPARENT);
-					node.setBackground(
-							new Background(new BackgroundFill(Color.TRANSPARENT, new CornerRadii(0), new Insets(0))));
+		return path;
+	}
 
-					Bounds b = SelectionBehavior.buildSelectionBounds(node.getChildren(), node);
+	/**
+	 * Call the action, in the UI thread, each time the screenshot queue makes
+	 * new screenshots, until the control is disposed.
+	 */
+	public static void installScreenshotRefresh(Control control, Consumer<Set<IFile>> action) {
+		Display display = control.getDisplay();
 
-					if (b != null) {
-						// out.println("Bounds: " + b);
-						double f = 1;
-						double x = b.getMinX();
-						double y = b.getMinY();
-						double w = b.getWidth();
-						double h = b.getHeight();
+		Consumer<Set<IFile>> listener = files -> display.asyncExec(() -> {
+			if (!control.isDisposed()) {
+				action.accept(files);
+			}
+		});
 
-						double max = Math.max(w, h);
-						if (max > maxSize) {
-							f = maxSize / max;
-						}
+		_screenshotQueue.addListener(listener);
 
-						params.setTransform(new Scale(f, f, x, y));
-						params.setViewport(new Rectangle2D(x, y, w * f, h * f));
-					}
+		control.addDisposeListener(e -> _screenshotQueue.removeListener(listener));
+	}
 
-					WritableImage image = node.snapshot(params, null);
-					result[0] = image;
-				}
-			});
-		} catch (IOException | CoreException e) {
-			e.printStackTrace();
-		}
+	/**
+	 * Refresh the labels of the viewer when there are new screenshots, for the
+	 * viewers showing the screenshots as icons.
+	 */
+	public static void installScreenshotRefresh(StructuredViewer viewer) {
+		installScreenshotRefresh(viewer.getControl(), files -> viewer.refresh(true));
+	}
 
-		return result[0];
+	public static CanvasScreenshotQueue getScreenshotQueue() {
+		return _screenshotQueue;
 	}
 
 	public static void makeCanvasScreenshot(IFile file, Path writeTo) {
+		makeCanvasScreenshot(file, writeTo, new CanvasRenderer());
+	}
+
+	/**
+	 * Make the screenshot of the canvas file with the headless renderer, so it
+	 * can be called from any thread. Share the same renderer to make a batch of
+	 * screenshots, the textures are decoded only once.
+	 */
+	public static void makeCanvasScreenshot(IFile file, Path writeTo, CanvasRenderer renderer) {
 		long t = currentTimeMillis();
 
-		javafx.scene.image.Image fxImage = makeCanvasScreenshot_FXImage(file, CANVAS_SCREENSHOT_SIZE);
+		try (InputStream contents = file.getContents()) {
+			CanvasModel model = new CanvasModel(file);
+			model.read(new JSONObject(new JSONTokener(contents)));
 
-		BufferedImage buff = SwingFXUtils.fromFXImage(fxImage, null);
+			BufferedImage buff = renderer.render(model.getWorld(), CANVAS_SCREENSHOT_SIZE);
+
+			if (buff == null) {
+				// an empty canvas
+				buff = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+			}
 
-		try {
 			Files.createDirectories(writeTo.getParent());
-			
+
 			ImageIO.write(buff, "png", writeTo.toFile());
-		} catch (IOException e) {
+		} catch (Exception e) {
 			e.printStackTrace();
 		}
 
@@ -547,30 +519,62 @@ public class CanvasUI {
 			public IInformationControl createInformationControl(Shell parent) {
 				ExternalImageFileInformationControl control = new ExternalImageFileInformationControl(parent) {
 
+					// the file shown by the tooltip, waiting for the
+					// screenshot
+					private IFile _waitingFile;
+
 					@Override
 					protected ImagePreviewComposite createContent2(Composite parentComp) {
 						ImagePreviewComposite preview = super.createContent2(parentComp);
 						preview.destroyResolutionLabel();
+
+						installScreenshotRefresh(preview, files -> {
+							if (_waitingFile != null && files.contains(_waitingFile)) {
+								preview.setImageFile(getCanvasScreenshotFile(_waitingFile).toFile().getAbsolutePath());
+								_waitingFile = null;
+							}
+						});
+
 						return preview;
 					}
 
 					@Override
-					public File getFileToDisplay(Object model) {
-						IFile file = null;
-						if (model instanceof CanvasFile) {
-							file = ((CanvasFile) model).getFile();
-						} else if (model instanceof IFile) {
-							CanvasFile data = CanvasCore.getCanvasFileCache().getFileData((IFile) model);
-							file = data.getFile();
+					protected void updateContent(Control control, Object model) {
+						IFile file = getCanvasFile(model);
+
+						_waitingFile = null;
+
+						if (file != null && requestCanvasScreenshot(file) == null) {
+							// it is shown when it is ready
+							_waitingFile = file;
+							((ImagePreviewComposite) control).setImageFile((String) null);
+							return;
 						}
 
+						super.updateContent(control, model);
+					}
+
+					@Override
+					public File getFileToDisplay(Object model) {
+						IFile file = getCanvasFile(model);
+
 						if (file != null) {
-							Path path = CanvasUI.getCanvasScreenshotFile(file, false);
+							Path path = CanvasUI.getCanvasScreenshotFile(file);
 							return path.toFile();
 						}
 
 						return super.getFileToDisplay(model);
 					}
+
+					private IFile getCanvasFile(Object model) {
+						if (model instanceof CanvasFile) {
+							return ((CanvasFile) model).getFile();
+						} else if (model instanceof IFile) {
+							CanvasFile data = CanvasCore.getCanvasFileCache().getFileData((IFile) model);
+							return data.getFile();
+						}
+						return null;
+					}
 				};
 				return control;
 			}
@@ -604,7 +608,13 @@ public class CanvasUI {
 			return null;
 		}
 
-		Path imgfile = CanvasUI.getCanvasScreenshotFile(file, false);
+		Path imgfile = CanvasUI.requestCanvasScreenshot(file);
+
+		if (imgfile == null) {
+			// the viewers with installScreenshotRefresh() update the icon
+			// when the screenshot is ready
+			return EditorSharedImages.getImage(IEditorSharedImages.IMG_CANVAS);
+		}
 
 		return labelProvider.getIcon(imgfile.toAbsolutePath().toString());
 	}
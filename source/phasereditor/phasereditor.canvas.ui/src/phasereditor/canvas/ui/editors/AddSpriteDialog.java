@@ -104,6 +104,10 @@ public class AddSpriteDialog extends Dialog implements IEditorSharedImages {
 		return container;
 	}
 
+	public TreeViewer getViewer() {
+		return _viewer;
+	}
+
 	public IBaseLabelProvider getLabelProvider() {
 		return _labelProvider;
 	}
@@ -24,14 +24,24 @@ package phasereditor.canvas.ui.editors;
 import static phasereditor.ui.PhaserEditorUI.swtRun;
 
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
+import org.eclipse.core.commands.operations.IOperationApprover2;
+import org.eclipse.core.commands.operations.IOperationHistory;
 import org.eclipse.core.commands.operations.IUndoContext;
+import org.eclipse.core.commands.operations.IUndoableOperation;
+import org.eclipse.core.commands.operations.OperationHistoryFactory;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IAdaptable;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jface.action.GroupMarker;
 import org.eclipse.jface.action.MenuManager;
 import org.eclipse.jface.dialogs.IPageChangedListener;
@@ -53,6 +63,7 @@ import org.eclipse.swt.layout.GridLayout;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
 import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Label;
 import org.eclipse.swt.widgets.Shell;
 import org.eclipse.swt.widgets.Tree;
 import org.eclipse.ui.IActionBars;
@@ -70,6 +81,7 @@ import org.eclipse.ui.contexts.IContextService;
 import org.eclipse.ui.dialogs.FilteredTree;
 import org.eclipse.ui.ide.IGotoMarker;
 import org.eclipse.ui.operations.UndoRedoActionGroup;
+import org.eclipse.ui.services.IEvaluationService;
 import org.eclipse.ui.part.FileEditorInput;
 import org.eclipse.ui.part.MultiPageEditorPart;
 import org.json.JSONException;
@@ -81,6 +93,7 @@ import phasereditor.canvas.core.CanvasCore;
 import phasereditor.canvas.core.CanvasModel;
 import phasereditor.canvas.core.CanvasType;
 import phasereditor.canvas.core.WorldModel;
+import phasereditor.canvas.ui.CanvasUI;
 import phasereditor.canvas.ui.editors.behaviors.ZoomBehavior;
 import phasereditor.canvas.ui.editors.config.CanvasSettingsComp;
 import phasereditor.canvas.ui.editors.grid.PGrid;
@@ -128,8 +141,44 @@ public class CanvasEditor extends MultiPageEditorPart
 	private CanvasSettingsComp _settingsPage;
 	private Control _designPage;
 	private UndoRedoActionGroup _undoRedoGroup;
+	private Composite _loadingPage;
+	private IMarker _pendingMarker;
+	private boolean _disposed;
+	private CanvasUndoHistory _undoHistory;
+	private List<Runnable> _loadedActions;
+
+	/**
+	 * The editor is read-only while it is loading: the objects are created in
+	 * batches, by the index of the model, and the operations could change
+	 * them.
+	 */
+	private IOperationApprover2 _loadingApprover = new IOperationApprover2() {
+
+		@Override
+		public IStatus proceedExecuting(IUndoableOperation operation, IOperationHistory history, IAdaptable info) {
+			return approve(operation);
+		}
+
+		@Override
+		public IStatus proceedUndoing(IUndoableOperation operation, IOperationHistory history, IAdaptable info) {
+			return approve(operation);
+		}
+
+		@Override
+		public IStatus proceedRedoing(IUndoableOperation operation, IOperationHistory history, IAdaptable info) {
+			return approve(operation);
+		}
+
+		private IStatus approve(IUndoableOperation operation) {
+			if (operation.hasContext(undoContext) && !isLoaded()) {
+				return Status.CANCEL_STATUS;
+			}
+			return Status.OK_STATUS;
+		}
+	};
 
 	public CanvasEditor() {
+		_loadedActions = new ArrayList<>();
 	}
 
 	@SuppressWarnings({ "rawtypes", "unchecked" })
@@ -143,10 +192,17 @@ public class CanvasEditor extends MultiPageEditorPart
 
 	@Override
 	public void doSave(IProgressMonitor monitor) {
+		if (_model == null) {
+			return;
+		}
 		saveCanvas(monitor);
 	}
 
 	public void setDirty(boolean dirty) {
+		if (_model == null) {
+			return;
+		}
+
 		_model.getWorld().setDirty(dirty);
 		firePropertyChange(PROP_DIRTY);
 	}
@@ -196,31 +252,141 @@ public class CanvasEditor extends MultiPageEditorPart
 		super.setInput(input);
 		IFileEditorInput fileInput = (IFileEditorInput) input;
 		IFile file = fileInput.getFile();
+
+		swtRun(this::updateTitle);
+
+		loadModel(file);
+	}
+
+	/**
+	 * The file is parsed and the model is built in a background job. The
+	 * editor pages are created when the model is ready.
+	 */
+	private void loadModel(IFile file) {
+		Job job = new Job("Loading " + file.getName()) {
+
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				long stamp = file.getModificationStamp();
+				CanvasModel model = readModel(file);
+				Display.getDefault().asyncExec(() -> modelLoaded(model, stamp));
+				return Status.OK_STATUS;
+			}
+		};
+		job.setSystem(true);
+		job.setPriority(Job.INTERACTIVE);
+		job.schedule();
+	}
+
+	private static CanvasModel readModel(IFile file) {
+		CanvasModel model = new CanvasModel(file);
+
 		try (InputStream contents = file.getContents();) {
 			JSONObject data = new JSONObject(new JSONTokener(contents));
-			_model = new CanvasModel(file);
+			model.read(data);
+		} catch (Exception e) {
+			e.printStackTrace();
+			model = new CanvasModel(file);
+			Display.getDefault().asyncExec(new Runnable() {
+
+				@Override
+				public void run() {
+					Shell shell = Display.getDefault().getActiveShell();
+					MessageDialog.openError(shell, "Error", "The scene data cannot ve loaded.\n" + e.getMessage());
+				}
+			});
+		}
+
+		return model;
+	}
+
+	void modelLoaded(CanvasModel model, long stamp) {
+		if (_disposed) {
+			return;
+		}
+
+		IFile file = getEditorInputFile();
+
+		// maybe the file was modified while loading, like by a refactoring
+		if (file.getModificationStamp() != stamp && file.exists()) {
+			loadModel(file);
+			return;
+		}
+
+		// maybe the file was renamed while loading
+		model.setFile(file);
+
+		_model = model;
+		_model.getWorld().addPropertyChangeListener(WorldModel.PROP_STRUCTURE, arg -> {
+			firePropertyChange(PROP_DIRTY);
+		});
+
+		if (_loadingPage != null) {
+			// replace the placeholder by the real pages
+			createEditorPages();
+			removePage(0);
+			_loadingPage = null;
+			setActivePage(0);
+			registerCanvasGlobalActions();
+		}
+
+		requestEvaluation("canvasType");
+	}
+
+	/**
+	 * Called by the canvas when all the objects of the world were created.
+	 */
+	public void handleWorldLoaded() {
+		if (_pendingMarker != null) {
+			IMarker marker = _pendingMarker;
+			_pendingMarker = null;
+			gotoMarker(marker);
+		}
+
+		List<Runnable> actions = new ArrayList<>(_loadedActions);
+		_loadedActions.clear();
+
+		for (Runnable action : actions) {
 			try {
-				_model.read(data);
+				action.run();
 			} catch (Exception e) {
-				e.printStackTrace();
-				_model = new CanvasModel(file);
-				Display.getDefault().asyncExec(new Runnable() {
-
-					@Override
-					public void run() {
-						Shell shell = Display.getDefault().getActiveShell();
-						MessageDialog.openError(shell, "Error", "The scene data cannot ve loaded.\n" + e.getMessage());
-					}
-				});
+				CanvasUI.logError(e);
 			}
-			_model.getWorld().addPropertyChangeListener(WorldModel.PROP_STRUCTURE, arg -> {
-				firePropertyChange(PROP_DIRTY);
-			});
-			swtRun(this::updateTitle);
-		} catch (Exception e) {
-			e.printStackTrace();
-			throw new RuntimeException(e);
 		}
+
+		requestEvaluation("loaded");
+	}
+
+	/**
+	 * Run the action now, if the editor is loaded, or when it is loaded. It is
+	 * used to update the model of the editor, by the code that updates the
+	 * canvas files and the editors.
+	 */
+	public void whenLoaded(Runnable action) {
+		if (isLoaded()) {
+			action.run();
+		} else {
+			_loadedActions.add(action);
+		}
+	}
+
+	/**
+	 * Update the handlers and menus that test the given property of the
+	 * editor.
+	 */
+	private void requestEvaluation(String property) {
+		IEvaluationService service = getSite().getService(IEvaluationService.class);
+		if (service != null) {
+			service.requestEvaluation(CanvasUI.PLUGIN_ID + "." + property);
+		}
+	}
+
+	/**
+	 * @return If the model is read and all the objects are created. While the
+	 *         editor is loading, it is read-only.
+	 */
+	public boolean isLoaded() {
+		return _canvas != null && !_canvas.isLoadingWorld();
 	}
 
 	@Override
@@ -232,11 +398,13 @@ public class CanvasEditor extends MultiPageEditorPart
 	public void init(IEditorSite site, IEditorInput input) throws PartInitException {
 		setSite(site);
 		setInput(input);
+
+		OperationHistoryFactory.getOperationHistory().addOperationApprover(_loadingApprover);
 	}
 
 	@Override
 	public boolean isDirty() {
-		return _model.getWorld().isDirty();
+		return _model != null && _model.getWorld().isDirty();
 	}
 
 	@Override
@@ -246,13 +414,35 @@ public class CanvasEditor extends MultiPageEditorPart
 
 	@Override
 	protected void createPages() {
-		createDesignPage();
-		createSettingsPage();
+		if (_model == null) {
+			createLoadingPage();
+		} else {
+			createEditorPages();
+		}
 
 		addEditorActivationListeners();
 		addPageChangedListener(this);
 	}
 
+	private void createEditorPages() {
+		createDesignPage();
+
+		createSettingsPage();
+
+		_undoHistory = new CanvasUndoHistory(this, undoContext);
+	}
+
+	private void createLoadingPage() {
+		_loadingPage = new Composite(getContainer(), SWT.NONE);
+		_loadingPage.setLayout(new GridLayout(1, false));
+		Label label = new Label(_loadingPage, SWT.NONE);
+		label.setText("Loading " + getEditorInputFile().getName() + "...");
+		label.setLayoutData(new GridData(SWT.CENTER, SWT.CENTER, true, true));
+		int i = addPage(_loadingPage);
+		setPageText(i, "Design");
+		setPageImage(i, getTitleImage());
+	}
+
 	private IPartListener _partListener;
 
 	@SuppressWarnings("synthetic-access")
@@ -547,6 +737,10 @@ public class CanvasEditor extends MultiPageEditorPart
 
 	public void generateCode() {
 
+		if (_model == null) {
+			return;
+		}
+
 		if (_model.getWorld().hasErrors()) {
 			MessageDialog.openWarning(getSite().getShell(), "Canvas",
 					"The scene has errors, the JavaScript code generation is aborted.");
@@ -564,7 +758,17 @@ public class CanvasEditor extends MultiPageEditorPart
 
 	@Override
 	public void setFocus() {
+		if (_canvas == null) {
+			if (_loadingPage != null) {
+				_loadingPage.setFocus();
+			}
+			return;
+		}
 		_canvas.setFocus();
+
+		if (_undoHistory != null) {
+			_undoHistory.updateStatus();
+		}
 	}
 
 	public PaletteComp getPalette() {
@@ -579,15 +783,29 @@ public class CanvasEditor extends MultiPageEditorPart
 		return _outlineTree.getViewer();
 	}
 
+	public CanvasUndoHistory getUndoHistory() {
+		return _undoHistory;
+	}
+
 	public PGrid getPropertyGrid() {
 		return _grid;
 	}
 
 	@Override
 	public void dispose() {
+		_disposed = true;
+
+		_loadedActions.clear();
+
+		OperationHistoryFactory.getOperationHistory().removeOperationApprover(_loadingApprover);
+
 		if (_canvas != null) {
 			_canvas.getUpdateBehavior().dispose();
 		}
+
+		if (_undoHistory != null) {
+			_undoHistory.dispose();
+		}
 		super.dispose();
 	}
 
@@ -606,6 +824,10 @@ public class CanvasEditor extends MultiPageEditorPart
 
 	@Override
 	public void saveState(IMemento memento) {
+		if (_canvas == null) {
+			return;
+		}
+
 		ZoomBehavior zoom = _canvas.getZoomBehavior();
 		memento.putFloat("canvas.zoom.scale", (float) zoom.getScale());
 		memento.putFloat("canvas.translate.x", (float) zoom.getTranslate().getX());
@@ -670,10 +892,15 @@ public class CanvasEditor extends MultiPageEditorPart
 
 	@Override
 	public void gotoMarker(IMarker marker) {
+		if (!isLoaded()) {
+			_pendingMarker = marker;
+			return;
+		}
+
 		try {
 			String id = (String) marker.getAttribute(CanvasCore.GOTO_MARKER_OBJECT_ID_ATTR);
 			if (id != null) {
-				BaseObjectControl<?> control = _canvas.getWorldNode().getControl().findById(id);
+				BaseObjectControl<?> control = _canvas.getControlIndex().findById(id);
 				if (control != null) {
 					_canvas.getSelectionBehavior().setSelectionAndRevealInScene(control.getIObjectNode());
 				}
@@ -685,7 +912,9 @@ public class CanvasEditor extends MultiPageEditorPart
 
 	public void handleFileRename(IFile newFile) {
 		super.setInput(new FileEditorInput(newFile));
-		_model.setFile(newFile);
+		if (_model != null) {
+			_model.setFile(newFile);
+		}
 		updateTitle();
 	}
 
@@ -0,0 +1,252 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2015, 2017 Arian Fornaris
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions: The above copyright notice and this permission
+// notice shall be included in all copies or substantial portions of the
+// Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+package phasereditor.canvas.ui.editors;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.eclipse.core.commands.operations.IOperationHistory;
+import org.eclipse.core.commands.operations.IOperationHistoryListener;
+import org.eclipse.core.commands.operations.IUndoContext;
+import org.eclipse.core.commands.operations.IUndoableOperation;
+import org.eclipse.core.commands.operations.OperationHistoryEvent;
+import org.eclipse.core.commands.operations.OperationHistoryFactory;
+import org.eclipse.jface.action.ContributionItem;
+import org.eclipse.jface.action.IContributionItem;
+import org.eclipse.jface.action.IStatusLineManager;
+import org.eclipse.jface.action.StatusLineLayoutData;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.custom.CLabel;
+import org.eclipse.swt.graphics.GC;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Label;
+
+import phasereditor.canvas.ui.editors.operations.ISizedOperation;
+
+/**
+ * It keeps the undo history of a canvas editor under a memory limit. When the
+ * operations retain more memory than the limit, the oldest operations are
+ * removed from the history. The size of the history is shown in its own field
+ * of the status line of the editor, so it does not replace the messages of the
+ * editor.
+ * <p>
+ * The size of an operation is computed once, when it is added to the history,
+ * and the total is updated when the operations are added or removed.
+ * </p>
+ * 
+ * @author arian
+ *
+ */
+public class CanvasUndoHistory implements IOperationHistoryListener {
+	public static final long DEFAULT_MEMORY_LIMIT = 64 * 1024 * 1024;
+	private static final String STATUS_ITEM_ID = "phasereditor.canvas.ui.undoHistory";
+
+	private CanvasEditor _editor;
+	private IUndoContext _context;
+	private long _memoryLimit;
+	private long _memorySize;
+	private Map<IUndoableOperation, Long> _sizes;
+
+	public CanvasUndoHistory(CanvasEditor editor, IUndoContext context) {
+		_editor = editor;
+		_context = context;
+		_memoryLimit = DEFAULT_MEMORY_LIMIT;
+		_memorySize = 0;
+		_sizes = new IdentityHashMap<>();
+
+		IOperationHistory history = getHistory();
+
+		for (IUndoableOperation op : history.getUndoHistory(_context)) {
+			added(op);
+		}
+
+		for (IUndoableOperation op : history.getRedoHistory(_context)) {
+			added(op);
+		}
+
+		history.addOperationHistoryListener(this);
+	}
+
+	private static IOperationHistory getHistory() {
+		return OperationHistoryFactory.getOperationHistory();
+	}
+
+	public void dispose() {
+		IOperationHistory history = getHistory();
+		history.removeOperationHistoryListener(this);
+		history.dispose(_context, true, true, true);
+		_sizes.clear();
+	}
+
+	@Override
+	public void historyNotification(OperationHistoryEvent event) {
+		IUndoableOperation op = event.getOperation();
+
+		if (!op.hasContext(_context)) {
+			return;
+		}
+
+		switch (event.getEventType()) {
+		case OperationHistoryEvent.OPERATION_ADDED:
+			added(op);
+			evict();
+			updateStatus();
+			break;
+		case OperationHistoryEvent.OPERATION_REMOVED:
+			removed(op);
+			updateStatus();
+			break;
+		case OperationHistoryEvent.DONE:
+		case OperationHistoryEvent.UNDONE:
+		case OperationHistoryEvent.REDONE:
+			updateStatus();
+			break;
+		default:
+			break;
+		}
+	}
+
+	private void added(IUndoableOperation op) {
+		if (!_sizes.containsKey(op)) {
+			long size = ISizedOperation.getMemorySize(op);
+			_sizes.put(op, Long.valueOf(size));
+			_memorySize += size;
+		}
+	}
+
+	private void removed(IUndoableOperation op) {
+		Long size = _sizes.remove(op);
+		if (size != null) {
+			_memorySize -= size.longValue();
+		}
+	}
+
+	/**
+	 * Remove the oldest operations if the limit is exceeded.
+	 */
+	private void evict() {
+		if (_memorySize <= _memoryLimit) {
+			return;
+		}
+
+		IOperationHistory history = getHistory();
+
+		IUndoableOperation[] undoList = history.getUndoHistory(_context);
+
+		// the undo list is sorted from the oldest to the newest, the latest
+		// operation is never evicted.
+
+		for (int i = 0; i < undoList.length - 1 && _memorySize > _memoryLimit; i++) {
+			IUndoableOperation op = undoList[i];
+			removed(op);
+			// it removes the operation from the history, without notify this
+			// listener
+			op.removeContext(_context);
+			history.replaceOperation(op, new IUndoableOperation[0]);
+			// the history does not dispose the replaced operations
+			op.dispose();
+		}
+	}
+
+	/**
+	 * Show the size of the history in the status line. It is called when the
+	 * history changes and when the editor is activated, the status line is
+	 * shared by the canvas editors.
+	 */
+	public void updateStatus() {
+		IStatusLineManager status = _editor.getEditorSite().getActionBars().getStatusLineManager();
+
+		IContributionItem item = status.find(STATUS_ITEM_ID);
+
+		if (!(item instanceof StatusItem)) {
+			item = new StatusItem();
+			status.add(item);
+			status.update(true);
+		}
+
+		((StatusItem) item).setText(getStatusMessage());
+	}
+
+	public String getStatusMessage() {
+		int count = getOperationsCount();
+		return "Undo history: " + count + (count == 1 ? " operation" : " operations") + " ("
+				+ (_memorySize + 1023) / 1024 + " KB)";
+	}
+
+	public long getMemorySize() {
+		return _memorySize;
+	}
+
+	public int getOperationsCount() {
+		return _sizes.size();
+	}
+
+	public long getMemoryLimit() {
+		return _memoryLimit;
+	}
+
+	public void setMemoryLimit(long memoryLimit) {
+		_memoryLimit = memoryLimit;
+		evict();
+		updateStatus();
+	}
+
+	private static class StatusItem extends ContributionItem {
+		private static final int WIDTH_IN_CHARS = 40;
+
+		private CLabel _label;
+		private String _text;
+
+		public StatusItem() {
+			super(STATUS_ITEM_ID);
+			_text = "";
+		}
+
+		@Override
+		public void fill(Composite parent) {
+			Label sep = new Label(parent, SWT.SEPARATOR);
+			_label = new CLabel(parent, SWT.SHADOW_NONE);
+
+			GC gc = new GC(parent);
+			gc.setFont(parent.getFont());
+			int width = gc.getFontMetrics().getAverageCharWidth() * WIDTH_IN_CHARS;
+			gc.dispose();
+
+			StatusLineLayoutData data = new StatusLineLayoutData();
+			data.widthHint = width;
+			_label.setLayoutData(data);
+
+			data = new StatusLineLayoutData();
+			data.heightHint = _label.computeSize(SWT.DEFAULT, SWT.DEFAULT).y;
+			sep.setLayoutData(data);
+
+			_label.setText(_text);
+		}
+
+		public void setText(String text) {
+			_text = text;
+			if (_label != null && !_label.isDisposed()) {
+				_label.setText(text);
+			}
+		}
+	}
+}
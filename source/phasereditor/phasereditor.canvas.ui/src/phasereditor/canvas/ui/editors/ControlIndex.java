@@ -0,0 +1,172 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2015, 2017 Arian Fornaris
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions: The above copyright notice and this permission
+// notice shall be included in all copies or substantial portions of the
+// Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+package phasereditor.canvas.ui.editors;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javafx.collections.ListChangeListener;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import phasereditor.canvas.ui.shapes.BaseObjectControl;
+import phasereditor.canvas.ui.shapes.GroupNode;
+import phasereditor.canvas.ui.shapes.IObjectNode;
+
+/**
+ * An index of the controls of the canvas by the object id. It listens the
+ * changes in the children of the groups, so it is updated when the objects are
+ * added, removed, moved to other group or rebuilt.
+ * <p>
+ * The index is complete, an id that is not in the index is not in the canvas.
+ * The copied and morphed objects get their ids before their controls are
+ * created, so the id of a model does not change while it is in the canvas.
+ * </p>
+ * 
+ * @author arian
+ *
+ */
+public class ControlIndex {
+	private GroupNode _root;
+	private Map<String, BaseObjectControl<?>> _map;
+	private Map<GroupNode, ListChangeListener<Node>> _listeners;
+	private long _visitedNodes;
+
+	public ControlIndex(GroupNode root) {
+		_root = root;
+		_map = new HashMap<>();
+		_listeners = new HashMap<>();
+
+		install(root);
+	}
+
+	private void install(IObjectNode inode) {
+		BaseObjectControl<?> control = inode.getControl();
+
+		_visitedNodes++;
+
+		_map.put(control.getId(), control);
+
+		if (inode instanceof GroupNode) {
+			GroupNode group = (GroupNode) inode;
+
+			if (!_listeners.containsKey(group)) {
+				ListChangeListener<Node> l = c -> {
+					while (c.next()) {
+						for (Node removed : c.getRemoved()) {
+							if (!isAttached(removed)) {
+								uninstall((IObjectNode) removed);
+							}
+						}
+
+						for (Node added : c.getAddedSubList()) {
+							install((IObjectNode) added);
+						}
+					}
+				};
+				group.getChildren().addListener(l);
+				_listeners.put(group, l);
+			}
+
+			for (Node child : group.getChildren()) {
+				install((IObjectNode) child);
+			}
+		}
+	}
+
+	private void uninstall(IObjectNode inode) {
+		BaseObjectControl<?> control = inode.getControl();
+
+		_visitedNodes++;
+
+		// another control with the same id could be added before this one is
+		// removed, like when a node is morphed into other type
+		_map.remove(control.getId(), control);
+
+		if (inode instanceof GroupNode) {
+			GroupNode group = (GroupNode) inode;
+
+			ListChangeListener<Node> l = _listeners.remove(group);
+
+			if (l != null) {
+				group.getChildren().removeListener(l);
+			}
+
+			for (Node child : group.getChildren()) {
+				uninstall((IObjectNode) child);
+			}
+		}
+	}
+
+	private boolean isAttached(Node node) {
+		if (node == _root) {
+			return true;
+		}
+
+		Parent parent = node.getParent();
+
+		while (parent != null) {
+			_visitedNodes++;
+			if (parent == _root) {
+				return true;
+			}
+			parent = parent.getParent();
+		}
+
+		return false;
+	}
+
+	/**
+	 * Find the control of the object with the given id. It is a constant time
+	 * look up, only the ancestors of the found control are visited, to check
+	 * it is still in the canvas. If the id is not in the index, then the
+	 * object is not in the canvas and <code>null</code> is returned.
+	 */
+	public BaseObjectControl<?> findById(String id) {
+		BaseObjectControl<?> control = _map.get(id);
+
+		if (control == null) {
+			return null;
+		}
+
+		if (control.getId().equals(id) && isAttached(control.getNode())) {
+			return control;
+		}
+
+		// an outdated entry, it should not happen, but the index should not
+		// answer a wrong control
+		_map.remove(id, control);
+
+		return null;
+	}
+
+	/**
+	 * The number of nodes visited by the index since it was created, to
+	 * install the listeners and to validate the lookups.
+	 */
+	public long getVisitedNodes() {
+		return _visitedNodes;
+	}
+
+	public int size() {
+		return _map.size();
+	}
+}
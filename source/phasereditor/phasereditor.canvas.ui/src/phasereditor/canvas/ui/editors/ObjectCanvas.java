@@ -21,6 +21,14 @@
 // USE OR OTHER DEALINGS IN THE SOFTWARE.
 package phasereditor.canvas.ui.editors;
 
+import static java.lang.System.currentTimeMillis;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
 import org.eclipse.jface.util.LocalSelectionTransfer;
 import org.eclipse.jface.viewers.ISelection;
 import org.eclipse.jface.viewers.IStructuredSelection;
@@ -29,6 +37,8 @@ import org.eclipse.jface.viewers.TreeViewer;
 import org.eclipse.swt.widgets.Composite;
 
 import javafx.embed.swt.FXCanvas;
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
 import javafx.geometry.Point2D;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -53,6 +63,7 @@ import phasereditor.canvas.ui.editors.operations.AddNodeOperation;
 import phasereditor.canvas.ui.editors.operations.CompositeOperation;
 import phasereditor.canvas.ui.editors.palette.PaletteComp;
 import phasereditor.canvas.ui.shapes.BaseObjectControl;
+import phasereditor.canvas.ui.shapes.CanvasObjectFactory;
 import phasereditor.canvas.ui.shapes.GroupControl;
 import phasereditor.canvas.ui.shapes.GroupNode;
 
@@ -83,6 +94,9 @@ public class ObjectCanvas extends FXCanvas {
 	private Pane _handlerPane;
 	private HandlerBehavior _handlerBehavior;
 	private KeyboardBehavior _keyboardBehavior;
+	private SpatialIndex _spatialIndex;
+	private ControlIndex _controlIndex;
+	private boolean _loadingWorld;
 
 	public ObjectCanvas(Composite parent, int style) {
 		super(parent, style);
@@ -97,6 +111,11 @@ public class ObjectCanvas extends FXCanvas {
 		_outline = outline;
 		_palette = palette;
 
+		// the objects of the world are created later, in batches, meanwhile
+		// the user cannot edit them
+		_loadingWorld = true;
+		setEnabled(false);
+
 		createScene();
 
 		initDrop();
@@ -116,6 +135,123 @@ public class ObjectCanvas extends FXCanvas {
 		
 		// just to force to select the default stuff in the property grid
 		_selectionBehavior.setSelection(StructuredSelection.EMPTY);
+
+		loadWorldInBatches();
+	}
+
+	/**
+	 * The time (in milliseconds) spent in creating objects before let the UI
+	 * thread process other events.
+	 */
+	private static final long LOAD_BATCH_TIME = 20;
+
+	/**
+	 * Create the objects of the world in small batches, so the editor is not
+	 * blocked. The objects inside the viewport are created first.
+	 */
+	private void loadWorldInBatches() {
+		List<BaseObjectModel> models = new ArrayList<>(_worldModel.getChildren());
+
+		Deque<Integer> queue = new ArrayDeque<>();
+		List<Integer> rest = new ArrayList<>();
+
+		{
+			Bounds viewport = computeViewport();
+			for (int i = 0; i < models.size(); i++) {
+				BaseObjectModel model = models.get(i);
+				if (viewport.contains(model.getX(), model.getY())) {
+					queue.add(Integer.valueOf(i));
+				} else {
+					rest.add(Integer.valueOf(i));
+				}
+			}
+		}
+
+		int[] first = queue.stream().mapToInt(Integer::intValue).toArray();
+
+		queue.addAll(rest);
+
+		GroupNode world = getWorldNode();
+
+		getDisplay().asyncExec(new Runnable() {
+
+			private int _created;
+
+			@Override
+			public void run() {
+				if (isDisposed()) {
+					return;
+				}
+
+				long start = currentTimeMillis();
+
+				while (!queue.isEmpty()) {
+					int i = queue.poll().intValue();
+
+					BaseObjectControl<?> control = CanvasObjectFactory.createObjectControl(ObjectCanvas.this,
+							models.get(i));
+
+					// keep the display order: the objects in the viewport are
+					// created in order and before the rest.
+
+					int pos;
+
+					if (_created < first.length) {
+						pos = _created;
+					} else {
+						pos = -Arrays.binarySearch(first, i) - 1 + _created - first.length;
+					}
+
+					world.getChildren().add(Math.min(pos, world.getChildren().size()), control.getNode());
+
+					_created++;
+
+					if (currentTimeMillis() - start > LOAD_BATCH_TIME) {
+						break;
+					}
+				}
+
+				if (queue.isEmpty()) {
+					worldLoaded();
+				} else {
+					getDisplay().asyncExec(this);
+				}
+			}
+		});
+	}
+
+	private Bounds computeViewport() {
+		double scale = _zoomBehavior.getScale();
+
+		if (scale <= 0) {
+			scale = 1;
+		}
+
+		Point2D translate = _zoomBehavior.getTranslate();
+		org.eclipse.swt.graphics.Point size = getSize();
+
+		return new BoundingBox(-translate.getX() / scale, -translate.getY() / scale, size.x / scale,
+				size.y / scale);
+	}
+
+	private void worldLoaded() {
+		_loadingWorld = false;
+		setEnabled(true);
+
+		_outline.refresh();
+		_outline.expandAll();
+
+		_zoomBehavior.updateZoomAndPan();
+		_selectionBehavior.updateSelectedNodes();
+
+		_editor.handleWorldLoaded();
+	}
+
+	/**
+	 * @return If the objects of the world are being created.
+	 */
+	public boolean isLoadingWorld() {
+		return _loadingWorld;
 	}
 
 	public CanvasEditor getEditor() {
@@ -218,6 +354,9 @@ public class ObjectCanvas extends FXCanvas {
 		_worldControl = new GroupControl(this, _worldModel);
 		GroupNode world = _worldControl.getNode();
 
+		_spatialIndex = new SpatialIndex(world);
+		_controlIndex = new ControlIndex(world);
+
 		_frontGridPane = new FrontGridPane(this);
 		_frontGridPane.setId("__world-glass-pane__");
 
@@ -236,6 +375,9 @@ public class ObjectCanvas extends FXCanvas {
 		_root.setAlignment(Pos.TOP_LEFT);
 
 		_root.getChildren().setAll(_backGridPane, world, _frontGridPane, _selectionPane, _handlerPane, _selectionFrontPane);
+
+		getScene().widthProperty().addListener((o, a, b) -> _spatialIndex.updateCulling());
+		getScene().heightProperty().addListener((o, a, b) -> _spatialIndex.updateCulling());
 	}
 
 	public GridPane getBackGridPane() {
@@ -250,6 +392,14 @@ public class ObjectCanvas extends FXCanvas {
 		return _root;
 	}
 
+	public SpatialIndex getSpatialIndex() {
+		return _spatialIndex;
+	}
+
+	public ControlIndex getControlIndex() {
+		return _controlIndex;
+	}
+
 	public GroupNode getWorldNode() {
 		return _worldControl.getNode();
 	}
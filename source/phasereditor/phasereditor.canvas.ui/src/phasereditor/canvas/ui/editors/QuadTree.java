@@ -0,0 +1,264 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2015, 2017 Arian Fornaris
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions: The above copyright notice and this permission
+// notice shall be included in all copies or substantial portions of the
+// Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+package phasereditor.canvas.ui.editors;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import javafx.geometry.Bounds;
+
+/**
+ * A quadtree of objects with axis aligned bounds. The tree grows when an
+ * object is inserted out of the current root area, so it can be used with
+ * unbounded coordinates.
+ * 
+ * @author arian
+ *
+ */
+public class QuadTree<T> {
+	private static final int MAX_ITEMS = 16;
+	private static final double MIN_SIZE = 16;
+	private static final double INIT_SIZE = 4096;
+
+	private static class Entry<T> {
+		T object;
+		double x0, y0, x1, y1;
+		Quad<T> quad;
+
+		Entry(T object) {
+			this.object = object;
+		}
+
+		boolean intersects(double ax0, double ay0, double ax1, double ay1) {
+			return x0 <= ax1 && x1 >= ax0 && y0 <= ay1 && y1 >= ay0;
+		}
+	}
+
+	private static class Quad<T> {
+		double x, y, size;
+		List<Entry<T>> items;
+		@SuppressWarnings("unchecked")
+		Quad<T>[] children = new Quad[4];
+		boolean split;
+
+		Quad(double x, double y, double size) {
+			this.x = x;
+			this.y = y;
+			this.size = size;
+			this.items = new ArrayList<>(4);
+		}
+
+		boolean contains(Entry<T> e) {
+			return e.x0 >= x && e.y0 >= y && e.x1 <= x + size && e.y1 <= y + size;
+		}
+
+		boolean intersects(double ax0, double ay0, double ax1, double ay1) {
+			return x <= ax1 && x + size >= ax0 && y <= ay1 && y + size >= ay0;
+		}
+
+		int childIndex(Entry<T> e) {
+			double h = size / 2;
+			for (int i = 0; i < 4; i++) {
+				double cx = x + (i % 2) * h;
+				double cy = y + (i / 2) * h;
+				if (e.x0 >= cx && e.y0 >= cy && e.x1 <= cx + h && e.y1 <= cy + h) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		Quad<T> child(int i) {
+			if (children[i] == null) {
+				double h = size / 2;
+				children[i] = new Quad<>(x + (i % 2) * h, y + (i / 2) * h, h);
+			}
+			return children[i];
+		}
+	}
+
+	private Quad<T> _root;
+	private Map<T, Entry<T>> _entries;
+
+	public QuadTree() {
+		_entries = new HashMap<>();
+	}
+
+	public int size() {
+		return _entries.size();
+	}
+
+	public boolean contains(T object) {
+		return _entries.containsKey(object);
+	}
+
+	public void clear() {
+		_entries.clear();
+		_root = null;
+	}
+
+	/**
+	 * Insert the object or update its bounds if it is already in the tree.
+	 */
+	public void put(T object, Bounds bounds) {
+		put(object, bounds.getMinX(), bounds.getMinY(), bounds.getMaxX(), bounds.getMaxY());
+	}
+
+	public void put(T object, double x0, double y0, double x1, double y1) {
+		if (!isFinite(x0) || !isFinite(y0) || !isFinite(x1) || !isFinite(y1)) {
+			// invalid bounds, it cannot be indexed
+			remove(object);
+			return;
+		}
+
+		Entry<T> entry = _entries.get(object);
+
+		if (entry == null) {
+			entry = new Entry<>(object);
+			_entries.put(object, entry);
+		} else {
+			if (entry.x0 == x0 && entry.y0 == y0 && entry.x1 == x1 && entry.y1 == y1) {
+				return;
+			}
+			entry.quad.items.remove(entry);
+		}
+
+		entry.x0 = x0;
+		entry.y0 = y0;
+		entry.x1 = x1;
+		entry.y1 = y1;
+
+		insert(entry);
+	}
+
+	private static boolean isFinite(double v) {
+		return !Double.isNaN(v) && !Double.isInfinite(v);
+	}
+
+	public void remove(T object) {
+		Entry<T> entry = _entries.remove(object);
+		if (entry != null) {
+			entry.quad.items.remove(entry);
+		}
+	}
+
+	private void insert(Entry<T> entry) {
+		if (_root == null) {
+			double cx = (entry.x0 + entry.x1) / 2;
+			double cy = (entry.y0 + entry.y1) / 2;
+			_root = new Quad<>(cx - INIT_SIZE / 2, cy - INIT_SIZE / 2, INIT_SIZE);
+		}
+
+		while (!_root.contains(entry)) {
+			grow(entry);
+		}
+
+		Quad<T> quad = _root;
+
+		while (true) {
+			if (quad.split) {
+				int i = quad.childIndex(entry);
+				if (i != -1) {
+					quad = quad.child(i);
+					continue;
+				}
+			} else if (quad.items.size() >= MAX_ITEMS && quad.size / 2 >= MIN_SIZE) {
+				splitQuad(quad);
+				continue;
+			}
+			break;
+		}
+
+		entry.quad = quad;
+		quad.items.add(entry);
+	}
+
+	private static <T> void splitQuad(Quad<T> quad) {
+		quad.split = true;
+		List<Entry<T>> items = quad.items;
+		quad.items = new ArrayList<>(4);
+		for (Entry<T> e : items) {
+			int i = quad.childIndex(e);
+			Quad<T> dst = i == -1 ? quad : quad.child(i);
+			e.quad = dst;
+			dst.items.add(e);
+		}
+	}
+
+	/**
+	 * Make a root of the double size, that contains the current root in the
+	 * quadrant near to the given entry.
+	 */
+	private void grow(Entry<T> entry) {
+		Quad<T> old = _root;
+		double size = old.size;
+
+		boolean left = entry.x0 < old.x;
+		boolean up = entry.y0 < old.y;
+
+		double x = left ? old.x - size : old.x;
+		double y = up ? old.y - size : old.y;
+
+		Quad<T> root = new Quad<>(x, y, size * 2);
+		root.split = true;
+		int i = (left ? 1 : 0) + (up ? 2 : 0);
+		root.children[i] = old;
+
+		_root = root;
+	}
+
+	/**
+	 * Visit the objects with bounds intersecting the given area.
+	 */
+	public void query(double x0, double y0, double x1, double y1, Consumer<T> visitor) {
+		if (_root != null) {
+			query(_root, x0, y0, x1, y1, visitor);
+		}
+	}
+
+	public void query(Bounds area, Consumer<T> visitor) {
+		query(area.getMinX(), area.getMinY(), area.getMaxX(), area.getMaxY(), visitor);
+	}
+
+	private static <T> void query(Quad<T> quad, double x0, double y0, double x1, double y1, Consumer<T> visitor) {
+		if (!quad.intersects(x0, y0, x1, y1)) {
+			return;
+		}
+
+		for (Entry<T> e : quad.items) {
+			if (e.intersects(x0, y0, x1, y1)) {
+				visitor.accept(e.object);
+			}
+		}
+
+		if (quad.split) {
+			for (Quad<T> child : quad.children) {
+				if (child != null) {
+					query(child, x0, y0, x1, y1, visitor);
+				}
+			}
+		}
+	}
+}
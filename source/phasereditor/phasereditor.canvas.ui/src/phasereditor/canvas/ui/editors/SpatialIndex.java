@@ -0,0 +1,460 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2015, 2017 Arian Fornaris
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions: The above copyright notice and this permission
+// notice shall be included in all copies or substantial portions of the
+// Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+package phasereditor.canvas.ui.editors;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
+import javafx.beans.value.ChangeListener;
+import javafx.collections.ListChangeListener;
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
+import javafx.geometry.Point2D;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.scene.transform.Transform;
+import phasereditor.canvas.ui.editors.behaviors.SelectionBehavior;
+import phasereditor.canvas.ui.shapes.GroupNode;
+import phasereditor.canvas.ui.shapes.IObjectNode;
+
+/**
+ * An index of the world-space bounds of the objects of the canvas. It is
+ * updated incrementally, listening the changes in the structure of the world
+ * and the transformations of the nodes. It is used to pick the objects, for the
+ * box selection and to hide the objects outside the viewport.
+ * 
+ * @author arian
+ *
+ */
+public class SpatialIndex {
+	private GroupNode _world;
+	private QuadTree<IObjectNode> _tree;
+	private Set<IObjectNode> _dirty;
+	private Map<Node, Runnable> _uninstallers;
+	private boolean _flushScheduled;
+
+	private Bounds _viewport;
+	private Set<Node> _visible;
+	private Set<Node> _culled;
+
+	public SpatialIndex(GroupNode world) {
+		_world = world;
+		_tree = new QuadTree<>();
+		_dirty = new LinkedHashSet<>();
+		_uninstallers = new HashMap<>();
+		_visible = new HashSet<>();
+		_culled = new HashSet<>();
+
+		installChildrenListener(world);
+
+		for (Node child : world.getChildren()) {
+			install((IObjectNode) child);
+		}
+	}
+
+	private void install(IObjectNode inode) {
+		Node node = inode.getNode();
+
+		if (_uninstallers.containsKey(node)) {
+			markDirty(inode);
+			return;
+		}
+
+		List<Runnable> uninstall = new ArrayList<>();
+
+		{
+			InvalidationListener l = o -> markDirty(inode);
+			node.boundsInParentProperty().addListener(l);
+			uninstall.add(() -> node.boundsInParentProperty().removeListener(l));
+		}
+
+		if (inode instanceof GroupNode) {
+			GroupNode group = (GroupNode) inode;
+
+			// when a group is transformed all its children have to be
+			// updated.
+
+			ChangeListener<Number> l1 = (o, a, b) -> markSubtreeDirty(group);
+			group.layoutXProperty().addListener(l1);
+			group.layoutYProperty().addListener(l1);
+
+			ListChangeListener<Transform> l2 = c -> markSubtreeDirty(group);
+			group.getTransforms().addListener(l2);
+
+			uninstall.add(() -> {
+				group.layoutXProperty().removeListener(l1);
+				group.layoutYProperty().removeListener(l1);
+				group.getTransforms().removeListener(l2);
+			});
+
+			uninstall.add(installChildrenListener(group));
+
+			for (Node child : group.getChildren()) {
+				install((IObjectNode) child);
+			}
+		}
+
+		_uninstallers.put(node, () -> uninstall.forEach(Runnable::run));
+
+		markDirty(inode);
+	}
+
+	private Runnable installChildrenListener(GroupNode group) {
+		ListChangeListener<Node> l = c -> {
+			while (c.next()) {
+				for (Node removed : c.getRemoved()) {
+					if (!isAttached(removed)) {
+						uninstall((IObjectNode) removed);
+					}
+				}
+
+				for (Node added : c.getAddedSubList()) {
+					install((IObjectNode) added);
+				}
+			}
+		};
+
+		group.getChildren().addListener(l);
+
+		return () -> group.getChildren().removeListener(l);
+	}
+
+	private void uninstall(IObjectNode inode) {
+		Node node = inode.getNode();
+
+		Runnable uninstaller = _uninstallers.remove(node);
+
+		if (uninstaller == null) {
+			return;
+		}
+
+		uninstaller.run();
+
+		_tree.remove(inode);
+		_dirty.remove(inode);
+		_visible.remove(node);
+
+		if (_culled.remove(node)) {
+			node.setOpacity(inode.getModel().getAlpha());
+		}
+
+		if (inode instanceof GroupNode) {
+			for (Node child : ((GroupNode) inode).getChildren()) {
+				uninstall((IObjectNode) child);
+			}
+		}
+	}
+
+	private boolean isAttached(Node node) {
+		Parent parent = node.getParent();
+
+		while (parent != null) {
+			if (parent == _world) {
+				return true;
+			}
+			parent = parent.getParent();
+		}
+
+		return false;
+	}
+
+	private void markDirty(IObjectNode inode) {
+		_dirty.add(inode);
+
+		if (!_flushScheduled) {
+			_flushScheduled = true;
+			Platform.runLater(() -> {
+				_flushScheduled = false;
+				flush();
+			});
+		}
+	}
+
+	private void markSubtreeDirty(GroupNode group) {
+		group.walkTree(this::markDirty, true);
+	}
+
+	/**
+	 * Update the bounds of the modified objects.
+	 */
+	public void flush() {
+		if (_dirty.isEmpty()) {
+			return;
+		}
+
+		List<IObjectNode> list = new ArrayList<>(_dirty);
+		_dirty.clear();
+
+		for (IObjectNode inode : list) {
+			Node node = inode.getNode();
+
+			if (!_uninstallers.containsKey(node)) {
+				continue;
+			}
+
+			// validate the property, so it fires the next invalidation
+			node.getBoundsInParent();
+
+			Bounds bounds = SelectionBehavior.localToAncestor(node.getBoundsInLocal(), node, _world);
+
+			if (bounds.isEmpty()) {
+				_tree.remove(inode);
+			} else {
+				_tree.put(inode, bounds);
+			}
+
+			if (_viewport != null && !(inode instanceof GroupNode)) {
+				boolean inView = !bounds.isEmpty() && bounds.intersects(_viewport);
+				if (inView) {
+					_visible.add(node);
+				} else {
+					_visible.remove(node);
+				}
+				setCulled(inode, !inView);
+			}
+		}
+	}
+
+	/**
+	 * @return The number of indexed objects.
+	 */
+	public int size() {
+		flush();
+		return _tree.size();
+	}
+
+	/**
+	 * Find the top-most object at the given scene point, like the user sees it.
+	 * The objects (or their ancestors) that are not pickable are excluded.
+	 */
+	public Node pick(double sceneX, double sceneY) {
+		flush();
+
+		Point2D p = _world.sceneToLocal(sceneX, sceneY);
+
+		Node[] result = { null };
+
+		_tree.query(p.getX(), p.getY(), p.getX(), p.getY(), inode -> {
+			if (inode instanceof GroupNode) {
+				return;
+			}
+
+			Node node = inode.getNode();
+
+			if (result[0] != null && compareZOrder(node, result[0]) < 0) {
+				return;
+			}
+
+			if (!isPickable(node)) {
+				return;
+			}
+
+			if (node.contains(node.sceneToLocal(sceneX, sceneY))) {
+				result[0] = node;
+			}
+		});
+
+		return result[0];
+	}
+
+	private boolean isPickable(Node node) {
+		Node n = node;
+
+		while (n != null) {
+			if (n instanceof IObjectNode) {
+				if (!((IObjectNode) n).getModel().isEditorPick()) {
+					return false;
+				}
+			}
+
+			if (n == _world) {
+				break;
+			}
+
+			n = n.getParent();
+		}
+
+		return true;
+	}
+
+	/**
+	 * Find the objects completely inside the given scene bounds. The children
+	 * of closed groups and the open groups are excluded.
+	 */
+	public List<IObjectNode> queryBox(Bounds sceneBounds) {
+		flush();
+
+		Bounds area = _world.sceneToLocal(sceneBounds);
+
+		List<IObjectNode> list = new ArrayList<>();
+
+		_tree.query(area, inode -> {
+			if (!inode.getModel().isEditorPick()) {
+				return;
+			}
+
+			if (inode instanceof GroupNode && !((GroupNode) inode).getModel().isEditorClosed()) {
+				// do not select open groups, else the children of the group
+				return;
+			}
+
+			if (isInClosedGroup(inode.getNode())) {
+				return;
+			}
+
+			Bounds b = SelectionBehavior.localToAncestor(inode.getNode().getBoundsInLocal(), inode.getNode(),
+					_world);
+
+			if (area.contains(b)) {
+				list.add(inode);
+			}
+		});
+
+		list.sort((a, b) -> compareZOrder(a.getNode(), b.getNode()));
+
+		return list;
+	}
+
+	private boolean isInClosedGroup(Node node) {
+		Parent parent = node.getParent();
+
+		while (parent != null && parent != _world) {
+			if (parent instanceof GroupNode && ((GroupNode) parent).getModel().isEditorClosed()) {
+				return true;
+			}
+			parent = parent.getParent();
+		}
+
+		return false;
+	}
+
+	/**
+	 * Compare the nodes by the paint order. A node painted later (on top) is
+	 * greater.
+	 */
+	public int compareZOrder(Node a, Node b) {
+		if (a == b) {
+			return 0;
+		}
+
+		List<Node> pathA = getPath(a);
+		List<Node> pathB = getPath(b);
+
+		int n = Math.min(pathA.size(), pathB.size());
+
+		for (int i = 0; i < n; i++) {
+			Node na = pathA.get(i);
+			Node nb = pathB.get(i);
+			if (na != nb) {
+				Parent parent = na.getParent();
+				List<Node> children = parent.getChildrenUnmodifiable();
+				return Integer.compare(children.indexOf(na), children.indexOf(nb));
+			}
+		}
+
+		// one is the ancestor of the other, the descendant is on top
+		return Integer.compare(pathA.size(), pathB.size());
+	}
+
+	private List<Node> getPath(Node node) {
+		List<Node> path = new ArrayList<>();
+		Node n = node;
+		while (n != null && n != _world) {
+			path.add(0, n);
+			n = n.getParent();
+		}
+		return path;
+	}
+
+	/**
+	 * Hide the objects outside the viewport, so they are not processed by the
+	 * renderer. It should be called when the viewport changes (zoom, pan,
+	 * resize).
+	 */
+	public void updateCulling() {
+		flush();
+
+		Scene scene = _world.getScene();
+
+		if (scene == null) {
+			return;
+		}
+
+		Bounds viewport = _world.sceneToLocal(new BoundingBox(0, 0, scene.getWidth(), scene.getHeight()));
+
+		Set<Node> inView = new HashSet<>();
+
+		_tree.query(viewport, inode -> {
+			if (!(inode instanceof GroupNode)) {
+				inView.add(inode.getNode());
+			}
+		});
+
+		if (_viewport == null) {
+			// first time, check all the objects
+			_world.walkTree(inode -> {
+				if (!(inode instanceof GroupNode)) {
+					setCulled(inode, !inView.contains(inode.getNode()));
+				}
+			}, true);
+		} else {
+			for (Node node : _visible) {
+				if (!inView.contains(node)) {
+					setCulled((IObjectNode) node, true);
+				}
+			}
+
+			for (Node node : inView) {
+				if (!_visible.contains(node)) {
+					setCulled((IObjectNode) node, false);
+				}
+			}
+		}
+
+		_viewport = viewport;
+		_visible = inView;
+	}
+
+	private void setCulled(IObjectNode inode, boolean culled) {
+		Node node = inode.getNode();
+
+		if (culled) {
+			if (_culled.add(node)) {
+				node.setOpacity(0);
+			}
+		} else if (_culled.remove(node)) {
+			node.setOpacity(inode.getModel().getAlpha());
+		}
+	}
+
+	public boolean isCulled(Node node) {
+		return _culled.contains(node);
+	}
+}
@@ -39,7 +39,6 @@ import org.eclipse.jface.viewers.SelectionChangedEvent;
 import org.eclipse.jface.viewers.StructuredSelection;
 import org.eclipse.jface.viewers.TreeViewer;
 
-import javafx.collections.ObservableList;
 import javafx.geometry.BoundingBox;
 import javafx.geometry.Bounds;
 import javafx.geometry.Point2D;
@@ -97,34 +96,6 @@ public class SelectionBehavior implements ISelectionProvider {
 		status.setMessage(msg);
 	}
 
-	private Node pickNode(Node test, double sceneX, double sceneY) {
-		if (test instanceof IObjectNode) {
-			BaseObjectModel model = ((IObjectNode) test).getModel();
-			if (!model.isEditorPick()) {
-				return null;
-			}
-		}
-
-		if (test instanceof GroupNode) {
-			ObservableList<Node> list = ((GroupNode) test).getChildren();
-			for (int i = list.size() - 1; i >= 0; i--) {
-				Node child = list.get(i);
-				Node result = pickNode(child, sceneX, sceneY);
-				if (result != null) {
-					return result;
-				}
-			}
-		}
-
-		Point2D p = test.sceneToLocal(sceneX, sceneY);
-
-		if (test.contains(p)) {
-			return test;
-		}
-
-		return null;
-	}
-
 	void handleMouseReleased(MouseEvent e) {
 		if (isSelectingBox()) {
 			_canvas.getSelectionFrontPane().getChildren().remove(_selectionBox);
@@ -133,7 +104,7 @@ public class SelectionBehavior implements ISelectionProvider {
 			return;
 		}
 
-		Node userPicked = pickNode(_canvas.getWorldNode(), e.getSceneX(), e.getSceneY());
+		Node userPicked = _canvas.getSpatialIndex().pick(e.getSceneX(), e.getSceneY());
 
 		Node picked = findBestToPick(userPicked);
 
@@ -186,25 +157,9 @@ public class SelectionBehavior implements ISelectionProvider {
 	}
 
 	private void selectBox(SelectionBoxNode selectionBox) {
-		List<Object> list = new ArrayList<>();
 		Bounds selBounds = selectionBox.localToScene(selectionBox.getBoundsInLocal());
 
-		_canvas.getWorldNode().walkTree(inode -> {
-			if (!inode.getModel().isEditorPick()) {
-				return;
-			}
-
-			if (inode instanceof GroupNode && !((GroupNode) inode).getModel().isEditorClosed()) {
-				// do not select open groups, else the children of the group
-				return;
-			}
-
-			Node node = inode.getNode();
-			Bounds b = node.localToScene(node.getBoundsInLocal());
-			if (selBounds.contains(b)) {
-				list.add(inode);
-			}
-		}, false);
+		List<IObjectNode> list = _canvas.getSpatialIndex().queryBox(selBounds);
 
 		setSelection(new StructuredSelection(list));
 	}
@@ -301,7 +256,7 @@ public class SelectionBehavior implements ISelectionProvider {
 	public void setSelection(List<String> nodeIds) {
 		List<Object> selection = new ArrayList<>();
 		for (String id : nodeIds) {
-			BaseObjectControl<?> control = _canvas.getWorldNode().getControl().findById(id);
+			BaseObjectControl<?> control = _canvas.getControlIndex().findById(id);
 			if (control != null) {
 				selection.add(control.getNode());
 			}
@@ -392,8 +347,7 @@ public class SelectionBehavior implements ISelectionProvider {
 				if (inode.getNode().getParent() == null) {
 					// is possible the node was detached because a rebuild or
 					// morphings, etc...
-					BaseObjectControl<?> control = _canvas.getWorldNode().getControl()
-							.findById(inode.getModel().getId());
+					BaseObjectControl<?> control = _canvas.getControlIndex().findById(inode.getModel().getId());
 					if (control == null) {
 						continue;
 					}
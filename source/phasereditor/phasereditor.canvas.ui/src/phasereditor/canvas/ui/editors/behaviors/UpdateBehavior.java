@@ -25,10 +25,13 @@ import static java.lang.System.out;
 
 import java.beans.PropertyChangeEvent;
 import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import org.eclipse.core.commands.ExecutionException;
 import org.eclipse.core.commands.operations.IOperationHistory;
+import org.eclipse.core.resources.IFile;
 import org.eclipse.jface.viewers.IStructuredSelection;
 import org.eclipse.jface.viewers.SelectionChangedEvent;
 import org.eclipse.jface.viewers.StructuredSelection;
@@ -37,7 +40,12 @@ import org.eclipse.ui.IWorkbench;
 
 import javafx.collections.ObservableList;
 import javafx.scene.Node;
+import phasereditor.assetpack.core.AssetPackCore.PackDelta;
+import phasereditor.canvas.core.BaseObjectModel;
+import phasereditor.canvas.core.CanvasFileDependencies;
 import phasereditor.canvas.core.CanvasType;
+import phasereditor.canvas.core.MissingAssetSpriteModel;
+import phasereditor.canvas.core.MissingPrefabModel;
 import phasereditor.canvas.core.WorldModel;
 import phasereditor.canvas.ui.editors.CanvasEditor;
 import phasereditor.canvas.ui.editors.ObjectCanvas;
@@ -97,6 +105,92 @@ public class UpdateBehavior {
 		_canvas.getSelectionBehavior().setSelection(selection);
 	}
 
+	/**
+	 * Rebuild only the objects that use the given prefabs or the modified
+	 * assets. The objects with missing assets or prefabs are rebuilt too, maybe
+	 * now they can be resolved.
+	 * 
+	 * @param prefabFiles
+	 *            The modified prefabs, including the prefabs that use other
+	 *            modified prefabs or assets.
+	 * @param packDelta
+	 *            The modified assets. It can be <code>null</code>.
+	 */
+	public void rebuild(Collection<IFile> prefabFiles, PackDelta packDelta) {
+		boolean packChanged = packDelta != null && !packDelta.isEmpty();
+
+		if (prefabFiles.isEmpty() && !packChanged) {
+			return;
+		}
+
+		List<IObjectNode> affected = new ArrayList<>();
+
+		collectAffectedNodes(_canvas.getWorldNode(), prefabFiles, packDelta, affected);
+
+		if (!affected.isEmpty()) {
+			out.println("Rebuild " + affected.size() + " objects (in editor) "
+					+ _canvas.getWorldModel().getFile().getLocation());
+
+			List<String> selection = _canvas.getSelectionBehavior().getSelectionNodeIds();
+
+			boolean changed = false;
+
+			for (IObjectNode inode : affected) {
+				String id = inode.getModel().getId();
+				GroupNode group = inode.getControl().getGroup();
+
+				changed = group.getControl().rebuildChild(inode) || changed;
+
+				BaseObjectControl<?> control = _canvas.getControlIndex().findById(id);
+
+				if (control instanceof GroupControl) {
+					((GroupControl) control).updateAllFromModel();
+				} else if (control != null) {
+					control.updateFromModel();
+				}
+			}
+
+			if (changed) {
+				_outline.setInput(getCanvas());
+			}
+
+			_canvas.getZoomBehavior().updateZoomAndPan();
+			_canvas.getSelectionBehavior().setSelection(selection);
+		}
+
+		if (packChanged) {
+			_canvas.getPalette().rebuild();
+		}
+	}
+
+	private static void collectAffectedNodes(GroupNode group, Collection<IFile> prefabFiles, PackDelta packDelta,
+			List<IObjectNode> result) {
+		for (Node node : group.getChildren()) {
+			IObjectNode inode = (IObjectNode) node;
+			BaseObjectModel model = inode.getModel();
+
+			if (model instanceof MissingAssetSpriteModel || model instanceof MissingPrefabModel) {
+				result.add(inode);
+				continue;
+			}
+
+			CanvasFileDependencies deps = new CanvasFileDependencies();
+			deps.add(model);
+
+			if (deps.isAffectedBy(prefabFiles, packDelta)) {
+				result.add(inode);
+				continue;
+			}
+
+			// the children of a prefab instance are affected only if the
+			// prefab is affected
+
+			if (inode instanceof GroupNode && !model.isPrefabInstance()) {
+				collectAffectedNodes((GroupNode) inode, prefabFiles, packDelta, result);
+			}
+		}
+	}
+
 	public void singleRebuildFromPrefab(BaseObjectControl<?> control) {
 		List<IObjectNode> sel = _canvas.getSelectionBehavior().getSelectedNodes();
 		boolean selected = sel.contains(control.getIObjectNode());
@@ -47,7 +47,7 @@ public abstract class AbstractNodeOperation extends AbstractOperation {
 
 	protected static BaseObjectControl<?> findControl(IAdaptable info, String id) {
 		CanvasEditor editor = info.getAdapter(CanvasEditor.class);
-		return editor.getCanvas().getWorldNode().getControl().findById(id);
+		return editor.getCanvas().getControlIndex().findById(id);
 	}
 	
 	protected static CanvasEditor getEditor(IAdaptable info) {
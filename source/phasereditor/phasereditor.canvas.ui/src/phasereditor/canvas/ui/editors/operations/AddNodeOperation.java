@@ -41,9 +41,10 @@ import phasereditor.canvas.ui.shapes.GroupControl;
  * @author arian
  *
  */
-public class AddNodeOperation extends AbstractNodeOperation {
+public class AddNodeOperation extends AbstractNodeOperation implements ISizedOperation {
 
 	private JSONObject _data;
+	private boolean _created;
 	private double _x;
 	private double _y;
 	private String _parentId;
@@ -89,18 +90,38 @@ public class AddNodeOperation extends AbstractNodeOperation {
 	private IStatus addNode(IAdaptable info) {
 		ObjectCanvas canvas = info.getAdapter(CanvasEditor.class).getCanvas();
 		GroupControl groupControl = (GroupControl) findControl(info, _parentId);
+
 		BaseObjectModel model = CanvasModelFactory.createModel(groupControl.getModel(), _data);
-		_nodeId = model.getId();
-		changeName(canvas, model);
 
-		model.setX(_x);
-		model.setY(_y);
+		if (!_created) {
+			_nodeId = model.getId();
+			changeName(canvas, model);
+
+			model.setX(_x);
+			model.setY(_y);
+
+			// the redo creates the same object, with the same id and name
+			_data = new JSONObject();
+			model.write(_data, false);
+			_created = true;
+		}
+
 		BaseObjectControl<?> control = CanvasObjectFactory.createObjectControl(canvas, model);
 		groupControl.addChild(_index, control.getIObjectNode());
 
 		return Status.OK_STATUS;
 	}
 
+	@Override
+	public long getMemorySize() {
+		return ISizedOperation.getMemorySize(_data);
+	}
+
+	@Override
+	public void dispose() {
+		_data = null;
+	}
+
 	private static void changeName(ObjectCanvas canvas, BaseObjectModel model) {
 		model.setEditorName(canvas.getWorldModel().createName(model.getEditorName()));
 
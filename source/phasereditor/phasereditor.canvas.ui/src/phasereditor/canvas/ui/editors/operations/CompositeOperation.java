@@ -44,7 +44,7 @@ import phasereditor.canvas.ui.editors.ObjectCanvas;
  * @author arian
  *
  */
-public class CompositeOperation extends AbstractOperation {
+public class CompositeOperation extends AbstractOperation implements ISizedOperation {
 
 	private List<IUndoableOperation> _operations;
 	private boolean _parent;
@@ -77,6 +77,22 @@ public class CompositeOperation extends AbstractOperation {
 		return size;
 	}
 
+	@Override
+	public long getMemorySize() {
+		long size = OPERATION_SIZE;
+		for (IUndoableOperation o : _operations) {
+			size += ISizedOperation.getMemorySize(o);
+		}
+		return size;
+	}
+
+	@Override
+	public void dispose() {
+		for (IUndoableOperation o : _operations) {
+			o.dispose();
+		}
+	}
+
 	public void add(IUndoableOperation operation) {
 		_operations.add(operation);
 		if (operation instanceof CompositeOperation) {
@@ -41,7 +41,7 @@ import phasereditor.canvas.ui.shapes.GroupNode;
  * @author arian
  *
  */
-public class DeleteNodeOperation extends AbstractNodeOperation {
+public class DeleteNodeOperation extends AbstractNodeOperation implements ISizedOperation {
 
 	private boolean _updateSelection;
 	private String _groupId;
@@ -92,6 +92,16 @@ public class DeleteNodeOperation extends AbstractNodeOperation {
 		return Status.OK_STATUS;
 	}
 
+	@Override
+	public long getMemorySize() {
+		return ISizedOperation.getMemorySize(_data);
+	}
+
+	@Override
+	public void dispose() {
+		_data = null;
+	}
+
 	private void remove(BaseObjectControl<?> control) {
 		ObjectCanvas canvas = control.getCanvas();
 
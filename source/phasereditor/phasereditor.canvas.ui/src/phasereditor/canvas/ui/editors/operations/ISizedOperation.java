@@ -0,0 +1,68 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2015, 2017 Arian Fornaris
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions: The above copyright notice and this permission
+// notice shall be included in all copies or substantial portions of the
+// Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+package phasereditor.canvas.ui.editors.operations;
+
+import org.json.JSONObject;
+
+/**
+ * An operation that can tell the (approximated) memory it retains in the undo
+ * history.
+ * 
+ * @author arian
+ *
+ */
+public interface ISizedOperation {
+
+	/**
+	 * The estimated size of an operation that does not retain models.
+	 */
+	public static final long OPERATION_SIZE = 64;
+
+	/**
+	 * The bytes of a char of the measured models.
+	 */
+	public static final long CHAR_SIZE = 2;
+
+	public long getMemorySize();
+
+	/**
+	 * The size of the JSON data of a model kept by an operation, to create the
+	 * model again with the current assets and prefabs. The data of a model is a
+	 * good measure of the memory it retains: the asset references, the prefab
+	 * overrides, the properties, etc. It is computed once, when the operation is
+	 * added to the history.
+	 */
+	public static long getMemorySize(JSONObject data) {
+		if (data == null) {
+			return OPERATION_SIZE;
+		}
+
+		return OPERATION_SIZE + data.toString().length() * CHAR_SIZE;
+	}
+
+	public static long getMemorySize(Object operation) {
+		if (operation instanceof ISizedOperation) {
+			return ((ISizedOperation) operation).getMemorySize();
+		}
+		return OPERATION_SIZE;
+	}
+}
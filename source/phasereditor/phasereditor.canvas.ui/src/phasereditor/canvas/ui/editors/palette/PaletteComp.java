@@ -145,6 +145,7 @@ public class PaletteComp extends Composite {
 		});
 		_viewer.setContentProvider(new ArrayContentProvider());
 		_viewer.setInput(_list);
+		CanvasUI.installScreenshotRefresh(_viewer);
 
 		{
 			addControlListener(new ControlListener() {
@@ -31,6 +31,8 @@ import org.eclipse.jface.viewers.IStructuredSelection;
 import org.eclipse.jface.viewers.LabelProvider;
 import org.eclipse.jface.window.Window;
 import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Control;
 import org.eclipse.ui.handlers.HandlerUtil;
 
 import phasereditor.assetpack.ui.AssetLabelProvider;
@@ -53,7 +55,14 @@ public class AddPrefabHandler extends AbstractHandler {
 
 		CanvasEditor editor = (CanvasEditor) HandlerUtil.getActiveEditor(event);
 
-		AddSpriteDialog dlg = new AddSpriteDialog(HandlerUtil.getActiveShell(event), "Add Prefab");
+		AddSpriteDialog dlg = new AddSpriteDialog(HandlerUtil.getActiveShell(event), "Add Prefab") {
+			@Override
+			protected Control createDialogArea(Composite parent) {
+				Control area = super.createDialogArea(parent);
+				CanvasUI.installScreenshotRefresh(getViewer());
+				return area;
+			}
+		};
 		dlg.setLabelProvider(new LabelProvider() {
 			@Override
 			public String getText(Object element) {
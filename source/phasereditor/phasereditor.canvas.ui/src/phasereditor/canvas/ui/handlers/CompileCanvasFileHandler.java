@@ -13,8 +13,9 @@ import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.ui.handlers.HandlerUtil;
 
-import phasereditor.canvas.core.CanvasCore;
+import phasereditor.canvas.core.CanvasCompiler;
 import phasereditor.canvas.core.CanvasFile;
+import phasereditor.canvas.ui.CanvasUI;
 
 public class CompileCanvasFileHandler extends AbstractHandler {
 
@@ -35,14 +36,13 @@ public class CompileCanvasFileHandler extends AbstractHandler {
 
 			@Override
 			public IStatus runInWorkspace(IProgressMonitor monitor) throws CoreException {
-				monitor.beginTask("Compiling canvas files", files.size());
+				CanvasCompiler compiler = new CanvasCompiler();
 
-				for (CanvasFile file : files) {
-					CanvasCore.compile(file, monitor);
-					monitor.worked(1);
-				}
+				compiler.compile(files, monitor);
 
-				return Status.OK_STATUS;
+				return new Status(IStatus.OK, CanvasUI.PLUGIN_ID, "Compiled " + compiler.getCompiledCount()
+						+ " files, " + compiler.getSkippedCount() + " up to date, " + compiler.getFailedCount()
+						+ " with errors.");
 			}
 		};
 		job.schedule();
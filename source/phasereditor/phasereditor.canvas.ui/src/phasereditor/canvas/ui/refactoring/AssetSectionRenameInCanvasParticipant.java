@@ -78,7 +78,9 @@ public class AssetSectionRenameInCanvasParticipant extends RenameParticipant {
 				}
 
 				PhaserEditorUI.forEachEditor(editor -> {
-					if (editor instanceof CanvasEditor) {
+					// the editors that are loading have no changes, their
+					// files were checked
+					if (editor instanceof CanvasEditor && ((CanvasEditor) editor).getModel() != null) {
 						WorldModel world = ((CanvasEditor) editor).getModel().getWorld();
 						CanvasCore.forEachAssetKeyInModelContent(world, (key, sprite) -> {
 							if (key.getAsset().getSection().getKey().equals(initialName)) {
@@ -96,13 +96,19 @@ public class MoveAssetsInCanvasChange extends Change {
 
 		// update editors
 
+		// the editors that are loading are updated when loaded, the files
+		// could be read before the change
+
 		PhaserEditorUI.forEachEditor(editor -> {
 			if (editor instanceof CanvasEditor) {
-				try {
-					moveInModel(((CanvasEditor) editor).getModel());
-				} catch (Exception e) {
-					throw new RuntimeException(e);
-				}
+				CanvasEditor canvasEditor = (CanvasEditor) editor;
+				canvasEditor.whenLoaded(() -> {
+					try {
+						moveInModel(canvasEditor.getModel());
+					} catch (Exception e) {
+						throw new RuntimeException(e);
+					}
+				});
 			}
 		});
 
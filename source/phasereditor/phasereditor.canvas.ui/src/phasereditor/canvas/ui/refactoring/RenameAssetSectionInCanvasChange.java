@@ -95,13 +95,19 @@ public class RenameAssetSectionInCanvasChange extends Change {
 
 		// update editors
 
+		// the editors that are loading are updated when loaded, the files
+		// could be read before the change
+
 		PhaserEditorUI.forEachEditor(editor -> {
 			if (editor instanceof CanvasEditor) {
-				try {
-					renameInModel(((CanvasEditor) editor).getModel());
-				} catch (Exception e) {
-					throw new RuntimeException(e);
-				}
+				CanvasEditor canvasEditor = (CanvasEditor) editor;
+				canvasEditor.whenLoaded(() -> {
+					try {
+						renameInModel(canvasEditor.getModel());
+					} catch (Exception e) {
+						throw new RuntimeException(e);
+					}
+				});
 			}
 		});
 
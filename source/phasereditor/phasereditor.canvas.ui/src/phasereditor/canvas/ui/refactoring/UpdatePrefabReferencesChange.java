@@ -122,19 +122,20 @@ public class UpdatePrefabReferencesChange extends Change {
 		IFile dstFile = _project.getFile(_dstPath);
 
 		for (CanvasEditor editor : _affectedEditors) {
-			GroupNode world = editor.getCanvas().getWorldNode();
-			boolean[] modified = { false };
-			walkTree(world, node -> {
-				BaseObjectModel model = node.getModel();
-				if (model.isPrefabInstance()) {
-					IPath path = model.getPrefab().getFile().getProjectRelativePath();
-					if (path.equals(_srcPath)) {
-						// just change the file of the prefabs, the rebuild
-						// should be made by the canvas builder participant.
-						model.getPrefab().setFile(dstFile);
-						modified[0] = true;
+			// the editors that are loading are updated when loaded
+			editor.whenLoaded(() -> {
+				GroupNode world = editor.getCanvas().getWorldNode();
+				walkTree(world, node -> {
+					BaseObjectModel model = node.getModel();
+					if (model.isPrefabInstance()) {
+						IPath path = model.getPrefab().getFile().getProjectRelativePath();
+						if (path.equals(_srcPath)) {
+							// just change the file of the prefabs, the rebuild
+							// should be made by the canvas builder participant.
+							model.getPrefab().setFile(dstFile);
+						}
 					}
-				}
+				});
 			});
 		}
 
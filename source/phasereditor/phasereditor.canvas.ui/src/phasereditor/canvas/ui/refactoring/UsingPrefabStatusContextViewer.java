@@ -15,10 +15,18 @@ import phasereditor.ui.ImageCanvas;
 public class UsingPrefabStatusContextViewer implements IStatusContextViewer {
 
 	private ImageCanvas _control;
+	private IFile _waitingFile;
 
 	@Override
 	public void createControl(Composite parent) {
 		_control = new ImageCanvas(parent, SWT.NONE);
+
+		CanvasUI.installScreenshotRefresh(_control, files -> {
+			if (_waitingFile != null && files.contains(_waitingFile)) {
+				_control.setImageFile(CanvasUI.getCanvasScreenshotFile(_waitingFile).toFile().getAbsolutePath());
+				_waitingFile = null;
+			}
+		});
 	}
 
 	@Override
@@ -30,8 +38,16 @@ public class UsingPrefabStatusContextViewer implements IStatusContextViewer {
 	public void setInput(RefactoringStatusContext input) {
 		CanvasFileRefactoringStatusContext context = (CanvasFileRefactoringStatusContext) input;
 		IFile clientFile = context.getCorrespondingElement();
-		Path screenshot = CanvasUI.getCanvasScreenshotFile(clientFile, true);
-		_control.setImageFile(screenshot.toFile().getAbsolutePath());
+		Path screenshot = CanvasUI.requestCanvasScreenshot(clientFile);
+
+		if (screenshot == null) {
+			// it is shown when it is ready
+			_waitingFile = clientFile;
+			_control.setImageFile((String) null);
+		} else {
+			_waitingFile = null;
+			_control.setImageFile(screenshot.toFile().getAbsolutePath());
+		}
 	}
 
 }
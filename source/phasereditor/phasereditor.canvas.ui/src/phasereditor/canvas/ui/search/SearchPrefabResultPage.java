@@ -193,6 +193,7 @@ public class SearchPrefabResultPage extends Page implements ISearchResultPage, I
 		});
 
 		CanvasUI.installCanvasTooltips(_viewer);
+		CanvasUI.installScreenshotRefresh(_viewer);
 	}
 
 	@Override
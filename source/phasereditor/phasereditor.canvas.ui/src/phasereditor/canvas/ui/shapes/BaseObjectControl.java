@@ -41,6 +41,7 @@ import phasereditor.canvas.core.MissingPrefabException;
 import phasereditor.canvas.core.Prefab;
 import phasereditor.canvas.core.WorldModel.ZOperation;
 import phasereditor.canvas.ui.editors.ObjectCanvas;
+import phasereditor.canvas.ui.editors.SpatialIndex;
 import phasereditor.canvas.ui.editors.behaviors.UpdateBehavior;
 import phasereditor.canvas.ui.editors.grid.PGridBooleanProperty;
 import phasereditor.canvas.ui.editors.grid.PGridModel;
@@ -117,11 +118,23 @@ public abstract class BaseObjectControl<T extends BaseObjectModel> {
 		return null;
 	}
 
+	private boolean isCulled() {
+		if (_canvas == null) {
+			return false;
+		}
+
+		SpatialIndex index = _canvas.getSpatialIndex();
+
+		return index != null && index.isCulled(_node);
+	}
+
 	public void updateFromModel() {
 		_node.setId(_model.getEditorName());
 		_node.setLayoutX(_model.getX());
 		_node.setLayoutY(_model.getY());
-		_node.setOpacity(_model.getAlpha());
+		if (!isCulled()) {
+			_node.setOpacity(_model.getAlpha());
+		}
 
 		if (_model.isEditorShow() != _node.isVisible()) {
 			_node.setVisible(_model.isEditorShow());
@@ -58,6 +58,12 @@ public class GroupControl extends BaseObjectControl<GroupModel> {
 
 	@Override
 	public BaseObjectControl<?> findById(String id) {
+		ObjectCanvas canvas = getCanvas();
+
+		if (canvas != null && canvas.getControlIndex() != null && canvas.getWorldNode() == getNode()) {
+			return canvas.getControlIndex().findById(id);
+		}
+
 		if (getId().equals(id)) {
 			return this;
 		}
@@ -75,6 +81,14 @@ public class GroupControl extends BaseObjectControl<GroupModel> {
 	@Override
 	protected final IObjectNode createNode() {
 		GroupNode group = createGroupNode();
+
+		ObjectCanvas canvas = getCanvas();
+
+		if (getModel() instanceof WorldModel && canvas != null && canvas.isLoadingWorld()) {
+			// the canvas creates the children later
+			return group;
+		}
+
 		for (BaseObjectModel child : getModel().getChildren()) {
 			BaseObjectControl<?> control = CanvasObjectFactory.createObjectControl(getCanvas(), child);
 			group.getChildren().add(control.getNode());
@@ -379,22 +393,46 @@ public class GroupControl extends BaseObjectControl<GroupModel> {
 		if (!missing.isEmpty()) {
 			changed = true;
 			for (MissingRecord r : missing) {
-				removeChild(r.node);
-				BaseObjectControl<?> newControl;
-				if (r.missingPrefab) {
-					MissingPrefabModel newModel = new MissingPrefabModel(getModel(), r.data);
-					newControl = new MissingPrefabControl(getCanvas(), newModel);
-				} else {
-					MissingAssetSpriteModel newModel = new MissingAssetSpriteModel(getModel(), r.data);
-					newControl = new MissingAssetControl(getCanvas(), newModel);
-				}
-				addChild(r.index, newControl.getIObjectNode());
+				replaceByMissing(r.node, r.index, r.data, r.missingPrefab);
 			}
 		}
 
 		return changed;
 	}
 
+	/**
+	 * Rebuild only the given child. If the asset or prefab of the child is
+	 * missing, then it is replaced by a missing-object.
+	 * 
+	 * @return If the structure of the group changed.
+	 */
+	public boolean rebuildChild(IObjectNode inode) {
+		int index = getNode().getChildren().indexOf(inode.getNode());
+
+		try {
+			return inode.getControl().rebuild();
+		} catch (MissingAssetException e) {
+			replaceByMissing(inode, index, e.getData(), false);
+		} catch (MissingPrefabException e) {
+			replaceByMissing(inode, index, e.getData(), true);
+		}
+
+		return true;
+	}
+
+	private void replaceByMissing(IObjectNode inode, int index, JSONObject data, boolean missingPrefab) {
+		removeChild(inode);
+		BaseObjectControl<?> newControl;
+		if (missingPrefab) {
+			MissingPrefabModel newModel = new MissingPrefabModel(getModel(), data);
+			newControl = new MissingPrefabControl(getCanvas(), newModel);
+		} else {
+			MissingAssetSpriteModel newModel = new MissingAssetSpriteModel(getModel(), data);
+			newControl = new MissingAssetControl(getCanvas(), newModel);
+		}
+		addChild(index, newControl.getIObjectNode());
+	}
+
 	public void updateAllFromModel() {
 		for (Node node : getNode().getChildren()) {
 			IObjectNode inode = (IObjectNode) node;
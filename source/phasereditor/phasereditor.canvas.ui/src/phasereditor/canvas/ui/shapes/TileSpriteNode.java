@@ -21,15 +21,18 @@
 // USE OR OTHER DEALINGS IN THE SOFTWARE.
 package phasereditor.canvas.ui.shapes;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
 import org.eclipse.swt.graphics.Point;
 import org.eclipse.swt.graphics.Rectangle;
 
-import javafx.geometry.Point2D;
-import javafx.geometry.Rectangle2D;
 import javafx.scene.Node;
 import javafx.scene.image.Image;
-import javafx.scene.image.ImageView;
+import javafx.scene.image.WritableImage;
 import javafx.scene.layout.Pane;
+import javafx.scene.paint.ImagePattern;
 import phasereditor.assetpack.core.FrameData;
 import phasereditor.assetpack.core.IAssetFrameModel;
 import phasereditor.assetpack.core.IAssetKey;
@@ -38,41 +41,45 @@ import phasereditor.canvas.core.TileSpriteModel;
 import phasereditor.ui.ImageCache;
 
 /**
+ * A tile sprite is painted with a single rectangle filled with a repeating
+ * pattern of the frame, so the number of nodes does not depend on the size of
+ * the sprite.
+ * 
  * @author arian
  *
  */
 public class TileSpriteNode extends Pane implements ISpriteNode {
 
+	/**
+	 * The frame textures (with the trimmed space restored), by source image.
+	 */
+	private static Map<Image, Map<String, Image>> _tileImageCache = new WeakHashMap<>();
+
 	private FrameData _frame;
 	private TileSpriteControl _control;
+	private javafx.scene.shape.Rectangle _rect;
+	private Image _tileImage;
+	private String _patternKey;
 
 	public TileSpriteNode(TileSpriteControl control) {
 		_control = control;
 
+		_rect = new javafx.scene.shape.Rectangle();
+		getChildren().add(_rect);
+
 		updateFromModel();
 	}
 
 	@Override
 	public boolean contains(double localX, double localY) {
-		if (!getClip().contains(localX, localY)) {
-			return false;
-		}
-
-		for (Node node : getChildren()) {
-			Point2D point = node.parentToLocal(localX, localY);
-			if (node.contains(point)) {
-				return true;
-			}
-		}
-
-		return false;
+		return _rect.contains(localX, localY);
 	}
 
 	public void updateFromModel() {
 		IAssetKey assetKey = _control.getModel().getAssetKey();
 
 		Image image;
-		
+
 		if (assetKey instanceof ImageAssetModel) {
 			image = ImageCache.getFXImage(((ImageAssetModel) assetKey).getUrlFile());
 			Rectangle rect = new Rectangle(0, 0, (int) image.getWidth(), (int) image.getHeight());
@@ -86,7 +93,6 @@ public class TileSpriteNode extends Pane implements ISpriteNode {
 			_frame = frameModel.getFrameData();
 		}
 
-
 		TileSpriteModel model = _control.getModel();
 
 		double width = model.getWidth();
@@ -95,53 +101,50 @@ public class TileSpriteNode extends Pane implements ISpriteNode {
 		setWidth(width);
 		setHeight(height);
 
-		// GraphicsContext g2 = getGraphicsContext2D();
-		// g2.clearRect(0, 0, width, height);
+		_rect.setWidth(width);
+		_rect.setHeight(height);
+
+		Image tileImage = getTileImage(image, _frame);
 
 		double xoffs = model.getTilePositionX() % _frame.srcSize.x;
 		double yoffs = model.getTilePositionY() % _frame.srcSize.y;
 
-		double x0 = _frame.src.x;
-		double y0 = _frame.src.y;
-		double w0 = _frame.src.width;
-		double h0 = _frame.src.height;
+		double w1 = _frame.srcSize.x * model.getTileScaleX();
+		double h1 = _frame.srcSize.y * model.getTileScaleY();
 
-		double x1;
-		double y1;
+		String key = xoffs + "," + yoffs + "," + w1 + "," + h1;
 
-		if (xoffs == 0) {
-			x1 = _frame.dst.x * model.getTileScaleX();
-		} else if (xoffs < 0) {
-			x1 = xoffs + _frame.dst.x * model.getTileScaleX();
-		} else {
-			x1 = xoffs - (_frame.srcSize.x + _frame.dst.x) * model.getTileScaleX();
-		}
+		// resizing the sprite does not change the pattern
 
-		if (yoffs == 0) {
-			y1 = _frame.dst.y * model.getTileScaleY();
-		} else if (yoffs < 0) {
-			y1 = yoffs + _frame.dst.y * model.getTileScaleY();
-		} else {
-			y1 = yoffs - (_frame.srcSize.y + _frame.dst.y) * model.getTileScaleY();
+		if (tileImage != _tileImage || !key.equals(_patternKey)) {
+			_tileImage = tileImage;
+			_patternKey = key;
+			_rect.setFill(new ImagePattern(tileImage, xoffs, yoffs, w1, h1, false));
 		}
+	}
 
-		double w1 = _frame.srcSize.x * model.getTileScaleX();
-		double h1 = _frame.srcSize.y * model.getTileScaleY();
+	private static Image getTileImage(Image image, FrameData frame) {
+		Rectangle src = frame.src;
+		Rectangle dst = frame.dst;
+		Point size = frame.srcSize;
 
-		getChildren().clear();
-
-		for (double x = x1; x < getWidth(); x += w1) {
-			for (double y = y1; y < getHeight(); y += h1) {
-				ImageView img = new ImageView(image);
-				img.setViewport(new Rectangle2D(x0, y0, w0, h0));
-				img.relocate(x, y);
-				img.setFitWidth(w1);
-				img.setFitHeight(h1);
-				getChildren().add(img);
-			}
+		if (src.x == 0 && src.y == 0 && dst.x == 0 && dst.y == 0 && src.width == size.x && src.height == size.y
+				&& image.getWidth() == size.x && image.getHeight() == size.y) {
+			return image;
 		}
 
-		setClip(new javafx.scene.shape.Rectangle(0, 0, width, height));
+		String key = src + "/" + dst + "/" + size;
+
+		synchronized (_tileImageCache) {
+			Map<String, Image> map = _tileImageCache.computeIfAbsent(image, k -> new HashMap<>());
+
+			return map.computeIfAbsent(key, k -> {
+				WritableImage tile = new WritableImage(Math.max(1, size.x), Math.max(1, size.y));
+				tile.getPixelWriter().setPixels(dst.x, dst.y, src.width, src.height, image.getPixelReader(), src.x,
+						src.y);
+				return tile;
+			});
+		}
 	}
 
 	@Override
@@ -52,6 +52,9 @@ public class Activator extends AbstractUIPlugin {
 	public void start(BundleContext context) throws Exception {
 		super.start(context);
 		plugin = this;
+
+		getPreferenceStore().setDefault(OptiPNGCore.PREF_OPTI_PNG_WORKERS,
+				Runtime.getRuntime().availableProcessors());
 	}
 
 	/*
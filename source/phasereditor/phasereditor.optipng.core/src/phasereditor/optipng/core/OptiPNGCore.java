@@ -25,6 +25,7 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
 import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -47,24 +48,50 @@ public class OptiPNGCore {
 
 	public static final String PREF_OPTI_PNG_EXTRA_PARAMS = PLUGIN_ID + "extraParams";
 
+	public static final String PREF_OPTI_PNG_WORKERS = PLUGIN_ID + "workers";
+
 	public static void updateHashCache(IResource resource) throws Exception {
 		String hash2 = computeHash(resource);
 		resource.setPersistentProperty(PERSIST_KEY, hash2);
 	}
 
-	public static void optimize(IPath path) {
-		String ospath = path.toOSString();
+	/**
+	 * Check if the content of the resource is the same of the last time it was
+	 * optimized.
+	 */
+	public static boolean isHashCacheValid(IResource resource) throws Exception {
+		String hash1 = resource.getPersistentProperty(PERSIST_KEY);
+		if (hash1 == null) {
+			return false;
+		}
+		String hash2 = computeHash(resource);
+		return hash1.equals(hash2);
+	}
+
+	public static int getWorkers() {
+		int n = getPreferenceStore().getInt(PREF_OPTI_PNG_WORKERS);
+		return Math.max(1, n);
+	}
+
+	public static ProcessBuilder createProcessBuilder(Path file) {
 		IPreferenceStore prefs = getPreferenceStore();
 
 		String level = prefs.getString(PREF_OPTI_PNG_LEVEL);
 		String extra = prefs.getString(PREF_OPTI_PNG_EXTRA_PARAMS);
 
-		try {
-			List<String> params = new ArrayList<>(Arrays.asList(level, "-quiet", ospath));
-			params.addAll(Arrays.asList(extra.split(" ")));
+		List<String> params = new ArrayList<>(Arrays.asList(level, "-quiet", file.toString()));
+		for (String param : extra.split(" ")) {
+			if (param.trim().length() > 0) {
+				params.add(param);
+			}
+		}
 
-			ProcessBuilder procBuilder = InspectCore.createProcessBuilder("optipng/optipng",
-					params.toArray(new String[params.size()]));
+		return InspectCore.createProcessBuilder("optipng/optipng", params.toArray(new String[params.size()]));
+	}
+
+	public static void optimize(IPath path) {
+		try {
+			ProcessBuilder procBuilder = createProcessBuilder(path.toFile().toPath());
 
 			Process proc = procBuilder.start();
 			int code = proc.waitFor();
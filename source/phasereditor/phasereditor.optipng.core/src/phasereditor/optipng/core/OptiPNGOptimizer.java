@@ -0,0 +1,329 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2015, 2016 Arian Fornaris
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions: The above copyright notice and this permission
+// notice shall be included in all copies or substantial portions of the
+// Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+package phasereditor.optipng.core;
+
+import static java.lang.System.out;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.IProgressMonitor;
+
+import phasereditor.optipng.core.OptiPNGResult.Status;
+
+/**
+ * Runs OptiPNG on a set of files using a pool of workers. Files with a valid
+ * hash cache (they were not modified since the last optimization) are
+ * skipped.
+ * <p>
+ * Each file is optimized in a temporary copy, that replaces the original file
+ * only when OptiPNG finishes with success, so a cancellation never leaves a
+ * half-written file.
+ * </p>
+ * 
+ * @author arian
+ *
+ */
+public class OptiPNGOptimizer {
+
+	public interface IOptimizerListener {
+		public void fileStarted(IResource resource);
+
+		public void fileDone(OptiPNGResult result);
+	}
+
+	private int _workers;
+	private volatile boolean _cancelled;
+	private Set<Process> _processes;
+	private ExecutorService _pool;
+	private long _startTime;
+	private long _endTime;
+	private List<OptiPNGResult> _results;
+
+	public OptiPNGOptimizer() {
+		this(OptiPNGCore.getWorkers());
+	}
+
+	public OptiPNGOptimizer(int workers) {
+		_workers = Math.max(1, workers);
+		_processes = ConcurrentHashMap.newKeySet();
+		_results = new ArrayList<>();
+	}
+
+	public int getWorkers() {
+		return _workers;
+	}
+
+	/**
+	 * Optimize the given files and wait until all of them are processed or the
+	 * monitor is cancelled.
+	 * 
+	 * @return The result of each file, in the order they were completed.
+	 */
+	public List<OptiPNGResult> optimize(List<IResource> files, IProgressMonitor monitor,
+			IOptimizerListener listener) {
+		_startTime = System.currentTimeMillis();
+		_cancelled = false;
+
+		monitor.beginTask("Optimizing PNGs", files.size());
+
+		_pool = Executors.newFixedThreadPool(Math.min(_workers, Math.max(1, files.size())), new ThreadFactory());
+
+		try {
+			CompletionService<OptiPNGResult> service = new ExecutorCompletionService<>(_pool);
+
+			for (IResource file : files) {
+				service.submit(() -> {
+					if (listener != null && !_cancelled) {
+						listener.fileStarted(file);
+					}
+					return optimizeFile(file);
+				});
+			}
+
+			int pending = files.size();
+
+			while (pending > 0) {
+				if (monitor.isCanceled()) {
+					cancel();
+				}
+
+				Future<OptiPNGResult> future = service.poll(100, TimeUnit.MILLISECONDS);
+
+				if (future == null) {
+					continue;
+				}
+
+				pending--;
+
+				OptiPNGResult result;
+				try {
+					result = future.get();
+				} catch (ExecutionException e) {
+					e.printStackTrace();
+					continue;
+				}
+
+				synchronized (_results) {
+					_results.add(result);
+				}
+
+				monitor.worked(1);
+
+				if (listener != null) {
+					listener.fileDone(result);
+				}
+			}
+		} catch (InterruptedException e) {
+			cancel();
+			Thread.currentThread().interrupt();
+		} finally {
+			_pool.shutdownNow();
+			_endTime = System.currentTimeMillis();
+			monitor.done();
+		}
+
+		return getResults();
+	}
+
+	/**
+	 * Stop all the running processes and discard the pending files. The
+	 * original content of the files being optimized is preserved.
+	 */
+	public void cancel() {
+		if (_cancelled) {
+			return;
+		}
+
+		_cancelled = true;
+
+		for (Process proc : _processes) {
+			proc.destroy();
+		}
+	}
+
+	public boolean isCancelled() {
+		return _cancelled;
+	}
+
+	private OptiPNGResult optimizeFile(IResource resource) {
+		long t = System.currentTimeMillis();
+
+		Path file = resource.getLocation().toFile().toPath();
+		long len1 = file.toFile().length();
+
+		if (_cancelled) {
+			return new OptiPNGResult(resource, Status.CANCELLED, len1, len1, 0, null);
+		}
+
+		Path tmp = null;
+
+		try {
+			if (OptiPNGCore.isHashCacheValid(resource)) {
+				out.println("OptiPNG: skip " + file);
+				return new OptiPNGResult(resource, Status.SKIPPED, len1, len1, System.currentTimeMillis() - t,
+						null);
+			}
+
+			out.println("OptiPNG: optimize " + file);
+
+			tmp = Files.createTempFile(file.getParent(), "." + resource.getName() + "-", ".optipng");
+			Files.copy(file, tmp, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+
+			ProcessBuilder procBuilder = OptiPNGCore.createProcessBuilder(tmp);
+			Process proc = procBuilder.start();
+			_processes.add(proc);
+
+			int code;
+			try {
+				code = proc.waitFor();
+			} finally {
+				_processes.remove(proc);
+			}
+
+			if (_cancelled) {
+				return new OptiPNGResult(resource, Status.CANCELLED, len1, len1, System.currentTimeMillis() - t,
+						null);
+			}
+
+			if (code != 0) {
+				throw new IOException("Something wrong happened, exit code for "
+						+ Arrays.toString(procBuilder.command().toArray()) + " is " + code);
+			}
+
+			// the temporary file is created only readable by the owner, and
+			// OptiPNG may write a new file, so restore the original
+			// permissions before replacing the original file
+			copyPermissions(file, tmp);
+
+			try {
+				Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+
+			tmp = null;
+
+			OptiPNGCore.updateHashCache(resource);
+
+			long len2 = file.toFile().length();
+
+			return new OptiPNGResult(resource, Status.OPTIMIZED, len1, len2, System.currentTimeMillis() - t, null);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return new OptiPNGResult(resource, Status.CANCELLED, len1, len1, System.currentTimeMillis() - t, null);
+		} catch (Exception e) {
+			e.printStackTrace();
+			return new OptiPNGResult(resource, Status.FAILED, len1, len1, System.currentTimeMillis() - t, e);
+		} finally {
+			if (tmp != null) {
+				try {
+					Files.deleteIfExists(tmp);
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+	}
+
+	private static void copyPermissions(Path src, Path dst) throws IOException {
+		if (Files.getFileAttributeView(src, PosixFileAttributeView.class) != null) {
+			Set<PosixFilePermission> perms = Files.getPosixFilePermissions(src);
+			Files.setPosixFilePermissions(dst, perms);
+		} else {
+			dst.toFile().setWritable(src.toFile().canWrite());
+		}
+	}
+
+	public List<OptiPNGResult> getResults() {
+		synchronized (_results) {
+			return new ArrayList<>(_results);
+		}
+	}
+
+	/**
+	 * @return The time in milliseconds of the last optimization.
+	 */
+	public long getTotalTime() {
+		return _endTime - _startTime;
+	}
+
+	public int countResults(Status status) {
+		int n = 0;
+		for (OptiPNGResult result : getResults()) {
+			if (result.getStatus() == status) {
+				n++;
+			}
+		}
+		return n;
+	}
+
+	public long getSavedBytes() {
+		long saved = 0;
+		for (OptiPNGResult result : getResults()) {
+			saved += result.getSavedBytes();
+		}
+		return saved;
+	}
+
+	/**
+	 * @return The number of processed files (optimized or skipped) per second.
+	 */
+	public double getFilesPerSecond() {
+		long time = getTotalTime();
+		if (time <= 0) {
+			return 0;
+		}
+		int n = countResults(Status.OPTIMIZED) + countResults(Status.SKIPPED);
+		return n * 1000d / time;
+	}
+
+	static class ThreadFactory implements java.util.concurrent.ThreadFactory {
+		private AtomicInteger _count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "OptiPNG Worker " + _count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
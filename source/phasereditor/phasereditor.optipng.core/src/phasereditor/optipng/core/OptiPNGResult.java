@@ -0,0 +1,100 @@
+// The MIT License (MIT)
+//
+// Copyright (c) 2015 Arian Fornaris
+//
+// Permission is hereby granted, free of charge, to any person obtaining a
+// copy of this software and associated documentation files (the
+// "Software"), to deal in the Software without restriction, including
+// without limitation the rights to use, copy, modify, merge, publish,
+// distribute, sublicense, and/or sell copies of the Software, and to permit
+// persons to whom the Software is furnished to do so, subject to the
+// following conditions: The above copyright notice and this permission
+// notice shall be included in all copies or substantial portions of the
+// Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS
+// OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+// MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN
+// NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+// DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+// OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE
+// USE OR OTHER DEALINGS IN THE SOFTWARE.
+package phasereditor.optipng.core;
+
+import org.eclipse.core.resources.IResource;
+
+/**
+ * The result of running OptiPNG on a single file.
+ * 
+ * @author arian
+ *
+ */
+public class OptiPNGResult {
+	public enum Status {
+		OPTIMIZED, SKIPPED, FAILED, CANCELLED
+	}
+
+	private IResource _resource;
+	private Status _status;
+	private long _originalSize;
+	private long _optimizedSize;
+	private long _time;
+	private Exception _error;
+
+	public OptiPNGResult(IResource resource, Status status, long originalSize, long optimizedSize, long time,
+			Exception error) {
+		super();
+		_resource = resource;
+		_status = status;
+		_originalSize = originalSize;
+		_optimizedSize = optimizedSize;
+		_time = time;
+		_error = error;
+	}
+
+	public IResource getResource() {
+		return _resource;
+	}
+
+	public Status getStatus() {
+		return _status;
+	}
+
+	public long getOriginalSize() {
+		return _originalSize;
+	}
+
+	public long getOptimizedSize() {
+		return _optimizedSize;
+	}
+
+	public long getSavedBytes() {
+		return _originalSize - _optimizedSize;
+	}
+
+	/**
+	 * @return The reduction percent, or 0 if the file was not optimized.
+	 */
+	public int getReduction() {
+		if (_status != Status.OPTIMIZED || _originalSize == 0) {
+			return 0;
+		}
+		return (int) (100 - (double) _optimizedSize / (double) _originalSize * 100);
+	}
+
+	/**
+	 * @return The time in milliseconds spent on this file.
+	 */
+	public long getTime() {
+		return _time;
+	}
+
+	public Exception getError() {
+		return _error;
+	}
+
+	@Override
+	public String toString() {
+		return _resource.getFullPath() + " " + _status + " " + _originalSize + " -> " + _optimizedSize;
+	}
+}
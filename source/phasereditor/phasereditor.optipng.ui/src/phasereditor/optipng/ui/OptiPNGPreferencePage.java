@@ -23,6 +23,7 @@ package phasereditor.optipng.ui;
 
 import org.eclipse.jface.preference.ComboFieldEditor;
 import org.eclipse.jface.preference.FieldEditorPreferencePage;
+import org.eclipse.jface.preference.IntegerFieldEditor;
 import org.eclipse.jface.preference.StringFieldEditor;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.ui.IWorkbench;
@@ -67,5 +68,13 @@ public class OptiPNGPreferencePage extends FieldEditorPreferencePage implements
 					"Additional Parameters", parent);
 			addField(paramsEditor);
 		}
+
+		{
+			IntegerFieldEditor workersEditor = new IntegerFieldEditor(
+					OptiPNGCore.PREF_OPTI_PNG_WORKERS,
+					"Parallel Workers", parent);
+			workersEditor.setValidRange(1, 64);
+			addField(workersEditor);
+		}
 	}
 }
\ No newline at end of file
@@ -56,6 +56,9 @@ import org.eclipse.swt.widgets.TableColumn;
 import org.eclipse.ui.model.WorkbenchLabelProvider;
 
 import phasereditor.optipng.core.OptiPNGCore;
+import phasereditor.optipng.core.OptiPNGOptimizer;
+import phasereditor.optipng.core.OptiPNGOptimizer.IOptimizerListener;
+import phasereditor.optipng.core.OptiPNGResult;
 
 public class OptimizeImagesDialog extends Dialog {
 	private Table _table;
@@ -197,7 +200,7 @@ public class OptimizeImagesDialog extends Dialog {
 							return false;
 						}
 
-						if (OptiPNGCore.isPNG(res)) {
+						if (OptiPNGCore.isPNG(resource)) {
 							if (!list.contains(resource)) {
 								list.add(resource);
 								_oldSizeMap.put(resource, getFileSize(resource));
@@ -213,57 +216,71 @@ public class OptimizeImagesDialog extends Dialog {
 
 				@Override
 				public IStatus runInWorkspace(IProgressMonitor monitor) throws CoreException {
+					OptiPNGOptimizer optimizer = new OptiPNGOptimizer();
 					try {
-						monitor.beginTask("Optimizing PNGs", list.size());
-						for (IResource resource : list) {
+						optimizer.optimize(list, monitor, new IOptimizerListener() {
 
-							Display.getDefault().asyncExec(new Runnable() {
+							@Override
+							public void fileStarted(IResource resource) {
+								Display.getDefault().asyncExec(new Runnable() {
+
+									@Override
+									public void run() {
+										_labelTitle.setText("Optimizing " + resource.getName());
+									}
+								});
+							}
 
-								@Override
-								public void run() {
-									_labelTitle.setText("Optimizing " + resource.getName());
+							@Override
+							public void fileDone(OptiPNGResult result) {
+								IResource resource = result.getResource();
+
+								switch (result.getStatus()) {
+								case OPTIMIZED:
+									_reductionMap.put(resource, result.getReduction() + "%");
+									break;
+								case SKIPPED:
+									_reductionMap.put(resource, "Skipped");
+									break;
+								case FAILED:
+									_reductionMap.put(resource, "Failed");
+									break;
+								default:
+									_reductionMap.put(resource, "Cancelled");
+									break;
 								}
-							});
-
-							IPath path = resource.getLocation();
-
-							long len1 = path.toFile().length();
-
-							out.println("OptiPNG Dialog: optimize " + path.toFile().getAbsolutePath());
-
-							OptiPNGCore.optimize(path);
-							OptiPNGCore.updateHashCache(resource);
-
-							long len2 = path.toFile().length();
+								_newSizeMap.put(resource, getFileSize(resource));
 
-							int reduction = (int) (100 - (double) len2 / (double) len1 * 100);
+								Display.getDefault().asyncExec(new Runnable() {
 
-							_reductionMap.put(resource, reduction + "%");
-							_newSizeMap.put(resource, getFileSize(resource));
-
-							monitor.worked(1);
-
-							Display.getDefault().asyncExec(new Runnable() {
+									@Override
+									public void run() {
+										_tableViewer.refresh(resource);
+										_tableViewer.reveal(resource);
+									}
+								});
+							}
+						});
 
-								@Override
-								public void run() {
-									_tableViewer.refresh(resource);
-									_tableViewer.reveal(resource);
-								}
-							});
-						}
-						monitor.done();
-						return Status.OK_STATUS;
+						return optimizer.isCancelled() ? Status.CANCEL_STATUS : Status.OK_STATUS;
 					} catch (Exception e) {
 						e.printStackTrace();
 						throw new RuntimeException(e);
 					} finally {
+						String summary = (optimizer.isCancelled() ? "Cancelled, " : "Done, ")
+								+ optimizer.countResults(OptiPNGResult.Status.OPTIMIZED) + " optimized, "
+								+ optimizer.countResults(OptiPNGResult.Status.SKIPPED) + " skipped, "
+								+ optimizer.countResults(OptiPNGResult.Status.FAILED) + " failed. Saved "
+								+ optimizer.getSavedBytes() / 1024 + "KB in " + optimizer.getTotalTime() / 1000
+								+ "s (" + String.format("%.1f", Double.valueOf(optimizer.getFilesPerSecond()))
+								+ " files/s, " + optimizer.getWorkers() + " workers).";
+
 						Display.getDefault().asyncExec(new Runnable() {
 
 							@SuppressWarnings("synthetic-access")
 							@Override
 							public void run() {
-								_labelTitle.setText("Done, all files are optimized.");
+								_labelTitle.setText(summary);
 								getButton(OK).setEnabled(true);
 							}
 						});
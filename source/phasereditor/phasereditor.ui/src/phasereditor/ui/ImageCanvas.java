@@ -22,19 +22,28 @@
 package phasereditor.ui;
 
 import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.events.PaintEvent;
 import org.eclipse.swt.events.PaintListener;
 import org.eclipse.swt.graphics.GC;
 import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.ImageData;
 import org.eclipse.swt.graphics.Point;
 import org.eclipse.swt.graphics.Rectangle;
 import org.eclipse.swt.widgets.Canvas;
 import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Display;
 
 public class ImageCanvas extends Canvas implements PaintListener {
 
 	protected Image _image;
+	private ImageMipmaps _mipmaps;
+	private Rectangle _imageSize;
+	private Job _loadJob;
 	private Point _preferredSize;
 	private String _noImageMessage = "(no image)";
 
@@ -67,15 +76,80 @@ public class ImageCanvas extends Canvas implements PaintListener {
 		loadImage(filepath);
 	}
 
+	/**
+	 * Load the image in a background job. Meanwhile, only the dimension of the
+	 * image is known. If other image is requested before this one is loaded,
+	 * then this one is discarded.
+	 */
 	public void loadImage(String filepath) {
-		Image image;
-		try {
-			image = new Image(getDisplay(), filepath);
-		} catch (Exception e) {
-			e.printStackTrace();
-			image = null;
+		setImage(null);
+
+		_imageSize = PhaserEditorUI.getImageBounds(filepath);
+
+		Display display = getDisplay();
+
+		Job job = new Job("Loading image " + filepath) {
+
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				ImageData[] levels;
+
+				try {
+					levels = ImageMipmaps.decode(filepath, monitor);
+				} catch (Exception e) {
+					e.printStackTrace();
+					levels = new ImageData[0];
+				}
+
+				if (levels == null || monitor.isCanceled()) {
+					return Status.CANCEL_STATUS;
+				}
+
+				ImageData[] result = levels;
+
+				display.asyncExec(() -> imageLoaded(this, result));
+
+				return Status.OK_STATUS;
+			}
+		};
+		job.setSystem(true);
+		job.setPriority(Job.SHORT);
+
+		_loadJob = job;
+
+		job.schedule();
+	}
+
+	void imageLoaded(Job job, ImageData[] levels) {
+		if (isDisposed() || job != _loadJob) {
+			// a new image was requested
+			return;
+		}
+
+		_loadJob = null;
+
+		if (levels.length == 0) {
+			_imageSize = null;
+		} else {
+			_mipmaps = new ImageMipmaps(getDisplay(), levels);
+			_image = _mipmaps.getImage();
+			_imageSize = _image.getBounds();
+		}
+
+		imageChanged();
+
+		redraw();
+	}
+
+	private void cancelLoad() {
+		if (_loadJob != null) {
+			_loadJob.cancel();
+			_loadJob = null;
 		}
-		setImage(image);
+	}
+
+	public boolean isLoading() {
+		return _loadJob != null;
 	}
 
 	public Image getImage() {
@@ -83,18 +157,41 @@ public class ImageCanvas extends Canvas implements PaintListener {
 	}
 
 	public void setImage(Image image) {
-		if (_image != null) {
-			_image.dispose();
-		}
+		cancelLoad();
+
+		disposeImage();
+
 		_image = image;
+		_imageSize = image == null ? null : image.getBounds();
+
+		imageChanged();
+
 		redraw();
 	}
 
-	@Override
-	public void dispose() {
-		if (_image != null) {
+	private void disposeImage() {
+		if (_mipmaps != null) {
+			_mipmaps.dispose();
+			_mipmaps = null;
+		} else if (_image != null) {
 			_image.dispose();
 		}
+
+		_image = null;
+	}
+
+	/**
+	 * Called when a new image is set or when an image requested with
+	 * {@link #loadImage(String)} is loaded.
+	 */
+	protected void imageChanged() {
+		// empty
+	}
+
+	@Override
+	public void dispose() {
+		cancelLoad();
+		disposeImage();
 		super.dispose();
 	}
 
@@ -105,7 +202,7 @@ public class ImageCanvas extends Canvas implements PaintListener {
 		Rectangle dst = getBounds();
 
 		if (_image == null) {
-			PhaserEditorUI.paintPreviewMessage(gc, dst, _noImageMessage);
+			PhaserEditorUI.paintPreviewMessage(gc, dst, isLoading() ? "Loading..." : _noImageMessage);
 		} else {
 			Rectangle src = _image.getBounds();
 			Rectangle b = PhaserEditorUI.computeImageZoom(src, dst);
@@ -128,22 +225,36 @@ public class ImageCanvas extends Canvas implements PaintListener {
 	}
 
 	protected void drawImage(GC gc, int srcX, int srcY, int srcW, int srcH, int dstW, int dstH, int dstX, int dstY) {
-		gc.drawImage(_image, srcX, srcY, srcW, srcH, dstX, dstY, dstW, dstH);
+		paintImage(gc, srcX, srcY, srcW, srcH, dstX, dstY, dstW, dstH);
+	}
+
+	/**
+	 * Paint a region of the image. If the image was loaded with
+	 * {@link #loadImage(String)}, the mipmap level nearest to the zoom is used.
+	 * The parameters are in the same order of
+	 * {@link GC#drawImage(Image, int, int, int, int, int, int, int, int)}.
+	 */
+	protected void paintImage(GC gc, int srcX, int srcY, int srcW, int srcH, int dstX, int dstY, int dstW, int dstH) {
+		if (_mipmaps == null) {
+			gc.drawImage(_image, srcX, srcY, srcW, srcH, dstX, dstY, dstW, dstH);
+		} else {
+			_mipmaps.paint(gc, srcX, srcY, srcW, srcH, dstX, dstY, dstW, dstH);
+		}
 	}
 
 	public String getResolution() {
-		if (_image != null) {
-			Rectangle b = _image.getBounds();
-			return b.width + " x " + b.height;
+		if (_imageSize != null) {
+			return _imageSize.width + " x " + _imageSize.height;
 		}
 		return "";
 	}
 
+	/**
+	 * @return The size of the image. It is available before the image is
+	 *         loaded.
+	 */
 	public Rectangle getImageDimension() {
-		if (_image == null) {
-			return null;
-		}
-		return _image.getBounds();
+		return _imageSize;
 	}
 
 	public Point getPreferredSize() {
@@ -21,18 +21,42 @@
 // USE OR OTHER DEALINGS IN THE SOFTWARE.
 package phasereditor.ui;
 
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.jface.viewers.ILabelProvider;
 import org.eclipse.jface.viewers.ITreeContentProvider;
+import org.eclipse.jface.viewers.StructuredViewer;
 import org.eclipse.jface.viewers.TreeViewer;
 import org.eclipse.jface.viewers.Viewer;
 import org.eclipse.ui.dialogs.PatternFilter;
 
 /**
+ * A pattern filter that also shows the children of the matching elements.
+ * 
+ * <p>
+ * The match of each element is computed once per filter pass, so the checks
+ * of the parents of the other elements reuse it. The matches are forgotten
+ * when the pattern changes and when the pass is done (in the next UI event),
+ * so the next refresh of the viewer reads the labels again.
+ * </p>
+ * 
  * @author arian
  *
  */
 public class PatternFilter2 extends PatternFilter {
+	private Map<Object, Boolean> _matches;
+	private boolean _clearScheduled;
+
 	public PatternFilter2() {
 		setIncludeLeadingWildcard(true);
+		_matches = new HashMap<>();
+	}
+
+	@Override
+	public void setPattern(String patternString) {
+		super.setPattern(patternString);
+		_matches.clear();
 	}
 	
 	@Override
@@ -47,6 +71,36 @@ public class PatternFilter2 extends PatternFilter {
 		return false;
 	}
 
+	@Override
+	protected boolean isLeafMatch(Viewer viewer, Object element) {
+		Boolean match = _matches.get(element);
+
+		if (match == null) {
+			String label = ((ILabelProvider) ((StructuredViewer) viewer).getLabelProvider()).getText(element);
+
+			match = Boolean.valueOf(label != null && wordMatches(label));
+
+			_matches.put(element, match);
+
+			scheduleClear(viewer);
+		}
+
+		return match.booleanValue();
+	}
+
+	private void scheduleClear(Viewer viewer) {
+		if (_clearScheduled) {
+			return;
+		}
+
+		_clearScheduled = true;
+
+		viewer.getControl().getDisplay().asyncExec(() -> {
+			_matches.clear();
+			_clearScheduled = false;
+		});
+	}
+
 	private boolean anyParentVisible(Viewer viewer, Object element) {
 		Object parent = ((ITreeContentProvider) ((TreeViewer) viewer).getContentProvider()).getParent(element);
 		if (parent == null) {
@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Arian Fornaris and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Arian Fornaris - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.jsdt.core.infer;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+
+import org.eclipse.wst.jsdt.core.JavaScriptCore;
+import org.eclipse.wst.jsdt.core.ast.IAssignment;
+import org.eclipse.wst.jsdt.internal.compiler.CompilationResult;
+import org.eclipse.wst.jsdt.internal.compiler.DefaultErrorHandlingPolicies;
+import org.eclipse.wst.jsdt.internal.compiler.ast.CompilationUnitDeclaration;
+import org.eclipse.wst.jsdt.internal.compiler.impl.CompilerOptions;
+import org.eclipse.wst.jsdt.internal.compiler.parser.Parser;
+import org.eclipse.wst.jsdt.internal.compiler.problem.DefaultProblemFactory;
+import org.eclipse.wst.jsdt.internal.compiler.problem.ProblemReporter;
+import org.eclipse.wst.jsdt.internal.core.BasicCompilationUnit;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Counts the bytes allocated by the {@link InferEngine} on a game source with
+ * many assignments, with the library file check done once per unit and with
+ * the old check done for every assignment.
+ * 
+ * @author arian
+ *
+ */
+@SuppressWarnings("static-method")
+public class InferEngineAllocationBenchmark {
+	private static final int RUNS = 5;
+	private static final int ASSIGNMENTS = 20_000;
+	private static final String FILE_NAME = "/MyGame/WebContent/assets/js/states/Level.js";
+
+	private static char[] _source;
+	private static CompilerOptions _options;
+
+	@BeforeClass
+	public static void createSource() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("Level = function () {\n");
+		sb.append("  Phaser.State.call(this);\n");
+		sb.append("};\n");
+		sb.append("Level.prototype.update = function () {\n");
+		for (int i = 0; i < ASSIGNMENTS; i++) {
+			sb.append("  this.enemy" + (i % 50) + ".x = this.player.y + " + i + ";\n");
+		}
+		// the last assignment, it tells if the inference was completed
+		sb.append("  this.score = 0;\n");
+		sb.append("};\n");
+		_source = sb.toString().toCharArray();
+		_options = new CompilerOptions(JavaScriptCore.getOptions());
+	}
+
+	private static CompilationUnitDeclaration parse() {
+		Parser parser = new Parser(new ProblemReporter(DefaultErrorHandlingPolicies.proceedWithAllProblems(),
+				_options, new DefaultProblemFactory()), true);
+		BasicCompilationUnit unit = new BasicCompilationUnit(_source, null, FILE_NAME);
+		return parser.parse(unit, new CompilationResult(unit, 0, 1, _options.maxProblemsPerUnit));
+	}
+
+	private static long allocatedBytes() {
+		return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(
+				Thread.currentThread().getId());
+	}
+
+	/**
+	 * The engine visited all the assignments of the update method, up to the
+	 * last one.
+	 */
+	private static void assertInferred(CompilationUnitDeclaration unit) {
+		InferredType type = unit.findInferredType("Level".toCharArray());
+		Assert.assertNotNull("The Level type is inferred", type);
+		Assert.assertNotNull("The last assignment is inferred", type.findAttribute("score".toCharArray()));
+	}
+
+	private static long infer(InferEngine engine) {
+		engine.inferenceProvider = new DefaultInferrenceProvider();
+		long best = Long.MAX_VALUE;
+		for (int i = 0; i < RUNS; i++) {
+			CompilationUnitDeclaration unit = parse();
+			long start = allocatedBytes();
+			engine.initialize();
+			engine.setCompilationUnit(unit);
+			engine.doInfer();
+			best = Math.min(best, allocatedBytes() - start);
+			assertInferred(unit);
+		}
+		return best;
+	}
+
+	@Test
+	public void testLibraryFileCheckedOncePerUnit() {
+		int[] checks = { 0 };
+		InferEngine engine = new InferEngine() {
+			@Override
+			protected boolean isLibraryFile(char[] fileName) {
+				checks[0]++;
+				return super.isLibraryFile(fileName);
+			}
+		};
+		infer(engine);
+		Assert.assertEquals(RUNS, checks[0]);
+		Assert.assertFalse(engine.isLibraryFile);
+	}
+
+	@Test
+	public void testLibraryPaths() {
+		InferOptions options = new InferOptions();
+		String libraryFile = JavaScriptCore.getPlugin().getStateLocation().append("libraries/phaser-api.js").toString();
+		Assert.assertTrue(options.isLibraryFile(libraryFile.toCharArray()));
+		Assert.assertFalse(options.isLibraryFile(FILE_NAME.toCharArray()));
+		Assert.assertFalse("Other files of the state location",
+				options.isLibraryFile(JavaScriptCore.getPlugin().getStateLocation().append("other.js").toString().toCharArray()));
+
+		options.set(Collections.singletonMap(InferOptions.OPTION_LibraryPaths, "typings/, org.eclipse.wst.jsdt.core"));
+		Assert.assertTrue(options.isLibraryFile("/MyGame/typings/phaser.d.js".toCharArray()));
+		Assert.assertEquals("typings/,org.eclipse.wst.jsdt.core", options.getMap().get(InferOptions.OPTION_LibraryPaths));
+	}
+
+	@Test
+	public void testAllocations() {
+		long current = infer(new InferEngine());
+
+		long perAssignment = infer(new InferEngine() {
+			@Override
+			public boolean visit(IAssignment assignment) {
+				// the check this engine did before, for every assignment
+				if (new String(getScriptFileDeclaration().getFileName()).contains("org.eclipse.wst.jsdt.core")) {
+					return false;
+				}
+				return super.visit(assignment);
+			}
+		});
+
+		Assert.assertTrue("Allocated " + (current / 1024) + "kb with the check per unit, " + (perAssignment / 1024)
+				+ "kb with the check per assignment", current < perAssignment);
+	}
+}
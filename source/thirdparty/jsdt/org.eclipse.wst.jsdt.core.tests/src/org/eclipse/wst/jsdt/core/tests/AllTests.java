@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Arian Fornaris and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Arian Fornaris - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.jsdt.core.tests;
+
+import org.eclipse.wst.jsdt.core.infer.InferEngineAllocationBenchmark;
+import org.eclipse.wst.jsdt.internal.codeassist.CompletionCacheTest;
+import org.eclipse.wst.jsdt.internal.codeassist.CompletionProposalCopyTest;
+import org.eclipse.wst.jsdt.internal.compiler.parser.ParserPoolStressTest;
+import org.eclipse.wst.jsdt.internal.core.IncrementalReconcileASTTest;
+import org.eclipse.wst.jsdt.internal.core.IncrementalReconcileTest;
+import org.eclipse.wst.jsdt.internal.core.JavaModelCacheTest;
+import org.eclipse.wst.jsdt.internal.core.LibrarySnapshotTest;
+import org.eclipse.wst.jsdt.internal.core.NameLookupCacheTest;
+import org.eclipse.wst.jsdt.internal.core.ReconcilePhasesBenchmark;
+import org.eclipse.wst.jsdt.internal.core.index.DiskIndexMappedReadTest;
+import org.eclipse.wst.jsdt.internal.core.search.indexing.LibraryIndexStartupTest;
+import org.eclipse.wst.jsdt.internal.core.search.indexing.LibraryIndexStoreTest;
+import org.eclipse.wst.jsdt.internal.core.search.indexing.ParallelIndexingTest;
+import org.junit.runner.RunWith;
+import org.junit.runners.Suite;
+import org.junit.runners.Suite.SuiteClasses;
+
+/**
+ * @author arian
+ *
+ */
+@RunWith(Suite.class)
+@SuiteClasses({
+
+		ParallelIndexingTest.class,
+
+		DiskIndexMappedReadTest.class,
+
+		LibrarySnapshotTest.class,
+
+		InferEngineAllocationBenchmark.class,
+
+		CompletionProposalCopyTest.class,
+
+		ParserPoolStressTest.class,
+
+		IncrementalReconcileTest.class,
+
+		NameLookupCacheTest.class,
+
+		LibraryIndexStoreTest.class,
+
+		JavaModelCacheTest.class,
+
+		CompletionCacheTest.class,
+
+		IncrementalReconcileASTTest.class,
+
+		ReconcilePhasesBenchmark.class,
+
+		LibraryIndexStartupTest.class
+
+})
+public class AllTests {
+	// nothing
+}
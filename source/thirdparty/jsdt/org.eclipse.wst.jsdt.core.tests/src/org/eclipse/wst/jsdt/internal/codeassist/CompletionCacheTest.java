@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Arian Fornaris and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Arian Fornaris - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.jsdt.internal.codeassist;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IProjectDescription;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.wst.jsdt.core.CompletionProposal;
+import org.eclipse.wst.jsdt.core.CompletionRequestor;
+import org.eclipse.wst.jsdt.core.IIncludePathEntry;
+import org.eclipse.wst.jsdt.core.IJavaScriptProject;
+import org.eclipse.wst.jsdt.core.IJavaScriptUnit;
+import org.eclipse.wst.jsdt.core.JavaScriptCore;
+import org.eclipse.wst.jsdt.core.JavaScriptModelException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Completes a member access on a working copy, then completes it again with a
+ * longer prefix, and checks the {@link CompletionCache} reports the same
+ * proposals of a full completion, narrowed, unless the receiver, other files
+ * or other working copies changed.
+ *
+ * @author arian
+ *
+ */
+public class CompletionCacheTest {
+	// @formatter:off
+	private static final String TYPES = ""
+			+ "function Factory() {}\n"
+			+ "Factory.prototype.sprite = function () {};\n"
+			+ "Factory.prototype.spline = function () {};\n"
+			+ "Factory.prototype.text = function () {};\n"
+			+ "function Loader() {}\n"
+			+ "Loader.prototype.spritesheet = function () {};\n"
+			+ "Loader.prototype.image = function () {};\n";
+	// @formatter:on
+
+	private static final String FACTORY = TYPES + "var factory = new Factory();\n";
+
+	private final boolean _enabled = CompletionCache.ENABLED;
+	private IProject _project;
+	private IFile _otherFile;
+	private IJavaScriptUnit _unit;
+
+	@Before
+	public void setUp() throws CoreException {
+		CompletionCache.ENABLED = true;
+		CompletionCache.flush();
+
+		_project = ResourcesPlugin.getWorkspace().getRoot().getProject("CompletionCacheTest");
+		_project.create(null);
+		_project.open(null);
+		IProjectDescription description = _project.getDescription();
+		description.setNatureIds(new String[] { JavaScriptCore.NATURE_ID });
+		_project.setDescription(description, null);
+		IJavaScriptProject javaProject = JavaScriptCore.create(_project);
+		javaProject.setRawIncludepath(
+				new IIncludePathEntry[] { JavaScriptCore.newSourceEntry(_project.getFullPath()) }, null);
+
+		IFile file = _project.getFile("Level.js");
+		file.create(new ByteArrayInputStream(new byte[0]), true, null);
+		_otherFile = _project.getFile("Other.js");
+		_otherFile.create(new ByteArrayInputStream("var other = 1;\n".getBytes(StandardCharsets.UTF_8)), true, null);
+
+		_unit = JavaScriptCore.createCompilationUnitFrom(file);
+		_unit.becomeWorkingCopy(null);
+	}
+
+	@After
+	public void tearDown() throws CoreException {
+		CompletionCache.ENABLED = _enabled;
+		CompletionCache.flush();
+		_unit.discardWorkingCopy();
+		_project.delete(true, null);
+	}
+
+	private List<String> complete(String source) throws JavaScriptModelException {
+		List<String> names = new ArrayList<>();
+		_unit.getBuffer().setContents(source);
+		_unit.codeComplete(source.length(), new CompletionRequestor() {
+
+			@Override
+			public void accept(CompletionProposal proposal) {
+				names.add(new String(proposal.getName()));
+			}
+		});
+		names.sort(null);
+		return names;
+	}
+
+	private List<String> completeWithoutCache(String source) throws JavaScriptModelException {
+		CompletionCache.ENABLED = false;
+		try {
+			return complete(source);
+		} finally {
+			CompletionCache.ENABLED = true;
+		}
+	}
+
+	@Test
+	public void testPrefixNarrowing() throws JavaScriptModelException {
+		List<String> names = complete(FACTORY + "factory.sp");
+		Assert.assertTrue(names.toString(), names.contains("sprite"));
+		Assert.assertTrue(names.toString(), names.contains("spline"));
+
+		int hits = CompletionCache.getHits();
+		List<String> narrowed = complete(FACTORY + "factory.spr");
+		Assert.assertEquals("Replayed", hits + 1, CompletionCache.getHits());
+		Assert.assertTrue(narrowed.contains("sprite"));
+		Assert.assertFalse(narrowed.contains("spline"));
+
+		Assert.assertEquals(completeWithoutCache(FACTORY + "factory.spr"), narrowed);
+	}
+
+	@Test
+	public void testReceiverChanged() throws JavaScriptModelException {
+		complete(FACTORY + "factory.sp");
+
+		int hits = CompletionCache.getHits();
+		List<String> names = complete(TYPES + "var factory = new Loader();\nfactory.spr");
+		Assert.assertEquals("Not replayed", hits, CompletionCache.getHits());
+		Assert.assertTrue(names.toString(), names.contains("spritesheet"));
+		Assert.assertFalse(names.contains("sprite"));
+	}
+
+	@Test
+	public void testResourceChanged() throws CoreException {
+		complete(FACTORY + "factory.sp");
+
+		_otherFile.setContents(new ByteArrayInputStream("var other = 2;\n".getBytes(StandardCharsets.UTF_8)), true,
+				false, null);
+
+		int hits = CompletionCache.getHits();
+		complete(FACTORY + "factory.spr");
+		Assert.assertEquals("Not replayed", hits, CompletionCache.getHits());
+	}
+
+	@Test
+	public void testOtherWorkingCopyReconciled() throws JavaScriptModelException {
+		IJavaScriptUnit other = JavaScriptCore.createCompilationUnitFrom(_otherFile);
+		other.becomeWorkingCopy(null);
+		try {
+			complete(FACTORY + "factory.sp");
+
+			// the reconcile of the completed unit does not discard the proposals
+			_unit.reconcile(IJavaScriptUnit.NO_AST, false, null, null);
+			int hits = CompletionCache.getHits();
+			complete(FACTORY + "factory.spr");
+			Assert.assertEquals("Replayed", hits + 1, CompletionCache.getHits());
+
+			other.getBuffer().setContents("var other2 = 3;\n");
+			other.reconcile(IJavaScriptUnit.NO_AST, false, null, null);
+
+			hits = CompletionCache.getHits();
+			complete(FACTORY + "factory.spri");
+			Assert.assertEquals("Not replayed", hits, CompletionCache.getHits());
+		} finally {
+			other.discardWorkingCopy();
+		}
+	}
+}
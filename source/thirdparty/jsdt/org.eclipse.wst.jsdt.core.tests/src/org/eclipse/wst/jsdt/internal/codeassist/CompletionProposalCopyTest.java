@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Arian Fornaris and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Arian Fornaris - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.jsdt.internal.codeassist;
+
+import org.eclipse.wst.jsdt.core.CompletionProposal;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks the ranges of the proposals reported again by the
+ * {@link CompletionCache}, when the user typed more characters of the same
+ * identifier.
+ * 
+ * @author arian
+ *
+ */
+@SuppressWarnings("static-method")
+public class CompletionProposalCopyTest {
+
+	// game.add.sp|
+	private static final int TOKEN_START = 9;
+	private static final int CURSOR = 11;
+
+	private static CompletionProposal createProposal(int tokenStart, int cursor) {
+		CompletionProposal proposal = CompletionProposal.create(CompletionProposal.METHOD_REF, cursor - 1);
+		proposal.setName("sprite".toCharArray());
+		proposal.setCompletion("sprite()".toCharArray());
+		// the range of an empty token is empty, at the completion position
+		proposal.setTokenRange(tokenStart, tokenStart == cursor ? cursor : cursor - 1);
+		proposal.setReplaceRange(tokenStart, cursor);
+		proposal.setRelevance(42);
+		return proposal;
+	}
+
+	@Test
+	public void testExtendedToken() {
+		CompletionProposal proposal = createProposal(TOKEN_START, CURSOR);
+
+		// game.add.spr|
+		CompletionProposal copy = proposal.copy(CURSOR, 1);
+		CompletionProposal expected = createProposal(TOKEN_START, CURSOR + 1);
+
+		Assert.assertNotSame(proposal, copy);
+		Assert.assertEquals(expected.getCompletionLocation(), copy.getCompletionLocation());
+		Assert.assertEquals(expected.getTokenStart(), copy.getTokenStart());
+		Assert.assertEquals(expected.getTokenEnd(), copy.getTokenEnd());
+		Assert.assertEquals(expected.getReplaceStart(), copy.getReplaceStart());
+		Assert.assertEquals(expected.getReplaceEnd(), copy.getReplaceEnd());
+		Assert.assertEquals(proposal.getRelevance(), copy.getRelevance());
+		Assert.assertArrayEquals(proposal.getCompletion(), copy.getCompletion());
+
+		// the original is not changed
+		Assert.assertEquals(CURSOR, proposal.getReplaceEnd());
+	}
+
+	@Test
+	public void testEmptyToken() {
+		// game.add.|
+		CompletionProposal proposal = createProposal(TOKEN_START, TOKEN_START);
+
+		Assert.assertEquals(TOKEN_START, proposal.getTokenStart());
+		Assert.assertEquals(TOKEN_START, proposal.getTokenEnd());
+
+		// game.add.sp|
+		CompletionProposal copy = proposal.copy(TOKEN_START, 2);
+
+		// the starts stay at the completion position, the ends move with the typed characters
+		Assert.assertEquals(TOKEN_START + 1, copy.getCompletionLocation());
+		Assert.assertEquals(TOKEN_START, copy.getTokenStart());
+		Assert.assertEquals(TOKEN_START + 2, copy.getTokenEnd());
+		Assert.assertEquals(TOKEN_START, copy.getReplaceStart());
+		Assert.assertEquals(TOKEN_START + 2, copy.getReplaceEnd());
+
+		// the original is not changed
+		Assert.assertEquals(TOKEN_START, proposal.getTokenEnd());
+		Assert.assertEquals(TOKEN_START, proposal.getReplaceEnd());
+	}
+
+	@Test
+	public void testRequiredProposals() {
+		CompletionProposal proposal = createProposal(TOKEN_START, CURSOR);
+		proposal.setRequiredProposals(new CompletionProposal[] { createProposal(TOKEN_START, CURSOR) });
+
+		CompletionProposal copy = proposal.copy(CURSOR, 3);
+
+		Assert.assertNotSame(proposal.getRequiredProposals()[0], copy.getRequiredProposals()[0]);
+		Assert.assertEquals(CURSOR + 3, copy.getRequiredProposals()[0].getReplaceEnd());
+		Assert.assertEquals(CURSOR, proposal.getRequiredProposals()[0].getReplaceEnd());
+	}
+}
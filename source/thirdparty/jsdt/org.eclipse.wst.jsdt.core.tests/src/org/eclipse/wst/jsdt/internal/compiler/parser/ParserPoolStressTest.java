@@ -0,0 +1,240 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Arian Fornaris and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Arian Fornaris - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.jsdt.internal.compiler.parser;
+
+import java.util.Random;
+
+import org.eclipse.wst.jsdt.core.JavaScriptCore;
+import org.eclipse.wst.jsdt.core.compiler.CategorizedProblem;
+import org.eclipse.wst.jsdt.internal.codeassist.complete.CompletionParser;
+import org.eclipse.wst.jsdt.internal.compiler.CompilationResult;
+import org.eclipse.wst.jsdt.internal.compiler.DefaultErrorHandlingPolicies;
+import org.eclipse.wst.jsdt.internal.compiler.ast.CompilationUnitDeclaration;
+import org.eclipse.wst.jsdt.internal.compiler.impl.CompilerOptions;
+import org.eclipse.wst.jsdt.internal.compiler.problem.DefaultProblemFactory;
+import org.eclipse.wst.jsdt.internal.compiler.problem.ProblemReporter;
+import org.eclipse.wst.jsdt.internal.core.BasicCompilationUnit;
+import org.eclipse.wst.jsdt.internal.core.util.CommentRecorderParser;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Parses many versions of a source, like the reconcile and the code assist do
+ * while the user types, with the parsers of the {@link ParserPool} and with new
+ * parsers, and checks the ASTs and the problems are the same.
+ *
+ * @author arian
+ *
+ */
+@SuppressWarnings("static-method")
+public class ParserPoolStressTest {
+	private static final int EDITS = 500;
+	private static final String FILE_NAME = "/MyGame/WebContent/assets/js/states/Level.js";
+
+	private static final String SOURCE = ""
+			+ "/**\n"
+			+ " * The level state.\n"
+			+ " */\n"
+			+ "function Level() {\n"
+			+ "\tPhaser.State.call(this);\n"
+			+ "}\n"
+			+ "Level.prototype = Object.create(Phaser.State.prototype);\n"
+			+ "Level.prototype.constructor = Level;\n"
+			+ "\n"
+			+ "/** @param {number} speed the speed */\n"
+			+ "Level.prototype.init = function (speed) {\n"
+			+ "\tthis.speed = speed || 100;\n"
+			+ "\tthis.scores = [ 1, 2, 3 ];\n"
+			+ "\tthis.names = { first : 'a', second : \"b\" };\n"
+			+ "};\n"
+			+ "\n"
+			+ "Level.prototype.create = function () {\n"
+			+ "\tvar player = this.add.sprite(10, 20, 'player');\n"
+			+ "\tplayer.anchor.set(0.5, 0.5);\n"
+			+ "\tfor (var i = 0; i < 10; i++) {\n"
+			+ "\t\tif (i % 2 == 0) {\n"
+			+ "\t\t\tthis.game.add.text(i * 10, 0, 'item' + i);\n"
+			+ "\t\t} else {\n"
+			+ "\t\t\tcontinue;\n"
+			+ "\t\t}\n"
+			+ "\t}\n"
+			+ "\tswitch (this.speed) {\n"
+			+ "\tcase 1: break;\n"
+			+ "\tdefault: this.speed = -1;\n"
+			+ "\t}\n"
+			+ "\ttry { player.kill(); } catch (e) { console.log(e); }\n"
+			+ "\tthis.player = player;\n"
+			+ "};\n"
+			+ "\n"
+			+ "Level.prototype.update = function () {\n"
+			+ "\tthis.player.x += this.speed * this.time.elapsed / 1000;\n"
+			+ "\t// TODO check the bounds\n"
+			+ "\treturn this.player.x > 800 ? this.restart() : null;\n"
+			+ "};\n";
+
+	private static final String[] INSERTIONS = { "x", ".", "(", ")", "{", "}", ";", "\n", "this.", "var ", "'", "/*",
+			"function (", "= ", "[" };
+
+	private static CompilerOptions createOptions(boolean statementsRecovery) {
+		CompilerOptions options = new CompilerOptions(JavaScriptCore.getOptions());
+		options.performMethodsFullRecovery = statementsRecovery;
+		options.performStatementsRecovery = statementsRecovery;
+		return options;
+	}
+
+	private static ProblemReporter createReporter(CompilerOptions options) {
+		return new ProblemReporter(DefaultErrorHandlingPolicies.proceedWithAllProblems(), options,
+				new DefaultProblemFactory());
+	}
+
+	/**
+	 * The source with random edits, some of them with syntax errors.
+	 */
+	private static String[] createVersions() {
+		Random random = new Random(2017);
+		String[] versions = new String[EDITS];
+		String source = SOURCE;
+		for (int i = 0; i < EDITS; i++) {
+			if (i % 50 == 0) {
+				source = SOURCE;
+			}
+			int position = random.nextInt(source.length() + 1);
+			if (random.nextInt(3) == 0 && position < source.length()) {
+				source = source.substring(0, position) + source.substring(position + 1);
+			} else {
+				source = source.substring(0, position) + INSERTIONS[random.nextInt(INSERTIONS.length)]
+						+ source.substring(position);
+			}
+			versions[i] = source;
+		}
+		return versions;
+	}
+
+	private static String describe(CompilationUnitDeclaration unit, CompilationResult result) {
+		StringBuilder sb = new StringBuilder();
+		sb.append(unit == null ? "null" : unit.toString());
+		CategorizedProblem[] problems = result.getAllProblems();
+		if (problems != null) {
+			for (CategorizedProblem problem : problems) {
+				sb.append("\n").append(problem.getID()).append(" ").append(problem.getSourceStart()).append(" ")
+						.append(problem.getSourceEnd()).append(" ").append(problem.getMessage());
+			}
+		}
+		return sb.toString();
+	}
+
+	private static String parse(Parser parser, String source, boolean diet) {
+		BasicCompilationUnit unit = new BasicCompilationUnit(source.toCharArray(), null, FILE_NAME);
+		CompilationResult result = new CompilationResult(unit, 0, 1, 100);
+		try {
+			return describe(diet ? parser.dietParse(unit, result) : parser.parse(unit, result), result);
+		} catch (RuntimeException e) {
+			return e.getClass().getName();
+		}
+	}
+
+	private static String complete(CompletionParser parser, String source, int cursor) {
+		BasicCompilationUnit unit = new BasicCompilationUnit(source.toCharArray(), null, FILE_NAME);
+		CompilationResult result = new CompilationResult(unit, 0, 1, 100);
+		try {
+			CompilationUnitDeclaration parsedUnit = parser.dietParse(unit, result, cursor);
+			return describe(parsedUnit, result) + "\nassist: " + parser.assistNode + "\nparent: "
+					+ parser.assistNodeParent;
+		} catch (RuntimeException e) {
+			return e.getClass().getName();
+		}
+	}
+
+	@Test
+	public void testReconcileParser() {
+		String[] versions = createVersions();
+		CompilerOptions[] options = { createOptions(true), createOptions(false) };
+
+		for (int i = 0; i < versions.length; i++) {
+			// the recovery options are not part of the key, the pooled parser takes them from the reporter
+			CompilerOptions versionOptions = options[i % 2];
+			boolean diet = i % 3 == 0;
+
+			String expected = parse(new CommentRecorderParser(createReporter(versionOptions), false), versions[i], diet);
+
+			Object key = ParserPool.getKey(CommentRecorderParser.class, versionOptions, false);
+			ProblemReporter reporter = createReporter(versionOptions);
+			Parser parser = ParserPool.acquire(key, reporter);
+			if (parser == null) {
+				parser = new CommentRecorderParser(reporter, false);
+			}
+			String actual = parse(parser, versions[i], diet);
+			ParserPool.release(key, parser);
+
+			Assert.assertEquals("Version " + i + ":\n" + versions[i], expected, actual);
+		}
+	}
+
+	@Test
+	public void testCompletionParser() {
+		String[] versions = createVersions();
+		CompilerOptions options = createOptions(false);
+		Object key = ParserPool.getKey(CompletionParser.class, options, true);
+		Random random = new Random(2018);
+
+		for (int i = 0; i < versions.length; i++) {
+			int cursor = random.nextInt(versions[i].length());
+
+			String expected = complete(new CompletionParser(createReporter(options)), versions[i], cursor);
+
+			ProblemReporter reporter = createReporter(options);
+			CompletionParser parser = (CompletionParser) ParserPool.acquire(key, reporter);
+			if (parser == null) {
+				parser = new CompletionParser(reporter);
+			}
+			String actual = complete(parser, versions[i], cursor);
+			ParserPool.release(key, parser);
+
+			Assert.assertEquals("Version " + i + " at " + cursor + ":\n" + versions[i], expected, actual);
+		}
+	}
+
+	@Test
+	public void testKeys() {
+		CompilerOptions options = createOptions(false);
+		Object key = ParserPool.getKey(CommentRecorderParser.class, options, false);
+
+		Assert.assertEquals(key, ParserPool.getKey(CommentRecorderParser.class, createOptions(true), false));
+		Assert.assertFalse(key.equals(ParserPool.getKey(CommentRecorderParser.class, options, true)));
+		Assert.assertFalse(key.equals(ParserPool.getKey(CompletionParser.class, options, false)));
+
+		CompilerOptions docOptions = createOptions(false);
+		docOptions.docCommentSupport = !options.docCommentSupport;
+		Assert.assertFalse(key.equals(ParserPool.getKey(CommentRecorderParser.class, docOptions, false)));
+	}
+
+	@Test
+	public void testThreadConfinement() throws InterruptedException {
+		final CompilerOptions options = createOptions(false);
+		final Object key = ParserPool.getKey(Parser.class, options, true);
+		final Parser parser = new Parser(createReporter(options), true);
+		ParserPool.release(key, parser);
+
+		final Parser[] other = new Parser[1];
+		Thread thread = new Thread() {
+			@Override
+			public void run() {
+				other[0] = ParserPool.acquire(key, createReporter(options));
+			}
+		};
+		thread.start();
+		thread.join();
+
+		Assert.assertNull("Other threads do not see the parser", other[0]);
+		Assert.assertSame(parser, ParserPool.acquire(key, createReporter(options)));
+		Assert.assertNull("The parser is taken", ParserPool.acquire(key, createReporter(options)));
+	}
+}
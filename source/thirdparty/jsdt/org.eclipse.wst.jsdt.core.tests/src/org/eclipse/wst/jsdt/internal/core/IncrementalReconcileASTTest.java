@@ -0,0 +1,192 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Arian Fornaris and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Arian Fornaris - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.jsdt.internal.core;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IProjectDescription;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.wst.jsdt.core.IIncludePathEntry;
+import org.eclipse.wst.jsdt.core.IJavaScriptProject;
+import org.eclipse.wst.jsdt.core.IJavaScriptUnit;
+import org.eclipse.wst.jsdt.core.IProblemRequestor;
+import org.eclipse.wst.jsdt.core.JavaScriptCore;
+import org.eclipse.wst.jsdt.core.JavaScriptModelException;
+import org.eclipse.wst.jsdt.core.compiler.IProblem;
+import org.eclipse.wst.jsdt.core.dom.AST;
+import org.eclipse.wst.jsdt.core.dom.ASTNode;
+import org.eclipse.wst.jsdt.core.dom.ASTVisitor;
+import org.eclipse.wst.jsdt.core.dom.FunctionDeclaration;
+import org.eclipse.wst.jsdt.core.dom.IBinding;
+import org.eclipse.wst.jsdt.core.dom.JavaScriptUnit;
+import org.eclipse.wst.jsdt.core.dom.SimpleName;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Reconciles a large working copy with a DOM AST, like the active editor, and
+ * checks the second reconcile only type checks the changed statement, reports
+ * the problems of a full reconcile, and the bindings of the other statements
+ * are resolved when they are asked.
+ *
+ * @author arian
+ *
+ */
+public class IncrementalReconcileASTTest {
+	private static final int FUNCTIONS = 200;
+
+	private final boolean _enabled = IncrementalReconcile.ENABLED;
+	private IProject _project;
+	private IJavaScriptUnit _unit;
+	private final List<String> _problems = new ArrayList<>();
+
+	@Before
+	public void setUp() throws CoreException {
+		IncrementalReconcile.ENABLED = true;
+
+		_project = ResourcesPlugin.getWorkspace().getRoot().getProject("IncrementalReconcileASTTest");
+		_project.create(null);
+		_project.open(null);
+		IProjectDescription description = _project.getDescription();
+		description.setNatureIds(new String[] { JavaScriptCore.NATURE_ID });
+		_project.setDescription(description, null);
+		IJavaScriptProject javaProject = JavaScriptCore.create(_project);
+		javaProject.setRawIncludepath(
+				new IIncludePathEntry[] { JavaScriptCore.newSourceEntry(_project.getFullPath()) }, null);
+
+		IFile file = _project.getFile("Level.js");
+		file.create(new ByteArrayInputStream(new byte[0]), true, null);
+
+		_unit = JavaScriptCore.createCompilationUnitFrom(file);
+		_unit.becomeWorkingCopy(new IProblemRequestor() {
+
+			@Override
+			public boolean isActive() {
+				return true;
+			}
+
+			@Override
+			public void beginReporting() {
+				_problems.clear();
+			}
+
+			@Override
+			public void acceptProblem(IProblem problem) {
+				_problems.add(problem.getID() + " " + problem.getSourceStart() + " " + problem.getSourceEnd() + " "
+						+ problem.getSourceLineNumber() + " " + problem.getMessage());
+			}
+
+			@Override
+			public void endReporting() {
+				_problems.sort(null);
+			}
+		}, null);
+	}
+
+	@After
+	public void tearDown() throws CoreException {
+		IncrementalReconcile.ENABLED = _enabled;
+		_unit.discardWorkingCopy();
+		_project.delete(true, null);
+	}
+
+	private static String createSource(String change) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("function Level() {}\n");
+		for (int i = 0; i < FUNCTIONS; i++) {
+			// the functions do not share the names they declare, so they do not depend on each other
+			sb.append("function createEnemy" + i + "(game" + i + ") {\n");
+			if (i == 0) {
+				sb.append("\t// TODO the same sprite for all the enemies\n");
+			}
+			sb.append("\tvar enemy" + i + " = game" + i + ".add.sprite(" + i + ", 0, 'enemy');\n");
+			sb.append("\tenemy" + i + ".health" + i + " = " + (i == FUNCTIONS / 2 ? change : "100") + ";\n");
+			sb.append("\treturn enemy" + i + ";\n");
+			sb.append("}\n");
+		}
+		sb.append("Level.prototype.create = function () {\n");
+		sb.append("\tthis.enemy = createEnemy0(this.game);\n");
+		sb.append("\t// TODO create the other enemies\n");
+		sb.append("};\n");
+		return sb.toString();
+	}
+
+	private JavaScriptUnit reconcile(String source) throws JavaScriptModelException {
+		_unit.getBuffer().setContents(source);
+		return _unit.reconcile(AST.JLS3, true, null, null);
+	}
+
+	private static SimpleName findName(JavaScriptUnit ast, int position) {
+		SimpleName[] name = new SimpleName[1];
+		ast.accept(new ASTVisitor() {
+			@Override
+			public boolean visit(SimpleName node) {
+				if (node.getStartPosition() == position) {
+					name[0] = node;
+				}
+				return true;
+			}
+		});
+		return name[0];
+	}
+
+	@Test
+	public void testIncrementalAST() throws JavaScriptModelException {
+		Assert.assertTrue(createSource("100").length() >= IncrementalReconcile.MIN_LENGTH);
+		reconcile(createSource("100"));
+
+		String source = createSource("200");
+		JavaScriptUnit ast = reconcile(source);
+		IncrementalReconcile state = ((CompilationUnit) _unit).getPerWorkingCopyInfo().reconcileState;
+		Assert.assertNotNull(state);
+		Assert.assertTrue("Only the changed statement, resolved " + state.resolvedCount,
+				state.resolvedCount < state.starts.length / 10);
+		List<String> problems = new ArrayList<>(_problems);
+		Assert.assertFalse(problems.isEmpty());
+
+		// the bindings of a statement that was not type checked
+		int position = source.indexOf("enemy1;\n");
+		SimpleName name = findName(ast, position);
+		Assert.assertTrue(state.hasPending());
+		IBinding binding = name.resolveBinding();
+		Assert.assertNotNull("Resolved when asked", binding);
+		ASTNode declaration = ast.findDeclaringNode(binding);
+		Assert.assertNotNull(declaration);
+		Assert.assertEquals(source.lastIndexOf("var enemy", position) + 4, declaration.getStartPosition());
+
+		// the declaring node of a binding of a pending statement
+		FunctionDeclaration[] function = new FunctionDeclaration[1];
+		ast.accept(new ASTVisitor() {
+			@Override
+			public boolean visit(FunctionDeclaration node) {
+				// the function expressions have no name
+				if (node.getName() != null && "createEnemy1".equals(node.getName().getIdentifier())) {
+					function[0] = node;
+				}
+				return false;
+			}
+		});
+		Assert.assertSame(function[0], ast.findDeclaringNode(function[0].resolveBinding().getKey()));
+
+		// the same problems of a full reconcile
+		IncrementalReconcile.ENABLED = false;
+		reconcile(source.replace("200", "300"));
+		reconcile(source);
+		Assert.assertEquals(problems, _problems);
+	}
+}
@@ -0,0 +1,272 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Arian Fornaris and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Arian Fornaris - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.jsdt.internal.core;
+
+import java.util.Random;
+
+import org.eclipse.wst.jsdt.core.JavaScriptCore;
+import org.eclipse.wst.jsdt.core.compiler.CategorizedProblem;
+import org.eclipse.wst.jsdt.internal.compiler.CompilationResult;
+import org.eclipse.wst.jsdt.internal.compiler.Compiler;
+import org.eclipse.wst.jsdt.internal.compiler.DefaultErrorHandlingPolicies;
+import org.eclipse.wst.jsdt.internal.compiler.ICompilerRequestor;
+import org.eclipse.wst.jsdt.internal.compiler.ast.CompilationUnitDeclaration;
+import org.eclipse.wst.jsdt.internal.compiler.ast.LocalDeclaration;
+import org.eclipse.wst.jsdt.internal.compiler.ast.MethodDeclaration;
+import org.eclipse.wst.jsdt.internal.compiler.env.INameEnvironment;
+import org.eclipse.wst.jsdt.internal.compiler.env.NameEnvironmentAnswer;
+import org.eclipse.wst.jsdt.internal.compiler.impl.CompilerOptions;
+import org.eclipse.wst.jsdt.internal.compiler.impl.ITypeRequestor;
+import org.eclipse.wst.jsdt.internal.compiler.problem.DefaultProblemFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Reconciles many versions of a source, with the {@link IncrementalReconcile} of
+ * the previous version, and checks the problems are the same of a full
+ * reconcile and only the changed statements and their dependents are resolved,
+ * the others are resolved later if the reconcile creates a DOM AST.
+ *
+ * @author arian
+ *
+ */
+@SuppressWarnings("static-method")
+public class IncrementalReconcileTest {
+	private static final int EDITS = 300;
+	private static final String FILE_NAME = "/MyGame/WebContent/assets/js/states/Level.js";
+
+	// @formatter:off
+	private static final String SOURCE = ""
+			+ "function Level() {\n"
+			+ "\tPhaser.State.call(this);\n"
+			+ "}\n"
+			+ "Level.prototype = Object.create(Phaser.State.prototype);\n"
+			+ "\n"
+			+ "Level.prototype.init = function (speed) {\n"
+			+ "\tthis.speed = speed || 100;\n"
+			+ "\tvar speed = 2;\n"
+			+ "};\n"
+			+ "\n"
+			+ "function createPlayer(game) {\n"
+			+ "\tvar player = game.add.sprite(10, 20, 'player');\n"
+			+ "\tplayer.anchor.set(0.5, 0.5);\n"
+			+ "\treturn player;\n"
+			+ "}\n"
+			+ "\n"
+			+ "function createScore(game) {\n"
+			+ "\tvar score = 0;\n"
+			+ "\tscore = score;\n"
+			+ "\treturn game.add.text(0, 0, 'score' + score);\n"
+			+ "}\n"
+			+ "\n"
+			+ "function createEnemies(game) {\n"
+			+ "\tvar list = [];\n"
+			+ "\tfor (var i = 0; i < 10; i++) {\n"
+			+ "\t\tlist.push(game.add.sprite(i * 10, 0, 'enemy'));\n"
+			+ "\t}\n"
+			+ "\treturn list;\n"
+			+ "}\n"
+			+ "\n"
+			+ "Level.prototype.create = function () {\n"
+			+ "\tthis.player = createPlayer(this.game);\n"
+			+ "\tthis.enemies = createEnemies(this.game);\n"
+			+ "\tundefinedFunction();\n"
+			+ "};\n"
+			+ "\n"
+			+ "var level = new Level();\n";
+	// @formatter:on
+
+	private static final String[] INSERTIONS = { "x", ".", "(", ")", "{", "}", ";", "\n", "this.", "var ", "= ",
+			"player", "undefinedVar" };
+
+	static final INameEnvironment ENVIRONMENT = new INameEnvironment() {
+		@Override
+		public NameEnvironmentAnswer findType(char[][] compoundTypeName, ITypeRequestor requestor) {
+			return null;
+		}
+
+		@Override
+		public NameEnvironmentAnswer findType(char[] typeName, char[][] packageName, ITypeRequestor requestor) {
+			return null;
+		}
+
+		@Override
+		public boolean isPackage(char[][] parentPackageName, char[] packageName) {
+			return false;
+		}
+
+		@Override
+		public NameEnvironmentAnswer findBinding(char[] typeName, char[][] packageName, int type,
+				ITypeRequestor requestor, boolean returnMultiple, String excludePath) {
+			return null;
+		}
+
+		@Override
+		public void cleanup() {
+			// nothing
+		}
+	};
+
+	static class ReconcileCompiler extends Compiler {
+		IncrementalReconcile _incrementalReconcile;
+
+		public ReconcileCompiler(IncrementalReconcile incrementalReconcile) {
+			super(ENVIRONMENT, DefaultErrorHandlingPolicies.proceedWithAllProblems(),
+					new CompilerOptions(JavaScriptCore.getOptions()), new ICompilerRequestor() {
+						@Override
+						public void acceptResult(CompilationResult result) {
+							// nothing
+						}
+					}, new DefaultProblemFactory());
+			_incrementalReconcile = incrementalReconcile;
+		}
+
+		@Override
+		protected void resolveUnit(CompilationUnitDeclaration unit) {
+			if (_incrementalReconcile == null) {
+				super.resolveUnit(unit);
+			} else {
+				_incrementalReconcile.resolve(unit);
+			}
+		}
+	}
+
+	private static CompilationUnitDeclaration resolve(String source, IncrementalReconcile incrementalReconcile) {
+		ReconcileCompiler compiler = new ReconcileCompiler(incrementalReconcile);
+		BasicCompilationUnit unit = new BasicCompilationUnit(source.toCharArray(), null, FILE_NAME);
+		return compiler.resolve(unit, true, true, true);
+	}
+
+	private static String reconcile(String source, IncrementalReconcile incrementalReconcile) {
+		CompilationUnitDeclaration parsedUnit = resolve(source, incrementalReconcile);
+		StringBuilder sb = new StringBuilder();
+		CategorizedProblem[] problems = parsedUnit.compilationResult.getProblems();
+		if (problems != null) {
+			for (CategorizedProblem problem : problems) {
+				sb.append(problem.getID()).append(" ").append(problem.getSourceStart()).append(" ")
+						.append(problem.getSourceEnd()).append(" ").append(problem.getSourceLineNumber())
+						.append(" ").append(problem.getMessage()).append("\n");
+			}
+		}
+		return sb.toString();
+	}
+
+	private static IncrementalReconcile reconcileIncrementally(String source, IncrementalReconcile previous) {
+		IncrementalReconcile state = new IncrementalReconcile(previous, source.toCharArray());
+		reconcile(source, state);
+		return state;
+	}
+
+	@Test
+	public void testSameProblems() {
+		Random random = new Random(2017);
+		String source = SOURCE;
+		IncrementalReconcile state = reconcileIncrementally(source, null);
+
+		for (int i = 0; i < EDITS; i++) {
+			if (i % 50 == 0) {
+				source = SOURCE;
+			}
+			int position = random.nextInt(source.length() + 1);
+			if (random.nextInt(3) == 0 && position < source.length()) {
+				source = source.substring(0, position) + source.substring(position + 1);
+			} else {
+				source = source.substring(0, position) + INSERTIONS[random.nextInt(INSERTIONS.length)]
+						+ source.substring(position);
+			}
+
+			String expected = reconcile(source, null);
+			state = new IncrementalReconcile(state, source.toCharArray());
+			String actual = reconcile(source, state);
+
+			Assert.assertEquals("Version " + i + ":\n" + source, expected, actual);
+		}
+	}
+
+	@Test
+	public void testResolvedStatements() {
+		IncrementalReconcile state = reconcileIncrementally(SOURCE, null);
+		int count = state.starts.length;
+		Assert.assertEquals("The first reconcile resolves all", count, state.resolvedCount);
+
+		state = reconcileIncrementally(SOURCE, state);
+		Assert.assertEquals("Nothing changed", 0, state.resolvedCount);
+
+		// a function that is only referred by its declaration
+		String source = SOURCE.replace("'score' + score", "'score: ' + score");
+		state = reconcileIncrementally(source, state);
+		Assert.assertEquals("The changed function", 1, state.resolvedCount);
+
+		// a function called by the create method
+		source = source.replace("var list = [];", "var list = [ 1 ];");
+		state = reconcileIncrementally(source, state);
+		Assert.assertTrue("The changed function and its dependents",
+				state.resolvedCount > 1 && state.resolvedCount < count);
+
+		// another unit was reconciled
+		new IncrementalReconcile(null, SOURCE.toCharArray());
+		state = reconcileIncrementally(source, state);
+		Assert.assertEquals("The previous state is discarded", count, state.resolvedCount);
+	}
+
+	@Test
+	public void testMovedProblems() {
+		IncrementalReconcile state = reconcileIncrementally(SOURCE, null);
+
+		// the create method, with an undefined function, is after the change
+		String source = SOURCE.replace("\tvar score = 0;\n", "\tvar score = 0;\n\n\n\tscore++;\n");
+		String expected = reconcile(source, null);
+		state = new IncrementalReconcile(state, source.toCharArray());
+
+		Assert.assertEquals(expected, reconcile(source, state));
+		Assert.assertTrue("The problems after the change are moved", state.resolvedCount < state.starts.length);
+	}
+
+	private static int indexOf(IncrementalReconcile state, int position) {
+		for (int i = 0; i < state.starts.length; i++) {
+			if (state.starts[i] <= position && position <= state.ends[i]) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	@Test
+	public void testPendingStatements() {
+		IncrementalReconcile state = reconcileIncrementally(SOURCE, null);
+
+		String source = SOURCE.replace("'score' + score", "'score: ' + score");
+		state = new IncrementalReconcile(state, source.toCharArray(), true);
+		CompilationUnitDeclaration unit = resolve(source, state);
+		Assert.assertEquals(1, state.resolvedCount);
+		Assert.assertTrue(state.hasPending());
+
+		int position = source.indexOf("var list");
+		MethodDeclaration createEnemies = (MethodDeclaration) unit.statements[indexOf(state, position)];
+		LocalDeclaration list = (LocalDeclaration) createEnemies.statements[0];
+		Assert.assertNull("Pending", list.binding);
+
+		int[] range = state.resolvePending(position);
+		Assert.assertNotNull(list.binding);
+		Assert.assertTrue(range[0] <= position && position <= range[1]);
+		Assert.assertNull("Resolved", state.resolvePending(position));
+		Assert.assertNull("Not pending", state.resolvePending(source.indexOf("'score: '")));
+
+		Assert.assertNotNull(state.resolvePending());
+		Assert.assertFalse("Cleaned up", state.hasPending());
+		Assert.assertNull(state.resolvePending());
+
+		// a reconcile without a DOM AST keeps nothing
+		state = new IncrementalReconcile(state, SOURCE.toCharArray());
+		resolve(SOURCE, state);
+		Assert.assertFalse(state.hasPending());
+	}
+}
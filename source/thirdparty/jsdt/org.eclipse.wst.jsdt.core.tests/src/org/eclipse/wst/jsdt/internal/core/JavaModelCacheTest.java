@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Arian Fornaris and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Arian Fornaris - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.jsdt.internal.core;
+
+import org.eclipse.wst.jsdt.internal.core.util.LRUCache;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Opens the units of a large synthetic project, many times more than the
+ * default size of the openable cache of the {@link JavaModelCache}, and checks
+ * the cache grows until the units are not evicted and opened again, while
+ * there is free heap.
+ *
+ * @author arian
+ *
+ */
+@SuppressWarnings("static-method")
+public class JavaModelCacheTest {
+	private static final int FOLDERS = 40;
+	private static final int FILES_PER_FOLDER = 50;
+	private static final int WORKING_SET = 1200;
+	private static final int ROUNDS = 20;
+	private static final int MEASURED_ROUNDS = 5;
+
+	private final boolean _adaptiveSize = JavaModelCache.ADAPTIVE_SIZE;
+
+	/**
+	 * A cache with the default sizes, where the evicted units are just closed.
+	 */
+	private static class SyntheticModelCache extends JavaModelCache {
+		double _freeHeapRatio = 0.9;
+
+		public SyntheticModelCache() {
+			this.openableCache = new ElementCache(DEFAULT_OPENABLE_SIZE) {
+				@Override
+				protected boolean close(LRUCacheEntry entry) {
+					return true;
+				}
+			};
+		}
+
+		@Override
+		protected double getMemoryRatio() {
+			return 1;
+		}
+
+		@Override
+		protected double getFreeHeapRatio() {
+			return _freeHeapRatio;
+		}
+
+		int getOpenableLimit() {
+			return getCache(OPENABLE_CACHE).getSpaceLimit();
+		}
+	}
+
+	@After
+	public void tearDown() {
+		JavaModelCache.ADAPTIVE_SIZE = _adaptiveSize;
+	}
+
+	private static CompilationUnit[] createUnits() {
+		CompilationUnit[] units = new CompilationUnit[FOLDERS * FILES_PER_FOLDER];
+		for (int i = 0; i < units.length; i++) {
+			units[i] = new CompilationUnit(null, "folder" + (i / FILES_PER_FOLDER) + "/file" + i + ".js",
+					DefaultWorkingCopyOwner.PRIMARY);
+		}
+		return units;
+	}
+
+	/**
+	 * Looks up the units of the working set, in the same order, opening the
+	 * missed ones, and returns the miss rate of the last rounds.
+	 */
+	private static double open(JavaModelCache cache, CompilationUnit[] units, int rounds) {
+		long misses = 0;
+		long lookups = 0;
+		for (int round = 0; round < rounds; round++) {
+			for (int i = 0; i < WORKING_SET; i++) {
+				CompilationUnit unit = units[i * units.length / WORKING_SET];
+				boolean measured = round >= rounds - MEASURED_ROUNDS;
+				if (cache.getInfo(unit) == null) {
+					cache.putInfo(unit, new Object());
+					if (measured) {
+						misses++;
+					}
+				}
+				if (measured) {
+					lookups++;
+				}
+			}
+		}
+		return (double) misses / lookups;
+	}
+
+	@Test
+	public void testBoundedMissRate() {
+		JavaModelCache.ADAPTIVE_SIZE = true;
+		SyntheticModelCache cache = new SyntheticModelCache();
+		CompilationUnit[] units = createUnits();
+
+		double missRate = open(cache, units, ROUNDS);
+
+		Assert.assertTrue("Miss rate " + missRate, missRate <= JavaModelCache.MAX_MISS_RATE);
+		Assert.assertTrue(cache.getOpenableLimit() >= WORKING_SET);
+		Assert.assertTrue(
+				cache.getOpenableLimit() <= JavaModelCache.DEFAULT_OPENABLE_SIZE * JavaModelCache.MAX_GROWTH);
+	}
+
+	@Test
+	public void testFixedSize() {
+		JavaModelCache.ADAPTIVE_SIZE = false;
+		SyntheticModelCache cache = new SyntheticModelCache();
+
+		double missRate = open(cache, createUnits(), ROUNDS);
+
+		Assert.assertTrue("The units thrash, miss rate " + missRate, missRate > 0.9);
+		Assert.assertEquals(JavaModelCache.DEFAULT_OPENABLE_SIZE, cache.getOpenableLimit());
+	}
+
+	@Test
+	public void testLowHeap() {
+		JavaModelCache.ADAPTIVE_SIZE = true;
+		SyntheticModelCache cache = new SyntheticModelCache();
+		CompilationUnit[] units = createUnits();
+
+		cache._freeHeapRatio = JavaModelCache.MIN_FREE_HEAP / 2;
+		open(cache, units, ROUNDS);
+		Assert.assertEquals("No free heap to grow", JavaModelCache.DEFAULT_OPENABLE_SIZE, cache.getOpenableLimit());
+
+		cache._freeHeapRatio = 0.9;
+		open(cache, units, ROUNDS);
+		Assert.assertTrue(cache.getOpenableLimit() > JavaModelCache.DEFAULT_OPENABLE_SIZE);
+
+		cache._freeHeapRatio = JavaModelCache.LOW_FREE_HEAP / 2;
+		open(cache, units, ROUNDS);
+		Assert.assertEquals("Shrinks back", JavaModelCache.DEFAULT_OPENABLE_SIZE, cache.getOpenableLimit());
+	}
+
+	@Test
+	public void testStatistics() {
+		JavaModelCache.ADAPTIVE_SIZE = false;
+		SyntheticModelCache cache = new SyntheticModelCache();
+		open(cache, createUnits(), 2);
+
+		LRUCache openables = cache.getCache(JavaModelCache.OPENABLE_CACHE);
+		Assert.assertEquals(2 * WORKING_SET, openables.getHits() + openables.getMisses());
+		Assert.assertEquals(2 * WORKING_SET, openables.getMisses());
+		int cached = ((OverflowingLRUCache) openables).getEntryTable().size();
+		Assert.assertEquals(openables.getMisses() - cached, openables.getEvictions());
+
+		Assert.assertEquals(0, cache.getCache(JavaModelCache.ROOT_CACHE).getHits());
+		Assert.assertNull(cache.getCache("Unknown cache"));
+		Assert.assertTrue(cache.toString().contains(JavaModelCache.OPENABLE_CACHE));
+	}
+}
@@ -0,0 +1,208 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Arian Fornaris and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Arian Fornaris - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.jsdt.internal.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.eclipse.wst.jsdt.core.JavaScriptCore;
+import org.eclipse.wst.jsdt.core.infer.InferOptions;
+import org.eclipse.wst.jsdt.internal.compiler.ISourceElementRequestor;
+import org.eclipse.wst.jsdt.internal.compiler.SourceElementParser;
+import org.eclipse.wst.jsdt.internal.compiler.impl.CompilerOptions;
+import org.eclipse.wst.jsdt.internal.compiler.problem.DefaultProblemFactory;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks that a {@link LibrarySnapshot} replays the same elements the parser
+ * reported, and that it is ignored when the library or the options of the
+ * parser change.
+ * 
+ * @author arian
+ *
+ */
+public class LibrarySnapshotTest {
+	// @formatter:off
+	private static final String SOURCE = ""
+			+ "/**\n"
+			+ " * @class\n"
+			+ " * @param {Phaser.Game} game\n"
+			+ " */\n"
+			+ "Phaser.Sprite = function (game, x, y) {\n"
+			+ "  this.game = game;\n"
+			+ "  /** @type {number} */\n"
+			+ "  this.x = x;\n"
+			+ "};\n"
+			+ "Phaser.Sprite.prototype = {\n"
+			+ "  /** @return {Phaser.Point} */\n"
+			+ "  getBounds : function () { return new Phaser.Point(this.x, 0); },\n"
+			+ "  kill : function () { this.game.world.remove(this); }\n"
+			+ "};\n"
+			+ "var sprite = new Phaser.Sprite(null, 1, 2);\n";
+	// @formatter:on
+
+	private File _snapshotFile;
+
+	@Before
+	public void setUp() throws IOException {
+		_snapshotFile = File.createTempFile("jsdt-test", LibrarySnapshot.SNAPSHOT_EXTENSION);
+		_snapshotFile.delete();
+	}
+
+	@After
+	public void tearDown() {
+		_snapshotFile.delete();
+	}
+
+	private static final long CONFIGURATION = LibrarySnapshot
+			.getConfiguration(new CompilerOptions(JavaScriptCore.getOptions()));
+
+	private static void parse(char[] source, ISourceElementRequestor requestor) {
+		SourceElementParser parser = new SourceElementParser(requestor, new DefaultProblemFactory(),
+				new CompilerOptions(JavaScriptCore.getOptions()), true, true);
+		parser.parseCompilationUnit(new BasicCompilationUnit(source, null, "phaser-api.js"), true);
+	}
+
+	@Test
+	public void testReplay() {
+		char[] source = SOURCE.toCharArray();
+
+		StringBuilder parsed = new StringBuilder();
+		LibrarySnapshot snapshot = new LibrarySnapshot(createRequestor(parsed));
+		parse(source, snapshot);
+		snapshot.save(_snapshotFile, LibrarySnapshot.STRUCTURE, CONFIGURATION, source);
+
+		Assert.assertTrue(_snapshotFile.isFile());
+		Assert.assertTrue(parsed.indexOf("enterType") >= 0);
+
+		StringBuilder replayed = new StringBuilder();
+		Assert.assertTrue(
+				LibrarySnapshot.replay(_snapshotFile, LibrarySnapshot.STRUCTURE, CONFIGURATION, source,
+						createRequestor(replayed)));
+		Assert.assertEquals(parsed.toString(), replayed.toString());
+	}
+
+	@Test
+	public void testStaleSnapshot() {
+		char[] source = SOURCE.toCharArray();
+
+		LibrarySnapshot snapshot = new LibrarySnapshot(createRequestor(new StringBuilder()));
+		parse(source, snapshot);
+		snapshot.save(_snapshotFile, LibrarySnapshot.STRUCTURE, CONFIGURATION, source);
+
+		StringBuilder replayed = new StringBuilder();
+		char[] changed = (SOURCE + "var other = 1;\n").toCharArray();
+		Assert.assertFalse(
+				LibrarySnapshot.replay(_snapshotFile, LibrarySnapshot.STRUCTURE, CONFIGURATION, changed,
+						createRequestor(replayed)));
+		Assert.assertFalse(
+				LibrarySnapshot.replay(_snapshotFile, LibrarySnapshot.INDEX, CONFIGURATION, source,
+						createRequestor(replayed)));
+		Assert.assertEquals(0, replayed.length());
+	}
+
+	@Test
+	public void testChangedOptions() {
+		char[] source = SOURCE.toCharArray();
+
+		LibrarySnapshot snapshot = new LibrarySnapshot(createRequestor(new StringBuilder()));
+		parse(source, snapshot);
+		snapshot.save(_snapshotFile, LibrarySnapshot.STRUCTURE, CONFIGURATION, source);
+
+		CompilerOptions options = new CompilerOptions(JavaScriptCore.getOptions());
+		Assert.assertEquals(CONFIGURATION, LibrarySnapshot.getConfiguration(options));
+
+		// other inference options, like the files where the assignments infer the types
+		@SuppressWarnings("unchecked")
+		Map<String, String> map = options.getMap();
+		map.put(InferOptions.OPTION_LibraryPaths, "other-api.js");
+		options.set(map);
+		long changed = LibrarySnapshot.getConfiguration(options);
+		Assert.assertTrue(changed != CONFIGURATION);
+
+		StringBuilder replayed = new StringBuilder();
+		Assert.assertFalse(LibrarySnapshot.replay(_snapshotFile, LibrarySnapshot.STRUCTURE, changed, source,
+				createRequestor(replayed)));
+		Assert.assertEquals(0, replayed.length());
+	}
+
+	@Test
+	public void testSyntaxErrors() {
+		char[] source = (SOURCE + "function (").toCharArray();
+
+		LibrarySnapshot snapshot = new LibrarySnapshot(createRequestor(new StringBuilder()));
+		parse(source, snapshot);
+		snapshot.save(_snapshotFile, LibrarySnapshot.STRUCTURE, CONFIGURATION, source);
+
+		Assert.assertFalse(_snapshotFile.exists());
+	}
+
+	/**
+	 * A requestor that prints the elements it receives, but the problems.
+	 */
+	private static ISourceElementRequestor createRequestor(StringBuilder sb) {
+		InvocationHandler handler = new InvocationHandler() {
+
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				if (method.getName().equals("acceptProblem")) {
+					return null;
+				}
+				sb.append(method.getName());
+				if (args != null) {
+					for (Object arg : args) {
+						sb.append(" ");
+						print(arg);
+					}
+				}
+				sb.append("\n");
+				return null;
+			}
+
+			private void print(Object arg) throws IllegalAccessException {
+				if (arg instanceof ISourceElementRequestor.TypeInfo || arg instanceof ISourceElementRequestor.MethodInfo
+						|| arg instanceof ISourceElementRequestor.FieldInfo) {
+					sb.append("{");
+					for (Field field : arg.getClass().getFields()) {
+						sb.append(field.getName() + "=");
+						print(field.get(arg));
+						sb.append(";");
+					}
+					sb.append("}");
+				} else if (arg instanceof Object[]) {
+					sb.append("[");
+					for (Object elem : (Object[]) arg) {
+						print(elem);
+						sb.append(",");
+					}
+					sb.append("]");
+				} else if (arg instanceof char[]) {
+					sb.append((char[]) arg);
+				} else if (arg instanceof int[]) {
+					sb.append(Arrays.toString((int[]) arg));
+				} else {
+					sb.append(arg);
+				}
+			}
+		};
+		return (ISourceElementRequestor) Proxy.newProxyInstance(LibrarySnapshotTest.class.getClassLoader(),
+				new Class<?>[] { ISourceElementRequestor.class }, handler);
+	}
+}
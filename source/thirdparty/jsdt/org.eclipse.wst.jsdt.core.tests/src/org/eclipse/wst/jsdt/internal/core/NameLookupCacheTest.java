@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Arian Fornaris and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Arian Fornaris - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.jsdt.internal.core;
+
+import java.util.HashMap;
+
+import org.eclipse.wst.jsdt.core.IPackageFragmentRoot;
+import org.eclipse.wst.jsdt.internal.compiler.lookup.Binding;
+import org.eclipse.wst.jsdt.internal.core.util.HashtableOfArrayToObject;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks the {@link NameLookup} answers the same lookups from its cache, and
+ * discards them when the elements change.
+ *
+ * @author arian
+ *
+ */
+@SuppressWarnings("static-method")
+public class NameLookupCacheTest {
+
+	private static NameLookup createNameLookup() {
+		return new NameLookup(new IPackageFragmentRoot[0], new HashtableOfArrayToObject(), null, new HashMap<>());
+	}
+
+	private static NameLookup.Answer findUnit(NameLookup lookup, String name, boolean partialMatch) {
+		return lookup.findBinding(name, "", Binding.COMPILATION_UNIT, partialMatch, NameLookup.ACCEPT_ALL, false, false,
+				null);
+	}
+
+	@Test
+	public void testNotFound() {
+		NameLookup lookup = createNameLookup();
+
+		Assert.assertNull(findUnit(lookup, "Level", false));
+		Assert.assertEquals(0, lookup.answersCacheHits);
+		Assert.assertEquals(1, lookup.answersCacheMisses);
+
+		Assert.assertNull(findUnit(lookup, "Level", false));
+		Assert.assertEquals("The not found name is cached", 1, lookup.answersCacheHits);
+		Assert.assertEquals(1, lookup.answersCacheMisses);
+
+		Assert.assertNull(findUnit(lookup, "Menu", false));
+		Assert.assertEquals(1, lookup.answersCacheHits);
+		Assert.assertEquals("Other name", 2, lookup.answersCacheMisses);
+	}
+
+	@Test
+	public void testPartialMatch() {
+		NameLookup lookup = createNameLookup();
+
+		findUnit(lookup, "Lev", true);
+		findUnit(lookup, "Lev", true);
+
+		Assert.assertEquals("The partial matches are not cached", 0, lookup.answersCacheHits);
+		Assert.assertEquals(0, lookup.answersCacheMisses);
+	}
+
+	@Test
+	public void testFlush() {
+		NameLookup lookup = createNameLookup();
+		findUnit(lookup, "Level", false);
+
+		NameLookup.flushAnswers();
+		findUnit(lookup, "Level", false);
+		Assert.assertEquals("The elements changed", 0, lookup.answersCacheHits);
+		Assert.assertEquals(2, lookup.answersCacheMisses);
+
+		lookup.setRestrictedAccessRequestor(null);
+		findUnit(lookup, "Level", false);
+		Assert.assertEquals("The requestor changed", 0, lookup.answersCacheHits);
+		Assert.assertEquals(3, lookup.answersCacheMisses);
+
+		findUnit(lookup, "Level", false);
+		Assert.assertEquals(1, lookup.answersCacheHits);
+	}
+}
@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Arian Fornaris and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Arian Fornaris - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.jsdt.internal.core;
+
+import org.eclipse.wst.jsdt.core.JavaScriptCore;
+import org.eclipse.wst.jsdt.internal.compiler.CompilationResult;
+import org.eclipse.wst.jsdt.internal.compiler.DefaultErrorHandlingPolicies;
+import org.eclipse.wst.jsdt.internal.compiler.ast.CompilationUnitDeclaration;
+import org.eclipse.wst.jsdt.internal.compiler.impl.CompilerOptions;
+import org.eclipse.wst.jsdt.internal.compiler.parser.Parser;
+import org.eclipse.wst.jsdt.internal.compiler.problem.DefaultProblemFactory;
+import org.eclipse.wst.jsdt.internal.compiler.problem.ProblemReporter;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Times the phases of the problem detection of a large game source, after an
+ * edit of one of its functions: the parse, the inference, the bindings of the
+ * unit and the type checking of its statements, this last with a full and with
+ * an {@link IncrementalReconcile}.
+ *
+ * @author arian
+ *
+ */
+@SuppressWarnings("static-method")
+public class ReconcilePhasesBenchmark {
+	private static final int WARMUP_RUNS = 5;
+	private static final int RUNS = 20;
+	private static final int FUNCTIONS = 500;
+	private static final String FILE_NAME = "/MyGame/WebContent/assets/js/states/Level.js";
+
+	private static String _source;
+	private static String _editedSource;
+	private static CompilerOptions _options;
+
+	private static class TimedCompiler extends IncrementalReconcileTest.ReconcileCompiler {
+		long _resolveTime;
+
+		public TimedCompiler(IncrementalReconcile incrementalReconcile) {
+			super(incrementalReconcile);
+		}
+
+		@Override
+		protected void resolveUnit(CompilationUnitDeclaration unit) {
+			long start = System.nanoTime();
+			super.resolveUnit(unit);
+			_resolveTime = System.nanoTime() - start;
+		}
+	}
+
+	/**
+	 * The best times of the runs, in microseconds. The bindings are the rest of the
+	 * problem detection.
+	 */
+	private static class Times {
+		long _parse = Long.MAX_VALUE;
+		long _inference = Long.MAX_VALUE;
+		long _resolve = Long.MAX_VALUE;
+		long _total = Long.MAX_VALUE;
+
+		long getBindings() {
+			return _total - _parse - _inference - _resolve;
+		}
+	}
+
+	private static String createSource(String change) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("function Level() {\n");
+		sb.append("\tPhaser.State.call(this);\n");
+		sb.append("}\n");
+		sb.append("Level.prototype = Object.create(Phaser.State.prototype);\n");
+		for (int i = 0; i < FUNCTIONS; i++) {
+			sb.append("function createEnemy" + i + "(game" + i + ") {\n");
+			sb.append("\tvar enemy" + i + " = game" + i + ".add.sprite(" + i + ", 0, 'enemy');\n");
+			sb.append("\tenemy" + i + ".health" + i + " = " + (i == FUNCTIONS / 2 ? change : "100") + ";\n");
+			sb.append("\tfor (var i" + i + " = 0; i" + i + " < 10; i" + i + "++) {\n");
+			sb.append("\t\tenemy" + i + ".health" + i + " -= i" + i + " * 2;\n");
+			sb.append("\t}\n");
+			sb.append("\treturn enemy" + i + ";\n");
+			sb.append("}\n");
+		}
+		sb.append("Level.prototype.create = function () {\n");
+		sb.append("\tthis.enemy = createEnemy0(this.game);\n");
+		sb.append("};\n");
+		return sb.toString();
+	}
+
+	@BeforeClass
+	public static void createSources() {
+		_source = createSource("100");
+		_editedSource = createSource("200");
+		_options = new CompilerOptions(JavaScriptCore.getOptions());
+	}
+
+	private static Parser createParser() {
+		return new Parser(new ProblemReporter(DefaultErrorHandlingPolicies.proceedWithAllProblems(), _options,
+				new DefaultProblemFactory()), true);
+	}
+
+	private static Times measure(boolean incremental) {
+		Times times = new Times();
+		for (int i = 0; i < WARMUP_RUNS + RUNS; i++) {
+			Parser parser = createParser();
+			BasicCompilationUnit sourceUnit = new BasicCompilationUnit(_editedSource.toCharArray(), null, FILE_NAME);
+			long start = System.nanoTime();
+			CompilationUnitDeclaration unit = parser.parse(sourceUnit,
+					new CompilationResult(sourceUnit, 0, 1, _options.maxProblemsPerUnit));
+			long parse = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			parser.inferTypes(unit, _options);
+			long inference = System.nanoTime() - start;
+
+			IncrementalReconcile state = null;
+			if (incremental) {
+				state = new IncrementalReconcile(null, _source.toCharArray());
+				new IncrementalReconcileTest.ReconcileCompiler(state)
+						.resolve(new BasicCompilationUnit(_source.toCharArray(), null, FILE_NAME), true, true, true);
+				state = new IncrementalReconcile(state, _editedSource.toCharArray());
+			}
+			TimedCompiler compiler = new TimedCompiler(state);
+			start = System.nanoTime();
+			compiler.resolve(new BasicCompilationUnit(_editedSource.toCharArray(), null, FILE_NAME), true, true,
+					true);
+			long total = System.nanoTime() - start;
+
+			if (incremental) {
+				Assert.assertEquals(1, state.resolvedCount);
+			}
+			if (i < WARMUP_RUNS) {
+				continue;
+			}
+			times._parse = Math.min(times._parse, parse / 1000);
+			times._inference = Math.min(times._inference, inference / 1000);
+			times._resolve = Math.min(times._resolve, compiler._resolveTime / 1000);
+			times._total = Math.min(times._total, total / 1000);
+		}
+		return times;
+	}
+
+	@Test
+	public void testPhases() {
+		Times full = measure(false);
+		Times incremental = measure(true);
+
+		Assert.assertTrue("Reconcile phases of " + FUNCTIONS + " functions: parse " + full._parse + "us, inference "
+				+ full._inference + "us, bindings " + full.getBindings() + "us, type checking " + full._resolve
+				+ "us, incremental type checking " + incremental._resolve + "us, total " + full._total
+				+ "us, incremental total " + incremental._total + "us", incremental._resolve < full._resolve);
+	}
+}
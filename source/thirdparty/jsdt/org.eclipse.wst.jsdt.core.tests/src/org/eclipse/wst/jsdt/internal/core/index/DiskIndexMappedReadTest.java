@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Arian Fornaris and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Arian Fornaris - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.jsdt.internal.core.index;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.wst.jsdt.core.search.SearchPattern;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks that the queries answer the same results when the {@link DiskIndex}
+ * is read with the mapping of the index file and with streams.
+ * 
+ * @author arian
+ *
+ */
+@SuppressWarnings("static-method")
+public class DiskIndexMappedReadTest {
+	private static final String CONTAINER_PATH = "/container";
+	private static final char[][] CATEGORIES = { "typeDecl".toCharArray(), "methodRef".toCharArray() };
+
+	// @formatter:off
+	private static final Object[][] QUERIES = {
+			{ null, Integer.valueOf(SearchPattern.R_EXACT_MATCH | SearchPattern.R_CASE_SENSITIVE) },
+			{ "common", Integer.valueOf(SearchPattern.R_EXACT_MATCH | SearchPattern.R_CASE_SENSITIVE) },
+			{ "group3", Integer.valueOf(SearchPattern.R_EXACT_MATCH | SearchPattern.R_CASE_SENSITIVE) },
+			{ "name42", Integer.valueOf(SearchPattern.R_EXACT_MATCH | SearchPattern.R_CASE_SENSITIVE) },
+			{ "gro", Integer.valueOf(SearchPattern.R_PREFIX_MATCH | SearchPattern.R_CASE_SENSITIVE) },
+			{ "GROUP", Integer.valueOf(SearchPattern.R_PREFIX_MATCH) },
+			{ "name1*", Integer.valueOf(SearchPattern.R_PATTERN_MATCH | SearchPattern.R_CASE_SENSITIVE) },
+			{ "*é*", Integer.valueOf(SearchPattern.R_PATTERN_MATCH) },
+			{ "unicodé中1", Integer.valueOf(SearchPattern.R_EXACT_MATCH | SearchPattern.R_CASE_SENSITIVE) },
+	};
+	// @formatter:on
+
+	private final boolean _mapIndexFiles = DiskIndex.MAP_INDEX_FILES;
+	private final List<File> _files = new ArrayList<>();
+
+	@After
+	public void tearDown() {
+		DiskIndex.MAP_INDEX_FILES = _mapIndexFiles;
+		for (File file : _files) {
+			file.delete();
+		}
+	}
+
+	private Index createIndex(int numberOfDocuments) throws IOException {
+		File file = File.createTempFile("jsdt-test", ".index");
+		_files.add(file);
+		Index index = new Index(file.getPath(), CONTAINER_PATH, false);
+		addDocuments(index, 0, numberOfDocuments);
+		index.save();
+		return index;
+	}
+
+	private static void addDocuments(Index index, int from, int to) {
+		for (int i = from; i < to; i++) {
+			String doc = "pkg" + (i % 10) + "/file" + i + ".js";
+			index.addIndexEntry(CATEGORIES[0], "common".toCharArray(), doc);
+			index.addIndexEntry(CATEGORIES[0], ("group" + (i % 7)).toCharArray(), doc);
+			index.addIndexEntry(CATEGORIES[1], ("name" + i).toCharArray(), doc);
+			index.addIndexEntry(CATEGORIES[1], ("unicodé中" + (i % 3)).toCharArray(), doc);
+		}
+	}
+
+	private static String query(Index index, boolean mapped, char[] key, int matchRule) throws IOException {
+		DiskIndex.MAP_INDEX_FILES = mapped;
+		index.startQuery();
+		try {
+			EntryResult[] results = index.query(CATEGORIES, key, matchRule);
+			if (results == null) {
+				return "<none>";
+			}
+			List<String> lines = new ArrayList<>();
+			for (EntryResult result : results) {
+				String[] names = result.getDocumentNames(index);
+				Arrays.sort(names);
+				lines.add(new String(result.getWord()) + " -> " + Arrays.toString(names));
+			}
+			lines.sort(null);
+			return String.join("\n", lines);
+		} finally {
+			index.stopQuery();
+		}
+	}
+
+	private static String queryDocumentNames(Index index, boolean mapped, String substring) throws IOException {
+		DiskIndex.MAP_INDEX_FILES = mapped;
+		String[] names = index.queryDocumentNames(substring);
+		if (names == null) {
+			return "<none>";
+		}
+		Arrays.sort(names);
+		return Arrays.toString(names);
+	}
+
+	private static void assertSameResults(Index mappedIndex, Index streamIndex) throws IOException {
+		for (Object[] q : QUERIES) {
+			char[] key = q[0] == null ? null : ((String) q[0]).toCharArray();
+			int rule = ((Integer) q[1]).intValue();
+			String expected = query(streamIndex, false, key, rule);
+			Assert.assertNotEquals("<none>", expected);
+			Assert.assertEquals(q[0] + "", expected, query(mappedIndex, true, key, rule));
+		}
+		Assert.assertEquals(queryDocumentNames(streamIndex, false, null), queryDocumentNames(mappedIndex, true, null));
+		Assert.assertEquals(queryDocumentNames(streamIndex, false, "pkg3"),
+				queryDocumentNames(mappedIndex, true, "pkg3"));
+	}
+
+	private Index reopen(Index index) throws IOException {
+		return new Index(index.getIndexFile().getPath(), CONTAINER_PATH, true);
+	}
+
+	@Test
+	public void testOneByteReferences() throws IOException {
+		// less than 0x7F documents
+		Index index = createIndex(100);
+		assertSameResults(reopen(index), reopen(index));
+	}
+
+	@Test
+	public void testTwoBytesReferences() throws IOException {
+		// more than 256 references to the same word, written out of the category table
+		Index index = createIndex(1000);
+		assertSameResults(reopen(index), reopen(index));
+	}
+
+	@Test
+	public void testSaveMappedIndex() throws IOException {
+		Index index = createIndex(500);
+		Index mappedIndex = reopen(index);
+		assertSameResults(mappedIndex, reopen(index));
+
+		// the index file is mapped, merge new and removed documents into it
+		DiskIndex.MAP_INDEX_FILES = true;
+		for (int i = 0; i < 500; i += 5) {
+			mappedIndex.remove("pkg" + (i % 10) + "/file" + i + ".js");
+		}
+		addDocuments(mappedIndex, 500, 700);
+		mappedIndex.save();
+
+		assertSameResults(mappedIndex, reopen(mappedIndex));
+		Assert.assertEquals("<none>", query(mappedIndex, true, "name5".toCharArray(),
+				SearchPattern.R_EXACT_MATCH | SearchPattern.R_CASE_SENSITIVE));
+
+		mappedIndex.release();
+	}
+}
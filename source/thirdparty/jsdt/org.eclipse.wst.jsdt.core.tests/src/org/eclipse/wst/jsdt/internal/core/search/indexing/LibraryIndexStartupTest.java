@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Arian Fornaris and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Arian Fornaris - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.jsdt.internal.core.search.indexing;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.runtime.FileLocator;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.wst.jsdt.core.JavaScriptCore;
+import org.eclipse.wst.jsdt.internal.core.index.Index;
+import org.eclipse.wst.jsdt.internal.core.search.processing.IJob;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Indexes the system library in a workspace, then starts a clean workspace
+ * with its own copy of the library, and checks the {@link IndexManager} adopts
+ * the stored index without scheduling a library indexing job.
+ *
+ * @author arian
+ *
+ */
+public class LibraryIndexStartupTest {
+	private File _root;
+	private LibraryIndexStore _store;
+	private final List<IPath> _containerPaths = new ArrayList<>();
+	private final List<IndexManager> _managers = new ArrayList<>();
+
+	/**
+	 * An index manager with its own store, that records the jobs instead of
+	 * running them.
+	 */
+	private class StartupIndexManager extends IndexManager {
+		List<IJob> _jobs = new ArrayList<>();
+
+		public StartupIndexManager() {
+			_managers.add(this);
+		}
+
+		@Override
+		synchronized LibraryIndexStore getLibraryIndexStore() {
+			return _store;
+		}
+
+		@Override
+		public synchronized void request(IJob job) {
+			_jobs.add(job);
+		}
+	}
+
+	@Before
+	public void setUp() throws IOException {
+		_root = Files.createTempDirectory("jsdt-test").toFile();
+		_store = new LibraryIndexStore(new File(_root, "store"), null, LibraryIndexStore.getConfiguration());
+	}
+
+	@After
+	public void tearDown() {
+		for (IndexManager manager : _managers) {
+			for (IPath containerPath : _containerPaths) {
+				manager.removeIndex(containerPath);
+			}
+			manager.shutdown();
+		}
+		delete(_root);
+	}
+
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+
+	/**
+	 * Copies the system library to the libraries folder of the given workspace.
+	 */
+	private IPath createLibrary(String workspace) throws IOException {
+		URL url = FileLocator.toFileURL(
+				FileLocator.find(Platform.getBundle(JavaScriptCore.PLUGIN_ID), new Path("libraries/system.js"), null));
+		File dir = new File(_root, workspace + "/.metadata/.plugins/org.eclipse.wst.jsdt.core/libraries");
+		dir.mkdirs();
+		File file = new File(dir, "system.js");
+		Files.copy(new File(url.getFile()).toPath(), file.toPath());
+		IPath containerPath = new Path(file.getCanonicalPath());
+		_containerPaths.add(containerPath);
+		return containerPath;
+	}
+
+	@Test
+	public void testNoLibraryJobs() throws IOException {
+		// the first workspace indexes the library, with the job of the index
+		// rebuild requested by the first query, and stores its index
+		IPath library = createLibrary("workspace1");
+		StartupIndexManager manager = new StartupIndexManager();
+		Assert.assertNull(manager.getIndex(library, true, true));
+		Assert.assertEquals(1, manager._jobs.size());
+		Assert.assertTrue(manager._jobs.get(0) instanceof AddLibraryFileToIndex);
+		Assert.assertTrue(manager._jobs.get(0).execute(null));
+		Assert.assertTrue(_store.getStoredIndexFile(library.toFile()).isFile());
+
+		// a clean workspace
+		IPath otherLibrary = createLibrary("workspace2");
+		StartupIndexManager otherManager = new StartupIndexManager();
+		otherManager.indexLibrary(JavaScriptCore.newLibraryEntry(otherLibrary, null, null), null);
+		Assert.assertEquals("Library indexing jobs", 0, otherManager._jobs.size());
+
+		Index index = otherManager.getIndex(otherLibrary, false, false);
+		Assert.assertNotNull(index);
+		String[] documentNames = index.queryDocumentNames(null);
+		Assert.assertEquals(1, documentNames.length);
+		Assert.assertEquals(manager.getIndex(library, false, false).queryDocumentNames(null)[0]
+				.replace("workspace1", "workspace2"), documentNames[0]);
+
+		// the manager rebuilds a discarded index with a job that adopts the stored index
+		otherManager.removeIndex(otherLibrary);
+		otherManager.getIndex(otherLibrary, true, true);
+		Assert.assertEquals(1, otherManager._jobs.size());
+		Assert.assertTrue(otherManager._jobs.get(0).execute(null));
+		Assert.assertNotNull(otherManager.getIndex(otherLibrary, false, false));
+	}
+}
@@ -0,0 +1,206 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Arian Fornaris and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Arian Fornaris - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.jsdt.internal.core.search.indexing;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.core.runtime.Path;
+import org.eclipse.wst.jsdt.core.search.SearchPattern;
+import org.eclipse.wst.jsdt.internal.core.index.EntryResult;
+import org.eclipse.wst.jsdt.internal.core.index.Index;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Stores the index of a library indexed in a workspace, and checks another
+ * workspace adopts it, with the same entries, only when its library has the
+ * same content and the platform has the same inference providers, and the
+ * indexes shipped in the bundle are adopted too.
+ *
+ * @author arian
+ *
+ */
+@SuppressWarnings("static-method")
+public class LibraryIndexStoreTest {
+	private static final String LIBRARY = "function Phaser() {}\nPhaser.Sprite = function (game, x, y) {};\n";
+	private static final char[][] CATEGORIES = { "typeDecl".toCharArray(), "methodDecl".toCharArray() };
+	private static final String CONFIGURATION = "1a2b3c";
+
+	private File _root;
+	private LibraryIndexStore _store;
+
+	@Before
+	public void setUp() throws IOException {
+		_root = Files.createTempDirectory("jsdt-test").toFile();
+		_store = new LibraryIndexStore(new File(_root, "store"), null, CONFIGURATION);
+	}
+
+	@After
+	public void tearDown() {
+		delete(_root);
+	}
+
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+
+	private File createLibrary(String workspace, String content) throws IOException {
+		File dir = new File(_root, workspace + "/.metadata/.plugins/org.eclipse.wst.jsdt.core/libraries");
+		dir.mkdirs();
+		File file = new File(dir, "phaser-api.js");
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+	private static String containerPath(File libraryFile) {
+		return new Path(libraryFile.getAbsolutePath()).toString();
+	}
+
+	private Index indexLibrary(File libraryFile) throws IOException {
+		String containerPath = containerPath(libraryFile);
+		Index index = new Index(new File(_root, "indexed.index").getPath(), containerPath, false);
+		String documentName = index.containerRelativePath(containerPath);
+		index.addIndexEntry(CATEGORIES[0], "Phaser".toCharArray(), documentName);
+		index.addIndexEntry(CATEGORIES[0], "Phaser.Sprite".toCharArray(), documentName);
+		index.addIndexEntry(CATEGORIES[1], "Sprite/3".toCharArray(), documentName);
+		index.save();
+		return index;
+	}
+
+	private static String entries(Index index) throws IOException {
+		List<String> lines = new ArrayList<>();
+		index.startQuery();
+		try {
+			for (char[] category : CATEGORIES) {
+				EntryResult[] results = index.query(new char[][] { category }, null,
+						SearchPattern.R_EXACT_MATCH | SearchPattern.R_CASE_SENSITIVE);
+				if (results == null) {
+					continue;
+				}
+				for (EntryResult result : results) {
+					lines.add(new String(category) + " " + new String(result.getWord()) + " -> "
+							+ Arrays.toString(result.getDocumentNames(index)));
+				}
+			}
+		} finally {
+			index.stopQuery();
+		}
+		lines.sort(null);
+		return String.join("\n", lines);
+	}
+
+	@Test
+	public void testAdopt() throws IOException {
+		File library = createLibrary("workspace1", LIBRARY);
+		Index indexed = indexLibrary(library);
+		_store.store(library, indexed);
+		Assert.assertTrue(_store.getStoredIndexFile(library).isFile());
+
+		// a clean workspace, with its own copy of the library
+		File otherLibrary = createLibrary("workspace2", LIBRARY);
+		File indexFile = new File(_root, "adopted.index");
+		Assert.assertTrue(_store.adopt(otherLibrary, containerPath(otherLibrary), indexFile.getPath()));
+
+		Index adopted = new Index(indexFile.getPath(), containerPath(otherLibrary), true);
+		String expected = entries(indexed).replace(containerPath(library), containerPath(otherLibrary));
+		Assert.assertTrue(expected.contains("workspace2"));
+		Assert.assertEquals(expected, entries(adopted));
+		indexed.release();
+		adopted.release();
+	}
+
+	@Test
+	public void testChangedLibrary() throws IOException {
+		File library = createLibrary("workspace1", LIBRARY);
+		Index indexed = indexLibrary(library);
+		_store.store(library, indexed);
+		indexed.release();
+
+		File otherLibrary = createLibrary("workspace2", LIBRARY + "Phaser.Group = function (game) {};\n");
+		File indexFile = new File(_root, "adopted.index");
+		Assert.assertFalse("Other content", _store.adopt(otherLibrary, containerPath(otherLibrary), indexFile.getPath()));
+		Assert.assertFalse(indexFile.exists());
+
+		// the library is updated in place
+		Files.write(library.toPath(), (LIBRARY + "\n").getBytes(StandardCharsets.UTF_8));
+		library.setLastModified(library.lastModified() + 1000);
+		Assert.assertFalse("Modified", _store.adopt(library, containerPath(library), indexFile.getPath()));
+	}
+
+	@Test
+	public void testStoreOnce() throws IOException {
+		File library = createLibrary("workspace1", LIBRARY);
+		Index indexed = indexLibrary(library);
+		_store.store(library, indexed);
+		File storedFile = _store.getStoredIndexFile(library);
+		long length = storedFile.length();
+
+		File otherLibrary = createLibrary("workspace2", LIBRARY);
+		_store.store(otherLibrary, indexed);
+		indexed.release();
+
+		Assert.assertEquals(storedFile, _store.getStoredIndexFile(otherLibrary));
+		Assert.assertEquals(length, storedFile.length());
+		Assert.assertEquals("No temporary files", 1, storedFile.getParentFile().list().length);
+	}
+
+	@Test
+	public void testOtherInferenceProviders() throws IOException {
+		File library = createLibrary("workspace1", LIBRARY);
+		Index indexed = indexLibrary(library);
+		_store.store(library, indexed);
+		indexed.release();
+
+		LibraryIndexStore otherStore = new LibraryIndexStore(new File(_root, "store"), null, "4d5e6f");
+		File otherLibrary = createLibrary("workspace2", LIBRARY);
+		File indexFile = new File(_root, "adopted.index");
+		Assert.assertFalse("Other providers",
+				otherStore.adopt(otherLibrary, containerPath(otherLibrary), indexFile.getPath()));
+		Assert.assertFalse(indexFile.exists());
+	}
+
+	@Test
+	public void testBundledIndex() throws IOException {
+		// the index shipped in the bundle, built by another installation
+		File bundled = new File(_root, "bundled");
+		File library = createLibrary("workspace1", LIBRARY);
+		Index indexed = indexLibrary(library);
+		new LibraryIndexStore(bundled, null, CONFIGURATION).store(library, indexed);
+
+		LibraryIndexStore store = new LibraryIndexStore(new File(_root, "store"), bundled, CONFIGURATION);
+		File otherLibrary = createLibrary("workspace2", LIBRARY);
+		File indexFile = new File(_root, "adopted.index");
+		Assert.assertTrue(store.adopt(otherLibrary, containerPath(otherLibrary), indexFile.getPath()));
+		Index adopted = new Index(indexFile.getPath(), containerPath(otherLibrary), true);
+		Assert.assertEquals(entries(indexed).replace(containerPath(library), containerPath(otherLibrary)),
+				entries(adopted));
+
+		// not copied to the store
+		store.store(otherLibrary, indexed);
+		Assert.assertFalse(new File(_root, "store").exists());
+		indexed.release();
+		adopted.release();
+	}
+}
@@ -0,0 +1,186 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Arian Fornaris and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Arian Fornaris - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.jsdt.internal.core.search.indexing;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.eclipse.core.runtime.FileLocator;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.wst.jsdt.core.search.SearchPattern;
+import org.eclipse.wst.jsdt.internal.compiler.SourceElementParser;
+import org.eclipse.wst.jsdt.internal.compiler.impl.CompilerOptions;
+import org.eclipse.wst.jsdt.internal.core.index.EntryResult;
+import org.eclipse.wst.jsdt.internal.core.index.Index;
+import org.eclipse.wst.jsdt.internal.core.search.JavaSearchDocument;
+import org.eclipse.wst.jsdt.internal.core.search.JavaSearchParticipant;
+import org.eclipse.wst.jsdt.internal.core.search.processing.IJob;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.osgi.framework.Bundle;
+
+/**
+ * Indexes the Phaser examples with the {@link IndexManager}, one job after the
+ * other and in a single parallel batch (IndexManager#executeJobs(IJob[])), and
+ * checks both indexes have the same entries.
+ * 
+ * @author arian
+ *
+ */
+@SuppressWarnings("static-method")
+public class ParallelIndexingTest {
+	private static final String EXAMPLES_BUNDLE = "phasereditor.resources.phaser.examples";
+	private static final IPath CONTAINER_PATH = new Path("/examples");
+
+	private static List<char[]> _contents;
+
+	private final int _indexingThreads = IndexManager.INDEXING_THREADS;
+	private File _root;
+
+	/**
+	 * An index manager that writes all the documents in the given index.
+	 */
+	private static class TestIndexManager extends IndexManager {
+		private Index _index;
+
+		public TestIndexManager(Index index) {
+			_index = index;
+		}
+
+		@Override
+		public synchronized Index getIndex(IPath containerPath, IPath indexLocation, boolean reuseExistingFile,
+				boolean createIfMissing) {
+			return _index;
+		}
+	}
+
+	@BeforeClass
+	public static void loadExamples() throws IOException {
+		Bundle bundle = Platform.getBundle(EXAMPLES_BUNDLE);
+		Assert.assertNotNull("The " + EXAMPLES_BUNDLE + " bundle is not installed", bundle);
+		URL url = FileLocator.toFileURL(FileLocator.find(bundle, new Path("phaser-examples-master"), null));
+
+		List<java.nio.file.Path> files;
+		try (Stream<java.nio.file.Path> stream = Files.walk(Paths.get(url.getFile()))) {
+			files = stream.filter(p -> p.toString().endsWith(".js")).sorted().collect(Collectors.toList());
+		}
+
+		_contents = new ArrayList<>();
+		for (java.nio.file.Path file : files) {
+			_contents.add(new String(Files.readAllBytes(file), StandardCharsets.UTF_8).toCharArray());
+		}
+
+		Assert.assertTrue(_contents.size() > 100);
+	}
+
+	@Before
+	public void setUp() throws IOException {
+		_root = Files.createTempDirectory("jsdt-test").toFile();
+		IndexManager.INDEXING_THREADS = Math.max(2, _indexingThreads);
+	}
+
+	@After
+	public void tearDown() {
+		IndexManager.INDEXING_THREADS = _indexingThreads;
+		for (File file : _root.listFiles()) {
+			file.delete();
+		}
+		_root.delete();
+	}
+
+	private static IndexDocumentRequest[] createRequests(IndexManager manager) {
+		SourceElementParser sharedParser = IndexManager.getSourceElementParser(new CompilerOptions(), null);
+		JavaSearchParticipant participant = new JavaSearchParticipant();
+		IndexDocumentRequest[] requests = new IndexDocumentRequest[_contents.size()];
+		for (int i = 0; i < requests.length; i++) {
+			JavaSearchDocument doc = new JavaSearchDocument(CONTAINER_PATH.append("file" + i + ".js"),
+					_contents.get(i), participant, null);
+			((InternalSearchDocument) doc).parser = sharedParser;
+			requests[i] = new IndexDocumentRequest(doc, CONTAINER_PATH, null, participant, manager);
+		}
+		return requests;
+	}
+
+	private Index index(boolean parallel) throws IOException {
+		Index index = new Index(new File(_root, (parallel ? "parallel" : "sequential") + ".index").getPath(),
+				CONTAINER_PATH.toString(), false);
+		TestIndexManager manager = new TestIndexManager(index);
+		try {
+			IndexDocumentRequest[] requests = createRequests(manager);
+			if (parallel) {
+				for (IndexDocumentRequest request : requests) {
+					Assert.assertTrue(manager.isBatchJob(request));
+				}
+				manager.executeJobs(requests);
+			} else {
+				for (IndexDocumentRequest request : requests) {
+					manager.executeJobs(new IJob[] { request });
+				}
+			}
+		} finally {
+			manager.shutdown();
+		}
+		index.save();
+		return index;
+	}
+
+	private static String entries(Index index) throws IOException {
+		List<String> lines = new ArrayList<>();
+		index.startQuery();
+		try {
+			for (char[] category : index.getCategories()) {
+				EntryResult[] results = index.query(new char[][] { category }, null,
+						SearchPattern.R_EXACT_MATCH | SearchPattern.R_CASE_SENSITIVE);
+				if (results == null) {
+					continue;
+				}
+				for (EntryResult result : results) {
+					String[] documentNames = result.getDocumentNames(index);
+					Arrays.sort(documentNames);
+					lines.add(new String(category) + " " + new String(result.getWord()) + " -> "
+							+ Arrays.toString(documentNames));
+				}
+			}
+		} finally {
+			index.stopQuery();
+		}
+		lines.sort(null);
+		return String.join("\n", lines);
+	}
+
+	@Test
+	public void testParallelIndexing() throws IOException {
+		Index sequential = index(false);
+		Index parallel = index(true);
+		try {
+			String expected = entries(sequential);
+			Assert.assertTrue(expected.contains("file" + (_contents.size() - 1) + ".js"));
+			Assert.assertEquals(expected, entries(parallel));
+		} finally {
+			sequential.release();
+			parallel.release();
+		}
+	}
+}
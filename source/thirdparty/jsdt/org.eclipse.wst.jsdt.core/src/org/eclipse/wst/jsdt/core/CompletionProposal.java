@@ -55,7 +55,7 @@ import org.eclipse.wst.jsdt.internal.core.util.QualificationHelpers;
  * from pioneering adopters on the understanding that any code that uses this API will almost certainly be broken 
  * (repeatedly) as the API evolves.
  */
-public final class CompletionProposal extends InternalCompletionProposal {
+public final class CompletionProposal extends InternalCompletionProposal implements Cloneable {
 	private boolean updateCompletion = false;
 
 	/**
@@ -1751,6 +1751,59 @@ public final class CompletionProposal extends InternalCompletionProposal {
 		return this.isConstructor;
 	}
 
+	// arian
+
+	/**
+	 * Creates a copy of this proposal for a completion requested after
+	 * <code>delta</code> characters were typed at <code>position</code>.
+	 * The ranges that reach the position are moved by <code>delta</code>.
+	 * <p>
+	 * This method is internal to the code assist engine, it reports again the
+	 * proposals of a previous request. Clients should not call it.
+	 * </p>
+	 *
+	 * @param position the (relative) completion offset of the original request
+	 * @param delta the number of characters typed at the position
+	 * @return a new completion proposal
+	 */
+	public CompletionProposal copy(int position, int delta) {
+		CompletionProposal copy;
+		try {
+			copy = (CompletionProposal) clone();
+		} catch (CloneNotSupportedException e) {
+			throw new IllegalStateException(e);
+		}
+		copy.completionLocation = moveEnd(this.completionLocation, position, delta);
+		copy.tokenStart = moveStart(this.tokenStart, position, delta);
+		copy.tokenEnd = moveEnd(this.tokenEnd, position, delta);
+		copy.replaceStart = moveStart(this.replaceStart, position, delta);
+		copy.replaceEnd = moveEnd(this.replaceEnd, position, delta);
+		if (this.requiredProposals != null) {
+			copy.requiredProposals = new CompletionProposal[this.requiredProposals.length];
+			for (int i = 0; i < this.requiredProposals.length; i++) {
+				copy.requiredProposals[i] = this.requiredProposals[i].copy(position, delta);
+			}
+		}
+		return copy;
+	}
+
+	/*
+	 * The start of an empty token is the completion position, it does not move.
+	 */
+	private static int moveStart(int start, int position, int delta) {
+		return start > position ? start + delta : start;
+	}
+
+	/*
+	 * The inclusive end of a token that ends at the completion position is
+	 * position - 1, the exclusive end is the position, both are moved.
+	 */
+	private static int moveEnd(int end, int position, int delta) {
+		return end >= position - 1 ? end + delta : end;
+	}
+
+	// ---
+
 	public String toString() {
 		StringBuffer buffer = new StringBuffer();
 		buffer.append('[');
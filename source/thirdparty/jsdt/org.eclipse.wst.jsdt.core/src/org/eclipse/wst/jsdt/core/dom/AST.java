@@ -25,6 +25,7 @@ import org.eclipse.wst.jsdt.core.IJavaScriptUnit;
 import org.eclipse.wst.jsdt.core.JavaScriptCore;
 import org.eclipse.wst.jsdt.internal.compiler.classfmt.ClassFileConstants;
 import org.eclipse.wst.jsdt.internal.compiler.parser.Scanner;
+import org.eclipse.wst.jsdt.internal.core.IncrementalReconcile;
 
 /**
  * Umbrella owner and abstract syntax tree node factory.
@@ -264,6 +265,14 @@ public final class AST {
 		JavaScriptUnit unit = converter.convert(compilationUnitDeclaration, source);
 		unit.setLineEndTable(compilationUnitDeclaration.compilationResult.getLineSeparatorPositions());
 		unit.setTypeRoot(workingCopy);
+		// arian: the statements not resolved by an incremental reconcile are resolved when their bindings are asked
+		IncrementalReconcile incrementalReconcile = IncrementalReconcile.getPending(workingCopy, compilationUnitDeclaration);
+		if (incrementalReconcile != null) {
+			if (isResolved)
+				((DefaultBindingResolver) resolver).setIncrementalReconcile(incrementalReconcile, unit);
+			else
+				incrementalReconcile.release();
+		}
 		ast.setDefaultNodeFlag(savedDefaultNodeFlag);
 		return unit;
 	}
@@ -11,6 +11,8 @@
 package org.eclipse.wst.jsdt.core.dom;
 
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 import org.eclipse.wst.jsdt.core.WorkingCopyOwner;
@@ -54,6 +56,7 @@ import org.eclipse.wst.jsdt.internal.compiler.lookup.ProblemReferenceBinding;
 import org.eclipse.wst.jsdt.internal.compiler.lookup.ReferenceBinding;
 import org.eclipse.wst.jsdt.internal.compiler.lookup.TypeIds;
 import org.eclipse.wst.jsdt.internal.compiler.problem.AbortCompilation;
+import org.eclipse.wst.jsdt.internal.core.IncrementalReconcile;
 
 /**
  * Internal class for resolving bindings using old ASTs.
@@ -128,12 +131,93 @@ class DefaultBindingResolver extends BindingResolver {
 	WorkingCopyOwner workingCopyOwner;
 	boolean isRecoveredBinding;
 
+	/*
+	 * arian: the state of the reconcile that did not resolve some statements of the unit, they
+	 * are resolved when a binding of one of their nodes is asked.
+	 */
+	private IncrementalReconcile incrementalReconcile;
+	private JavaScriptUnit unit;
+
+	/*
+	 * arian: the map of the new nodes to the old nodes, that resolves the pending statement of a node
+	 * before answering its old node.
+	 */
+	private class PendingNodeMap extends HashMap {
+		private static final long serialVersionUID = 1L;
+
+		public Object get(Object key) {
+			if (DefaultBindingResolver.this.incrementalReconcile != null && key instanceof ASTNode && !(key instanceof JavaScriptUnit)) {
+				int[] range = DefaultBindingResolver.this.incrementalReconcile.resolvePending(((ASTNode) key).getStartPosition());
+				if (range != null)
+					recordDeclarations(range[0], range[1]);
+			}
+			return super.get(key);
+		}
+	}
+
+	/*
+	 * arian: records the bindings of the declarations of the given range, like ASTConverter does
+	 * for the resolved statements, so findDeclaringNode() finds them.
+	 */
+	private void recordDeclarations(int start, int end) {
+		ASTVisitor visitor = new ASTVisitor() {
+			public boolean visit(AnonymousClassDeclaration node) {
+				node.resolveBinding();
+				return true;
+			}
+			public boolean visit(FunctionDeclaration node) {
+				node.resolveBinding();
+				return true;
+			}
+			public boolean visit(SingleVariableDeclaration node) {
+				node.resolveBinding();
+				return true;
+			}
+			public boolean visit(TypeDeclaration node) {
+				node.resolveBinding();
+				return true;
+			}
+			public boolean visit(VariableDeclarationFragment node) {
+				node.resolveBinding();
+				return true;
+			}
+		};
+		List[] lists = { this.unit.types(), this.unit.statements() };
+		for (int i = 0; i < lists.length; i++) {
+			for (Iterator iterator = lists[i].iterator(); iterator.hasNext();) {
+				ASTNode node = (ASTNode) iterator.next();
+				if (node.getStartPosition() <= end && node.getStartPosition() + node.getLength() > start)
+					node.accept(visitor);
+			}
+		}
+	}
+
+	/*
+	 * arian: resolves the statements of the given unit that the given reconcile did not resolve,
+	 * when their bindings are asked.
+	 */
+	synchronized void setIncrementalReconcile(IncrementalReconcile incrementalReconcile, JavaScriptUnit unit) {
+		this.incrementalReconcile = incrementalReconcile;
+		this.unit = unit;
+	}
+
+	/*
+	 * arian: resolves all the pending statements, answers false if none was pending.
+	 */
+	private boolean resolvePending() {
+		if (this.incrementalReconcile == null) return false;
+		int[] range = this.incrementalReconcile.resolvePending();
+		if (range == null) return false;
+		recordDeclarations(range[0], range[1]);
+		return true;
+	}
+
 
 	/**
 	 * Constructor for DefaultBindingResolver.
 	 */
 	DefaultBindingResolver(CompilationUnitScope scope, WorkingCopyOwner workingCopyOwner, BindingTables bindingTables, boolean isRecoveredBinding) {
-		this.newAstToOldAst = new HashMap();
+		this.newAstToOldAst = new PendingNodeMap();
 		this.astNodesToBlockScope = new HashMap();
 		this.bindingsToAstNodes = new HashMap();
 		this.bindingTables = bindingTables;
@@ -143,7 +227,7 @@ class DefaultBindingResolver extends BindingResolver {
 	}
 
 	DefaultBindingResolver(LookupEnvironment lookupEnvironment, WorkingCopyOwner workingCopyOwner, BindingTables bindingTables, boolean isRecoveredBinding) {
-		this.newAstToOldAst = new HashMap();
+		this.newAstToOldAst = new PendingNodeMap();
 		this.astNodesToBlockScope = new HashMap();
 		this.bindingsToAstNodes = new HashMap();
 		this.bindingTables = bindingTables;
@@ -159,6 +243,14 @@ class DefaultBindingResolver extends BindingResolver {
 		if (binding == null) {
 			return null;
 		}
+		ASTNode node = findResolvedDeclaringNode(binding);
+		// arian: the declaration may be in a pending statement
+		if (node == null && resolvePending())
+			node = findResolvedDeclaringNode(binding);
+		return node;
+	}
+
+	private ASTNode findResolvedDeclaringNode(IBinding binding) {
 		if (binding instanceof IFunctionBinding) {
 			IFunctionBinding methodBinding = (IFunctionBinding) binding;
 			return (ASTNode) this.bindingsToAstNodes.get(methodBinding.getMethodDeclaration());
@@ -177,6 +269,9 @@ class DefaultBindingResolver extends BindingResolver {
 			return null;
 		}
 		Object binding = this.bindingTables.bindingKeysToBindings.get(bindingKey);
+		// arian: the declaration may be in a pending statement
+		if (binding == null && resolvePending())
+			binding = this.bindingTables.bindingKeysToBindings.get(bindingKey);
 		if (binding == null)
 			return null;
 		return (ASTNode) this.bindingsToAstNodes.get(binding);
@@ -154,6 +154,13 @@ public class InferEngine extends ASTVisitor implements IInferEngine {
 	boolean isTopLevelAnonymousFunction;
 	int anonymousCount = 0;
 
+	/**
+	 * If the current compilation unit is a library where the assignments are
+	 * used to infer the members, computed once per unit by
+	 * {@link #isLibraryFile(char[])}.
+	 */
+	protected boolean isLibraryFile;
+
 	public static boolean DEBUG = false;
 
 	public InferrenceProvider inferenceProvider;
@@ -333,6 +340,7 @@ public class InferEngine extends ASTVisitor implements IInferEngine {
 
 	public void setCompilationUnit(CompilationUnitDeclaration scriptFileDeclaration) {
 		this.compUnit = scriptFileDeclaration;
+		this.isLibraryFile = isLibraryFile(scriptFileDeclaration.getFileName());
 		buildDefinedMembers(scriptFileDeclaration.getStatements(), null);
 	}
 
@@ -650,9 +658,9 @@ public class InferEngine extends ASTVisitor implements IInferEngine {
 					
 					// arian
 					
-					// just allow those assigments in the JSDT defined libraries files, like phaser-api.js.
+					// just allow those assigments in the library files, like phaser-api.js.
 					
-					&& new String(getScriptFileDeclaration().getFileName()).contains("org.eclipse.wst.jsdt.core")
+					&& this.isLibraryFile
 					
 					//
 					
@@ -2956,6 +2964,21 @@ public class InferEngine extends ASTVisitor implements IInferEngine {
 	 * @param options
 	 */
 	public void initializeOptions(InferOptions options) {
+		// arian: take the library paths of the project
+		this.inferOptions.libraryPaths = options.libraryPaths;
+	}
+
+	/**
+	 * Answers if the assignments of the given file are used to infer the
+	 * members of the types. By default they are the files in the library paths
+	 * of the infer options, overridden by clients with other kind of libraries.
+	 * 
+	 * @param fileName
+	 *            of the compilation unit
+	 * @return
+	 */
+	protected boolean isLibraryFile(char[] fileName) {
+		return this.inferOptions.isLibraryFile(fileName);
 	}
 
 	protected boolean isPossibleClassName(char[] name) {
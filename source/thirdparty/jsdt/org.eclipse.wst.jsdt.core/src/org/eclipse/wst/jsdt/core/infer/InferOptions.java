@@ -13,6 +13,10 @@ package org.eclipse.wst.jsdt.core.infer;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.eclipse.wst.jsdt.core.JavaScriptCore;
+import org.eclipse.wst.jsdt.core.compiler.CharOperation;
+import org.eclipse.wst.jsdt.core.compiler.libraries.SystemLibraryLocation;
+
 
 /**
  * 
@@ -29,11 +33,15 @@ public class InferOptions {
 	public static final String OPTION_UseInitMethod = "org.eclipse.wst.jsdt.core.infer.useInitMethod"; //$NON-NLS-1$
 	public static final String OPTION_SaveArgumentComments = "org.eclipse.wst.jsdt.core.infer.saveArgumentComments"; //$NON-NLS-1$
 	public static final String OPTION_DocLocation = "org.eclipse.wst.jsdt.core.infer.docLocation"; //$NON-NLS-1$
+	public static final String OPTION_LibraryPaths = "org.eclipse.wst.jsdt.core.infer.libraryPaths"; //$NON-NLS-1$
 
 	
 	public static final int DOC_LOCATION_BEFORE=1;
 	public static final int DOC_LOCATION_AFTER=2;
 
+	// arian: the JSDT defined libraries, like phaser-api.js, are copied in the state location of this plugin
+	private static char[][] defaultLibraryPaths;
+
 
 	// tags used to recognize tasks in comments
 	public char[][] systemClassMethod = null;
@@ -47,6 +55,13 @@ public class InferOptions {
 	public String engineClass;
     public boolean saveArgumentComments;
     public int docLocation=DOC_LOCATION_BEFORE;
+
+	/**
+	 * Fragments of the file names of the libraries where the assignments
+	 * (like foo.bar = value) are used to infer the members of the types,
+	 * see {@link #isLibraryFile(char[])}.
+	 */
+	public char[][] libraryPaths = getDefaultLibraryPaths();
     
 	
 	
@@ -74,6 +89,24 @@ public class InferOptions {
 		this.useAssignments=true;
 		this.useInitMethod=true;
 		this.saveArgumentComments=true;
+		this.libraryPaths=getDefaultLibraryPaths();
+	}
+
+	/**
+	 * Answers the default {@link #libraryPaths}: the folder of the system libraries
+	 * in the state location of the JSDT plugin (see SystemLibraryLocation).
+	 * When the plugin is not running there is no state location, then the
+	 * id of the plugin is used, it is a segment of that folder.
+	 */
+	public static synchronized char[][] getDefaultLibraryPaths() {
+		if (defaultLibraryPaths == null) {
+			if (JavaScriptCore.getPlugin() == null)
+				return new char[][] { JavaScriptCore.PLUGIN_ID.toCharArray() };
+			String librariesPath = JavaScriptCore.getPlugin().getStateLocation()
+					.append(new String(SystemLibraryLocation.LIBRARY_RUNTIME_DIRECTORY)).addTrailingSeparator().toString();
+			defaultLibraryPaths = new char[][] { librariesPath.toCharArray() };
+		}
+		return defaultLibraryPaths;
 	}
 
 	public Map getMap() {
@@ -82,6 +115,7 @@ public class InferOptions {
 		optionsMap.put(OPTION_UseInitMethod, this.useInitMethod ? "true":"false"); //$NON-NLS-1$ //$NON-NLS-2$
 		optionsMap.put(OPTION_SaveArgumentComments, this.saveArgumentComments ? "true":"false"); //$NON-NLS-1$ //$NON-NLS-2$
 		optionsMap.put(OPTION_DocLocation, String.valueOf(this.docLocation)); //$NON-NLS-1$ //$NON-NLS-2$
+		optionsMap.put(OPTION_LibraryPaths, new String(CharOperation.concatWith(this.libraryPaths, ',')));
 		return optionsMap;
 	}
 
@@ -101,6 +135,27 @@ public class InferOptions {
 		if ((optionValue = optionsMap.get(OPTION_DocLocation)) != null) {
 			this.docLocation=   Integer.parseInt((String)optionValue) ; //$NON-NLS-1$
 		}
+		if ((optionValue = optionsMap.get(OPTION_LibraryPaths)) != null) {
+			char[][] paths = CharOperation.splitAndTrimOn(',', ((String) optionValue).toCharArray());
+			this.libraryPaths = paths.length == 1 && paths[0].length == 0 ? CharOperation.NO_CHAR_CHAR : paths;
+		}
+	}
+
+	/**
+	 * Answers if the given file is one of the libraries where the assignments
+	 * are used to infer the members of the types.
+	 * It does not allocate, so it can be called for every unit.
+	 * 
+	 * @param fileName
+	 * @return
+	 */
+	public boolean isLibraryFile(char[] fileName) {
+		if (fileName == null) return false;
+		for (int i = 0; i < this.libraryPaths.length; i++) {
+			if (CharOperation.indexOf(this.libraryPaths[i], fileName, true) >= 0)
+				return true;
+		}
+		return false;
 	}
 
 	public String toString() {
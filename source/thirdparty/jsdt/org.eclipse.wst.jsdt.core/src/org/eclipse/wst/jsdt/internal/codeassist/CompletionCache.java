@@ -0,0 +1,298 @@
+/*******************************************************************************
+ * Copyright (c) 2000, 2008 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.jsdt.internal.codeassist;
+
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.eclipse.wst.jsdt.core.CompletionContext;
+import org.eclipse.wst.jsdt.core.CompletionProposal;
+import org.eclipse.wst.jsdt.core.CompletionRequestor;
+import org.eclipse.wst.jsdt.core.IJavaScriptProject;
+import org.eclipse.wst.jsdt.core.compiler.CharOperation;
+import org.eclipse.wst.jsdt.core.compiler.IProblem;
+import org.eclipse.wst.jsdt.internal.core.CompilationUnit;
+
+/**
+ * Records the proposals of a completion on a member access (like <code>game.add.sp|</code>)
+ * and reports them again while the user keeps typing the same identifier, narrowed to the
+ * longer prefix, instead of parsing the unit and resolving the receiver again.
+ * <p>
+ * The last completion is reused when the new request is on the same unit, project, options
+ * and requestor configuration, and the source only differs by the identifier characters
+ * typed at the completion position. Any other edit of the unit invalidates it,
+ * {@link #flush()} discards it when the resources change, and {@link #flush(Collection)}
+ * when other working copies are reconciled.
+ * </p>
+ */
+public class CompletionCache extends CompletionRequestor {
+
+	public static boolean ENABLED = !"false".equals(System.getProperty("org.eclipse.wst.jsdt.core.completionCache")); //$NON-NLS-1$ //$NON-NLS-2$
+
+	private static SoftReference lastCompletion;
+	private static int hits;
+
+	CompletionRequestor requestor;
+	private IJavaScriptProject project;
+	private Map settings;
+	private char[] fileName;
+	private char[] source;
+	private int completionPosition;
+	private int offset;
+
+	// the answers of the requestor, indexed by kind (and required kind): 0 unknown, 1 false, 2 true
+	private static final int KINDS = 32;
+	private byte[] ignoredAnswers = new byte[KINDS];
+	private byte[] allowingAnswers = new byte[KINDS * KINDS];
+	private boolean favoriteReferencesQueried;
+	private String[] favoriteReferences;
+
+	private CompletionContext context;
+	private ArrayList proposals = new ArrayList();
+	private boolean failed;
+	private boolean cacheable;
+
+	CompletionCache(CompletionRequestor requestor, IJavaScriptProject project, Map settings, char[] fileName, char[] source, int completionPosition, int offset) {
+		this.requestor = requestor;
+		this.project = project;
+		this.settings = settings;
+		this.fileName = fileName;
+		this.source = source;
+		this.completionPosition = completionPosition;
+		this.offset = offset;
+	}
+
+	/**
+	 * Discards the last completion.
+	 */
+	public static synchronized void flush() {
+		lastCompletion = null;
+	}
+
+	/**
+	 * Discards the last completion if the given working copies, with a reconcile delta,
+	 * are not only the completed unit. The edits of the completed unit are checked when
+	 * the completion is reused.
+	 */
+	public static synchronized void flush(Collection workingCopies) {
+		CompletionCache last = lastCompletion == null ? null : (CompletionCache) lastCompletion.get();
+		if (last == null) return;
+		for (Iterator iterator = workingCopies.iterator(); iterator.hasNext();) {
+			Object workingCopy = iterator.next();
+			if (!(workingCopy instanceof CompilationUnit)
+					|| !CharOperation.equals(((CompilationUnit) workingCopy).getFileName(), last.fileName)) {
+				lastCompletion = null;
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Answers the number of completions answered with the proposals of the previous one.
+	 */
+	public static synchronized int getHits() {
+		return hits;
+	}
+
+	private static synchronized void hit() {
+		hits++;
+	}
+
+	private static synchronized CompletionCache getLastCompletion() {
+		return lastCompletion == null ? null : (CompletionCache) lastCompletion.get();
+	}
+
+	private static synchronized void setLastCompletion(CompletionCache completion) {
+		lastCompletion = new SoftReference(completion);
+	}
+
+	/**
+	 * Reports to the requestor of the engine the proposals of the last completion, if it can be reused.
+	 */
+	static boolean replay(CompletionEngine engine, Map settings, char[] fileName, char[] source, int completionPosition, int offset) {
+		CompletionCache last = getLastCompletion();
+		if (last != null && last.replayIn(engine, settings, fileName, source, completionPosition, offset)) {
+			hit();
+			return true;
+		}
+		return false;
+	}
+
+	private boolean replayIn(CompletionEngine engine, Map newSettings, char[] newFileName, char[] newSource, int newCompletionPosition, int newOffset) {
+		int delta = newCompletionPosition - this.completionPosition;
+		if (delta < 0
+				|| newOffset != this.offset
+				|| engine.javaProject != this.project
+				|| newSource == null
+				|| newSource.length != this.source.length + delta
+				|| !CharOperation.equals(newFileName, this.fileName)
+				|| !newSettings.equals(this.settings))
+			return false;
+
+		// only the identifier was extended
+		for (int i = 0; i < this.completionPosition; i++) {
+			if (newSource[i] != this.source[i]) return false;
+		}
+		for (int i = this.completionPosition; i < newCompletionPosition; i++) {
+			if (!Character.isJavaIdentifierPart(newSource[i])) return false;
+		}
+		for (int i = this.completionPosition, j = newCompletionPosition; i < this.source.length; i++, j++) {
+			if (newSource[j] != this.source[i]) return false;
+		}
+
+		// the requestor is configured the same
+		CompletionRequestor newRequestor = engine.requestor;
+		for (int kind = 0; kind < KINDS; kind++) {
+			if (this.ignoredAnswers[kind] != 0 && answer(newRequestor.isIgnored(kind)) != this.ignoredAnswers[kind]) return false;
+			for (int requiredKind = 0; requiredKind < KINDS; requiredKind++) {
+				byte allowing = this.allowingAnswers[kind * KINDS + requiredKind];
+				if (allowing != 0 && answer(newRequestor.isAllowingRequiredProposals(kind, requiredKind)) != allowing) return false;
+			}
+		}
+		if (this.favoriteReferencesQueried && !Arrays.equals(this.favoriteReferences, newRequestor.getFavoriteReferences())) {
+			return false;
+		}
+
+		char[] oldToken = this.context.getToken();
+		char[] token = CharOperation.subarray(newSource, this.context.getTokenStart() + this.offset, newCompletionPosition);
+		int position = this.completionPosition - this.offset;
+		ArrayList matches = new ArrayList();
+		for (int i = 0, length = this.proposals.size(); i < length; i++) {
+			CompletionProposal proposal = (CompletionProposal) this.proposals.get(i);
+			char[] name = proposal.getName();
+			// the same filters of CompletionEngine.findKeywords() and findFieldsAndMethods()
+			if (!CharOperation.prefixEquals(token, name, false)
+					&& !(proposal.getKind() != CompletionProposal.KEYWORD && engine.options.camelCaseMatch && CharOperation.camelCaseMatch(token, name)))
+				continue;
+			CompletionProposal copy = proposal.copy(position, delta);
+			copy.setRelevance(proposal.getRelevance()
+				- engine.computeRelevanceForCaseMatching(oldToken, name)
+				+ engine.computeRelevanceForCaseMatching(token, name));
+			copy.completionEngine = engine;
+			copy.nameLookup = engine.nameEnvironment.nameLookup;
+			matches.add(copy);
+		}
+		if (matches.isEmpty()) return false;
+
+		CompletionContext newContext = new CompletionContext();
+		newContext.setExpectedTypesSignatures(this.context.expectedTypesSignatures);
+		newContext.setExpectedTypesKeys(this.context.expectedTypesKeys);
+		newContext.setJavadoc(this.context.javadoc);
+		newContext.setOffset(this.context.offset + delta);
+		newContext.setToken(token);
+		newContext.setTokenRange(this.context.tokenStart, this.context.tokenEnd + delta);
+		newContext.setTokenKind(this.context.tokenKind);
+		newRequestor.acceptContext(newContext);
+		for (int i = 0, length = matches.size(); i < length; i++) {
+			newRequestor.accept((CompletionProposal) matches.get(i));
+		}
+		return true;
+	}
+
+	/**
+	 * Called by the engine when the proposals were computed for a member access,
+	 * with the filters supported by {@link #replayIn}.
+	 */
+	void setCacheable() {
+		this.cacheable = true;
+	}
+
+	/**
+	 * Keeps this completion as the last one, if it can be reused.
+	 */
+	void save() {
+		if (!this.cacheable
+				|| this.failed
+				|| this.source == null
+				|| this.context == null
+				|| this.context.getTokenKind() != CompletionContext.TOKEN_KIND_NAME
+				|| this.proposals.isEmpty())
+			return;
+
+		// an empty token does not report the keywords, the engine has to compute them
+		char[] token = this.context.getToken();
+		int tokenStart = this.context.getTokenStart() + this.offset;
+		if (token == null
+				|| token.length == 0
+				|| tokenStart < 0
+				|| tokenStart + token.length != this.completionPosition
+				|| !CharOperation.equals(token, CharOperation.subarray(this.source, tokenStart, this.completionPosition)))
+			return;
+
+		for (int i = 0, length = this.proposals.size(); i < length; i++) {
+			CompletionProposal proposal = (CompletionProposal) this.proposals.get(i);
+			switch (proposal.getKind()) {
+				case CompletionProposal.FIELD_REF :
+				case CompletionProposal.METHOD_REF :
+				case CompletionProposal.KEYWORD :
+					if (proposal.getName() == null) return;
+					break;
+				default :
+					// the types and packages are matched with the qualified name
+					return;
+			}
+		}
+		setLastCompletion(this);
+	}
+
+	private static byte answer(boolean value) {
+		return value ? (byte) 2 : (byte) 1;
+	}
+
+	public boolean isIgnored(int completionProposalKind) {
+		boolean ignored = this.requestor.isIgnored(completionProposalKind);
+		this.ignoredAnswers[completionProposalKind] = answer(ignored);
+		return ignored;
+	}
+
+	public boolean isAllowingRequiredProposals(int proposalKind, int requiredProposalKind) {
+		boolean allowing = this.requestor.isAllowingRequiredProposals(proposalKind, requiredProposalKind);
+		this.allowingAnswers[proposalKind * KINDS + requiredProposalKind] = answer(allowing);
+		return allowing;
+	}
+
+	public String[] getFavoriteReferences() {
+		this.favoriteReferencesQueried = true;
+		this.favoriteReferences = this.requestor.getFavoriteReferences();
+		return this.favoriteReferences;
+	}
+
+	public void beginReporting() {
+		this.requestor.beginReporting();
+	}
+
+	public void endReporting() {
+		this.requestor.endReporting();
+	}
+
+	public void completionFailure(IProblem problem) {
+		this.failed = true;
+		this.requestor.completionFailure(problem);
+	}
+
+	public void accept(CompletionProposal proposal) {
+		// keep a copy, the requestor may change the proposal and the copy does not retain the engine
+		CompletionProposal copy = proposal.copy(0, 0);
+		copy.completionEngine = null;
+		copy.nameLookup = null;
+		this.proposals.add(copy);
+		this.requestor.accept(proposal);
+	}
+
+	public void acceptContext(CompletionContext context) {
+		this.context = context;
+		this.requestor.acceptContext(context);
+	}
+}
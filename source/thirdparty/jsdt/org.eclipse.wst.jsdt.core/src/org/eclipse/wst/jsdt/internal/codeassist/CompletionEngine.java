@@ -139,6 +139,7 @@ import org.eclipse.wst.jsdt.internal.compiler.lookup.TypeConstants;
 import org.eclipse.wst.jsdt.internal.compiler.lookup.VariableBinding;
 import org.eclipse.wst.jsdt.internal.compiler.parser.JavadocTagConstants;
 import org.eclipse.wst.jsdt.internal.compiler.parser.Parser;
+import org.eclipse.wst.jsdt.internal.compiler.parser.ParserPool;
 import org.eclipse.wst.jsdt.internal.compiler.parser.Scanner;
 import org.eclipse.wst.jsdt.internal.compiler.parser.SourceTypeConverter;
 import org.eclipse.wst.jsdt.internal.compiler.parser.TerminalTokens;
@@ -368,7 +369,9 @@ public final class CompletionEngine
 	long targetedElement;
 
 	IJavaScriptProject javaProject;
+	Map settings;
 	CompletionParser parser;
+	Object parserKey;
 	CompletionRequestor requestor;
 	CompletionProblemFactory problemFactory;
 	ProblemReporter problemReporter;
@@ -433,6 +436,7 @@ public final class CompletionEngine
 			IJavaScriptProject javaProject) {
 		super(settings);
 		this.javaProject = javaProject;
+		this.settings = settings;
 		this.requestor = requestor;
 		this.nameEnvironment = nameEnvironment;
 		this.typeCache = new HashtableOfObject(5);
@@ -444,8 +448,13 @@ public final class CompletionEngine
 				problemFactory);
 		this.lookupEnvironment =
 			new LookupEnvironment(this, this.compilerOptions, this.problemReporter, nameEnvironment);
-		this.parser =
-			new CompletionParser(this.problemReporter);
+		// arian: reuse the completion parser released by the previous request of this thread
+		this.parserKey = ParserPool.getKey(CompletionParser.class, this.compilerOptions, true);
+		this.parser = (CompletionParser) ParserPool.acquire(this.parserKey, this.problemReporter);
+		if (this.parser == null) {
+			this.parser =
+				new CompletionParser(this.problemReporter);
+		}
 		this.nameScanner =
 			new Scanner(
 				false /*comment*/,
@@ -1280,6 +1289,9 @@ public final class CompletionEngine
 						// after looking for types set the completion token back to original value
 						this.completionToken = access.token;
 						setSourceRange((int) (completionPosition >>> 32), (int) completionPosition);
+						if (this.requestor instanceof CompletionCache) {
+							((CompletionCache) this.requestor).setCacheable();
+						}
 						if (qualifiedBinding instanceof FunctionTypeBinding) {
 							FunctionTypeBinding functionTypeBinding = (FunctionTypeBinding) qualifiedBinding;
 							if (functionTypeBinding.functionBinding!=null && functionTypeBinding.functionBinding.isConstructor())
@@ -1832,11 +1844,23 @@ public final class CompletionEngine
 		}
 		this.requestor.beginReporting();
 		boolean contextAccepted = false;
+		CompletionCache cache = null;
 		try {
 			this.fileName = sourceUnit.getFileName();
 			this.packageName= CharOperation.NO_CHAR_CHAR;
 			this.actualCompletionPosition = completionPosition - 1;
 			this.offset = pos;
+
+			// arian: reuse the proposals of the previous request while the user types the same identifier
+			if (CompletionCache.ENABLED && this.settings != null) {
+				char[] contents = sourceUnit.getContents();
+				if (CompletionCache.replay(this, this.settings, this.fileName, contents, completionPosition, pos)) {
+					contextAccepted = true;
+					return;
+				}
+				this.requestor = cache = new CompletionCache(this.requestor, this.javaProject, this.settings, this.fileName, contents, completionPosition, pos);
+			}
+
 			// for now until we can change the UI.
 			CompilationResult result = new CompilationResult(sourceUnit, 1, 1, this.compilerOptions.maxProblemsPerUnit);
 			CompilationUnitDeclaration parsedUnit = this.parser.dietParse(sourceUnit, result, this.actualCompletionPosition);
@@ -1998,6 +2022,7 @@ public final class CompletionEngine
 				e.printStackTrace(System.out);
 			}
 		} finally {
+			ParserPool.release(this.parserKey, this.parser);
 			this.parser=null;
 			reset();
 			if(!contextAccepted) {
@@ -2008,6 +2033,10 @@ public final class CompletionEngine
 				this.requestor.acceptContext(context);
 			}
 			this.requestor.endReporting();
+			if (cache != null) {
+				this.requestor = cache.requestor;
+				cache.save();
+			}
 		}
 	}
 
@@ -3105,6 +3105,29 @@ public void reset() {
 	super.reset();
 	this.cursorLocation = 0;
 }
+// arian: the ParserPool reuses the completion parsers, back to the state of a new parser
+public void recycle(ProblemReporter reporter) {
+	super.recycle(reporter);
+	this.javadocParser = createJavadocParser();
+	this.javadocParser.checkDocComment = true;
+}
+public void release() {
+	this.cursorLocation = 0;
+	super.release();
+	this.assistNodeParent = null;
+	this.isAlreadyAttached = false;
+	this.lastModifiers = ClassFileConstants.AccDefault;
+	this.lastModifiersStart = -1;
+	this.canBeExplicitConstructor = NO;
+	this.record = false;
+	this.skipRecord = false;
+	this.recordFrom = 0;
+	this.recordTo = 0;
+	this.potentialVariableNamesPtr = 0;
+	this.potentialVariableNames = null;
+	this.potentialVariableNameStarts = null;
+	this.potentialVariableNameEnds = null;
+}
 /*
  * Reset internal state after completion is over
  */
@@ -780,5 +780,16 @@ public void setSource(char[] sourceString) {
 	if (!Parser.DO_DIET_PARSE && AssistParser.STOP_AT_CURSOR)
 		this.eofPosition=this.cursorLocation+1;
 }
+// arian
+public void release() {
+	this.cursorLocation = 0;
+	super.release();
+	this.completionIdentifier = null;
+	this.endOfEmptyToken = -1;
+	this.completedIdentifierStart = 0;
+	this.completedIdentifierEnd = -1;
+	this.unicodeCharSize = 0;
+}
+// ---
 
 }
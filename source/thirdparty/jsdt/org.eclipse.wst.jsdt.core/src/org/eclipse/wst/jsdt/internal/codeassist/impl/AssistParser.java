@@ -1029,6 +1029,14 @@ public void recoveryTokenCheck() {
 public void reset(){
 	this.flushAssistState();
 }
+// arian: back to the state of a new parser, before it is pooled
+public void release() {
+	super.release();
+	this.assistNode = null;
+	this.isOrphanCompletionNode = false;
+	this.isFirst = false;
+	this.previousToken = 0;
+}
 /*
  * Reset context so as to resume to regular parse loop
  * If unable to reset for resuming, answers false.
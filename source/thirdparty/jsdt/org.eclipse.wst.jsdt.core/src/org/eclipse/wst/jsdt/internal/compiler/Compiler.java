@@ -665,7 +665,7 @@ public class Compiler implements ITypeRequestor, ProblemSeverities, ITypeRequest
 				unit.scope.faultInTypes();
 
 				// type checking
-				unit.resolve();
+				resolveUnit(unit);
 
 				// flow analysis
 				if (analyzeCode && this.options.enableSemanticValidation) unit.analyseCode();
@@ -715,6 +715,14 @@ public class Compiler implements ITypeRequestor, ProblemSeverities, ITypeRequest
 			generateCode);
 	}
 
+	// arian: the reconcile can resolve only the changed statements (see CompilationUnitProblemFinder)
+	/**
+	 * Type checks the unit resolved by resolve(...), after its types are faulted in.
+	 */
+	protected void resolveUnit(CompilationUnitDeclaration unit) {
+		unit.resolve();
+	}
+
 	public void accept(ICompilationUnit sourceUnit, char[][] typeNames, AccessRestriction accessRestriction) {
 		// Switch the current policy and compilation result for this unit to the requested one.
 		CompilationResult unitResult =
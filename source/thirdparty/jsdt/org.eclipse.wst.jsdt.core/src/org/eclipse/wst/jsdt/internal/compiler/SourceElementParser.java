@@ -115,6 +115,14 @@ public class SourceElementParser extends CommentRecorderParser {
 	HashMap nodesToCategories = new HashMap(); // a map from ASTNode to char[][]
 	boolean useSourceJavadocParser = true;
 	HashtableOfObject notifiedTypes=new HashtableOfObject();
+	// arian: the locals of the context declaration notifier belong to the parser, so they are reset with each unit
+	/**
+	 * Key: int - function depth
+	 * <br/>
+	 * Value: <code>ArrayList&ltString></code> locals defined at key depth
+	 */
+	HashtableOfInt locals = new HashtableOfInt();
+	// ---
 	
 	
 	public static final boolean NOTIFY_LOCALS=false;
@@ -161,13 +169,6 @@ public class LocalDeclarationVisitor extends ASTVisitor {
 	 */
 	protected ASTVisitor contextDeclarationNotifier = new ASTVisitor(){
 		
-		/**
-		 * Key: int - function depth
-		 * <br/>
-		 * Value: <code>ArrayList&ltString></code> locals defined at key depth
-		 */
-		private HashtableOfInt locals = new HashtableOfInt();
-
 		public boolean visit(LocalDeclaration localDeclaration, BlockScope scope) {
 			if (NOTIFY_LOCALS || nestedMethodIndex==1) {
 				notifySourceElementRequestor( localDeclaration, null );
@@ -368,6 +369,13 @@ public void setRequestor(ISourceElementRequestor requestor) {
 	notifiedTypes.clear();
 }
 
+// arian: this parser keeps its own problem reporter, the pool key has all its options
+public void release() {
+	super.release();
+	setRequestor(null);
+	this.sourceType = null;
+}
+
 private void acceptJavadocTypeReference(Expression expression) {
 	if (expression instanceof JavadocSingleTypeReference) {
 		JavadocSingleTypeReference singleRef = (JavadocSingleTypeReference) expression;
@@ -1603,6 +1611,9 @@ private void reset() {
 	typeNames = new char[4][];
 	superTypeNames = new char[4][];
 	nestedTypeIndex = 0;
+	// arian: the top level locals of this unit are not declared in the next unit
+	this.locals = new HashtableOfInt();
+	// ---
 }
 private int sourceEnd(TypeDeclaration typeDeclaration) {
 	if ((typeDeclaration.bits & ASTNode.IsAnonymousType) != 0) {
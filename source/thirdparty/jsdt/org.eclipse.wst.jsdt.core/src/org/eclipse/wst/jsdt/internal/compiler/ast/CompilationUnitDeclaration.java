@@ -469,6 +469,49 @@ public class CompilationUnitDeclaration
 		}
 	}
 
+	// arian: for the incremental reconcile (see CompilationUnitProblemFinder)
+	/**
+	 * Resolves like resolve(), but only the statements flagged in the given array. The
+	 * problem count of the result is stored in problemEnds[0] before the first statement,
+	 * and in problemEnds[i + 1] after the statement i.
+	 */
+	public void resolve(boolean[] resolvedStatements, int[] problemEnds) {
+		if (this.javadoc != null) {
+			this.javadoc.resolve(this.scope);
+		}
+		try {
+			if (types != null) {
+				for (int i = 0, count = types.length; i < count; i++) {
+					types[i].resolve(scope);
+				}
+			}
+			problemEnds[0] = this.compilationResult.problemCount;
+			if (statements != null) {
+				for (int i = 0, count = statements.length; i < count; i++) {
+					if (resolvedStatements[i])
+						statements[i].resolve(scope);
+					problemEnds[i + 1] = this.compilationResult.problemCount;
+				}
+			}
+			reportNLSProblems();
+		} catch (AbortCompilationUnit e) {
+			this.ignoreFurtherInvestigation = true;
+			return;
+		}
+	}
+
+	/**
+	 * Resolves the given top-level statement, after {@link #resolve(boolean[], int[])} left it unresolved.
+	 */
+	public void resolveStatement(int index) {
+		try {
+			statements[index].resolve(scope);
+		} catch (AbortCompilationUnit e) {
+			this.ignoreFurtherInvestigation = true;
+		}
+	}
+	// ---
+
 	public void resolve(int start, int end) {
 		try {
 			int startingTypeIndex = 0;
@@ -5318,6 +5318,58 @@ public void initializeScanner(){
 		this.options.taskPriorites/*taskPriorities*/,
 		this.options.isTaskCaseSensitive/*taskCaseSensitive*/);
 }
+// arian
+/*
+ * Binds this parser, taken from the ParserPool, to the problem reporter and the
+ * options of its new client.
+ */
+public void recycle(ProblemReporter reporter) {
+	this.problemReporter = reporter;
+	this.options = reporter.options;
+}
+/*
+ * Clears the state left by the last parse before this parser is kept by the ParserPool,
+ * so it does not retain the last unit and the next parse starts like with a new parser.
+ */
+public void release() {
+	this.initialize();
+	this.javadoc = null;
+	this.inferenceEngines = null;
+	this.methodRecoveryActivated = false;
+	this.statementRecoveryActivated = false;
+	this.enteredRecoverStatements = false;
+	this.insertedSemicolonPosition = -1;
+	this.recoveredTypes = null;
+	this.pendingRecoveredType = null;
+	this.recoveryScanner = null;
+	if (this.scanner instanceof RecoveryScanner) {
+		// an exception in the recovery of the statements left the recovery scanner
+		this.initializeScanner();
+	}
+	this.scanner.release();
+	this.currentToken = 0;
+	this.firstToken = 0;
+	this.lastAct = 0;
+	this.nextIgnoredToken = 0;
+	this.stateStackTop = 0;
+	this.dietInt = 0;
+	this.diet = false;
+	this.lastCheckPoint = -1;
+	this.lastErrorEndPosition = -1;
+	this.lastErrorEndPositionBeforeRecovery = -1;
+	this.restartRecovery = false;
+	this.hasReportedError = false;
+	this.hasError = false;
+	this.currentElement = null;
+	if (this.javadocParser != null) {
+		this.javadocParser.docComment = null;
+		this.javadocParser.scanner.setSource((char[]) null);
+	}
+	if (this.problemReporter != null) {
+		this.problemReporter.referenceContext = null;
+	}
+}
+// ---
 public void jumpOverMethodBody() {
 	//on diet parsing.....do not buffer method statements
 
@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright (c) 2000, 2007 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.jsdt.internal.compiler.parser;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.wst.jsdt.internal.compiler.impl.CompilerOptions;
+import org.eclipse.wst.jsdt.internal.compiler.problem.ProblemReporter;
+
+/**
+ * Keeps, per thread, the parsers (and their scanners) released by the reconcile, the code
+ * assist and the indexing, to reuse them for the next unit instead of allocating new stacks.
+ * <p>
+ * A parser is taken from the pool with {@link #acquire(Object, ProblemReporter)} and given
+ * back with {@link #release(Object, Parser)}, on the same thread. It is not shared while taken,
+ * so a nested parse on the same thread gets a new parser. The key tells which parsers are
+ * interchangeable: the parser class and the options read when the parser is created.
+ * </p>
+ */
+public class ParserPool {
+
+	public static boolean ENABLED = !"false".equals(System.getProperty("org.eclipse.wst.jsdt.core.parserPool")); //$NON-NLS-1$ //$NON-NLS-2$
+
+	// the parsers of a thread, for different keys
+	private static final int MAX_PARSERS = 8;
+
+	private static final ThreadLocal parsers = new ThreadLocal() {
+		protected Object initialValue() {
+			return new HashMap();
+		}
+	};
+
+	private static final class Key {
+		private final Object[] values;
+		private final int hashCode;
+
+		Key(Object[] values) {
+			this.values = values;
+			this.hashCode = Arrays.deepHashCode(values);
+		}
+
+		public boolean equals(Object obj) {
+			return obj instanceof Key && Arrays.deepEquals(this.values, ((Key) obj).values);
+		}
+
+		public int hashCode() {
+			return this.hashCode;
+		}
+	}
+
+	private ParserPool() {
+		// static only
+	}
+
+	/**
+	 * Answers the key of the parsers of the given class created with the given options.
+	 * The options that are not read by the constructors (recovery, inference...) are
+	 * read while parsing, from the problem reporter given to {@link #acquire}.
+	 */
+	public static Object getKey(Class parserClass, CompilerOptions options, boolean optimizeStringLiterals) {
+		return new Key(new Object[] {
+			parserClass,
+			Boolean.valueOf(optimizeStringLiterals),
+			new Long(options.sourceLevel),
+			new Long(options.complianceLevel),
+			options.taskTags,
+			options.taskPriorites,
+			Boolean.valueOf(options.isTaskCaseSensitive),
+			Boolean.valueOf(options.docCommentSupport)
+		});
+	}
+
+	/**
+	 * Answers the key of the parsers of the given class created with the given settings (a map
+	 * of options, or the compiler options themselves), for the parsers that keep all their
+	 * options and their own problem reporter (like the source element parsers).
+	 */
+	public static Object getKey(Class parserClass, Object settings) {
+		return new Key(new Object[] { parserClass, settings });
+	}
+
+	/**
+	 * Takes the parser of the current thread for the given key, or answers <code>null</code>
+	 * if there is none and the client has to create it. If a problem reporter is given the
+	 * parser reports to it, else it keeps its own.
+	 */
+	public static Parser acquire(Object key, ProblemReporter problemReporter) {
+		if (!ENABLED) return null;
+		Parser parser = (Parser) ((Map) parsers.get()).remove(key);
+		if (parser != null && problemReporter != null) {
+			parser.recycle(problemReporter);
+		}
+		return parser;
+	}
+
+	/**
+	 * Gives back to the pool of the current thread a parser that is not used anymore.
+	 */
+	public static void release(Object key, Parser parser) {
+		if (!ENABLED || parser == null) return;
+		parser.release();
+		Map pool = (Map) parsers.get();
+		if (pool.size() >= MAX_PARSERS && !pool.containsKey(key)) {
+			pool.clear();
+		}
+		pool.put(key, parser);
+	}
+}
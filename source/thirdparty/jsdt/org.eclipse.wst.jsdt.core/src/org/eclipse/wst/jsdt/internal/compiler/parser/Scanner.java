@@ -4072,6 +4072,38 @@ public final void setSource(char[] contents, CompilationResult compilationResult
 public final void setSource(CompilationResult compilationResult) {
 	setSource(null, compilationResult);
 }
+// arian
+/*
+ * Clears the state left by the last scanned source, so the next source is scanned like
+ * with a new scanner (see ParserPool). The identifier tables are kept.
+ */
+public void release() {
+	setSource((char[]) null);
+	this.eofPosition = Integer.MAX_VALUE;
+	this.startPosition = 0;
+	this.currentCharacter = 0;
+	this.currentToken = 0;
+	this.currentNonWhitespaceToken = 0;
+	this.pushedBack = false;
+	this.insideRecovery = false;
+	this.diet = false;
+	this.wasAcr = false;
+	this.recordLineSeparator = false;
+	this.returnOnlyGreater = false;
+	this.scanningFloatLiteral = false;
+	this.unicodeAsBackSlash = false;
+	this.withoutUnicodePtr = 0;
+	this.commentPtr = -1;
+	this.lastCommentLinePosition = -1;
+	this.foundTaskTags = null;
+	this.foundTaskMessages = null;
+	this.foundTaskPriorities = null;
+	this.foundTaskPositions = null;
+	this.foundTaskCount = 0;
+	this.nlsTags = null;
+	this.nlsTagsPtr = 0;
+}
+// ---
 public String toString() {
 	if (this.startPosition == this.eofPosition)
 		return "EOF\n\n" + new String(this.source); //$NON-NLS-1$
@@ -52,6 +52,7 @@ import org.eclipse.wst.jsdt.core.LibrarySuperType;
 import org.eclipse.wst.jsdt.core.WorkingCopyOwner;
 import org.eclipse.wst.jsdt.core.compiler.CharOperation;
 import org.eclipse.wst.jsdt.internal.compiler.IProblemFactory;
+import org.eclipse.wst.jsdt.internal.compiler.ISourceElementRequestor;
 import org.eclipse.wst.jsdt.internal.compiler.SourceElementParser;
 import org.eclipse.wst.jsdt.internal.compiler.ast.CompilationUnitDeclaration;
 import org.eclipse.wst.jsdt.internal.compiler.env.IBinaryType;
@@ -159,10 +160,36 @@ protected boolean buildStructure(OpenableElementInfo info, IProgressMonitor pm,
 		// disable task tags checking to speed up parsing
 		options.put(JavaScriptCore.COMPILER_TASK_TAGS, ""); //$NON-NLS-1$
 	}
+
+	CompilerOptions compilerOptions = new CompilerOptions(options);
+
+	// system libraries are replayed from their snapshot, when it is up to date
+	File snapshotFile = null;
+	long configuration = 0;
+	char[] contents = null;
+	LibrarySnapshot snapshot = null;
+	if (!createAST && this.filePath != null && this.name.indexOf(JAR_FILE_ENTRY_SEPARATOR) < 0) {
+		snapshotFile = LibrarySnapshot.getSnapshotFile(this.filePath.toOSString(), LibrarySnapshot.STRUCTURE);
+		if (snapshotFile != null) {
+			contents = getContents();
+			configuration = LibrarySnapshot.getConfiguration(compilerOptions);
+			if (LibrarySnapshot.replay(snapshotFile, LibrarySnapshot.STRUCTURE, configuration, contents, requestor)) {
+				if (underlyingResource == null) {
+					underlyingResource = getResource();
+				}
+				if (underlyingResource != null)
+					unitInfo.timestamp = ((IFile)underlyingResource).getModificationStamp();
+				info.setChildren(unitInfo.children);
+				return true;
+			}
+			snapshot = new LibrarySnapshot(requestor);
+		}
+	}
+
 	SourceElementParser parser = new SourceElementParser(
-		requestor,
+		snapshot != null ? (ISourceElementRequestor) snapshot : requestor,
 		problemFactory,
-		new CompilerOptions(options),
+		compilerOptions,
 		true/*report local declarations*/,
 		!createAST /*optimize string literals only if not creating a DOM AST*/);
 	parser.reportOnlyOneSyntaxError = !computeProblems;
@@ -175,6 +202,9 @@ protected boolean buildStructure(OpenableElementInfo info, IProgressMonitor pm,
 		parser.parseCompilationUnit(
 			this,
 		true /*full parse to find local elements*/);
+	if (snapshot != null && unit != null) {
+		snapshot.save(snapshotFile, LibrarySnapshot.STRUCTURE, configuration, contents);
+	}
 
 	// update timestamp (might be IResource.NULL_STAMP if original does not exist)
 	if (underlyingResource == null) {
@@ -266,7 +266,8 @@ public class CompilationUnit extends Openable implements IJavaScriptUnit, org.ec
 				((ASTHolderCUInfo) info).ast = cu;
 			}
 		} finally {
-		    if (compilationUnitDeclaration != null) {
+		    // arian: the unit is cleaned up when the DOM AST does not need it to resolve the pending statements
+		    if (compilationUnitDeclaration != null && IncrementalReconcile.getPending(this, compilationUnitDeclaration) == null) {
 		        compilationUnitDeclaration.cleanUp();
 		        if (compilationUnitDeclaration.scope!=null)
 		        	compilationUnitDeclaration.scope.cleanup();
@@ -38,6 +38,7 @@ import org.eclipse.wst.jsdt.internal.compiler.impl.CompilerOptions;
 import org.eclipse.wst.jsdt.internal.compiler.impl.ITypeRequestor2;
 import org.eclipse.wst.jsdt.internal.compiler.lookup.PackageBinding;
 import org.eclipse.wst.jsdt.internal.compiler.parser.Parser;
+import org.eclipse.wst.jsdt.internal.compiler.parser.ParserPool;
 import org.eclipse.wst.jsdt.internal.compiler.parser.SourceTypeConverter;
 import org.eclipse.wst.jsdt.internal.compiler.problem.AbortCompilationUnit;
 import org.eclipse.wst.jsdt.internal.compiler.util.HashtableOfObject;
@@ -52,6 +53,12 @@ import org.eclipse.wst.jsdt.internal.core.util.Util;
  */
 public class CompilationUnitProblemFinder extends Compiler implements ITypeRequestor2 {
 
+	// the pool key of the parser, set by initializeParser() from the super constructor (so no initializer)
+	private Object parserKey;
+
+	// arian: the statements to resolve and the problems to reuse, if the reconcile is incremental
+	IncrementalReconcile incrementalReconcile;
+
 	/**
 	 * Answer a new CompilationUnitVisitor using the given name environment and compiler options.
 	 * The environment and options will be in effect for the lifetime of the compiler.
@@ -252,8 +259,22 @@ public class CompilationUnitProblemFinder extends Compiler implements ITypeReque
 				getRequestor(),
 				problemFactory);
 			if (parser != null) {
+				problemFinder.releaseParser();
 				problemFinder.parser = parser;
 			}
+			// arian: resolve only the statements changed since the previous reconcile of the working copy
+			JavaModelManager.PerWorkingCopyInfo perWorkingCopyInfo = null;
+			if (IncrementalReconcile.ENABLED && !problemFinder.options.enableSemanticValidation
+					&& contents != null && contents.length >= IncrementalReconcile.MIN_LENGTH && unitElement instanceof CompilationUnit) {
+				perWorkingCopyInfo = ((CompilationUnit) unitElement).getPerWorkingCopyInfo();
+			}
+			if (perWorkingCopyInfo != null) {
+				problemFinder.incrementalReconcile = new IncrementalReconcile(perWorkingCopyInfo.reconcileState, contents, creatingAST);
+				perWorkingCopyInfo.reconcileState = null;
+			} else {
+				IncrementalReconcile.flush();
+			}
+			// ---
 			PackageFragment packageFragment = (PackageFragment)unitElement.getAncestor(IJavaScriptElement.PACKAGE_FRAGMENT);
 			char[][] expectedPackageName = null;
 			if (packageFragment != null){
@@ -277,6 +298,9 @@ public class CompilationUnitProblemFinder extends Compiler implements ITypeReque
 					true, // analyze code
 					true); // generate code
 			}
+			if (perWorkingCopyInfo != null && unit != null && !unit.ignoreFurtherInvestigation) {
+				perWorkingCopyInfo.reconcileState = problemFinder.incrementalReconcile;
+			}
 			if (unit != null) {
 				CompilationResult unitResult = unit.compilationResult;
 				CategorizedProblem[] unitProblems = unitResult.getProblems();
@@ -297,6 +321,7 @@ public class CompilationUnitProblemFinder extends Compiler implements ITypeReque
 			if (NameLookup.VERBOSE) {
 				System.out.println(Thread.currentThread() + " TIME SPENT in NameLoopkup#seekTypesInSourcePackage: " + environment.nameLookup.timeSpentInSeekTypesInSourcePackage + "ms");  //$NON-NLS-1$ //$NON-NLS-2$
 				System.out.println(Thread.currentThread() + " TIME SPENT in NameLoopkup#seekTypesInBinaryPackage: " + environment.nameLookup.timeSpentInSeekTypesInBinaryPackage + "ms");  //$NON-NLS-1$ //$NON-NLS-2$
+				System.out.println(Thread.currentThread() + " NameLookup answers cache: " + environment.nameLookup.answersCacheHits + " hits, " + environment.nameLookup.answersCacheMisses + " misses");  //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 			}
 			return unit;
 		} catch (OperationCanceledException e) {
@@ -319,8 +344,11 @@ public class CompilationUnitProblemFinder extends Compiler implements ITypeReque
 			if (problemFactory != null)
 				problemFactory.monitor = null; // don't hold a reference to this external object
 			// NB: unit.cleanUp() is done by caller
-			if (problemFinder != null )//&& !creatingAST)
+			// arian: the statements pending for the DOM AST are resolved later with this environment and parser
+			if (problemFinder != null && (problemFinder.incrementalReconcile == null || !problemFinder.incrementalReconcile.hasPending())) {//&& !creatingAST)
 				problemFinder.lookupEnvironment.reset();
+				problemFinder.releaseParser();
+			}
 		}
 	}
 
@@ -342,7 +370,33 @@ public class CompilationUnitProblemFinder extends Compiler implements ITypeReque
 	 * @see org.eclipse.wst.jsdt.internal.compiler.Compiler#initializeParser()
 	 */
 	public void initializeParser() {
-		this.parser = new CommentRecorderParser(this.problemReporter, this.options.parseLiteralExpressionsAsConstants);
+		// arian: reuse the parser released by the previous reconcile of this thread
+		this.parserKey = ParserPool.getKey(CommentRecorderParser.class, this.options, this.options.parseLiteralExpressionsAsConstants);
+		this.parser = ParserPool.acquire(this.parserKey, this.problemReporter);
+		if (this.parser == null) {
+			this.parser = new CommentRecorderParser(this.problemReporter, this.options.parseLiteralExpressionsAsConstants);
+		}
+	}
+
+	/*
+	 * Resolves only the statements changed since the previous reconcile, if it is incremental.
+	 */
+	protected void resolveUnit(CompilationUnitDeclaration unit) {
+		if (this.incrementalReconcile != null) {
+			this.incrementalReconcile.resolve(unit);
+		} else {
+			super.resolveUnit(unit);
+		}
+	}
+
+	/*
+	 * Gives back the parser created by initializeParser() to the pool.
+	 */
+	void releaseParser() {
+		if (this.parserKey != null) {
+			ParserPool.release(this.parserKey, this.parser);
+			this.parserKey = null;
+		}
 	}
 }
 
@@ -47,6 +47,7 @@ import org.eclipse.wst.jsdt.core.IPackageFragmentRoot;
 import org.eclipse.wst.jsdt.core.JavaScriptCore;
 import org.eclipse.wst.jsdt.core.JavaScriptModelException;
 import org.eclipse.wst.jsdt.core.compiler.CharOperation;
+import org.eclipse.wst.jsdt.internal.codeassist.CompletionCache;
 import org.eclipse.wst.jsdt.internal.compiler.SourceElementParser;
 import org.eclipse.wst.jsdt.internal.core.builder.JavaBuilder;
 import org.eclipse.wst.jsdt.internal.core.hierarchy.TypeHierarchy;
@@ -1360,6 +1361,8 @@ public class DeltaProcessor {
 
 		// Refresh internal scopes
 		if (deltaToNotify != null) {
+			// arian: the name lookups may have cached a changed element, or its absence
+			NameLookup.flushAnswers();
 			Iterator scopes = this.manager.searchScopes.keySet().iterator();
 			while (scopes.hasNext()) {
 				AbstractSearchScope scope = (AbstractSearchScope)scopes.next();
@@ -1428,6 +1431,10 @@ public class DeltaProcessor {
 			System.out.println(deltaToNotify == null ? "<NONE>" : deltaToNotify.toString()); //$NON-NLS-1$
 		}
 		if (deltaToNotify != null) {
+			// arian: a working copy changed its elements
+			NameLookup.flushAnswers();
+			// arian: the proposals of the last completion may refer to an element of other working copy
+			CompletionCache.flush(this.reconcileDeltas.keySet());
 			// flush now so as to keep listener reactions to post their own deltas for subsequent iteration
 			this.reconcileDeltas = new HashMap();
 
@@ -1894,6 +1901,10 @@ public class DeltaProcessor {
 
 			case IResourceChangeEvent.POST_CHANGE :
 				if (isAffectedBy(delta)) { // avoid populating for SYNC or MARKER deltas
+					// arian: the proposals of the last completion may refer to a changed file
+					CompletionCache.flush();
+					// arian: the problems of the last reconcile may refer to a changed file
+					IncrementalReconcile.flush();
 					try {
 						try {
 							stopDeltas();
@@ -21,17 +21,28 @@ public class ElementCache extends OverflowingLRUCache {
 
 	IJavaScriptElement spaceLimitParent = null;
 
+	// arian
+	/*
+	 * The space limit when no parent needs more space, adapted to the hit rate by the JavaModelCache,
+	 * and the statistics of the cache when it was adapted the last time.
+	 */
+	int baseLimit;
+	long adaptedHits, adaptedMisses, adaptedEvictions;
+	// ---
+
 /**
  * Constructs a new element cache of the given size.
  */
 public ElementCache(int size) {
 	super(size);
+	this.baseLimit = size; // arian
 }
 /**
  * Constructs a new element cache of the given size.
  */
 public ElementCache(int size, int overflow) {
 	super(size, overflow);
+	this.baseLimit = size; // arian
 }
 /**
  * Returns true if the element is successfully closed and
@@ -76,6 +87,20 @@ protected void ensureSpaceLimit(int childrenSize, IJavaScriptElement parent) {
 	}
 }
 
+// arian
+/*
+ * Changes the space limit used when no parent needs more space. The current space limit
+ * is kept if a parent needs more than the new base limit.
+ */
+protected void setBaseLimit(int limit) {
+	this.baseLimit = limit;
+	if (this.spaceLimitParent == null || fSpaceLimit < limit) {
+		setSpaceLimit(limit);
+		this.spaceLimitParent = null;
+	}
+}
+// ---
+
 /*
  * Returns a new instance of the receiver.
  */
@@ -0,0 +1,539 @@
+/*******************************************************************************
+ * Copyright (c) 2000, 2007 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.jsdt.internal.core;
+
+import java.util.Arrays;
+
+import org.eclipse.wst.jsdt.core.compiler.CategorizedProblem;
+import org.eclipse.wst.jsdt.internal.compiler.ASTVisitor;
+import org.eclipse.wst.jsdt.internal.compiler.CompilationResult;
+import org.eclipse.wst.jsdt.internal.compiler.ast.AbstractMethodDeclaration;
+import org.eclipse.wst.jsdt.internal.compiler.ast.AbstractVariableDeclaration;
+import org.eclipse.wst.jsdt.internal.compiler.ast.Assignment;
+import org.eclipse.wst.jsdt.internal.compiler.ast.CompilationUnitDeclaration;
+import org.eclipse.wst.jsdt.internal.compiler.ast.CompoundAssignment;
+import org.eclipse.wst.jsdt.internal.compiler.ast.Expression;
+import org.eclipse.wst.jsdt.internal.compiler.ast.FieldReference;
+import org.eclipse.wst.jsdt.internal.compiler.ast.LocalDeclaration;
+import org.eclipse.wst.jsdt.internal.compiler.ast.MessageSend;
+import org.eclipse.wst.jsdt.internal.compiler.ast.MethodDeclaration;
+import org.eclipse.wst.jsdt.internal.compiler.ast.ObjectLiteralField;
+import org.eclipse.wst.jsdt.internal.compiler.ast.ProgramElement;
+import org.eclipse.wst.jsdt.internal.compiler.ast.QualifiedNameReference;
+import org.eclipse.wst.jsdt.internal.compiler.ast.SingleNameReference;
+import org.eclipse.wst.jsdt.internal.compiler.ast.SingleTypeReference;
+import org.eclipse.wst.jsdt.internal.compiler.ast.StringLiteral;
+import org.eclipse.wst.jsdt.internal.compiler.lookup.BlockScope;
+import org.eclipse.wst.jsdt.internal.compiler.lookup.ClassScope;
+import org.eclipse.wst.jsdt.internal.compiler.lookup.LookupEnvironment;
+import org.eclipse.wst.jsdt.internal.compiler.lookup.Scope;
+import org.eclipse.wst.jsdt.internal.compiler.problem.DefaultProblem;
+import org.eclipse.wst.jsdt.internal.compiler.problem.ProblemSeverities;
+import org.eclipse.wst.jsdt.internal.compiler.util.SimpleSetOfCharArray;
+import org.eclipse.wst.jsdt.internal.compiler.util.Util;
+
+/**
+ * Limits the type checking of a reconcile to the top-level statements changed since the
+ * previous reconcile of the same working copy, and reuses the problems of the others.
+ * <p>
+ * A statement is resolved again when its source range overlaps the changed region, when it
+ * refers to a name declared by a changed statement (its dependents, transitively), and when it
+ * declares a name referred by an earlier resolved statement (the type checking of a statement
+ * completes the bindings of the statements after it). The problems of the other statements
+ * are copied from the previous reconcile, moved by the length of the change.
+ * </p>
+ * <p>
+ * If the reconcile creates a DOM AST, the statements that are not type checked are pending: the
+ * unit and its lookup environment are kept, and a pending statement is resolved when the DOM asks
+ * the binding of one of its nodes (see {@link #resolvePending(int)}).
+ * </p>
+ * <p>
+ * The problems of a unit also depend on the other units, so the state of a reconcile is only
+ * reused by the next problem detection if no other unit was reconciled in between and no
+ * resource changed (see {@link #flush()}).
+ * </p>
+ */
+public class IncrementalReconcile {
+
+	public static boolean ENABLED = !"false".equals(System.getProperty("org.eclipse.wst.jsdt.core.incrementalReconcile")); //$NON-NLS-1$ //$NON-NLS-2$
+
+	// the smaller units are always fully resolved
+	static int MIN_LENGTH = 10000;
+
+	// incremented by each problem detection and by each resource change
+	private static int generation;
+
+	private IncrementalReconcile previous;
+	private final int stateGeneration;
+	private final char[] contents;
+	private final boolean creatingAST;
+
+	// per top-level statement: the range (from the end of the previous statement), the names
+	// and the problems (null if they cannot be reused)
+	int[] starts;
+	int[] ends;
+	private SimpleSetOfCharArray[] declaredNames;
+	private CategorizedProblem[][] problems;
+
+	// the number of statements resolved by the last reconcile, for the tests and the tracing
+	int resolvedCount;
+
+	// the resolved unit and the statements it did not resolve yet, if it is converted to a DOM AST
+	private CompilationUnitDeclaration unit;
+	private boolean[] pending;
+	private int pendingCount;
+	private SimpleSetOfCharArray[] referencedNames;
+
+	/**
+	 * Creates the state of a new problem detection of the given contents, that can reuse
+	 * the problems of the given previous state of the same working copy.
+	 */
+	IncrementalReconcile(IncrementalReconcile previous, char[] contents) {
+		this(previous, contents, false);
+	}
+
+	/**
+	 * Creates the state of a new problem detection, that keeps the statements it does not
+	 * resolve pending if the problem detection creates a DOM AST.
+	 */
+	IncrementalReconcile(IncrementalReconcile previous, char[] contents, boolean creatingAST) {
+		this.stateGeneration = nextGeneration();
+		this.contents = contents;
+		this.creatingAST = creatingAST;
+		if (previous != null) {
+			// the DOM AST of the previous reconcile is outdated, its pending statements are not resolved anymore
+			previous.release();
+		}
+		if (previous != null && previous.stateGeneration == this.stateGeneration - 1 && previous.problems != null) {
+			this.previous = previous;
+		}
+	}
+
+	/**
+	 * Discards the states of the reconciles, when the resources change.
+	 */
+	public static synchronized void flush() {
+		generation++;
+	}
+
+	private static synchronized int nextGeneration() {
+		return ++generation;
+	}
+
+	/**
+	 * Collects the names declared and referred by a statement, with the names of all the members
+	 * (a member access is a reference to all the members with the same name).
+	 */
+	private static final class NameCollector extends ASTVisitor {
+		SimpleSetOfCharArray declared;
+		SimpleSetOfCharArray referenced;
+
+		void collect(ProgramElement statement, BlockScope scope) {
+			this.declared = new SimpleSetOfCharArray(3);
+			this.referenced = new SimpleSetOfCharArray(10);
+			statement.traverse(this, scope);
+		}
+
+		private void declare(char[] name) {
+			if (name != null) {
+				this.declared.add(name);
+				this.referenced.add(name);
+			}
+		}
+
+		private void declare(Expression expression) {
+			if (expression instanceof SingleNameReference) {
+				declare(((SingleNameReference) expression).token);
+			} else if (expression instanceof FieldReference) {
+				declare(((FieldReference) expression).token);
+			} else if (expression instanceof StringLiteral) {
+				declare(((StringLiteral) expression).source());
+			}
+		}
+
+		private void reference(char[] name) {
+			if (name != null) {
+				this.referenced.add(name);
+			}
+		}
+
+		public boolean visit(Assignment assignment, BlockScope scope) {
+			declare(assignment.lhs);
+			return true;
+		}
+
+		public boolean visit(CompoundAssignment compoundAssignment, BlockScope scope) {
+			declare(compoundAssignment.lhs);
+			return true;
+		}
+
+		public boolean visit(LocalDeclaration localDeclaration, BlockScope scope) {
+			declare(localDeclaration.name);
+			return true;
+		}
+
+		public boolean visit(MethodDeclaration methodDeclaration, Scope scope) {
+			declare(methodDeclaration.selector);
+			return true;
+		}
+
+		public boolean visit(ObjectLiteralField field, BlockScope scope) {
+			declare(field.fieldName);
+			return true;
+		}
+
+		public boolean visit(SingleNameReference singleNameReference, BlockScope scope) {
+			reference(singleNameReference.token);
+			return true;
+		}
+
+		public boolean visit(SingleNameReference singleNameReference, ClassScope scope) {
+			reference(singleNameReference.token);
+			return true;
+		}
+
+		public boolean visit(FieldReference fieldReference, BlockScope scope) {
+			reference(fieldReference.token);
+			return true;
+		}
+
+		public boolean visit(FieldReference fieldReference, ClassScope scope) {
+			reference(fieldReference.token);
+			return true;
+		}
+
+		public boolean visit(MessageSend messageSend, BlockScope scope) {
+			reference(messageSend.selector);
+			return true;
+		}
+
+		public boolean visit(QualifiedNameReference qualifiedNameReference, BlockScope scope) {
+			for (int i = 0; i < qualifiedNameReference.tokens.length; i++) {
+				reference(qualifiedNameReference.tokens[i]);
+			}
+			return true;
+		}
+
+		public boolean visit(SingleTypeReference singleTypeReference, BlockScope scope) {
+			reference(singleTypeReference.token);
+			return true;
+		}
+	}
+
+	private static boolean intersects(SimpleSetOfCharArray set1, SimpleSetOfCharArray set2) {
+		if (set1.elementSize > set2.elementSize) {
+			SimpleSetOfCharArray set = set1;
+			set1 = set2;
+			set2 = set;
+		}
+		char[][] values = set1.values;
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] != null && set2.includes(values[i])) return true;
+		}
+		return false;
+	}
+
+	private static void addAll(SimpleSetOfCharArray set, SimpleSetOfCharArray names) {
+		char[][] values = names.values;
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] != null) set.add(values[i]);
+		}
+	}
+
+	/**
+	 * Type checks the statements of the given unit that changed since the previous state (or
+	 * all of them if there is no previous state), and records the problems of the others.
+	 */
+	void resolve(CompilationUnitDeclaration unit) {
+		ProgramElement[] statements = unit.statements == null ? new ProgramElement[0] : unit.statements;
+		int length = statements.length;
+		this.starts = new int[length];
+		this.ends = new int[length];
+		this.declaredNames = new SimpleSetOfCharArray[length];
+		SimpleSetOfCharArray[] referencedNames = new SimpleSetOfCharArray[length];
+		NameCollector collector = new NameCollector();
+		for (int i = 0; i < length; i++) {
+			this.starts[i] = i == 0 ? 0 : this.ends[i - 1] + 1;
+			this.ends[i] = getEnd(statements[i]);
+			collector.collect(statements[i], unit.scope);
+			this.declaredNames[i] = collector.declared;
+			referencedNames[i] = collector.referenced;
+		}
+
+		// the statement of the previous state reused by each statement (-1 if it is resolved)
+		int[] reused = new int[length];
+		int delta = 0;
+		IncrementalReconcile state = this.previous;
+		this.previous = null;
+		if (state == null || unit.types != null && unit.types.length > 0) {
+			for (int i = 0; i < length; i++) reused[i] = -1;
+		} else {
+			delta = findReused(state, referencedNames, reused);
+		}
+
+		int[] problemEnds = new int[length + 1];
+		Arrays.fill(problemEnds, -1);
+		boolean[] resolved = new boolean[length];
+		this.resolvedCount = 0;
+		for (int i = 0; i < length; i++) {
+			resolved[i] = reused[i] == -1;
+			if (resolved[i]) this.resolvedCount++;
+		}
+		unit.resolve(resolved, problemEnds);
+		CompilationResult result = unit.compilationResult;
+		if (unit.ignoreFurtherInvestigation) {
+			// like the full resolution, report the problems of the statements before the one that aborted,
+			// at the lines of the current line ends (they may be unknown)
+			for (int i = 0; i < length && problemEnds[i + 1] != -1; i++) {
+				if (resolved[i]) continue;
+				CategorizedProblem[] oldProblems = state.problems[reused[i]];
+				int problemDelta = this.starts[i] - state.starts[reused[i]];
+				for (int j = 0; j < oldProblems.length; j++)
+					result.record(move((DefaultProblem) oldProblems[j], problemDelta, result.getLineSeparatorPositions()), null);
+			}
+			return;
+		}
+
+		// copy the problems of the statements not resolved, at their new positions
+		this.problems = new CategorizedProblem[length][];
+		for (int i = 0; i < length; i++) {
+			if (resolved[i]) {
+				int count = problemEnds[i + 1] - problemEnds[i];
+				CategorizedProblem[] statementProblems = new CategorizedProblem[count];
+				if (count > 0) {
+					System.arraycopy(result.problems, problemEnds[i], statementProblems, 0, count);
+				}
+				this.problems[i] = isReusable(statementProblems, this.starts[i], this.ends[i]) ? statementProblems : null;
+			} else {
+				CategorizedProblem[] oldProblems = state.problems[reused[i]];
+				int problemDelta = this.starts[i] == state.starts[reused[i]] ? 0 : delta;
+				CategorizedProblem[] statementProblems = new CategorizedProblem[oldProblems.length];
+				for (int j = 0; j < oldProblems.length; j++) {
+					statementProblems[j] = problemDelta == 0 ? oldProblems[j] : move((DefaultProblem) oldProblems[j], problemDelta, result.getLineSeparatorPositions());
+					result.record(statementProblems[j], null);
+				}
+				this.problems[i] = statementProblems;
+			}
+		}
+
+		if (this.creatingAST && this.resolvedCount < length) {
+			// the bindings of the other statements are resolved when the DOM asks them
+			this.unit = unit;
+			this.pending = new boolean[length];
+			for (int i = 0; i < length; i++) this.pending[i] = !resolved[i];
+			this.pendingCount = length - this.resolvedCount;
+			this.referencedNames = referencedNames;
+		}
+	}
+
+	/**
+	 * Answers the state of the last reconcile of the given working copy, if it resolved the
+	 * given unit and some of its statements are pending, else null.
+	 */
+	public static IncrementalReconcile getPending(CompilationUnit workingCopy, CompilationUnitDeclaration unit) {
+		JavaModelManager.PerWorkingCopyInfo perWorkingCopyInfo = workingCopy.getPerWorkingCopyInfo();
+		IncrementalReconcile state = perWorkingCopyInfo == null ? null : perWorkingCopyInfo.reconcileState;
+		if (state == null || unit == null) return null;
+		synchronized (state) {
+			return state.unit == unit ? state : null;
+		}
+	}
+
+	/**
+	 * Resolves the pending statement at the given position, after the pending statements
+	 * before it that declare the names it refers (like {@link #resolve(CompilationUnitDeclaration)}).
+	 * Answers the source range of the resolved statements, or null if no statement was resolved.
+	 */
+	public synchronized int[] resolvePending(int position) {
+		if (this.unit == null) return null;
+		int index = -1;
+		for (int i = 0; i < this.starts.length; i++) {
+			if (this.starts[i] <= position && position <= this.ends[i]) {
+				index = i;
+				break;
+			}
+		}
+		if (index == -1 || !this.pending[index]) return null;
+
+		boolean[] statements = new boolean[this.starts.length];
+		statements[index] = true;
+		SimpleSetOfCharArray references = new SimpleSetOfCharArray();
+		addAll(references, this.referencedNames[index]);
+		for (int i = index - 1; i >= 0; i--) {
+			if (this.pending[i] && intersects(this.declaredNames[i], references)) {
+				statements[i] = true;
+				addAll(references, this.referencedNames[i]);
+			}
+		}
+		return resolvePending(statements);
+	}
+
+	/**
+	 * Resolves all the pending statements. Answers the source range of the resolved statements,
+	 * or null if no statement was pending.
+	 */
+	public synchronized int[] resolvePending() {
+		if (this.unit == null) return null;
+		return resolvePending(this.pending);
+	}
+
+	private int[] resolvePending(boolean[] statements) {
+		int start = -1;
+		int end = -1;
+		for (int i = 0; i < statements.length; i++) {
+			if (!statements[i] || !this.pending[i]) continue;
+			// the problems are not reported, the ones of the previous reconcile were
+			this.unit.resolveStatement(i);
+			this.pending[i] = false;
+			this.pendingCount--;
+			if (start == -1) start = this.starts[i];
+			end = this.ends[i];
+		}
+		if (this.pendingCount == 0 || this.unit.ignoreFurtherInvestigation) {
+			release();
+		}
+		return start == -1 ? null : new int[] { start, end };
+	}
+
+	/**
+	 * Cleans up the unit of the pending statements, they are not resolved anymore.
+	 */
+	public synchronized void release() {
+		if (this.unit == null) return;
+		// what CompilationUnitProblemFinder.process() and its callers do when nothing is pending
+		CompilationUnitDeclaration resolvedUnit = this.unit;
+		this.unit = null;
+		this.pending = null;
+		this.referencedNames = null;
+		resolvedUnit.cleanUp();
+		if (resolvedUnit.scope != null) {
+			LookupEnvironment environment = resolvedUnit.scope.environment();
+			resolvedUnit.scope.cleanup();
+			environment.reset();
+		}
+	}
+
+	/**
+	 * Answers whether the last resolution kept some statements pending.
+	 */
+	synchronized boolean hasPending() {
+		return this.unit != null;
+	}
+
+	/*
+	 * Marks the statements of the unit that can reuse the problems of the previous state, and
+	 * answers the difference between the new and old positions after the changed region.
+	 */
+	private int findReused(IncrementalReconcile state, SimpleSetOfCharArray[] referencedNames, int[] reused) {
+		char[] oldContents = state.contents;
+		int prefix = 0;
+		int max = Math.min(oldContents.length, this.contents.length);
+		while (prefix < max && oldContents[prefix] == this.contents[prefix]) prefix++;
+		int suffix = 0;
+		while (suffix < max - prefix && oldContents[oldContents.length - 1 - suffix] == this.contents[this.contents.length - 1 - suffix]) suffix++;
+		int delta = this.contents.length - oldContents.length;
+		int changeEnd = this.contents.length - suffix;
+
+		// the statements out of the changed region, with the same range
+		int length = this.starts.length;
+		int oldLength = state.starts.length;
+		boolean[] oldReused = new boolean[oldLength];
+		for (int i = 0; i < length; i++) {
+			int old = -1;
+			if (this.ends[i] < prefix) {
+				if (i < oldLength && state.starts[i] == this.starts[i] && state.ends[i] == this.ends[i]) {
+					old = i;
+				}
+			} else if (this.starts[i] >= changeEnd) {
+				int k = i + oldLength - length;
+				if (k >= 0 && k < oldLength && state.starts[k] == this.starts[i] - delta && state.ends[k] == this.ends[i] - delta) {
+					old = k;
+				}
+			}
+			if (old != -1 && state.problems[old] != null) {
+				reused[i] = old;
+				oldReused[old] = true;
+			} else {
+				reused[i] = -1;
+			}
+		}
+
+		// the names declared by the changed statements, before and after the change
+		SimpleSetOfCharArray changedNames = new SimpleSetOfCharArray();
+		for (int k = 0; k < oldLength; k++) {
+			if (!oldReused[k]) addAll(changedNames, state.declaredNames[k]);
+		}
+		for (int i = 0; i < length; i++) {
+			if (reused[i] == -1) addAll(changedNames, this.declaredNames[i]);
+		}
+
+		// the dependents of the changed names, and the statements declaring the names referred
+		// by an earlier resolved statement, until no more statement is resolved
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (int i = 0; i < length; i++) {
+				if (reused[i] != -1 && intersects(referencedNames[i], changedNames)) {
+					reused[i] = -1;
+					addAll(changedNames, this.declaredNames[i]);
+					changed = true;
+				}
+			}
+			SimpleSetOfCharArray laterReferences = new SimpleSetOfCharArray();
+			for (int i = length - 1; i >= 0; i--) {
+				if (reused[i] != -1 && intersects(this.declaredNames[i], laterReferences)) {
+					reused[i] = -1;
+					changed = true;
+				}
+				if (reused[i] == -1) addAll(laterReferences, referencedNames[i]);
+			}
+		}
+		return delta;
+	}
+
+	private static int getEnd(ProgramElement statement) {
+		if (statement instanceof AbstractMethodDeclaration) {
+			return Math.max(statement.sourceEnd, ((AbstractMethodDeclaration) statement).declarationSourceEnd);
+		}
+		if (statement instanceof AbstractVariableDeclaration) {
+			return Math.max(statement.sourceEnd, ((AbstractVariableDeclaration) statement).declarationSourceEnd);
+		}
+		return statement.sourceEnd;
+	}
+
+	/*
+	 * Answers whether the problems of a statement can be moved with it: they are all in its range.
+	 */
+	private static boolean isReusable(CategorizedProblem[] statementProblems, int start, int end) {
+		for (int i = 0; i < statementProblems.length; i++) {
+			CategorizedProblem problem = statementProblems[i];
+			if (!(problem instanceof DefaultProblem) || problem.getSourceStart() < start || problem.getSourceEnd() > end) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static CategorizedProblem move(DefaultProblem problem, int delta, int[] lineEnds) {
+		int start = problem.getSourceStart() + delta;
+		int line = Util.getLineNumber(start, lineEnds, 0, lineEnds.length - 1);
+		return new DefaultProblem(
+			problem.getOriginatingFileName(),
+			problem.getMessage(),
+			problem.getID(),
+			problem.getArguments(),
+			problem.isError() ? ProblemSeverities.Error : ProblemSeverities.Warning,
+			start,
+			problem.getSourceEnd() + delta,
+			line,
+			Util.searchColumnNumber(lineEnds, line, start));
+	}
+}
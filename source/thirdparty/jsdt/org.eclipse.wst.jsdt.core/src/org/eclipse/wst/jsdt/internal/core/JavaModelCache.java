@@ -29,6 +29,28 @@ public class JavaModelCache {
 
 	public static final Object NON_EXISTING_JAR_TYPE_INFO = new Object();
 
+	// arian
+	public static final String ROOT_CACHE = "Root cache"; //$NON-NLS-1$
+	public static final String PKG_CACHE = "Package cache"; //$NON-NLS-1$
+	public static final String OPENABLE_CACHE = "Openable cache"; //$NON-NLS-1$
+	public static final String JAR_TYPE_CACHE = "Jar type cache"; //$NON-NLS-1$
+
+	/*
+	 * The root, package and openable caches grow (up to MAX_GROWTH times their default size) when more than
+	 * MAX_MISS_RATE of their lookups did not find the element, and some elements were evicted, while at
+	 * least MIN_FREE_HEAP of the maximum heap is free. They shrink back to their default size when less
+	 * than LOW_FREE_HEAP is free. The caches are checked every ADAPT_INTERVAL lookups.
+	 */
+	public static boolean ADAPTIVE_SIZE = !"false".equals(System.getProperty("org.eclipse.wst.jsdt.core.adaptiveModelCache")); //$NON-NLS-1$ //$NON-NLS-2$
+	public static int ADAPT_INTERVAL = 500;
+	public static final double MAX_MISS_RATE = 0.05;
+	public static final double MIN_FREE_HEAP = 0.3;
+	public static final double LOW_FREE_HEAP = 0.1;
+	public static final int MAX_GROWTH = 8;
+
+	private int lookupsToAdapt = ADAPT_INTERVAL;
+	// ---
+
 	/*
 	 * The memory ratio that should be applied to the above constants.
 	 */
@@ -74,9 +96,9 @@ public JavaModelCache() {
 	double ratio = getMemoryRatio();
 	this.projectCache = new HashMap(DEFAULT_PROJECT_SIZE); // NB: Don't use a LRUCache for projects as they are constantly reopened (e.g. during delta processing)
 	if (VERBOSE) {
-		this.rootCache = new VerboseElementCache((int) (DEFAULT_ROOT_SIZE * ratio), "Root cache"); //$NON-NLS-1$
-		this.pkgCache = new VerboseElementCache((int) (DEFAULT_PKG_SIZE * ratio), "Package cache"); //$NON-NLS-1$
-		this.openableCache = new VerboseElementCache((int) (DEFAULT_OPENABLE_SIZE * ratio), "Openable cache"); //$NON-NLS-1$
+		this.rootCache = new VerboseElementCache((int) (DEFAULT_ROOT_SIZE * ratio), ROOT_CACHE);
+		this.pkgCache = new VerboseElementCache((int) (DEFAULT_PKG_SIZE * ratio), PKG_CACHE);
+		this.openableCache = new VerboseElementCache((int) (DEFAULT_OPENABLE_SIZE * ratio), OPENABLE_CACHE);
 	} else {
 		this.rootCache = new ElementCache((int) (DEFAULT_ROOT_SIZE * ratio));
 		this.pkgCache = new ElementCache((int) (DEFAULT_PKG_SIZE * ratio));
@@ -86,6 +108,62 @@ public JavaModelCache() {
 	resetJarTypeCache();
 }
 
+// arian
+/*
+ * Adapts the space limit of the root, package and openable caches to their hit rate since
+ * the previous adaptation, and to the free heap.
+ */
+protected void adaptSpaceLimits() {
+	double freeHeapRatio = getFreeHeapRatio();
+	double ratio = getMemoryRatio();
+	adaptSpaceLimit(this.rootCache, (int) (DEFAULT_ROOT_SIZE * ratio), freeHeapRatio);
+	adaptSpaceLimit(this.pkgCache, (int) (DEFAULT_PKG_SIZE * ratio), freeHeapRatio);
+	adaptSpaceLimit(this.openableCache, (int) (DEFAULT_OPENABLE_SIZE * ratio), freeHeapRatio);
+}
+private void adaptSpaceLimit(ElementCache cache, int defaultLimit, double freeHeapRatio) {
+	long hits = cache.getHits() - cache.adaptedHits;
+	long misses = cache.getMisses() - cache.adaptedMisses;
+	long evictions = cache.getEvictions() - cache.adaptedEvictions;
+	cache.adaptedHits = cache.getHits();
+	cache.adaptedMisses = cache.getMisses();
+	cache.adaptedEvictions = cache.getEvictions();
+
+	int limit = cache.baseLimit;
+	if (freeHeapRatio < LOW_FREE_HEAP) {
+		limit = Math.max(defaultLimit, limit * 2 / 3);
+	} else if (freeHeapRatio >= MIN_FREE_HEAP && evictions > 0 && misses > (hits + misses) * MAX_MISS_RATE) {
+		// the evicted elements are opened again
+		limit = Math.min(defaultLimit * MAX_GROWTH, limit * 3 / 2);
+	}
+	if (limit != cache.baseLimit) {
+		if (VERBOSE)
+			System.out.println(Thread.currentThread() + " ADAPTED SPACE LIMIT OF " + cache.toStringFillingRation("") + " TO " + limit); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		cache.setBaseLimit(limit);
+	}
+}
+/*
+ * Returns the ratio of the maximum heap that is not used.
+ */
+protected double getFreeHeapRatio() {
+	Runtime runtime = Runtime.getRuntime();
+	long maxMemory = runtime.maxMemory();
+	if (maxMemory == Long.MAX_VALUE) return 1;
+	return 1 - ((double) (runtime.totalMemory() - runtime.freeMemory())) / maxMemory;
+}
+/**
+ * Returns the cache with the given name (ROOT_CACHE, PKG_CACHE, OPENABLE_CACHE or JAR_TYPE_CACHE),
+ * or null if the name is unknown. Its hits, misses, evictions and space limit are the statistics
+ * of the cache (see LRUCache#getHits()).
+ */
+public LRUCache getCache(String name) {
+	if (ROOT_CACHE.equals(name)) return this.rootCache;
+	if (PKG_CACHE.equals(name)) return this.pkgCache;
+	if (OPENABLE_CACHE.equals(name)) return this.openableCache;
+	if (JAR_TYPE_CACHE.equals(name)) return this.jarTypeCache;
+	return null;
+}
+// ---
+
 /**
  *  Returns the info for the element.
  */
@@ -96,11 +174,14 @@ public Object getInfo(IJavaScriptElement element) {
 		case IJavaScriptElement.JAVASCRIPT_PROJECT:
 			return this.projectCache.get(element);
 		case IJavaScriptElement.PACKAGE_FRAGMENT_ROOT:
+			if (ADAPTIVE_SIZE && --this.lookupsToAdapt <= 0) adaptAfterLookups(); // arian
 			return this.rootCache.get(element);
 		case IJavaScriptElement.PACKAGE_FRAGMENT:
+			if (ADAPTIVE_SIZE && --this.lookupsToAdapt <= 0) adaptAfterLookups(); // arian
 			return this.pkgCache.get(element);
 		case IJavaScriptElement.JAVASCRIPT_UNIT:
 		case IJavaScriptElement.CLASS_FILE:
+			if (ADAPTIVE_SIZE && --this.lookupsToAdapt <= 0) adaptAfterLookups(); // arian
 			return this.openableCache.get(element);
 		case IJavaScriptElement.TYPE:
 			Object result = this.jarTypeCache.get(element);
@@ -113,6 +194,13 @@ public Object getInfo(IJavaScriptElement element) {
 	}
 }
 
+// arian
+private void adaptAfterLookups() {
+	this.lookupsToAdapt = ADAPT_INTERVAL;
+	adaptSpaceLimits();
+}
+// ---
+
 protected double getMemoryRatio() {
 	if (this.memoryRatio == -1) {
 		long maxMemory = Runtime.getRuntime().maxMemory();
@@ -189,15 +277,15 @@ protected void removeInfo(JavaElement element) {
 			break;
 		case IJavaScriptElement.JAVASCRIPT_PROJECT:
 			this.projectCache.remove(element);
-			this.rootCache.resetSpaceLimit((int) (DEFAULT_ROOT_SIZE * getMemoryRatio()), element);
+			this.rootCache.resetSpaceLimit(this.rootCache.baseLimit, element); // arian
 			break;
 		case IJavaScriptElement.PACKAGE_FRAGMENT_ROOT:
 			this.rootCache.remove(element);
-			this.pkgCache.resetSpaceLimit((int) (DEFAULT_PKG_SIZE * getMemoryRatio()), element);
+			this.pkgCache.resetSpaceLimit(this.pkgCache.baseLimit, element); // arian
 			break;
 		case IJavaScriptElement.PACKAGE_FRAGMENT:
 			this.pkgCache.remove(element);
-			this.openableCache.resetSpaceLimit((int) (DEFAULT_OPENABLE_SIZE * getMemoryRatio()), element);
+			this.openableCache.resetSpaceLimit(this.openableCache.baseLimit, element); // arian
 			break;
 		case IJavaScriptElement.JAVASCRIPT_UNIT:
 		case IJavaScriptElement.CLASS_FILE:
@@ -219,18 +307,24 @@ public String toStringFillingRation(String prefix) {
 	buffer.append("Project cache: "); //$NON-NLS-1$
 	buffer.append(this.projectCache.size());
 	buffer.append(" projects\n"); //$NON-NLS-1$
-	buffer.append(prefix);
-	buffer.append(this.rootCache.toStringFillingRation("Root cache")); //$NON-NLS-1$
-	buffer.append('\n');
-	buffer.append(prefix);
-	buffer.append(this.pkgCache.toStringFillingRation("Package cache")); //$NON-NLS-1$
-	buffer.append('\n');
-	buffer.append(prefix);
-	buffer.append(this.openableCache.toStringFillingRation("Openable cache")); //$NON-NLS-1$
-	buffer.append('\n');
-	buffer.append(prefix);
-	buffer.append(this.jarTypeCache.toStringFillingRation("Jar type cache")); //$NON-NLS-1$
-	buffer.append('\n');
+	toStringFillingRation(buffer, prefix, ROOT_CACHE);
+	toStringFillingRation(buffer, prefix, PKG_CACHE);
+	toStringFillingRation(buffer, prefix, OPENABLE_CACHE);
+	toStringFillingRation(buffer, prefix, JAR_TYPE_CACHE);
 	return buffer.toString();
 }
+// arian
+private void toStringFillingRation(StringBuffer buffer, String prefix, String cacheName) {
+	LRUCache cache = getCache(cacheName);
+	buffer.append(prefix);
+	buffer.append(cache.toStringFillingRation(cacheName));
+	buffer.append(" ("); //$NON-NLS-1$
+	buffer.append(cache.getHits());
+	buffer.append(" hits, "); //$NON-NLS-1$
+	buffer.append(cache.getMisses());
+	buffer.append(" misses, "); //$NON-NLS-1$
+	buffer.append(cache.getEvictions());
+	buffer.append(" evictions)\n"); //$NON-NLS-1$
+}
+// ---
 }
@@ -1192,6 +1192,8 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 		int useCount = 0;
 		IProblemRequestor problemRequestor;
 		CompilationUnit workingCopy;
+		// arian: the state of the last problem detection, for the next incremental reconcile
+		volatile IncrementalReconcile reconcileState;
 		public PerWorkingCopyInfo(CompilationUnit workingCopy, IProblemRequestor problemRequestor) {
 			this.workingCopy = workingCopy;
 			this.problemRequestor = problemRequestor;
@@ -4386,4 +4388,16 @@ public class JavaModelManager implements ISaveParticipant, IContentTypeChangeLis
 	public synchronized String cacheToString(String prefix) {
 		return this.cache.toStringFillingRation(prefix);
 	}
+
+	// arian
+	/**
+	 * Returns the hits, misses, evictions and space limit of the cache of the model with the given name
+	 * (see JavaModelCache#getCache(String)), or null if the name is unknown.
+	 */
+	public synchronized long[] getCacheStatistics(String cacheName) {
+		LRUCache lruCache = this.cache.getCache(cacheName);
+		if (lruCache == null) return null;
+		return new long[] { lruCache.getHits(), lruCache.getMisses(), lruCache.getEvictions(), lruCache.getSpaceLimit() };
+	}
+	// ---
 }
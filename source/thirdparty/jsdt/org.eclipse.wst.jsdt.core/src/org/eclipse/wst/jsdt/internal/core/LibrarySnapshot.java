@@ -0,0 +1,656 @@
+/*******************************************************************************
+ * Copyright (c) 2000, 2007 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.jsdt.internal.core;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.wst.jsdt.core.JavaScriptCore;
+import org.eclipse.wst.jsdt.core.compiler.CategorizedProblem;
+import org.eclipse.wst.jsdt.core.compiler.IProblem;
+import org.eclipse.wst.jsdt.core.compiler.libraries.SystemLibraryLocation;
+import org.eclipse.wst.jsdt.core.infer.InferrenceManager;
+import org.eclipse.wst.jsdt.core.infer.InferrenceProvider;
+import org.eclipse.wst.jsdt.internal.compiler.ISourceElementRequestor;
+import org.eclipse.wst.jsdt.internal.compiler.impl.CompilerOptions;
+import org.eclipse.wst.jsdt.internal.compiler.util.HashtableOfIntValues;
+import org.eclipse.wst.jsdt.internal.core.util.Util;
+
+/**
+ * Records the source elements (inferred types, functions, fields and references) the
+ * SourceElementParser reports for a system library, and replays them the next time the
+ * library is opened or indexed, instead of parsing and inferring it again.
+ * <p>
+ * The snapshot of a library is written next to its working copy (see SystemLibraryLocation),
+ * one file per kind of consumer because the structure builder and the indexer do not configure
+ * the parser the same way. It starts with the format version, the kind, the configuration of the
+ * parser (see #getConfiguration(CompilerOptions)), and the length and checksum of the library source;
+ * when any of them does not match, the snapshot is ignored and it is replaced by the next parse
+ * of the library.
+ * <p>
+ * Problems are not recorded, a library with syntax errors gets no snapshot.
+ * <p>
+ * Only the Java model structure (ClassFile) and the indexer (SourceIndexer) replay the snapshots.
+ * The compiler lookup environment, used to resolve the units (reconcile, code assist), still parses
+ * and infers the libraries, because it needs their AST.
+ */
+public class LibrarySnapshot implements ISourceElementRequestor {
+
+	public static final String STRUCTURE = "structure"; //$NON-NLS-1$
+	public static final String INDEX = "index"; //$NON-NLS-1$
+	public static final String SNAPSHOT_EXTENSION = ".snapshot"; //$NON-NLS-1$
+
+	/* Increment when the format changes, or the parser or the inference engine report different elements */
+	public static final int FORMAT_VERSION = 2;
+
+	public static boolean ENABLED = !"false".equals(System.getProperty("org.eclipse.wst.jsdt.core.librarySnapshots")); //$NON-NLS-1$ //$NON-NLS-2$
+
+	private static final int MAGIC = 0x4A534C53; // JSLS
+
+	private static final byte END = 0;
+	private static final byte ACCEPT_CONSTRUCTOR_REFERENCE = 1;
+	private static final byte ACCEPT_FIELD_REFERENCE = 2;
+	private static final byte ACCEPT_IMPORT = 3;
+	private static final byte ACCEPT_LINE_SEPARATOR_POSITIONS = 4;
+	private static final byte ACCEPT_METHOD_REFERENCE = 5;
+	private static final byte ACCEPT_QUALIFIED_TYPE_REFERENCE = 6;
+	private static final byte ACCEPT_TYPE_REFERENCE = 7;
+	private static final byte ACCEPT_QUALIFIED_UNKNOWN_REFERENCE = 8;
+	private static final byte ACCEPT_UNKNOWN_REFERENCE = 9;
+	private static final byte ENTER_COMPILATION_UNIT = 10;
+	private static final byte ENTER_CONSTRUCTOR = 11;
+	private static final byte ENTER_FIELD = 12;
+	private static final byte ENTER_INITIALIZER = 13;
+	private static final byte ENTER_METHOD = 14;
+	private static final byte ENTER_TYPE = 15;
+	private static final byte EXIT_COMPILATION_UNIT = 16;
+	private static final byte EXIT_CONSTRUCTOR = 17;
+	private static final byte EXIT_FIELD = 18;
+	private static final byte EXIT_INITIALIZER = 19;
+	private static final byte EXIT_METHOD = 20;
+	private static final byte EXIT_TYPE = 21;
+
+	private static final int TYPE_SECONDARY = 0x1;
+	private static final int TYPE_ANONYMOUS_MEMBER = 0x2;
+	private static final int TYPE_INDEXED = 0x4;
+
+	private ISourceElementRequestor requestor;
+	private ByteArrayOutputStream events;
+	private DataOutputStream output;
+	private HashtableOfIntValues nameIds;
+	private ArrayList names;
+	private boolean hasSyntaxErrors;
+
+/**
+ * Creates a snapshot that records the elements reported to the given requestor.
+ */
+public LibrarySnapshot(ISourceElementRequestor requestor) {
+	this.requestor = requestor;
+	this.events = new ByteArrayOutputStream(64 * 1024);
+	this.output = new DataOutputStream(this.events);
+	this.nameIds = new HashtableOfIntValues();
+	this.names = new ArrayList();
+}
+/**
+ * Answers the file of the given kind of snapshot for the given library,
+ * or null if the library is not a system library or the snapshots are disabled.
+ */
+public static File getSnapshotFile(String libraryPath, String kind) {
+	if (!ENABLED || libraryPath == null || JavaScriptCore.getPlugin() == null) return null;
+	IPath librariesPath = JavaScriptCore.getPlugin().getStateLocation().append(new String(SystemLibraryLocation.LIBRARY_RUNTIME_DIRECTORY));
+	if (!librariesPath.isPrefixOf(new Path(libraryPath))) return null;
+	return new File(libraryPath + '.' + kind + SNAPSHOT_EXTENSION);
+}
+/**
+ * Answers a hash of everything, besides the library source, that changes the elements reported by
+ * a parser with the given options: the compiler and inference options, and the inference providers
+ * contributed to the platform.
+ */
+public static long getConfiguration(CompilerOptions options) {
+	StringBuffer buffer = new StringBuffer();
+	// the map of the compiler options includes the inference options
+	Map map = new TreeMap(options.getMap());
+	for (Iterator iterator = map.entrySet().iterator(); iterator.hasNext();) {
+		Map.Entry entry = (Map.Entry) iterator.next();
+		buffer.append(entry.getKey()).append('=').append(entry.getValue()).append('\n');
+	}
+	InferrenceProvider[] providers = InferrenceManager.getInstance().getInferenceProviders();
+	for (int i = 0; i < providers.length; i++)
+		buffer.append(providers[i].getID()).append(':').append(providers[i].getClass().getName()).append('\n');
+	CRC32 crc = new CRC32();
+	crc.update(buffer.toString().getBytes(StandardCharsets.UTF_8));
+	return crc.getValue();
+}
+/**
+ * Reports the elements of the given snapshot to the requestor. Answers false, and reports nothing,
+ * if the snapshot does not exist or it was not taken from the given source with the given
+ * configuration (see #getConfiguration(CompilerOptions)).
+ */
+public static boolean replay(File snapshotFile, String kind, long configuration, char[] source, ISourceElementRequestor requestor) {
+	if (snapshotFile == null || source == null || !snapshotFile.isFile()) return false;
+	try {
+		byte[] payload = readPayload(snapshotFile, kind, configuration, source);
+		if (payload == null) return false;
+		// a dry run first, so a bad snapshot never reaches the requestor half way
+		replay(payload, null);
+		replay(payload, requestor);
+		return true;
+	} catch (IOException e) {
+		Util.log(e, "Could not read the library snapshot " + snapshotFile); //$NON-NLS-1$
+		return false;
+	} catch (RuntimeException e) {
+		Util.log(e, "Could not read the library snapshot " + snapshotFile); //$NON-NLS-1$
+		return false;
+	}
+}
+private static byte[] readPayload(File snapshotFile, String kind, long configuration, char[] source) throws IOException {
+	DataInputStream input = new DataInputStream(new FileInputStream(snapshotFile));
+	try {
+		if (input.readInt() != MAGIC
+				|| input.readInt() != FORMAT_VERSION
+				|| !kind.equals(input.readUTF())
+				|| input.readLong() != configuration
+				|| input.readInt() != source.length
+				|| input.readLong() != checksum(source))
+			return null;
+		long payloadChecksum = input.readLong();
+		byte[] payload = new byte[input.readInt()];
+		input.readFully(payload);
+		CRC32 crc = new CRC32();
+		crc.update(payload);
+		return crc.getValue() == payloadChecksum ? payload : null;
+	} finally {
+		input.close();
+	}
+}
+private static void replay(byte[] payload, ISourceElementRequestor requestor) throws IOException {
+	DataInputStream input = new DataInputStream(new ByteArrayInputStream(payload));
+	char[][] names = new char[input.readInt()][];
+	for (int i = 0; i < names.length; i++) {
+		char[] name = new char[input.readInt()];
+		for (int j = 0; j < name.length; j++)
+			name[j] = input.readChar();
+		names[i] = name;
+	}
+	while (true) {
+		byte tag = input.readByte();
+		switch (tag) {
+			case END :
+				return;
+			case ACCEPT_CONSTRUCTOR_REFERENCE : {
+				char[] typeName = readName(input, names);
+				int argCount = input.readInt();
+				int sourcePosition = input.readInt();
+				if (requestor != null) requestor.acceptConstructorReference(typeName, argCount, sourcePosition);
+				break;
+			}
+			case ACCEPT_FIELD_REFERENCE : {
+				char[] fieldName = readName(input, names);
+				int sourcePosition = input.readInt();
+				if (requestor != null) requestor.acceptFieldReference(fieldName, sourcePosition);
+				break;
+			}
+			case ACCEPT_IMPORT : {
+				int declarationStart = input.readInt();
+				int declarationEnd = input.readInt();
+				char[][] tokens = readNames(input, names);
+				boolean onDemand = input.readBoolean();
+				if (requestor != null) requestor.acceptImport(declarationStart, declarationEnd, tokens, onDemand);
+				break;
+			}
+			case ACCEPT_LINE_SEPARATOR_POSITIONS : {
+				int[] positions = null;
+				int length = input.readInt();
+				if (length >= 0) {
+					positions = new int[length];
+					for (int i = 0; i < length; i++)
+						positions[i] = input.readInt();
+				}
+				if (requestor != null) requestor.acceptLineSeparatorPositions(positions);
+				break;
+			}
+			case ACCEPT_METHOD_REFERENCE : {
+				char[] methodName = readName(input, names);
+				int sourcePosition = input.readInt();
+				if (requestor != null) requestor.acceptMethodReference(methodName, sourcePosition);
+				break;
+			}
+			case ACCEPT_QUALIFIED_TYPE_REFERENCE : {
+				char[][] typeName = readNames(input, names);
+				int sourceStart = input.readInt();
+				int sourceEnd = input.readInt();
+				if (requestor != null) requestor.acceptTypeReference(typeName, sourceStart, sourceEnd);
+				break;
+			}
+			case ACCEPT_TYPE_REFERENCE : {
+				char[] typeName = readName(input, names);
+				int sourcePosition = input.readInt();
+				if (requestor != null) requestor.acceptTypeReference(typeName, sourcePosition);
+				break;
+			}
+			case ACCEPT_QUALIFIED_UNKNOWN_REFERENCE : {
+				char[][] name = readNames(input, names);
+				int sourceStart = input.readInt();
+				int sourceEnd = input.readInt();
+				if (requestor != null) requestor.acceptUnknownReference(name, sourceStart, sourceEnd);
+				break;
+			}
+			case ACCEPT_UNKNOWN_REFERENCE : {
+				char[] name = readName(input, names);
+				int sourcePosition = input.readInt();
+				if (requestor != null) requestor.acceptUnknownReference(name, sourcePosition);
+				break;
+			}
+			case ENTER_COMPILATION_UNIT :
+				if (requestor != null) requestor.enterCompilationUnit();
+				break;
+			case ENTER_CONSTRUCTOR : {
+				MethodInfo methodInfo = readMethodInfo(input, names);
+				if (requestor != null) requestor.enterConstructor(methodInfo);
+				break;
+			}
+			case ENTER_FIELD : {
+				FieldInfo fieldInfo = new FieldInfo();
+				fieldInfo.declarationStart = input.readInt();
+				fieldInfo.modifiers = input.readInt();
+				fieldInfo.type = readName(input, names);
+				fieldInfo.name = readName(input, names);
+				fieldInfo.declaringType = readName(input, names);
+				fieldInfo.nameSourceStart = input.readInt();
+				fieldInfo.nameSourceEnd = input.readInt();
+				fieldInfo.categories = readNames(input, names);
+				if (requestor != null) requestor.enterField(fieldInfo);
+				break;
+			}
+			case ENTER_INITIALIZER : {
+				int declarationStart = input.readInt();
+				int modifiers = input.readInt();
+				if (requestor != null) requestor.enterInitializer(declarationStart, modifiers);
+				break;
+			}
+			case ENTER_METHOD : {
+				MethodInfo methodInfo = readMethodInfo(input, names);
+				if (requestor != null) requestor.enterMethod(methodInfo);
+				break;
+			}
+			case ENTER_TYPE : {
+				TypeInfo typeInfo = new TypeInfo();
+				typeInfo.declarationStart = input.readInt();
+				typeInfo.modifiers = input.readInt();
+				typeInfo.name = readName(input, names);
+				typeInfo.nameSourceStart = input.readInt();
+				typeInfo.nameSourceEnd = input.readInt();
+				typeInfo.superclass = readName(input, names);
+				typeInfo.categories = readNames(input, names);
+				typeInfo.synonyms = readNames(input, names);
+				int flags = input.readByte();
+				typeInfo.secondary = (flags & TYPE_SECONDARY) != 0;
+				typeInfo.anonymousMember = (flags & TYPE_ANONYMOUS_MEMBER) != 0;
+				typeInfo.isIndexed = (flags & TYPE_INDEXED) != 0;
+				if (requestor != null) requestor.enterType(typeInfo);
+				break;
+			}
+			case EXIT_COMPILATION_UNIT : {
+				int declarationEnd = input.readInt();
+				if (requestor != null) requestor.exitCompilationUnit(declarationEnd);
+				break;
+			}
+			case EXIT_CONSTRUCTOR : {
+				int declarationEnd = input.readInt();
+				if (requestor != null) requestor.exitConstructor(declarationEnd);
+				break;
+			}
+			case EXIT_FIELD : {
+				int initializationStart = input.readInt();
+				int declarationEnd = input.readInt();
+				int declarationSourceEnd = input.readInt();
+				if (requestor != null) requestor.exitField(initializationStart, declarationEnd, declarationSourceEnd);
+				break;
+			}
+			case EXIT_INITIALIZER : {
+				int declarationEnd = input.readInt();
+				if (requestor != null) requestor.exitInitializer(declarationEnd);
+				break;
+			}
+			case EXIT_METHOD : {
+				int declarationEnd = input.readInt();
+				int defaultValueStart = input.readInt();
+				int defaultValueEnd = input.readInt();
+				if (requestor != null) requestor.exitMethod(declarationEnd, defaultValueStart, defaultValueEnd);
+				break;
+			}
+			case EXIT_TYPE : {
+				int declarationEnd = input.readInt();
+				if (requestor != null) requestor.exitType(declarationEnd);
+				break;
+			}
+			default :
+				throw new IOException("Unknown snapshot entry " + tag); //$NON-NLS-1$
+		}
+	}
+}
+private static MethodInfo readMethodInfo(DataInputStream input, char[][] names) throws IOException {
+	MethodInfo methodInfo = new MethodInfo();
+	methodInfo.isConstructor = input.readBoolean();
+	methodInfo.declarationStart = input.readInt();
+	methodInfo.modifiers = input.readInt();
+	methodInfo.returnType = readName(input, names);
+	methodInfo.name = readName(input, names);
+	methodInfo.nameSourceStart = input.readInt();
+	methodInfo.nameSourceEnd = input.readInt();
+	methodInfo.parameterTypes = readNames(input, names);
+	methodInfo.parameterNames = readNames(input, names);
+	methodInfo.declaringType = readName(input, names);
+	methodInfo.categories = readNames(input, names);
+	return methodInfo;
+}
+private static char[] readName(DataInputStream input, char[][] names) throws IOException {
+	int id = input.readInt();
+	return id < 0 ? null : names[id];
+}
+private static char[][] readNames(DataInputStream input, char[][] names) throws IOException {
+	int length = input.readInt();
+	if (length < 0) return null;
+	char[][] result = new char[length][];
+	for (int i = 0; i < length; i++)
+		result[i] = readName(input, names);
+	return result;
+}
+private static long checksum(char[] source) {
+	CRC32 crc = new CRC32();
+	byte[] buffer = new byte[8192];
+	int index = 0;
+	for (int i = 0; i < source.length; i++) {
+		char c = source[i];
+		buffer[index++] = (byte) (c >>> 8);
+		buffer[index++] = (byte) c;
+		if (index == buffer.length) {
+			crc.update(buffer, 0, index);
+			index = 0;
+		}
+	}
+	crc.update(buffer, 0, index);
+	return crc.getValue();
+}
+/**
+ * Writes the recorded elements to the given file, unless the source had syntax errors.
+ * The file is replaced atomically, so concurrent readers see the old or the new snapshot.
+ */
+public void save(File snapshotFile, String kind, long configuration, char[] source) {
+	if (snapshotFile == null || source == null || this.hasSyntaxErrors) return;
+	File tempFile = new File(snapshotFile.getPath() + ".tmp" + Thread.currentThread().getId()); //$NON-NLS-1$
+	try {
+		ByteArrayOutputStream payloadBytes = new ByteArrayOutputStream(this.events.size() + 16 * 1024);
+		DataOutputStream payload = new DataOutputStream(payloadBytes);
+		payload.writeInt(this.names.size());
+		for (int i = 0, length = this.names.size(); i < length; i++) {
+			char[] name = (char[]) this.names.get(i);
+			payload.writeInt(name.length);
+			for (int j = 0; j < name.length; j++)
+				payload.writeChar(name[j]);
+		}
+		this.output.writeByte(END);
+		this.output.flush();
+		this.events.writeTo(payload);
+		payload.flush();
+		byte[] bytes = payloadBytes.toByteArray();
+		CRC32 crc = new CRC32();
+		crc.update(bytes);
+
+		DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+		try {
+			stream.writeInt(MAGIC);
+			stream.writeInt(FORMAT_VERSION);
+			stream.writeUTF(kind);
+			stream.writeLong(configuration);
+			stream.writeInt(source.length);
+			stream.writeLong(checksum(source));
+			stream.writeLong(crc.getValue());
+			stream.writeInt(bytes.length);
+			stream.write(bytes);
+		} finally {
+			stream.close();
+		}
+		snapshotFile.delete();
+		if (!tempFile.renameTo(snapshotFile))
+			throw new IOException("Could not rename " + tempFile + " to " + snapshotFile); //$NON-NLS-1$ //$NON-NLS-2$
+	} catch (IOException e) {
+		tempFile.delete();
+		Util.log(e, "Could not write the library snapshot " + snapshotFile); //$NON-NLS-1$
+	}
+}
+/*
+ * Writing to the memory buffer does not fail, the IOExceptions of the stream are ignored.
+ */
+private void writeTag(byte tag) {
+	try {
+		this.output.writeByte(tag);
+	} catch (IOException e) {
+		// not possible with a memory buffer
+	}
+}
+private void writeInt(int value) {
+	try {
+		this.output.writeInt(value);
+	} catch (IOException e) {
+		// not possible with a memory buffer
+	}
+}
+private void writeBoolean(boolean value) {
+	try {
+		this.output.writeBoolean(value);
+	} catch (IOException e) {
+		// not possible with a memory buffer
+	}
+}
+private void writeName(char[] name) {
+	if (name == null) {
+		writeInt(-1);
+		return;
+	}
+	int id = this.nameIds.get(name);
+	if (id == HashtableOfIntValues.NO_VALUE) {
+		id = this.names.size();
+		this.names.add(name);
+		this.nameIds.put(name, id);
+	}
+	writeInt(id);
+}
+private void writeNames(char[][] names) {
+	if (names == null) {
+		writeInt(-1);
+		return;
+	}
+	writeInt(names.length);
+	for (int i = 0; i < names.length; i++)
+		writeName(names[i]);
+}
+private void writeMethodInfo(MethodInfo methodInfo) {
+	writeBoolean(methodInfo.isConstructor);
+	writeInt(methodInfo.declarationStart);
+	writeInt(methodInfo.modifiers);
+	writeName(methodInfo.returnType);
+	writeName(methodInfo.name);
+	writeInt(methodInfo.nameSourceStart);
+	writeInt(methodInfo.nameSourceEnd);
+	writeNames(methodInfo.parameterTypes);
+	writeNames(methodInfo.parameterNames);
+	writeName(methodInfo.declaringType);
+	writeNames(methodInfo.categories);
+}
+public void acceptConstructorReference(char[] typeName, int argCount, int sourcePosition) {
+	writeTag(ACCEPT_CONSTRUCTOR_REFERENCE);
+	writeName(typeName);
+	writeInt(argCount);
+	writeInt(sourcePosition);
+	this.requestor.acceptConstructorReference(typeName, argCount, sourcePosition);
+}
+public void acceptFieldReference(char[] fieldName, int sourcePosition) {
+	writeTag(ACCEPT_FIELD_REFERENCE);
+	writeName(fieldName);
+	writeInt(sourcePosition);
+	this.requestor.acceptFieldReference(fieldName, sourcePosition);
+}
+public void acceptImport(int declarationStart, int declarationEnd, char[][] tokens, boolean onDemand) {
+	writeTag(ACCEPT_IMPORT);
+	writeInt(declarationStart);
+	writeInt(declarationEnd);
+	writeNames(tokens);
+	writeBoolean(onDemand);
+	this.requestor.acceptImport(declarationStart, declarationEnd, tokens, onDemand);
+}
+public void acceptLineSeparatorPositions(int[] positions) {
+	writeTag(ACCEPT_LINE_SEPARATOR_POSITIONS);
+	if (positions == null) {
+		writeInt(-1);
+	} else {
+		writeInt(positions.length);
+		for (int i = 0; i < positions.length; i++)
+			writeInt(positions[i]);
+	}
+	this.requestor.acceptLineSeparatorPositions(positions);
+}
+public void acceptMethodReference(char[] methodName, int sourcePosition) {
+	writeTag(ACCEPT_METHOD_REFERENCE);
+	writeName(methodName);
+	writeInt(sourcePosition);
+	this.requestor.acceptMethodReference(methodName, sourcePosition);
+}
+public void acceptProblem(CategorizedProblem problem) {
+	if ((problem.getID() & IProblem.Syntax) != 0)
+		this.hasSyntaxErrors = true;
+	this.requestor.acceptProblem(problem);
+}
+public void acceptTypeReference(char[][] typeName, int sourceStart, int sourceEnd) {
+	writeTag(ACCEPT_QUALIFIED_TYPE_REFERENCE);
+	writeNames(typeName);
+	writeInt(sourceStart);
+	writeInt(sourceEnd);
+	this.requestor.acceptTypeReference(typeName, sourceStart, sourceEnd);
+}
+public void acceptTypeReference(char[] typeName, int sourcePosition) {
+	writeTag(ACCEPT_TYPE_REFERENCE);
+	writeName(typeName);
+	writeInt(sourcePosition);
+	this.requestor.acceptTypeReference(typeName, sourcePosition);
+}
+public void acceptUnknownReference(char[][] name, int sourceStart, int sourceEnd) {
+	writeTag(ACCEPT_QUALIFIED_UNKNOWN_REFERENCE);
+	writeNames(name);
+	writeInt(sourceStart);
+	writeInt(sourceEnd);
+	this.requestor.acceptUnknownReference(name, sourceStart, sourceEnd);
+}
+public void acceptUnknownReference(char[] name, int sourcePosition) {
+	writeTag(ACCEPT_UNKNOWN_REFERENCE);
+	writeName(name);
+	writeInt(sourcePosition);
+	this.requestor.acceptUnknownReference(name, sourcePosition);
+}
+public void enterCompilationUnit() {
+	writeTag(ENTER_COMPILATION_UNIT);
+	this.requestor.enterCompilationUnit();
+}
+public void enterConstructor(MethodInfo methodInfo) {
+	writeTag(ENTER_CONSTRUCTOR);
+	writeMethodInfo(methodInfo);
+	this.requestor.enterConstructor(methodInfo);
+}
+public void enterField(FieldInfo fieldInfo) {
+	writeTag(ENTER_FIELD);
+	writeInt(fieldInfo.declarationStart);
+	writeInt(fieldInfo.modifiers);
+	writeName(fieldInfo.type);
+	writeName(fieldInfo.name);
+	writeName(fieldInfo.declaringType);
+	writeInt(fieldInfo.nameSourceStart);
+	writeInt(fieldInfo.nameSourceEnd);
+	writeNames(fieldInfo.categories);
+	this.requestor.enterField(fieldInfo);
+}
+public void enterInitializer(int declarationStart, int modifiers) {
+	writeTag(ENTER_INITIALIZER);
+	writeInt(declarationStart);
+	writeInt(modifiers);
+	this.requestor.enterInitializer(declarationStart, modifiers);
+}
+public void enterMethod(MethodInfo methodInfo) {
+	writeTag(ENTER_METHOD);
+	writeMethodInfo(methodInfo);
+	this.requestor.enterMethod(methodInfo);
+}
+public void enterType(TypeInfo typeInfo) {
+	writeTag(ENTER_TYPE);
+	writeInt(typeInfo.declarationStart);
+	writeInt(typeInfo.modifiers);
+	writeName(typeInfo.name);
+	writeInt(typeInfo.nameSourceStart);
+	writeInt(typeInfo.nameSourceEnd);
+	writeName(typeInfo.superclass);
+	writeNames(typeInfo.categories);
+	writeNames(typeInfo.synonyms);
+	int flags = 0;
+	if (typeInfo.secondary) flags |= TYPE_SECONDARY;
+	if (typeInfo.anonymousMember) flags |= TYPE_ANONYMOUS_MEMBER;
+	if (typeInfo.isIndexed) flags |= TYPE_INDEXED;
+	writeTag((byte) flags);
+	this.requestor.enterType(typeInfo);
+}
+public void exitCompilationUnit(int declarationEnd) {
+	writeTag(EXIT_COMPILATION_UNIT);
+	writeInt(declarationEnd);
+	this.requestor.exitCompilationUnit(declarationEnd);
+}
+public void exitConstructor(int declarationEnd) {
+	writeTag(EXIT_CONSTRUCTOR);
+	writeInt(declarationEnd);
+	this.requestor.exitConstructor(declarationEnd);
+}
+public void exitField(int initializationStart, int declarationEnd, int declarationSourceEnd) {
+	writeTag(EXIT_FIELD);
+	writeInt(initializationStart);
+	writeInt(declarationEnd);
+	writeInt(declarationSourceEnd);
+	this.requestor.exitField(initializationStart, declarationEnd, declarationSourceEnd);
+}
+public void exitInitializer(int declarationEnd) {
+	writeTag(EXIT_INITIALIZER);
+	writeInt(declarationEnd);
+	this.requestor.exitInitializer(declarationEnd);
+}
+public void exitMethod(int declarationEnd, int defaultValueStart, int defaultValueEnd) {
+	writeTag(EXIT_METHOD);
+	writeInt(declarationEnd);
+	writeInt(defaultValueStart);
+	writeInt(defaultValueEnd);
+	this.requestor.exitMethod(declarationEnd, defaultValueStart, defaultValueEnd);
+}
+public void exitType(int declarationEnd) {
+	writeTag(EXIT_TYPE);
+	writeInt(declarationEnd);
+	this.requestor.exitType(declarationEnd);
+}
+}
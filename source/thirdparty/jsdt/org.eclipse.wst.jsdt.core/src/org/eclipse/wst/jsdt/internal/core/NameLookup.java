@@ -12,6 +12,7 @@ package org.eclipse.wst.jsdt.internal.core;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -179,6 +180,18 @@ public class NameLookup implements SuffixConstants {
 	protected HashSet acceptedCUs=new HashSet();
 	private IJavaScriptUnit[] workingCopies;
 
+	// arian: the answers of the exact lookups of types and bindings, including the not found ones
+	public static boolean CACHE_ANSWERS = !"false".equals(System.getProperty("org.eclipse.wst.jsdt.core.nameLookupCache")); //$NON-NLS-1$ //$NON-NLS-2$
+	private static final Object NOT_FOUND = new Object();
+	private static final Integer TYPE_LOOKUP = new Integer(-1);
+	// incremented when the elements change, to discard the answers of all the name lookups
+	private static volatile int answersGeneration;
+	private HashMap answers;
+	private int answersCacheGeneration;
+	public long answersCacheHits = 0;
+	public long answersCacheMisses = 0;
+	// ---
+
 	IRestrictedAccessBindingRequestor restrictedRequestor;
 
 	public NameLookup(
@@ -291,8 +304,45 @@ public class NameLookup implements SuffixConstants {
 
 	public void setRestrictedAccessRequestor(IRestrictedAccessBindingRequestor restrictedRequestor) {
 		this.restrictedRequestor=restrictedRequestor;
+		// arian: the requestor filters the answers
+		this.answers = null;
+	}
+
+	// arian: cache of the answers
+	/**
+	 * Discards the answers cached by all the name lookups, when the Java model elements change
+	 * (see DeltaProcessor).
+	 */
+	public static synchronized void flushAnswers() {
+		answersGeneration++;
+	}
+
+	/*
+	 * Answers the cached answer of the given lookup, NOT_FOUND if it was not found, or null if it
+	 * is not in the cache.
+	 */
+	private Object getCachedAnswer(Object key) {
+		int generation = answersGeneration;
+		if (this.answers == null || this.answersCacheGeneration != generation) {
+			this.answers = new HashMap();
+			this.answersCacheGeneration = generation;
+		}
+		Object answer = this.answers.get(key);
+		if (answer == null) {
+			this.answersCacheMisses++;
+		} else {
+			this.answersCacheHits++;
+		}
+		return answer;
 	}
 
+	private void cacheAnswer(Object key, Answer answer) {
+		if (this.answers != null) {
+			this.answers.put(key, answer == null ? NOT_FOUND : answer);
+		}
+	}
+	// ---
+
 	protected  IRestrictedAccessBindingRequestor getRestrictedAccessRequestor() {
 		if(this.restrictedRequestor==null) {
 			this.restrictedRequestor=new IRestrictedAccessBindingRequestor() {
@@ -780,6 +830,21 @@ public class NameLookup implements SuffixConstants {
 	 * @see "https://bugs.eclipse.org/bugs/show_bug.cgi?id=118789"
 	 */
 	public Answer findType(String typeName, String packageName, boolean partialMatch, int acceptFlags, boolean checkRestrictions) {
+		// arian: answer the same exact lookup from the cache
+		if (partialMatch || !CACHE_ANSWERS) {
+			return findTypeNotCached(typeName, packageName, partialMatch, acceptFlags, checkRestrictions);
+		}
+		Object key = Arrays.asList(new Object[] { TYPE_LOOKUP, typeName, packageName, new Integer(acceptFlags), Boolean.valueOf(checkRestrictions) });
+		Object cached = getCachedAnswer(key);
+		if (cached != null) {
+			return cached == NOT_FOUND ? null : (Answer) cached;
+		}
+		Answer answer = findTypeNotCached(typeName, packageName, partialMatch, acceptFlags, checkRestrictions);
+		cacheAnswer(key, answer);
+		return answer;
+	}
+
+	private Answer findTypeNotCached(String typeName, String packageName, boolean partialMatch, int acceptFlags, boolean checkRestrictions) {
 
 		if (USE_BINDING_SEARCH && this.searchFiles)
 		{
@@ -804,6 +869,22 @@ public class NameLookup implements SuffixConstants {
 
 	public Answer findBinding(String typeName, String packageName,int type, boolean partialMatch,
 			int acceptFlags, boolean checkRestrictions, boolean returnMultiple , String excludePath){
+		// arian: answer the same exact lookup from the cache
+		if (partialMatch || !CACHE_ANSWERS) {
+			return findBindingNotCached(typeName, packageName, type, partialMatch, acceptFlags, checkRestrictions, returnMultiple, excludePath);
+		}
+		Object key = Arrays.asList(new Object[] { new Integer(type), typeName, packageName, new Integer(acceptFlags), Boolean.valueOf(checkRestrictions), Boolean.valueOf(returnMultiple), excludePath });
+		Object cached = getCachedAnswer(key);
+		if (cached != null) {
+			return cached == NOT_FOUND ? null : (Answer) cached;
+		}
+		Answer answer = findBindingNotCached(typeName, packageName, type, partialMatch, acceptFlags, checkRestrictions, returnMultiple, excludePath);
+		cacheAnswer(key, answer);
+		return answer;
+	}
+
+	private Answer findBindingNotCached(String typeName, String packageName,int type, boolean partialMatch,
+			int acceptFlags, boolean checkRestrictions, boolean returnMultiple , String excludePath){
 		
 		if ((type&Binding.COMPILATION_UNIT)!=0)
 		{
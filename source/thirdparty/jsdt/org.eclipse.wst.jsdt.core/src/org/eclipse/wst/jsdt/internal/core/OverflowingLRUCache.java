@@ -170,6 +170,7 @@ public double getLoadFactor() {
 		int spaceNeeded = (int)((1 - fLoadFactor) * limit);
 		spaceNeeded = (spaceNeeded > space) ? spaceNeeded : space;
 		LRUCacheEntry entry = fEntryQueueTail;
+		int size = fEntryTable.size(); // arian
 
 		try {
 			// disable timestamps update while making space so that the previous and next links are not changed
@@ -182,6 +183,8 @@ public double getLoadFactor() {
 			}
 		} finally {
 			fTimestampsOn = true;
+			// arian: the entries that could not be closed are not removed
+			fEvictions += Math.max(0, size - fEntryTable.size());
 		}
 
 		/* check again, since we may have aquired enough space */
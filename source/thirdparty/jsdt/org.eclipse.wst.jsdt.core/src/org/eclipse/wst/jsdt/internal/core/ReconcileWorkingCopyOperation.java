@@ -232,7 +232,8 @@ public class ReconcileWorkingCopyOperation extends JavaModelOperation {
 	    	// else JavaProject has lost its nature (or most likely was closed/deleted) while reconciling -> ignore
 	    	// (see https://bugs.eclipse.org/bugs/show_bug.cgi?id=100919)
 	    } finally {
-	        if (unit != null) {
+	        // arian: the unit is cleaned up when the DOM AST does not need it to resolve the pending statements
+	        if (unit != null && IncrementalReconcile.getPending(workingCopy, unit) == null) {
 	            unit.cleanUp();
 			            if (unit.scope!=null)
 			            	unit.scope.cleanup();
@@ -16,6 +16,11 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.io.UTFDataFormatException;
+import java.lang.reflect.Method;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 
 import org.eclipse.core.runtime.ISafeRunnable;
 import org.eclipse.wst.jsdt.core.compiler.CharOperation;
@@ -56,6 +61,12 @@ private byte[] streamBuffer;
 private int bufferIndex, bufferEnd; // used when reading from the file into the streamBuffer
 private int streamEnd; // used when writing data from the streamBuffer to the file
 
+// read-only mapping of the index file, kept until the index is saved or discarded (see #releaseMappedFile())
+// when it is available, the chunks and the category tables are decoded from it instead of being read with a stream
+private MappedByteBuffer mappedFile;
+private boolean mappingFailed;
+public static boolean MAP_INDEX_FILES = !"false".equalsIgnoreCase(System.getProperty("org.eclipse.wst.jsdt.core.mapIndexFiles")); //$NON-NLS-1$ //$NON-NLS-2$
+
 public static final String SIGNATURE= "INDEX VERSION 1.3"; //$NON-NLS-1$
 private static final char[] SIGNATURE_CHARS = SIGNATURE.toCharArray();
 public static boolean DEBUG = false;
@@ -225,9 +236,41 @@ HashtableOfObject addQueryResults(char[][] categories, char[] key, int matchRule
 	if (results == null) return null;
 	return results;
 }
+// arian
+/**
+ * Answers the names of the categories saved in the index file.
+ */
+char[][] getCategoryNames() {
+	if (this.categoryOffsets == null) return CharOperation.NO_CHAR_CHAR; // file is empty
+
+	char[][] names = new char[this.categoryOffsets.elementSize][];
+	int count = 0;
+	char[][] keys = this.categoryOffsets.keyTable;
+	for (int i = 0, l = keys.length; i < l; i++)
+		if (keys[i] != null)
+			names[count++] = keys[i];
+	return names;
+}
+// ---
 private synchronized void cacheDocumentNames() throws IOException {
 	// will need all document names so get them now
 	this.cachedChunks = new String[this.numberOfChunks][];
+	ByteBuffer buffer = mappedBuffer(this.chunkOffsets[0]);
+	if (buffer != null) {
+		try {
+			for (int i = 0; i < this.numberOfChunks; i++) {
+				int size = i == this.numberOfChunks - 1 ? this.sizeOfLastChunk : CHUNK_SIZE;
+				readMappedChunk(this.cachedChunks[i] = new String[size], buffer, 0, size);
+			}
+		} catch (IOException e) {
+			this.cachedChunks = null;
+			throw e;
+		} catch (BufferUnderflowException e) {
+			this.cachedChunks = null;
+			throw corruptedIndex(e);
+		}
+		return;
+	}
 	FileInputStream stream = new FileInputStream(this.indexFile);
 	try {
 		if (this.numberOfChunks > 5) BUFFER_READ_SIZE <<= 1;
@@ -496,6 +539,7 @@ DiskIndex mergeWith(MemoryIndex memoryIndex) throws IOException {
 		if (previousLength == 0) return this; // nothing to do... memory index contained deleted documents that had never been saved
 
 		// index is now empty since all the saved documents were removed
+		releaseMappedFile();
 		DiskIndex newDiskIndex = new DiskIndex(this.indexFile.getPath());
 		newDiskIndex.initialize(false);
 		return newDiskIndex;
@@ -536,6 +580,7 @@ DiskIndex mergeWith(MemoryIndex memoryIndex) throws IOException {
 		newDiskIndex.writeOffsetToHeader(offsetToHeader);
 
 		// rename file by deleting previous index file & renaming temp one
+		releaseMappedFile();
 		if (this.indexFile.exists() && !this.indexFile.delete()) {
 			if (DEBUG)
 				System.out.println("mergeWith - Failed to delete " + this.indexFile); //$NON-NLS-1$
@@ -560,6 +605,19 @@ private synchronized String[] readAllDocumentNames() throws IOException {
 	if (this.numberOfChunks <= 0)
 		return CharOperation.NO_STRINGS;
 
+	int lastIndex = this.numberOfChunks - 1;
+	ByteBuffer buffer = mappedBuffer(this.chunkOffsets[0]);
+	if (buffer != null) {
+		String[] docNames = new String[lastIndex * CHUNK_SIZE + sizeOfLastChunk];
+		try {
+			for (int i = 0; i < this.numberOfChunks; i++)
+				readMappedChunk(docNames, buffer, i * CHUNK_SIZE, i < lastIndex ? CHUNK_SIZE : sizeOfLastChunk);
+		} catch (BufferUnderflowException e) {
+			throw corruptedIndex(e);
+		}
+		return docNames;
+	}
+
 	FileInputStream stream = new FileInputStream(this.indexFile);
 	try {
 		int offset = this.chunkOffsets[0];
@@ -567,7 +625,6 @@ private synchronized String[] readAllDocumentNames() throws IOException {
 		this.streamBuffer = new byte[BUFFER_READ_SIZE];
 		this.bufferIndex = 0;
 		this.bufferEnd = stream.read(this.streamBuffer, 0, this.streamBuffer.length);
-		int lastIndex = this.numberOfChunks - 1;
 		String[] docNames = new String[lastIndex * CHUNK_SIZE + sizeOfLastChunk];
 		for (int i = 0; i < this.numberOfChunks; i++)
 			readChunk(docNames, stream, i * CHUNK_SIZE, i < lastIndex ? CHUNK_SIZE : sizeOfLastChunk);
@@ -599,6 +656,20 @@ private synchronized HashtableOfObject readCategoryTable(char[] categoryName, bo
 		}
 	}
 
+	ByteBuffer buffer = mappedBuffer(offset);
+	if (buffer != null) {
+		HashtableOfObject categoryTable;
+		try {
+			categoryTable = readMappedCategoryTable(buffer, readDocNumbers);
+		} catch (BufferUnderflowException e) {
+			throw corruptedIndex(e);
+		}
+		this.categoryTables.put(INTERNED_CATEGORY_NAMES.get(categoryName), categoryTable);
+		// cache the table as long as its not too big
+		this.cachedCategoryName = categoryTable.elementSize < 20000 ? categoryName : null;
+		return categoryTable;
+	}
+
 	FileInputStream stream = new FileInputStream(this.indexFile);
 	HashtableOfObject categoryTable = null;
 	char[][] matchingWords = null;
@@ -719,6 +790,18 @@ synchronized String readDocumentName(int docNumber) throws IOException {
 		int numberOfBytes = (isLastChunk ? this.startOfCategoryTables : this.chunkOffsets[chunkNumber + 1]) - start;
 		if (numberOfBytes < 0)
 			throw new IllegalArgumentException();
+		int numberOfNames = isLastChunk ? this.sizeOfLastChunk : CHUNK_SIZE;
+		ByteBuffer buffer = mappedBuffer(start);
+		if (buffer != null) {
+			chunk = new String[numberOfNames];
+			try {
+				readMappedChunk(chunk, buffer, 0, numberOfNames);
+			} catch (BufferUnderflowException e) {
+				throw corruptedIndex(e);
+			}
+			this.cachedChunks[chunkNumber] = chunk;
+			return chunk[docNumber - (chunkNumber * CHUNK_SIZE)];
+		}
 		this.streamBuffer = new byte[numberOfBytes];
 		this.bufferIndex = 0;
 		FileInputStream file = new FileInputStream(this.indexFile);
@@ -732,7 +815,6 @@ synchronized String readDocumentName(int docNumber) throws IOException {
 		} finally {
 			file.close();
 		}
-		int numberOfNames = isLastChunk ? this.sizeOfLastChunk : CHUNK_SIZE;
 		chunk = new String[numberOfNames];
 		try {
 			readChunk(chunk, null, 0, numberOfNames);
@@ -750,6 +832,15 @@ synchronized int[] readDocumentNumbers(Object arrayOffset) throws IOException {
 	if (arrayOffset instanceof int[])
 		return (int[]) arrayOffset;
 
+	ByteBuffer buffer = mappedBuffer(((Integer) arrayOffset).intValue());
+	if (buffer != null) {
+		try {
+			return readMappedDocumentArray(buffer, buffer.getInt());
+		} catch (BufferUnderflowException e) {
+			throw corruptedIndex(e);
+		}
+	}
+
 	FileInputStream stream = new FileInputStream(this.indexFile);
 	try {
 		int offset = ((Integer) arrayOffset).intValue();
@@ -763,6 +854,170 @@ synchronized int[] readDocumentNumbers(Object arrayOffset) throws IOException {
 		this.streamBuffer = null;
 	}
 }
+private IOException corruptedIndex(RuntimeException e) {
+	return new IOException("Corrupted index file " + this.indexFile, e); //$NON-NLS-1$
+}
+/*
+ * Answers a buffer on the mapping of the index file, positioned at the given offset, or null if the
+ * index file is not mapped (then it is read with a stream). The index file is mapped the first time.
+ * Must be called from a synchronized method, like #releaseMappedFile().
+ */
+private ByteBuffer mappedBuffer(int offset) throws IOException {
+	if (!MAP_INDEX_FILES || this.mappingFailed)
+		return null;
+	if (this.mappedFile == null) {
+		RandomAccessFile file = new RandomAccessFile(this.indexFile, "r"); //$NON-NLS-1$
+		try {
+			FileChannel channel = file.getChannel();
+			this.mappedFile = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		} catch (IOException e) {
+			// for example, not enough address space: keep reading with streams
+			if (DEBUG)
+				System.out.println("mappedBuffer - Failed to map " + this.indexFile); //$NON-NLS-1$
+			this.mappingFailed = true;
+			return null;
+		} finally {
+			file.close(); // the mapping remains valid
+		}
+	}
+	if (offset < 0 || offset > this.mappedFile.limit())
+		throw new IOException("Corrupted index file " + this.indexFile); //$NON-NLS-1$
+	ByteBuffer buffer = this.mappedFile.duplicate();
+	buffer.position(offset);
+	return buffer;
+}
+/**
+ * Releases the mapping of the index file, if any. Called when the index is saved (the file is replaced)
+ * or discarded. The file is mapped again if the index is read after that.
+ */
+synchronized void releaseMappedFile() {
+	if (this.mappedFile == null)
+		return;
+	MappedByteBuffer buffer = this.mappedFile;
+	this.mappedFile = null;
+	// there is no API to unmap a buffer before it is garbage collected, but until then the file cannot be
+	// deleted on some platforms, so use the cleaner of the buffer when the VM gives access to it
+	try {
+		Method cleanerMethod = buffer.getClass().getMethod("cleaner"); //$NON-NLS-1$
+		cleanerMethod.setAccessible(true);
+		Object cleaner = cleanerMethod.invoke(buffer);
+		if (cleaner != null)
+			cleaner.getClass().getMethod("clean").invoke(cleaner); //$NON-NLS-1$
+	} catch (Exception e) {
+		// the mapping is released when the buffer is garbage collected
+	}
+}
+private HashtableOfObject readMappedCategoryTable(ByteBuffer buffer, boolean readDocNumbers) throws IOException {
+	// same format than the one read by readCategoryTable(char[], boolean) with a stream
+	int size = buffer.getInt();
+	if (size < 0)
+		throw corruptedIndex(new IllegalArgumentException("size = " + size)); //$NON-NLS-1$
+	HashtableOfObject categoryTable = new HashtableOfObject(size);
+	int largeArraySize = 256;
+	for (int i = 0; i < size; i++) {
+		char[] word = readMappedChars(buffer);
+		int arrayOffset = buffer.getInt();
+		if (arrayOffset <= 0) {
+			categoryTable.put(word, new int[] {-arrayOffset}); // store 1 element array by negating documentNumber
+		} else if (arrayOffset < largeArraySize) {
+			categoryTable.put(word, readMappedDocumentArray(buffer, arrayOffset)); // read in-lined array providing size
+		} else {
+			arrayOffset = buffer.getInt(); // read actual offset
+			if (readDocNumbers) {
+				ByteBuffer arrayBuffer = mappedBuffer(arrayOffset);
+				categoryTable.put(word, readMappedDocumentArray(arrayBuffer, arrayBuffer.getInt()));
+			} else {
+				categoryTable.put(word, Integer.valueOf(arrayOffset)); // offset to array in the file
+			}
+		}
+	}
+	return categoryTable;
+}
+private void readMappedChunk(String[] docNames, ByteBuffer buffer, int index, int size) throws IOException {
+	// same format than the one read by readChunk(String[], FileInputStream, int, int)
+	String current = new String(readMappedChars(buffer));
+	docNames[index++] = current;
+	for (int i = 1; i < size; i++) {
+		int start = buffer.get() & 0xFF;
+		int end = buffer.get() & 0xFF;
+		String next  = new String(readMappedChars(buffer));
+		if (start > 0) {
+			if (end > 0) {
+				int length = current.length();
+				next = current.substring(0, start) + next + current.substring(length - end, length);
+			} else {
+				next = current.substring(0, start) + next;
+			}
+		} else if (end > 0) {
+			int length = current.length();
+			next = next + current.substring(length - end, length);
+		}
+		docNames[index++] = next;
+		current = next;
+	}
+}
+private static char[] readMappedChars(ByteBuffer buffer) throws IOException {
+	// same encoding than the one read by readStreamChars(FileInputStream)
+	int length = buffer.getShort() & 0xFFFF;
+	char[] word = new char[length];
+	for (int i = 0; i < length; i++) {
+		byte b = buffer.get();
+		switch (b & 0xF0) {
+			case 0x00 :
+			case 0x10 :
+			case 0x20 :
+			case 0x30 :
+			case 0x40 :
+			case 0x50 :
+			case 0x60 :
+			case 0x70 :
+				word[i] = (char) b;
+				break;
+			case 0xC0 :
+			case 0xD0 :
+				char next = (char) buffer.get();
+				if ((next & 0xC0) != 0x80) {
+					throw new UTFDataFormatException();
+				}
+				char ch = (char) ((b & 0x1F) << 6);
+				ch |= next & 0x3F;
+				word[i] = ch;
+				break;
+			case 0xE0 :
+				char first = (char) buffer.get();
+				char second = (char) buffer.get();
+				if ((first & second & 0xC0) != 0x80) {
+					throw new UTFDataFormatException();
+				}
+				ch = (char) ((b & 0x0F) << 12);
+				ch |= ((first& 0x3F) << 6);
+				ch |= second & 0x3F;
+				word[i] = ch;
+				break;
+			default:
+				throw new UTFDataFormatException();
+		}
+	}
+	return word;
+}
+private int[] readMappedDocumentArray(ByteBuffer buffer, int arraySize) {
+	int[] indexes = new int[arraySize];
+	switch (this.documentReferenceSize) {
+		case 1 :
+			for (int i = 0; i < arraySize; i++)
+				indexes[i] = buffer.get() & 0xFF;
+			break;
+		case 2 :
+			for (int i = 0; i < arraySize; i++)
+				indexes[i] = buffer.getShort() & 0xFFFF;
+			break;
+		default :
+			for (int i = 0; i < arraySize; i++)
+				indexes[i] = buffer.getInt();
+			break;
+	}
+	return indexes;
+}
 private void readHeaderInfo(RandomAccessFile file) throws IOException {
 	file.seek(this.headerInfoOffset);
 
@@ -125,6 +125,14 @@ public String containerRelativePath(String documentPath) {
 	}
 	return documentPath.substring(index + 1);
 }
+// arian
+/**
+ * Returns the names of the categories saved in the index file, the changes not saved yet are ignored.
+ */
+public char[][] getCategories() {
+	return this.diskIndex == null ? CharOperation.NO_CHAR_CHAR : this.diskIndex.getCategoryNames();
+}
+// ---
 public File getIndexFile() {
 	return this.diskIndex == null ? null : this.diskIndex.indexFile;
 }
@@ -186,6 +194,13 @@ public String[] queryDocumentNames(String substring) throws IOException {
 			documentNames[count++] = (String) paths[i];
 	return documentNames;
 }
+/**
+ * Releases the resources held by the index on its file (like its mapping), before the index is discarded.
+ */
+public void release() {
+	if (this.diskIndex != null)
+		this.diskIndex.releaseMappedFile();
+}
 public void remove(String containerRelativePath) {
 	this.memoryIndex.remove(containerRelativePath);
 }
@@ -217,6 +232,7 @@ public String toString() {
  */
 public void reset() throws IOException {
 	this.memoryIndex = new MemoryIndex();
+	this.diskIndex.releaseMappedFile();
 	this.diskIndex = new DiskIndex(this.diskIndex.indexFile.getAbsolutePath());
 	this.diskIndex.initialize(false/*do not reuse the index file*/);
 }
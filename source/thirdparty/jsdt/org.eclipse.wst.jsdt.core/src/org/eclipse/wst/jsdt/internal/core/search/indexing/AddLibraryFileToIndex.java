@@ -76,6 +76,12 @@ class AddLibraryFileToIndex extends IndexRequest {
 				return true;
 			}
 
+			// arian: the index of an external library file rebuilt by the manager may be in the store
+			if (this.absolutePath == null && this.inclusionPatterns == null && this.exclusionPatterns == null
+					&& this.manager.adoptStoredIndex(this.containerPath))
+				return true;
+			// ---
+
 			index = this.manager.getIndexForUpdate(this.containerPath, true, /*reuse index file*/ true /*create if none*/);
 			if (index == null) {
 				if (JobManager.VERBOSE)
@@ -218,6 +224,10 @@ class AddLibraryFileToIndex extends IndexRequest {
 				}
 
 				this.manager.saveIndex(index);
+				// arian: the next workspaces adopt the index of an external library file
+				if (this.absolutePath == null && this.inclusionPatterns == null && this.exclusionPatterns == null && file.isFile())
+					this.manager.storeLibraryIndex(file, index);
+				// ---
 				if (JobManager.VERBOSE)
 					org.eclipse.wst.jsdt.internal.core.util.Util.verbose("-> done indexing of " //$NON-NLS-1$
 						+ libraryFilePath.toString() + " (" //$NON-NLS-1$
@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (c) 2000, 2007 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.jsdt.internal.core.search.indexing;
+
+import java.util.ArrayList;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.wst.jsdt.core.search.SearchDocument;
+import org.eclipse.wst.jsdt.core.search.SearchParticipant;
+import org.eclipse.wst.jsdt.internal.compiler.SourceElementParser;
+import org.eclipse.wst.jsdt.internal.core.index.Index;
+import org.eclipse.wst.jsdt.internal.core.search.JavaSearchParticipant;
+import org.eclipse.wst.jsdt.internal.core.util.Util;
+
+/**
+ * Indexes a single document. When several of these requests are queued one after the
+ * other, the index manager parses their documents in parallel (see #collectEntries(SourceElementParser))
+ * and then stores the entries in the index (see #storeEntries(ArrayList)).
+ */
+class IndexDocumentRequest extends IndexRequest {
+	SearchDocument document;
+	IPath indexLocation;
+	SearchParticipant participant;
+
+	public IndexDocumentRequest(SearchDocument document, IPath containerPath, IPath indexLocation, SearchParticipant participant, IndexManager manager) {
+		super(containerPath, manager);
+		this.document = document;
+		this.indexLocation = indexLocation;
+		this.participant = participant;
+	}
+	public boolean execute(IProgressMonitor progressMonitor) {
+		if (this.isCancelled || progressMonitor != null && progressMonitor.isCanceled()) return true;
+
+		/* ensure no concurrent write access to index */
+		Index index = this.manager.getIndex(this.containerPath, this.indexLocation, true, /*reuse index file*/ true /*create if none*/);
+		if (index == null) return true;
+		ReadWriteMonitor monitor = index.monitor;
+		if (monitor == null) return true; // index got deleted since acquired
+
+		try {
+			monitor.enterWrite(); // ask permission to write
+			this.manager.indexDocument(this.document, this.participant, index, this.indexLocation);
+		} finally {
+			monitor.exitWrite(); // free write lock
+		}
+		return true;
+	}
+	/*
+	 * Answers whether the document can be parsed out of the index lock, on another thread.
+	 * Only the source documents parsed with the parser of their project (see AddFolderToIndex
+	 * and IndexAllProject) and the metadata documents qualify.
+	 */
+	boolean canCollectEntries() {
+		if (!(this.participant instanceof JavaSearchParticipant)) return false;
+		String documentPath = this.document.getPath();
+		if (Util.isJavaLikeFileName(documentPath))
+			return ((InternalSearchDocument) this.document).parser != null;
+		return Util.isMetadataFileName(documentPath);
+	}
+	/*
+	 * Parses the document with the given parser (instead of the shared parser of its project)
+	 * and answers its index entries, as a list of category and key pairs.
+	 * Does not access the index, so it can be called on any thread.
+	 */
+	ArrayList collectEntries(SourceElementParser parser) {
+		InternalSearchDocument internalDocument = (InternalSearchDocument) this.document;
+		SourceElementParser sharedParser = internalDocument.parser;
+		ArrayList entries = new ArrayList();
+		try {
+			internalDocument.collectedEntries = entries;
+			internalDocument.parser = parser;
+			this.participant.indexDocument(this.document, this.indexLocation);
+		} finally {
+			internalDocument.collectedEntries = null;
+			internalDocument.parser = sharedParser;
+		}
+		return entries;
+	}
+	/*
+	 * Replaces the entries of the document in the index by the given ones, answered by
+	 * #collectEntries(SourceElementParser).
+	 */
+	void storeEntries(ArrayList entries) {
+		if (this.isCancelled) return;
+
+		/* ensure no concurrent write access to index */
+		Index index = this.manager.getIndex(this.containerPath, this.indexLocation, true, /*reuse index file*/ true /*create if none*/);
+		if (index == null) return;
+		ReadWriteMonitor monitor = index.monitor;
+		if (monitor == null) return; // index got deleted since acquired
+
+		InternalSearchDocument internalDocument = (InternalSearchDocument) this.document;
+		try {
+			monitor.enterWrite(); // ask permission to write
+			internalDocument.index = index;
+			internalDocument.removeAllIndexEntries();
+			for (int i = 0, length = entries.size(); i < length; i += 2)
+				internalDocument.addIndexEntry((char[]) entries.get(i), (char[]) entries.get(i + 1));
+		} finally {
+			internalDocument.index = null;
+			monitor.exitWrite(); // free write lock
+		}
+	}
+	public String toString() {
+		return "indexing " + this.document.getPath(); //$NON-NLS-1$
+	}
+}
@@ -17,6 +17,12 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.zip.CRC32;
 
 import org.eclipse.core.filesystem.EFS;
@@ -28,7 +34,6 @@ import org.eclipse.core.resources.IWorkspace;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
-import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.Path;
 import org.eclipse.wst.jsdt.core.IIncludePathEntry;
 import org.eclipse.wst.jsdt.core.IJavaScriptProject;
@@ -42,6 +47,7 @@ import org.eclipse.wst.jsdt.core.search.SearchParticipant;
 import org.eclipse.wst.jsdt.internal.compiler.ISourceElementRequestor;
 import org.eclipse.wst.jsdt.internal.compiler.SourceElementParser;
 import org.eclipse.wst.jsdt.internal.compiler.impl.CompilerOptions;
+import org.eclipse.wst.jsdt.internal.compiler.parser.ParserPool;
 import org.eclipse.wst.jsdt.internal.compiler.problem.DefaultProblemFactory;
 import org.eclipse.wst.jsdt.internal.compiler.util.SimpleLookupTable;
 import org.eclipse.wst.jsdt.internal.compiler.util.SimpleSet;
@@ -82,6 +88,14 @@ public class IndexManager extends JobManager implements IIndexConstants {
 	public static Integer REBUILDING_STATE = Integer.valueOf(3);
 	private static final String INDEX_FILE_SUFFIX = ".index";
 
+	/* number of threads parsing the documents of a batch of IndexDocumentRequest, 1 to disable the parallel indexing */
+	public static int INDEXING_THREADS = Math.max(1, Integer.getInteger("org.eclipse.wst.jsdt.core.indexingThreads", //$NON-NLS-1$
+		Math.min(4, Runtime.getRuntime().availableProcessors())).intValue());
+	private ExecutorService indexingExecutor = null;
+
+	/* the indexes of the library files indexed by any workspace (see LibraryIndexStore) */
+	private LibraryIndexStore libraryIndexStore = null;
+
 
 public synchronized void aboutToUpdateIndex(IPath containerPath, Integer newIndexState) {
 	// newIndexState is either UPDATING_STATE or REBUILDING_STATE
@@ -195,14 +209,22 @@ public void ensureIndexExists(IPath indexLocation, IPath containerPath) {
 	}
 }
 public SourceElementParser getSourceElementParser(IJavaScriptProject project, ISourceElementRequestor requestor) {
+	return getSourceElementParser(new CompilerOptions(getSourceElementParserOptions(project)), requestor);
+}
+/*
+ * Answers the options of the parsers that index the documents of the given project.
+ */
+Map getSourceElementParserOptions(IJavaScriptProject project) {
 	// disable task tags to speed up parsing
 	Map options = project.getOptions(true);
 	options.put(JavaScriptCore.COMPILER_TASK_TAGS, ""); //$NON-NLS-1$
-
+	return options;
+}
+static SourceElementParser getSourceElementParser(CompilerOptions options, ISourceElementRequestor requestor) {
 	SourceElementParser parser = new IndexingParser(
 		requestor,
 		new DefaultProblemFactory(Locale.getDefault()),
-		new CompilerOptions(options),
+		options,
 		true, // index local declarations
 		true, // optimize string literals
 		false); // do not use source javadoc parser to speed up parsing
@@ -214,6 +236,109 @@ public SourceElementParser getSourceElementParser(IJavaScriptProject project, IS
 
 	return parser;
 }
+/*
+ * Parses the documents of the given request with a parser of the current indexing thread for the given options.
+ */
+static ArrayList collectEntries(IndexDocumentRequest request, CompilerOptions options) {
+	Object key = ParserPool.getKey(IndexingParser.class, options);
+	SourceElementParser parser = (SourceElementParser) ParserPool.acquire(key, null/*keep its reporter*/);
+	if (parser == null)
+		parser = getSourceElementParser(options, null/*requestor will be set by indexer*/);
+	try {
+		return request.collectEntries(parser);
+	} finally {
+		ParserPool.release(key, parser);
+	}
+}
+private synchronized ExecutorService getIndexingExecutor() {
+	if (this.indexingExecutor == null) {
+		this.indexingExecutor = Executors.newFixedThreadPool(INDEXING_THREADS, new ThreadFactory() {
+			private int count = 0;
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, processName() + " #" + (++this.count)); //$NON-NLS-1$
+				thread.setDaemon(true);
+				// same priority than the background indexer
+				thread.setPriority(Thread.NORM_PRIORITY-1);
+				return thread;
+			}
+		});
+	}
+	return this.indexingExecutor;
+}
+// arian
+synchronized LibraryIndexStore getLibraryIndexStore() {
+	if (this.libraryIndexStore == null) {
+		File directory = LibraryIndexStore.getDefaultDirectory();
+		if (directory == null) return null;
+		this.libraryIndexStore = new LibraryIndexStore(directory, LibraryIndexStore.getBundledDirectory(), LibraryIndexStore.getConfiguration());
+	}
+	return this.libraryIndexStore;
+}
+/*
+ * Writes the index of the given library file from the store, when it has the index of the same content,
+ * and records it as saved. Answers whether the library index is ready, then it does not need an indexing job.
+ * The library is hashed and the index is written without the monitor of the manager, the searches and the
+ * other jobs wait for it, so it must not be called by a synchronized method (see AddLibraryFileToIndex).
+ */
+boolean adoptStoredIndex(IPath containerPath) {
+	if (!LibraryIndexStore.ENABLED || JavaScriptCore.getPlugin() == null) return false;
+	File libraryFile = containerPath.toFile();
+	if (!Util.isJavaLikeFileName(libraryFile.getName()) || !libraryFile.isFile()) return false;
+	IPath indexLocation = computeIndexLocation(containerPath);
+	if (getIndex(indexLocation) != null) return false; // already in memory, the job does nothing
+	LibraryIndexStore store = getLibraryIndexStore();
+	if (store == null) return false;
+
+	String containerPathString = containerPath.getDevice() == null ? containerPath.toString() : containerPath.toOSString();
+	String indexLocationString = indexLocation.toOSString();
+	File indexFile = new File(indexLocationString);
+	File adoptedFile;
+	try {
+		// another thread may adopt the same library, each one writes its own file
+		adoptedFile = File.createTempFile("adopted", ".tmp", indexFile.getParentFile()); //$NON-NLS-1$ //$NON-NLS-2$
+	} catch (IOException e) {
+		return false;
+	}
+	if (!store.adopt(libraryFile, containerPathString, adoptedFile.getPath())) {
+		adoptedFile.delete();
+		return false;
+	}
+	synchronized (this) {
+		if (getIndex(indexLocation) != null) {
+			// indexed or adopted meanwhile
+			adoptedFile.delete();
+			return true;
+		}
+		indexFile.delete();
+		if (!adoptedFile.renameTo(indexFile)) {
+			adoptedFile.delete();
+			return false;
+		}
+		try {
+			Index index = new Index(indexLocationString, containerPathString, true /*reuse index file*/);
+			this.indexes.put(indexLocation, index);
+		} catch (IOException e) {
+			if (VERBOSE)
+				Util.verbose("-> cannot read the adopted index: "+indexLocationString+" path: "+containerPathString); //$NON-NLS-1$ //$NON-NLS-2$
+			return false;
+		}
+		if (VERBOSE)
+			Util.verbose("-> adopted the stored index of "+containerPathString); //$NON-NLS-1$
+		updateIndexState(indexLocation, SAVED_STATE);
+	}
+	return true;
+}
+/*
+ * Copies the index of the given library file to the store, after it was indexed.
+ */
+void storeLibraryIndex(File libraryFile, Index index) {
+	if (!LibraryIndexStore.ENABLED || JavaScriptCore.getPlugin() == null) return;
+	if (!Util.isJavaLikeFileName(libraryFile.getName())) return;
+	LibraryIndexStore store = getLibraryIndexStore();
+	if (store != null)
+		store.store(libraryFile, index);
+}
+// ---
 /**
  * Returns the index for a given project, according to the following algorithm:
  * - if index is already in memory: answers this one back
@@ -345,6 +470,55 @@ private SimpleLookupTable getIndexStates() {
 private File getSavedIndexesDirectory() {
 	return new File(getJavaPluginWorkingLocation().toOSString());
 }
+/*
+ * Parses the documents of the given requests on the threads of the executor, each thread using
+ * its own parser. Answers the future entries of each request (see IndexDocumentRequest#collectEntries(SourceElementParser)),
+ * null for the cancelled requests.
+ */
+static Future[] collectEntries(IndexDocumentRequest[] requests, ExecutorService executor) {
+	int length = requests.length;
+	Future[] results = new Future[length];
+	for (int i = 0; i < length; i++) {
+		final IndexDocumentRequest request = requests[i];
+		if (request.isCancelled) continue;
+		// the shared parser is only used by this thread, its options are used to create the parser of each indexing thread
+		SourceElementParser sharedParser = ((InternalSearchDocument) request.document).parser;
+		final CompilerOptions options = sharedParser == null ? null : sharedParser.problemReporter().options;
+		results[i] = executor.submit(new Callable() {
+			public Object call() {
+				return options == null ? request.collectEntries(null) : collectEntries(request, options);
+			}
+		});
+	}
+	return results;
+}
+/**
+ * Executes a batch of document indexing requests: the documents are parsed in parallel,
+ * and the entries of each document are stored in the index as soon as they are available.
+ */
+protected void executeJobs(IJob[] jobs) {
+	if (jobs.length == 1) {
+		super.executeJobs(jobs);
+		return;
+	}
+	IndexDocumentRequest[] requests = new IndexDocumentRequest[jobs.length];
+	System.arraycopy(jobs, 0, requests, 0, jobs.length);
+	Future[] results = collectEntries(requests, getIndexingExecutor());
+	for (int i = 0, length = requests.length; i < length; i++) {
+		if (results[i] == null) continue;
+		try {
+			requests[i].storeEntries((ArrayList) results[i].get());
+		} catch (ExecutionException e) {
+			Util.log(e.getCause(), "Error while indexing document " + requests[i].document.getPath()); //$NON-NLS-1$
+		} catch (InterruptedException e) {
+			// background indexing was interrupted, drop the rest of the batch
+			for (int j = i; j < length; j++)
+				if (results[j] != null)
+					results[j].cancel(true);
+			return;
+		}
+	}
+}
 public void indexDocument(SearchDocument searchDocument, SearchParticipant searchParticipant, Index index, IPath indexLocation) {
 	try {
 		((InternalSearchDocument) searchDocument).index = index;
@@ -400,8 +574,12 @@ public void indexLibrary(IIncludePathEntry entry, IProject requestingProject) {
 	}
 	else if (target instanceof IFile)
 		request = new AddLibraryFileToIndex((IFile) target, this);
-	else
+	else {
+		// arian
+		if (inclusionPatterns == null && exclusionPatterns == null && adoptStoredIndex(entry.getPath())) return;
+		// ---
 		request = new AddLibraryFileToIndex(entry.getPath(), inclusionPatterns, exclusionPatterns, this);
+	}
 
 	if (!isJobWaiting(request))
 		this.request(request);
@@ -459,6 +637,12 @@ public synchronized void jobWasCancelled(IPath containerPath) {
 	}
 	updateIndexState(indexLocation, UNKNOWN_STATE);
 }
+/**
+ * Document indexing requests are executed in batches when the parallel indexing is enabled.
+ */
+protected boolean isBatchJob(IJob job) {
+	return INDEXING_THREADS > 1 && job instanceof IndexDocumentRequest && ((IndexDocumentRequest) job).canCollectEntries();
+}
 /**
  * Advance to the next available job, once the current one has been completed.
  * Note: clients awaiting until the job count is zero are still waiting at this point.
@@ -524,6 +708,8 @@ public synchronized Index recreateIndex(IPath containerPath) {
 
 		if (VERBOSE)
 			Util.verbose("-> recreating index: "+indexLocation+" for path: "+containerPathString); //$NON-NLS-1$ //$NON-NLS-2$
+		if (index != null)
+			index.release();
 		index = new Index(indexLocation.toOSString(), containerPathString, false /*reuse index file*/);
 		this.indexes.put(indexLocation, index);
 		index.monitor = monitor;
@@ -556,6 +742,7 @@ public synchronized void removeIndex(IPath containerPath) {
 	File indexFile = null;
 	if (index != null) {
 		index.monitor = null;
+		index.release();
 		indexFile = index.getIndexFile();
 	}
 	if (indexFile == null)
@@ -581,6 +768,7 @@ public synchronized void removeIndexPath(IPath path) {
 		if (path.isPrefixOf(indexLocation)) {
 			Index index = (Index) valueTable[i];
 			index.monitor = null;
+			index.release();
 			if (locations == null)
 				locations = new IPath[max];
 			locations[count++] = indexLocation;
@@ -738,29 +926,17 @@ public void saveIndexes() {
 	}
 	this.needToSave = !allSaved;
 }
-public void scheduleDocumentIndexing(final SearchDocument searchDocument, IPath container, final IPath indexLocation, final SearchParticipant searchParticipant) {
-	request(new IndexRequest(container, this) {
-		public boolean execute(IProgressMonitor progressMonitor) {
-			if (this.isCancelled || progressMonitor != null && progressMonitor.isCanceled()) return true;
-
-			/* ensure no concurrent write access to index */
-			Index index = getIndex(this.containerPath, indexLocation, true, /*reuse index file*/ true /*create if none*/);
-			if (index == null) return true;
-			ReadWriteMonitor monitor = index.monitor;
-			if (monitor == null) return true; // index got deleted since acquired
-
-			try {
-				monitor.enterWrite(); // ask permission to write
-				indexDocument(searchDocument, searchParticipant, index, indexLocation);
-			} finally {
-				monitor.exitWrite(); // free write lock
-			}
-			return true;
-		}
-		public String toString() {
-			return "indexing " + searchDocument.getPath(); //$NON-NLS-1$
+public void scheduleDocumentIndexing(SearchDocument searchDocument, IPath container, IPath indexLocation, SearchParticipant searchParticipant) {
+	request(new IndexDocumentRequest(searchDocument, container, indexLocation, searchParticipant, this));
+}
+public void shutdown() {
+	super.shutdown();
+	synchronized (this) {
+		if (this.indexingExecutor != null) {
+			this.indexingExecutor.shutdownNow();
+			this.indexingExecutor = null;
 		}
-	});
+	}
 }
 
 public String toString() {
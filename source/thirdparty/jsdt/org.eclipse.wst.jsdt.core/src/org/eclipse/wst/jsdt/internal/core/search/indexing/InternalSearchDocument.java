@@ -10,6 +10,8 @@
  *******************************************************************************/
 package org.eclipse.wst.jsdt.internal.core.search.indexing;
 
+import java.util.ArrayList;
+
 import org.eclipse.wst.jsdt.internal.compiler.SourceElementParser;
 import org.eclipse.wst.jsdt.internal.core.index.Index;
 
@@ -20,11 +22,17 @@ public class InternalSearchDocument {
 	Index index;
 	private String containerRelativePath;
 	SourceElementParser parser;
+	/* when not null, the entries are collected here (category, key, category, key...) instead of
+	   being added to the index, to be stored later (see IndexManager#executeJobs(IJob[])) */
+	ArrayList collectedEntries;
 	/*
 	 * Hidden by API SearchDocument subclass
 	 */
 	public void addIndexEntry(char[] category, char[] key) {
-		if (this.index != null)
+		if (this.collectedEntries != null) {
+			this.collectedEntries.add(category);
+			this.collectedEntries.add(key);
+		} else if (this.index != null)
 			index.addIndexEntry(category, key, getContainerRelativePath());
 	}
 	private String getContainerRelativePath() {
@@ -36,7 +44,8 @@ public class InternalSearchDocument {
 	 * Hidden by API SearchDocument subclass
 	 */
 	public void removeAllIndexEntries() {
-		if (this.index != null)
+		// collected entries replace all the entries of the document when they are stored
+		if (this.collectedEntries == null && this.index != null)
 			index.remove(getContainerRelativePath());
 	}
 	/*
@@ -0,0 +1,284 @@
+/*******************************************************************************
+ * Copyright (c) 2000, 2007 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.wst.jsdt.internal.core.search.indexing;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.zip.CRC32;
+
+import org.eclipse.core.runtime.FileLocator;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.osgi.service.datalocation.Location;
+import org.eclipse.wst.jsdt.core.JavaScriptCore;
+import org.eclipse.wst.jsdt.core.infer.InferrenceManager;
+import org.eclipse.wst.jsdt.core.infer.InferrenceProvider;
+import org.eclipse.wst.jsdt.core.search.SearchPattern;
+import org.eclipse.wst.jsdt.internal.core.LibrarySnapshot;
+import org.eclipse.wst.jsdt.internal.core.index.EntryResult;
+import org.eclipse.wst.jsdt.internal.core.index.Index;
+import org.eclipse.wst.jsdt.internal.core.search.processing.JobManager;
+import org.eclipse.wst.jsdt.internal.core.util.Util;
+import org.osgi.framework.Bundle;
+
+/**
+ * Keeps a copy of the index of each library file, named by the content of the library, so a library
+ * that was indexed once (in any workspace of the installation) is not parsed and indexed again.
+ * <p>
+ * The index of a library file has a single document, named with the absolute path of the library,
+ * and the system libraries are copied to the state location of each workspace. So a stored index
+ * is not used as it is, its entries are copied to the index of the library, under the document name
+ * of the library that is indexed now (see #adopt()).
+ * <p>
+ * The stored files are named with the SHA-1 of the library content, the LibrarySnapshot.FORMAT_VERSION
+ * (the version of the parser and inference output) and a hash of the inference providers contributed to the
+ * platform (see #getConfiguration()), the format of the index file is checked when it is read.
+ * <p>
+ * The indexes of the system libraries can be shipped in the libraryIndexes folder of this bundle, so even
+ * the first workspace of an installation does not index them. They are read-only, a library without a
+ * shipped index is stored in the configuration area. To update them, run the workbench once with
+ * -Dorg.eclipse.wst.jsdt.core.libraryIndexStoreDirectory pointing to that folder.
+ */
+public class LibraryIndexStore {
+
+	public static boolean ENABLED = !"false".equals(System.getProperty("org.eclipse.wst.jsdt.core.libraryIndexStore")); //$NON-NLS-1$ //$NON-NLS-2$
+
+	/* The directory of the store, by default a folder of the configuration area, shared by the workspaces */
+	public static final String DIRECTORY_PROPERTY = "org.eclipse.wst.jsdt.core.libraryIndexStoreDirectory"; //$NON-NLS-1$
+
+	/* The folder of this bundle with the indexes of the system libraries */
+	public static final String BUNDLED_DIRECTORY = "libraryIndexes"; //$NON-NLS-1$
+
+	private static final String INDEX_FILE_SUFFIX = ".index"; //$NON-NLS-1$
+
+	private File directory;
+	private File bundledDirectory;
+	private String configuration;
+	private HashMap hashes; // library path -> ContentHash
+
+	private static class ContentHash {
+		long lastModified;
+		long length;
+		String digest;
+	}
+
+/**
+ * Creates a store that writes in the given directory, and also reads the given bundled directory
+ * (it may be null). The indexes are only adopted by a platform with the given configuration.
+ */
+public LibraryIndexStore(File directory, File bundledDirectory, String configuration) {
+	this.directory = directory;
+	this.bundledDirectory = bundledDirectory;
+	this.configuration = configuration;
+	this.hashes = new HashMap();
+}
+/**
+ * Answers the directory given by the org.eclipse.wst.jsdt.core.libraryIndexStoreDirectory system property,
+ * or the folder of the store in the configuration area, or null if there is no configuration area on disk.
+ */
+public static File getDefaultDirectory() {
+	String property = System.getProperty(DIRECTORY_PROPERTY);
+	if (property != null) return new File(property);
+
+	Location location = Platform.getConfigurationLocation();
+	URL url = location == null ? null : location.getURL();
+	if (url == null || !"file".equals(url.getProtocol())) return null; //$NON-NLS-1$
+	return new File(new File(url.getFile(), JavaScriptCore.PLUGIN_ID), "libraryIndexes"); //$NON-NLS-1$
+}
+/**
+ * Answers the folder of this bundle with the indexes of the system libraries, or null if the bundle
+ * does not have it.
+ */
+public static File getBundledDirectory() {
+	Bundle bundle = Platform.getBundle(JavaScriptCore.PLUGIN_ID);
+	URL url = bundle == null ? null : FileLocator.find(bundle, new Path(BUNDLED_DIRECTORY), null);
+	if (url == null) return null;
+	try {
+		return new File(FileLocator.toFileURL(url).getFile());
+	} catch (IOException e) {
+		if (JobManager.VERBOSE) {
+			Util.verbose("-> cannot read the bundled library indexes because of the following exception:"); //$NON-NLS-1$
+			e.printStackTrace();
+		}
+		return null;
+	}
+}
+/**
+ * Answers a hash of the inference providers contributed to the platform, they change the entries of
+ * the index of a library. Unlike LibrarySnapshot.getConfiguration(CompilerOptions), the options are
+ * not included, the library paths are in the state location of each workspace.
+ */
+public static String getConfiguration() {
+	StringBuffer buffer = new StringBuffer();
+	InferrenceProvider[] providers = InferrenceManager.getInstance().getInferenceProviders();
+	for (int i = 0; i < providers.length; i++)
+		buffer.append(providers[i].getID()).append(':').append(providers[i].getClass().getName()).append('\n');
+	CRC32 crc = new CRC32();
+	crc.update(buffer.toString().getBytes(StandardCharsets.UTF_8));
+	return Long.toHexString(crc.getValue());
+}
+/**
+ * Answers the stored index of the given library content, the bundled one if there is no index in
+ * the directory of the store. It may not exist.
+ */
+File getStoredIndexFile(File libraryFile) throws IOException {
+	String name = getDigest(libraryFile) + '.' + LibrarySnapshot.FORMAT_VERSION + '.' + this.configuration + INDEX_FILE_SUFFIX;
+	File storedFile = new File(this.directory, name);
+	if (!storedFile.isFile() && this.bundledDirectory != null) {
+		File bundledFile = new File(this.bundledDirectory, name);
+		if (bundledFile.isFile()) return bundledFile;
+	}
+	return storedFile;
+}
+private synchronized String getDigest(File libraryFile) throws IOException {
+	// the libraries are hashed once, until they are modified
+	String key = libraryFile.getAbsolutePath();
+	ContentHash hash = (ContentHash) this.hashes.get(key);
+	long lastModified = libraryFile.lastModified();
+	long length = libraryFile.length();
+	if (hash != null && hash.lastModified == lastModified && hash.length == length)
+		return hash.digest;
+
+	MessageDigest digest;
+	try {
+		digest = MessageDigest.getInstance("SHA-1"); //$NON-NLS-1$
+	} catch (NoSuchAlgorithmException e) {
+		throw new IOException(e.getMessage());
+	}
+	InputStream input = new FileInputStream(libraryFile);
+	try {
+		byte[] buffer = new byte[8192];
+		int read;
+		while ((read = input.read(buffer)) != -1)
+			digest.update(buffer, 0, read);
+	} finally {
+		input.close();
+	}
+	byte[] bytes = digest.digest();
+	StringBuffer buffer = new StringBuffer(bytes.length * 2);
+	for (int i = 0; i < bytes.length; i++) {
+		int b = bytes[i] & 0xFF;
+		if (b < 0x10) buffer.append('0');
+		buffer.append(Integer.toHexString(b));
+	}
+
+	hash = new ContentHash();
+	hash.lastModified = lastModified;
+	hash.length = length;
+	hash.digest = buffer.toString();
+	this.hashes.put(key, hash);
+	return hash.digest;
+}
+/**
+ * Writes the index of the given library file at the given location, from the stored index of the library content.
+ * Answers false, and writes nothing, if there is no stored index for the library content or it cannot be read.
+ */
+public boolean adopt(File libraryFile, String containerPath, String indexLocation) {
+	Index stored = null;
+	Index index = null;
+	try {
+		File storedFile = getStoredIndexFile(libraryFile);
+		if (!storedFile.isFile()) return false;
+
+		stored = new Index(storedFile.getPath(), containerPath, true /*reuse index file*/);
+		stored.startQuery();
+		String[] documentNames = stored.queryDocumentNames(null);
+		if (documentNames == null || documentNames.length != 1) return false;
+
+		// same document name than AddLibraryFileToIndex
+		index = new Index(indexLocation, containerPath, false /*do not reuse index file*/);
+		String documentName = index.containerRelativePath(new Path(libraryFile.getAbsolutePath()).toString());
+		char[][] categories = stored.getCategories();
+		for (int i = 0, l = categories.length; i < l; i++) {
+			EntryResult[] entries = stored.query(new char[][] {categories[i]}, null, SearchPattern.R_EXACT_MATCH | SearchPattern.R_CASE_SENSITIVE);
+			if (entries == null) continue;
+			for (int j = 0, m = entries.length; j < m; j++)
+				index.addIndexEntry(categories[i], entries[j].getWord(), documentName);
+		}
+		index.save();
+		index.release();
+		index = null;
+		return true;
+	} catch (IOException e) {
+		if (JobManager.VERBOSE) {
+			Util.verbose("-> failed to adopt the stored index of " + libraryFile + " because of the following exception:"); //$NON-NLS-1$ //$NON-NLS-2$
+			e.printStackTrace();
+		}
+		if (index != null) {
+			index.release();
+			new File(indexLocation).delete();
+		}
+		return false;
+	} finally {
+		if (stored != null) {
+			stored.stopQuery();
+			stored.release();
+		}
+	}
+}
+/**
+ * Copies the given index of the given library file to the store, if the library content is not stored yet.
+ * The index must be saved, and the sender must own its write lock.
+ */
+public void store(File libraryFile, Index index) {
+	File indexFile = index.getIndexFile();
+	if (indexFile == null || !indexFile.isFile()) return;
+
+	File tempFile = null;
+	try {
+		File storedFile = getStoredIndexFile(libraryFile);
+		if (storedFile.exists()) return;
+
+		String[] documentNames = index.queryDocumentNames(null);
+		if (documentNames == null || documentNames.length != 1) return;
+
+		if (!this.directory.isDirectory() && !this.directory.mkdirs()) return;
+		// the store is shared, so other processes only see complete files
+		tempFile = File.createTempFile("library", ".tmp", this.directory); //$NON-NLS-1$ //$NON-NLS-2$
+		InputStream input = new FileInputStream(indexFile);
+		try {
+			OutputStream output = new FileOutputStream(tempFile);
+			try {
+				byte[] buffer = new byte[8192];
+				int read;
+				while ((read = input.read(buffer)) != -1)
+					output.write(buffer, 0, read);
+			} finally {
+				output.close();
+			}
+		} finally {
+			input.close();
+		}
+		if (tempFile.renameTo(storedFile)) {
+			tempFile = null;
+			if (JobManager.VERBOSE)
+				Util.verbose("-> stored the index of " + libraryFile + " in " + storedFile); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	} catch (IOException e) {
+		if (JobManager.VERBOSE) {
+			Util.verbose("-> failed to store the index of " + libraryFile + " because of the following exception:"); //$NON-NLS-1$ //$NON-NLS-2$
+			e.printStackTrace();
+		}
+	} finally {
+		if (tempFile != null)
+			tempFile.delete();
+	}
+}
+}
@@ -15,6 +15,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.Enumeration;
+import java.util.Map;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
 import java.util.zip.ZipFile;
@@ -28,10 +29,13 @@ import org.eclipse.wst.jsdt.core.search.SearchDocument;
 import org.eclipse.wst.jsdt.core.search.SearchEngine;
 import org.eclipse.wst.jsdt.core.search.SearchParticipant;
 import org.eclipse.wst.jsdt.internal.compiler.SourceElementParser;
+import org.eclipse.wst.jsdt.internal.compiler.impl.CompilerOptions;
+import org.eclipse.wst.jsdt.internal.compiler.parser.ParserPool;
 import org.eclipse.wst.jsdt.internal.compiler.util.SuffixConstants;
 import org.eclipse.wst.jsdt.internal.compiler.util.Util;
 import org.eclipse.wst.jsdt.internal.core.BasicCompilationUnit;
 import org.eclipse.wst.jsdt.internal.core.JavaModelManager;
+import org.eclipse.wst.jsdt.internal.core.LibrarySnapshot;
 import org.eclipse.wst.jsdt.internal.core.Logger;
 import org.eclipse.wst.jsdt.internal.core.index.Index;
 import org.eclipse.wst.jsdt.internal.core.search.JavaSearchDocument;
@@ -58,19 +62,9 @@ public class SourceIndexer extends AbstractIndexer implements SuffixConstants {
 		super(document);
 	}
 	public void indexDocument() {
-		// Create a new Parser
 		SourceIndexerRequestor requestor = new SourceIndexerRequestor(this);
 		String documentPath = this.document.getPath();
-		SourceElementParser parser = ((InternalSearchDocument) this.document).parser;
-		if (parser == null) {
-			IPath path = new Path(documentPath);
-			IProject project = ResourcesPlugin.getWorkspace().getRoot().getProject(path.segment(0));
-			parser = JavaModelManager.getJavaModelManager().indexManager.getSourceElementParser(JavaScriptCore.create(project), requestor);
-		} else {
-			parser.setRequestor(requestor);
-		}
 
-		// Launch the parser
 		char[] source = null;
 		char[] name = null;
 		try {
@@ -80,6 +74,41 @@ public class SourceIndexer extends AbstractIndexer implements SuffixConstants {
 			// ignore
 		}
 		if (source == null || name == null) return; // could not retrieve document info (e.g. resource was discarded)
+
+		// Create a new Parser
+		SourceElementParser parser = ((InternalSearchDocument) this.document).parser;
+		Object parserKey = null;
+		if (parser == null) {
+			IPath path = new Path(documentPath);
+			IProject project = ResourcesPlugin.getWorkspace().getRoot().getProject(path.segment(0));
+			// reuse the parser released by the previous document of this thread with the same options
+			Map options = JavaModelManager.getJavaModelManager().indexManager.getSourceElementParserOptions(JavaScriptCore.create(project));
+			parserKey = ParserPool.getKey(IndexingParser.class, options);
+			parser = (SourceElementParser) ParserPool.acquire(parserKey, null/*keep its reporter*/);
+			if (parser == null)
+				parser = IndexManager.getSourceElementParser(new CompilerOptions(options), requestor);
+			else
+				parser.setRequestor(requestor);
+		} else {
+			parser.setRequestor(requestor);
+		}
+
+		// system libraries are replayed from their snapshot, when it is up to date
+		File snapshotFile = LibrarySnapshot.getSnapshotFile(documentPath, LibrarySnapshot.INDEX);
+		long configuration = 0;
+		LibrarySnapshot snapshot = null;
+		if (snapshotFile != null) {
+			configuration = LibrarySnapshot.getConfiguration(parser.problemReporter().options);
+			if (LibrarySnapshot.replay(snapshotFile, LibrarySnapshot.INDEX, configuration, source, requestor)) {
+				if (parserKey != null)
+					ParserPool.release(parserKey, parser);
+				return;
+			}
+			snapshot = new LibrarySnapshot(requestor);
+			parser.setRequestor(snapshot);
+		}
+
+		// Launch the parser
 		String pkgName=((JavaSearchDocument)document).getPackageName();
 		char [][]packageName=null;
 		if (pkgName!=null)
@@ -89,9 +118,13 @@ public class SourceIndexer extends AbstractIndexer implements SuffixConstants {
 		}
 		BasicCompilationUnit compilationUnit = new BasicCompilationUnit(source, packageName, new String(name));
 		try {
-			parser.parseCompilationUnit(compilationUnit, true/*full parse*/);
+			if (parser.parseCompilationUnit(compilationUnit, true/*full parse*/) != null && snapshot != null)
+				snapshot.save(snapshotFile, LibrarySnapshot.INDEX, configuration, source);
 		} catch (Exception e) {
 			Logger.logException("Error while indexing document", e);
+		} finally {
+			if (parserKey != null)
+				ParserPool.release(parserKey, parser);
 		}
 	}
 	public void indexMetadata() {
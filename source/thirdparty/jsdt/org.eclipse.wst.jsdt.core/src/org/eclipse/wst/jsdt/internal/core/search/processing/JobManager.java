@@ -41,6 +41,9 @@ public abstract class JobManager implements Runnable {
 
 	private int awaitingClients = 0;
 
+	/* maximum number of jobs executed in a single batch, see #currentJobs(int) */
+	protected static final int MAX_BATCH_SIZE = 64;
+
 	/**
 	 * Invoked exactly once, in background, before starting processing any job
 	 */
@@ -87,14 +90,16 @@ public abstract class JobManager implements Runnable {
 			if (currentJob != null && (jobFamily == null || currentJob.belongsTo(jobFamily))) {
 				currentJob.cancel();
 
-				// wait until current active job has finished
-				while (this.processingThread != null && this.executing){
-					try {
-						if (VERBOSE)
-							Util.verbose("-> waiting end of current background job - " + currentJob); //$NON-NLS-1$
-						Thread.sleep(50);
-					} catch(InterruptedException e){
-						// ignore
+				// wait until current active job has finished (the background thread notifies it)
+				synchronized(this) {
+					while (this.processingThread != null && this.executing){
+						try {
+							if (VERBOSE)
+								Util.verbose("-> waiting end of current background job - " + currentJob); //$NON-NLS-1$
+							this.wait(100);
+						} catch(InterruptedException e){
+							// ignore
+						}
 					}
 				}
 			}
@@ -130,6 +135,39 @@ public abstract class JobManager implements Runnable {
 			Util.verbose("ENABLING  background indexing"); //$NON-NLS-1$
 		this.notifyAll(); // wake up the background thread if it is waiting (context must be synchronized)
 	}
+	/**
+	 * Answers the jobs at the head of the queue that can be executed together in
+	 * a single batch, starting with the current job (see #executeJobs(IJob[])).
+	 * Answers null if there is no job available.
+	 */
+	protected synchronized IJob[] currentJobs(int maxCount) {
+		IJob job = currentJob();
+		if (job == null)
+			return null;
+		int count = 1;
+		if (isBatchJob(job)) {
+			while (count < maxCount && this.jobStart + count <= this.jobEnd && isBatchJob(this.awaitingJobs[this.jobStart + count]))
+				count++;
+		}
+		IJob[] jobs = new IJob[count];
+		System.arraycopy(this.awaitingJobs, this.jobStart, jobs, 0, count);
+		return jobs;
+	}
+	/**
+	 * Executes the given jobs, answered by #currentJobs(int). By default the jobs
+	 * are executed one after the other.
+	 */
+	protected void executeJobs(IJob[] jobs) {
+		for (int i = 0, length = jobs.length; i < length; i++)
+			jobs[i].execute(null);
+	}
+	/**
+	 * Answers whether the given job can be executed in a batch with its neighbours.
+	 * By default jobs are executed one by one.
+	 */
+	protected boolean isBatchJob(IJob job) {
+		return false;
+	}
 	public synchronized boolean isJobWaiting(IJob request) {
 		for (int i = this.jobEnd; i > this.jobStart; i--) // don't check job at jobStart, as it may have already started
 			if (request.equals(this.awaitingJobs[i])) return true;
@@ -150,6 +188,16 @@ public abstract class JobManager implements Runnable {
 			}
 		}
 	}
+	/**
+	 * Advance past the given jobs, once they have been completed. A job that is not
+	 * at the head of the queue anymore (ie. it was discarded) is ignored.
+	 */
+	protected synchronized void moveToNextJobs(IJob[] jobs) {
+		for (int i = 0, length = jobs.length; i < length; i++) {
+			if (this.jobStart <= this.jobEnd && this.awaitingJobs[this.jobStart] == jobs[i])
+				moveToNextJob();
+		}
+	}
 	/**
 	 * When idle, give chance to do something
 	 */
@@ -259,7 +307,11 @@ public abstract class JobManager implements Runnable {
 									try {
 										if (VERBOSE)
 											Util.verbose("-> GOING TO SLEEP - " + searchJob);//$NON-NLS-1$
-										Thread.sleep(50);
+										// woken up as soon as a job completes, the timeout is there to check the cancellation
+										synchronized(this) {
+											if (currentJob == currentJob())
+												this.wait(100);
+										}
 									} catch (InterruptedException e) {
 										// ignore
 									}
@@ -353,6 +405,7 @@ public abstract class JobManager implements Runnable {
 			while (this.processingThread != null) {
 				try {
 					IJob job;
+					IJob[] jobs = null;
 					synchronized (this) {
 						// handle shutdown case when notifyAll came before the wait but after the while loop was entered
 						if (this.processingThread == null) continue;
@@ -370,6 +423,7 @@ public abstract class JobManager implements Runnable {
 							this.wait(); // wait until a new job is posted (or reenabled:38901)
 						} else {
 							idlingStart = -1;
+							jobs = currentJobs(MAX_BATCH_SIZE);
 						}
 					}
 					if (job == null) {
@@ -381,6 +435,8 @@ public abstract class JobManager implements Runnable {
 					if (VERBOSE) {
 						Util.verbose(awaitingJobsCount() + " awaiting jobs"); //$NON-NLS-1$
 						Util.verbose("STARTING background job - " + job); //$NON-NLS-1$
+						if (jobs.length > 1)
+							Util.verbose("-> with " + (jobs.length - 1) + " more jobs of the batch"); //$NON-NLS-1$ //$NON-NLS-2$
 					}
 					try {
 						this.executing = true;
@@ -390,15 +446,18 @@ public abstract class JobManager implements Runnable {
 							this.progressJob.setSystem(true);
 							this.progressJob.schedule();
 						}
-						/*boolean status = */job.execute(null);
+						executeJobs(jobs);
 						//if (status == FAILED) request(job);
 					} finally {
-						this.executing = false;
-						if (VERBOSE)
-							Util.verbose("FINISHED background job - " + job); //$NON-NLS-1$
-						moveToNextJob();
+						synchronized (this) {
+							this.executing = false;
+							if (VERBOSE)
+								Util.verbose("FINISHED background job - " + job); //$NON-NLS-1$
+							moveToNextJobs(jobs);
+							this.notifyAll(); // wake up the clients waiting for the job completion
+						}
 						if (this.awaitingClients == 0)
-							Thread.sleep(50);
+							Thread.yield();
 					}
 				} catch (InterruptedException e) { // background indexing was interrupted
 				}
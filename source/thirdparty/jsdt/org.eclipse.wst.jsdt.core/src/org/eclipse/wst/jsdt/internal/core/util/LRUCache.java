@@ -124,6 +124,14 @@ public class LRUCache implements Cloneable {
 	 * Default amount of space in the cache
 	 */
 	protected static final int DEFAULT_SPACELIMIT = 100;
+
+	// arian
+	/**
+	 * Number of lookups (see <code>#get(Object)</code>) that found and did not find their entry,
+	 * and number of entries removed to make space
+	 */
+	protected long fHits, fMisses, fEvictions;
+	// ---
 	/**
 	 * Creates a new cache.  Size of cache is defined by
 	 * <code>DEFAULT_SPACELIMIT</code>.
@@ -205,9 +213,11 @@ public class LRUCache implements Cloneable {
 
 		LRUCacheEntry entry = (LRUCacheEntry) fEntryTable.get(key);
 		if (entry == null) {
+			fMisses++; // arian
 			return null;
 		}
 
+		fHits++; // arian
 		this.updateTimestamp (entry);
 		return entry._fValue;
 	}
@@ -223,6 +233,26 @@ public class LRUCache implements Cloneable {
 	public int getSpaceLimit() {
 		return fSpaceLimit;
 	}
+	// arian
+	/**
+	 * Returns the number of lookups that found their entry.
+	 */
+	public long getHits() {
+		return fHits;
+	}
+	/**
+	 * Returns the number of lookups that did not find their entry.
+	 */
+	public long getMisses() {
+		return fMisses;
+	}
+	/**
+	 * Returns the number of entries removed to make space for others.
+	 */
+	public long getEvictions() {
+		return fEvictions;
+	}
+	// ---
 	/**
 	 * Returns an Enumeration of the keys currently in the cache.
 	 */
@@ -283,6 +313,7 @@ public class LRUCache implements Cloneable {
 		/* Free up space by removing oldest entries */
 		while (fCurrentSpace + space > limit && fEntryQueueTail != null) {
 			this.privateRemoveEntry (fEntryQueueTail, false);
+			fEvictions++; // arian
 		}
 		return true;
 	}